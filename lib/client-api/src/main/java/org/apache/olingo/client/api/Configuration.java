@@ -114,6 +114,21 @@ public interface Configuration {
    */
   void setHttpClientFactory(HttpClientFactory factory);
 
+  /**
+   * Checks whether requests are executed via a shared pool of persistent HTTP connections.
+   *
+   * @return whether HTTP connection pooling is enabled
+   */
+  boolean isConnectionPooling();
+
+  /**
+   * Sets HTTP connection pooling enabled or disabled: when enabled, the HttpClient factory is replaced by one sharing
+   * a bounded pool of keep-alive connections across requests; when disabled, such pool is shut down.
+   *
+   * @param value whether to use HTTP connection pooling.
+   */
+  void setConnectionPooling(boolean value);
+
   /**
    * Gets the HttpUriRequest factory for generating requests to be executed.
    *
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request;
+
+import java.util.concurrent.Future;
+
+/**
+ * <tt>Future</tt> allowing to react on completion without blocking.
+ * <br/>
+ * Cancelling a running request (with <tt>mayInterruptIfRunning</tt> set) aborts the underlying HTTP request and
+ * releases its connection.
+ *
+ * @param <T> result type.
+ */
+public interface ODataFuture<T> extends Future<T> {
+
+  /**
+   * Registers a callback, invoked by the thread completing this future or immediately (by the calling thread) if
+   * this future is already completed.
+   *
+   * @param callback callback.
+   * @return this future.
+   */
+  ODataFuture<T> addCallback(ODataCallback<? super T> callback);
+
+  /**
+   * Gets a future completed with the result of the given transformer applied to the result of this future, or failed
+   * with the same cause as this future. Cancelling the returned future cancels this future as well.
+   *
+   * @param <V> target type.
+   * @param transformer transformer.
+   * @return derived future.
+   */
+  <V> ODataFuture<V> then(ODataTransformer<? super T, V> transformer);
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.domain;
+
+import org.apache.olingo.client.api.CommonODataClient;
+import org.apache.olingo.client.api.communication.header.ODataPreferences;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.commons.api.domain.CommonODataEntity;
+import org.apache.olingo.commons.api.domain.CommonODataEntitySet;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Iterator over all the entities of an entity set, transparently following next links.
+ * <br/>
+ * Pages are fetched in background, via the executor of the client configuration: while the current page is being
+ * consumed, up to <tt>prefetchDepth</tt> following pages are read ahead, so that the network is not idle while the
+ * caller processes entities.
+ * <br/>
+ * <b>Please don't forget to call the <tt>close()</tt> method when not consuming all entities.</b>
+ *
+ * @param <E> concrete ODataEntity implementation
+ * @param <ES> concrete ODataEntitySet implementation
+ */
+public class ODataEntitySetPagingIterator<ES extends CommonODataEntitySet, E extends CommonODataEntity>
+        implements Iterator<E> {
+
+  private static final class Page<E> {
+
+    private final List<E> entities;
+
+    private final boolean last;
+
+    private final Throwable error;
+
+    private Page(final List<E> entities, final boolean last, final Throwable error) {
+      this.entities = entities;
+      this.last = last;
+      this.error = error;
+    }
+  }
+
+  private final CommonODataClient<?> odataClient;
+
+  private final BlockingQueue<Page<E>> pages;
+
+  private final Future<?> fetcher;
+
+  private Iterator<E> current = Collections.<E> emptyList().iterator();
+
+  private boolean last = false;
+
+  /**
+   * Constructor: starts fetching pages in background.
+   *
+   * @param odataClient client instance getting the request
+   * @param request request for the first page; its headers are sent with the requests for the following pages, too.
+   * @param prefetchDepth maximum number of pages fetched ahead of the one being consumed (at least 1).
+   * @param maxPageSize maximum page size requested via <tt>Prefer: odata.maxpagesize</tt> (OData 4.0 only); no
+   * preference is sent if not positive.
+   */
+  public ODataEntitySetPagingIterator(final CommonODataClient<?> odataClient,
+          final ODataEntitySetIteratorRequest<ES, E> request, final int prefetchDepth, final int maxPageSize) {
+
+    if (prefetchDepth < 1) {
+      throw new IllegalArgumentException("Prefetch depth must be at least 1");
+    }
+    this.odataClient = odataClient;
+    // the fetcher holds one more page while waiting to queue it
+    this.pages = prefetchDepth == 1
+            ? new SynchronousQueue<Page<E>>()
+            : new ArrayBlockingQueue<Page<E>>(prefetchDepth - 1);
+
+    if (maxPageSize > 0) {
+      request.setPrefer(new ODataPreferences(odataClient.getServiceVersion()).maxPageSize(maxPageSize));
+    }
+
+    fetcher = odataClient.getConfiguration().getExecutor().submit(new Runnable() {
+
+      @Override
+      public void run() {
+        fetch(request);
+      }
+    });
+  }
+
+  private void fetch(final ODataEntitySetIteratorRequest<ES, E> first) {
+    ODataEntitySetIteratorRequest<ES, E> request = first;
+    try {
+      while (request != null && !Thread.currentThread().isInterrupted()) {
+        final List<E> entities = new ArrayList<E>();
+        URI next;
+        final ODataRetrieveResponse<ODataEntitySetIterator<ES, E>> res = request.execute();
+        try {
+          final ODataEntitySetIterator<ES, E> iterator = res.getBody();
+          while (iterator.hasNext()) {
+            entities.add(iterator.next());
+          }
+          next = iterator.getNext();
+        } finally {
+          res.close();
+        }
+
+        pages.put(new Page<E>(entities, next == null, null));
+        request = next == null ? null : nextRequest(first, request.getURI().resolve(next));
+      }
+    } catch (InterruptedException e) {
+      // closed by the consumer
+    } catch (Throwable e) {
+      // errors, too, are handed over: the consumer would otherwise wait forever
+      try {
+        pages.put(new Page<E>(Collections.<E> emptyList(), true, e));
+      } catch (InterruptedException ie) {
+        // closed by the consumer
+      }
+    }
+  }
+
+  private ODataEntitySetIteratorRequest<ES, E> nextRequest(
+          final ODataEntitySetIteratorRequest<ES, E> first, final URI next) {
+
+    final ODataEntitySetIteratorRequest<ES, E> request =
+            odataClient.getRetrieveRequestFactory().<ES, E> getEntitySetIteratorRequest(next);
+    for (String name : first.getHeaderNames()) {
+      request.addCustomHeader(name, first.getHeader(name));
+    }
+    return request;
+  }
+
+  /**
+   * {@inheritDoc }
+   */
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext() && !last) {
+      final Page<E> page;
+      try {
+        page = pages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+      if (page.error != null) {
+        last = true;
+        if (page.error instanceof Error) {
+          throw (Error) page.error;
+        }
+        throw (RuntimeException) page.error;
+      }
+      current = page.entities.iterator();
+      last = page.last;
+    }
+
+    return current.hasNext();
+  }
+
+  /**
+   * {@inheritDoc }
+   */
+  @Override
+  public E next() {
+    if (hasNext()) {
+      return current.next();
+    }
+
+    throw new NoSuchElementException("No entity found");
+  }
+
+  /**
+   * Unsupported operation.
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Operation not supported");
+  }
+
+  /**
+   * Stops fetching pages in background and discards pages read ahead.
+   */
+  public void close() {
+    last = true;
+    current = Collections.<E> emptyList().iterator();
+    fetcher.cancel(true);
+    pages.clear();
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.domain;
+
+import org.apache.olingo.client.api.CommonODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.uri.CommonFilterFactory;
+import org.apache.olingo.client.api.uri.CommonURIBuilder;
+import org.apache.olingo.commons.api.domain.CommonODataEntity;
+import org.apache.olingo.commons.api.domain.CommonODataEntitySet;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk extraction of an entity set, partitioned either by key range (<tt>$filter</tt>) or by <tt>$skip</tt> windows
+ * when keys are opaque; partitions are fetched in parallel, via the executor of the client configuration.
+ * <br/>
+ * At most <tt>maxConcurrency</tt> partitions are fetched or held at a time; each partition is read completely
+ * (following next links) and retried as a whole up to <tt>maxRetries</tt> times.
+ * <br/>
+ * <b>Please don't forget to call the <tt>close()</tt> method of the returned iterators when not consuming all
+ * entities.</b>
+ *
+ * @param <E> concrete ODataEntity implementation
+ * @param <ES> concrete ODataEntitySet implementation
+ */
+public class ODataEntitySetPartitionFetcher<ES extends CommonODataEntitySet, E extends CommonODataEntity> {
+
+  private final CommonODataClient<?> odataClient;
+
+  private final String serviceRoot;
+
+  private final String entitySetName;
+
+  private final int maxConcurrency;
+
+  private final int maxRetries;
+
+  /**
+   * Constructor.
+   *
+   * @param odataClient client instance getting the requests
+   * @param serviceRoot service root URI
+   * @param entitySetName name of the entity set to be fetched
+   * @param maxConcurrency maximum number of partitions fetched in parallel (at least 1).
+   * @param maxRetries maximum number of times a failed partition is fetched again.
+   */
+  public ODataEntitySetPartitionFetcher(final CommonODataClient<?> odataClient, final String serviceRoot,
+          final String entitySetName, final int maxConcurrency, final int maxRetries) {
+
+    if (maxConcurrency < 1 || maxRetries < 0) {
+      throw new IllegalArgumentException("Invalid concurrency or retries");
+    }
+    this.odataClient = odataClient;
+    this.serviceRoot = serviceRoot;
+    this.entitySetName = entitySetName;
+    this.maxConcurrency = maxConcurrency;
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * Fetches entities with integer key in the given range, split into the given number of sub-ranges.
+   *
+   * @param keyProperty name of the key property
+   * @param from lowest key (inclusive)
+   * @param to highest key (exclusive)
+   * @param partitions number of partitions
+   * @param ordered whether to return entities in key order; otherwise partitions are returned as soon as available.
+   * @return iterator over the entities.
+   */
+  public PartitionIterator fetchByKeyRange(final String keyProperty, final long from, final long to,
+          final int partitions, final boolean ordered) {
+
+    if (partitions < 1 || to <= from) {
+      throw new IllegalArgumentException("Invalid key range or number of partitions");
+    }
+    final CommonFilterFactory filterFactory = odataClient.getFilterFactory();
+    final List<URI> uris = new ArrayList<URI>();
+    // the range may be wider than a long can hold
+    final BigInteger end = BigInteger.valueOf(to);
+    final BigInteger count = BigInteger.valueOf(partitions);
+    final BigInteger size = end.subtract(BigInteger.valueOf(from)).add(count).subtract(BigInteger.ONE).divide(count);
+    for (BigInteger lower = BigInteger.valueOf(from); lower.compareTo(end) < 0; lower = lower.add(size)) {
+      final BigInteger upper = lower.add(size).min(end);
+      uris.add(newURIBuilder()
+              .filter(filterFactory.and(filterFactory.ge(keyProperty, lower.longValue()),
+                      filterFactory.lt(keyProperty, upper.longValue())))
+              .orderBy(keyProperty)
+              .build());
+    }
+    return new PartitionIterator(uris, ordered);
+  }
+
+  /**
+   * Fetches the given number of entities via <tt>$skip</tt> / <tt>$top</tt> windows of the given size.
+   *
+   * @param orderBy <tt>$orderby</tt> expression giving a stable order (e.g. the key properties)
+   * @param count number of entities, e.g. as returned by <tt>$count</tt>
+   * @param windowSize number of entities per partition
+   * @param ordered whether to return entities in the given order; otherwise partitions are returned as soon as
+   * available.
+   * @return iterator over the entities.
+   */
+  public PartitionIterator fetchBySkipWindows(final String orderBy, final int count, final int windowSize,
+          final boolean ordered) {
+
+    if (windowSize < 1 || count < 0) {
+      throw new IllegalArgumentException("Invalid count or window size");
+    }
+    final List<URI> uris = new ArrayList<URI>();
+    for (int skip = 0; skip < count; skip += windowSize) {
+      uris.add(newURIBuilder().orderBy(orderBy).skip(skip).top(Math.min(windowSize, count - skip)).build());
+    }
+    return new PartitionIterator(uris, ordered);
+  }
+
+  private CommonURIBuilder<?> newURIBuilder() {
+    return odataClient.newURIBuilder(serviceRoot).appendEntitySetSegment(entitySetName);
+  }
+
+  private List<E> fetch(final URI uri) {
+    RuntimeException failure = null;
+    for (int attempt = 0; attempt <= maxRetries && !Thread.currentThread().isInterrupted(); attempt++) {
+      try {
+        return fetchAll(uri);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+    throw failure == null ? new IllegalStateException("Interrupted while fetching " + uri) : failure;
+  }
+
+  private List<E> fetchAll(final URI uri) {
+    final List<E> entities = new ArrayList<E>();
+    URI next = uri;
+    while (next != null) {
+      final ODataEntitySetIteratorRequest<ES, E> request =
+              odataClient.getRetrieveRequestFactory().<ES, E> getEntitySetIteratorRequest(next);
+      final ODataRetrieveResponse<ODataEntitySetIterator<ES, E>> res = request.execute();
+      try {
+        final ODataEntitySetIterator<ES, E> iterator = res.getBody();
+        while (iterator.hasNext()) {
+          entities.add(iterator.next());
+        }
+        next = iterator.getNext() == null ? null : next.resolve(iterator.getNext());
+      } finally {
+        res.close();
+      }
+    }
+    return entities;
+  }
+
+  /**
+   * Iterator over the entities of all partitions.
+   */
+  public class PartitionIterator implements Iterator<E> {
+
+    private final Iterator<URI> partitions;
+
+    private final boolean ordered;
+
+    private final ExecutorService executor;
+
+    private final CompletionService<List<E>> completionService;
+
+    private final Queue<Future<List<E>>> running = new LinkedList<Future<List<E>>>();
+
+    private Iterator<E> current = Collections.<E> emptyList().iterator();
+
+    private PartitionIterator(final List<URI> partitions, final boolean ordered) {
+      this.partitions = partitions.iterator();
+      this.ordered = ordered;
+      executor = odataClient.getConfiguration().getExecutor();
+      completionService = new ExecutorCompletionService<List<E>>(executor);
+
+      while (running.size() < maxConcurrency && this.partitions.hasNext()) {
+        submit();
+      }
+    }
+
+    private void submit() {
+      final URI uri = partitions.next();
+      final Callable<List<E>> task = new Callable<List<E>>() {
+
+        @Override
+        public List<E> call() {
+          return fetch(uri);
+        }
+      };
+      // completion order is only needed when not preserving the partition order
+      running.add(ordered ? executor.submit(task) : completionService.submit(task));
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext() && !running.isEmpty()) {
+        final Future<List<E>> future;
+        try {
+          future = ordered ? running.peek() : completionService.take();
+          running.remove(future);
+          current = future.get().iterator();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          close();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          close();
+          throw e.getCause() instanceof RuntimeException
+                  ? (RuntimeException) e.getCause()
+                  : new IllegalStateException(e.getCause());
+        }
+
+        if (partitions.hasNext()) {
+          submit();
+        }
+      }
+
+      return current.hasNext();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public E next() {
+      if (hasNext()) {
+        return current.next();
+      }
+
+      throw new NoSuchElementException("No entity found");
+    }
+
+    /**
+     * Unsupported operation.
+     */
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Operation not supported");
+    }
+
+    /**
+     * Cancels the partitions being fetched and skips the remaining ones.
+     */
+    public void close() {
+      for (Future<List<E>> future : running) {
+        future.cancel(true);
+      }
+      running.clear();
+      while (partitions.hasNext()) {
+        partitions.next();
+      }
+      current = Collections.<E> emptyList().iterator();
+    }
+  }
+}
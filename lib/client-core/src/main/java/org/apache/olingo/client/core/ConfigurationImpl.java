@@ -23,6 +23,7 @@ import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
 import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
 import org.apache.olingo.client.core.http.DefaultHttpUriRequestFactory;
+import org.apache.olingo.client.core.http.PoolingHttpClientFactory;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.format.ODataFormat;
 
@@ -138,9 +139,29 @@ public class ConfigurationImpl implements Configuration {
 
   @Override
   public void setHttpClientFactory(final HttpClientFactory factory) {
+    final Object current = getProperty(HTTP_CLIENT_FACTORY, null);
+    if (current instanceof PoolingHttpClientFactory && current != factory) {
+      ((PoolingHttpClientFactory) current).shutdown();
+    }
     setProperty(HTTP_CLIENT_FACTORY, factory);
   }
 
+  @Override
+  public boolean isConnectionPooling() {
+    return getProperty(HTTP_CLIENT_FACTORY, null) instanceof PoolingHttpClientFactory;
+  }
+
+  @Override
+  public void setConnectionPooling(final boolean value) {
+    final Object current = getProperty(HTTP_CLIENT_FACTORY, null);
+    if (value && !(current instanceof PoolingHttpClientFactory)) {
+      setProperty(HTTP_CLIENT_FACTORY, new PoolingHttpClientFactory());
+    } else if (!value && current instanceof PoolingHttpClientFactory) {
+      ((PoolingHttpClientFactory) current).shutdown();
+      CONF.remove(HTTP_CLIENT_FACTORY);
+    }
+  }
+
   @Override
   public HttpUriRequestFactory getHttpUriRequestFactory() {
     return (HttpUriRequestFactory) getProperty(HTTP_URI_REQUEST_FACTORY, new DefaultHttpUriRequestFactory());
@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.CommonODataClient;
 import org.apache.olingo.client.api.ODataBatchConstants;
 import org.apache.olingo.client.api.communication.request.ODataBasicRequest;
+import org.apache.olingo.client.api.communication.request.ODataFuture;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.request.batch.CommonODataBatchRequest;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
@@ -33,7 +34,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 
 /**
  * Basic request abstract implementation.
@@ -64,13 +64,35 @@ public abstract class AbstractODataBasicRequest<T extends ODataResponse>
   }
 
   @Override
-  public final Future<T> asyncExecute() {
-    return odataClient.getConfiguration().getExecutor().submit(new Callable<T>() {
+  public final ODataFuture<T> asyncExecute() {
+    final ODataFutureImpl<T> future = new ODataFutureImpl<T>(new Callable<T>() {
       @Override
       public T call() throws Exception {
         return execute();
       }
-    });
+    }) {
+
+      @Override
+      protected void set(final T response) {
+        super.set(response);
+        if (isCancelled() && response != null) {
+          // cancelled after execute() had returned: nobody will get the response, so its connection is released here
+          response.close();
+        }
+      }
+
+      @Override
+      public boolean cancel(final boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning) {
+          // unblocks the executing thread and releases the connection
+          request.abort();
+        }
+        return cancelled;
+      }
+    };
+    odataClient.getConfiguration().getExecutor().execute(future);
+    return future;
   }
 
   /**
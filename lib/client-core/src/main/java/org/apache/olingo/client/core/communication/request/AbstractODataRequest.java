@@ -26,6 +26,7 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.DecompressingHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.apache.olingo.client.api.CommonODataClient;
 import org.apache.olingo.client.api.communication.header.HeaderName;
 import org.apache.olingo.client.api.communication.header.ODataHeaders;
@@ -323,6 +324,11 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     try {
       checkResponse(odataClient, response, getAccept());
     } catch (ODataRuntimeException e) {
+      if (odataClient.getConfiguration().isConnectionPooling()) {
+        EntityUtils.consumeQuietly(response.getEntity());
+      } else {
+        request.abort();
+      }
       odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
       throw e;
     }
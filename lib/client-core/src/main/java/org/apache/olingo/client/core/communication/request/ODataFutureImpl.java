@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import org.apache.olingo.client.api.communication.request.ODataCallback;
+import org.apache.olingo.client.api.communication.request.ODataFuture;
+import org.apache.olingo.client.api.communication.request.ODataTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <tt>FutureTask</tt> based implementation of {@link ODataFuture}.
+ *
+ * @param <T> result type.
+ */
+public class ODataFutureImpl<T> extends FutureTask<T> implements ODataFuture<T> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ODataFutureImpl.class);
+
+  private final List<ODataCallback<? super T>> callbacks = new ArrayList<ODataCallback<? super T>>();
+
+  private boolean completed = false;
+
+  public ODataFutureImpl(final Callable<T> callable) {
+    super(callable);
+  }
+
+  @Override
+  public ODataFuture<T> addCallback(final ODataCallback<? super T> callback) {
+    synchronized (callbacks) {
+      if (!completed) {
+        callbacks.add(callback);
+        return this;
+      }
+    }
+    notify(callback);
+    return this;
+  }
+
+  @Override
+  public <V> ODataFuture<V> then(final ODataTransformer<? super T, V> transformer) {
+    final ODataFutureImpl<V> derived = new ODataFutureImpl<V>(new Callable<V>() {
+
+      @Override
+      public V call() {
+        throw new IllegalStateException("Derived futures are completed by their source");
+      }
+    }) {
+
+      @Override
+      public boolean cancel(final boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+          ODataFutureImpl.this.cancel(mayInterruptIfRunning);
+        }
+        return cancelled;
+      }
+    };
+
+    addCallback(new ODataCallback<T>() {
+
+      @Override
+      public void onSuccess(final T result) {
+        try {
+          derived.set(transformer.apply(result));
+        } catch (Exception e) {
+          derived.setException(e);
+        }
+      }
+
+      @Override
+      public void onFailure(final Throwable cause) {
+        if (cause instanceof CancellationException) {
+          derived.cancel(false);
+        } else {
+          derived.setException(cause);
+        }
+      }
+    });
+
+    return derived;
+  }
+
+  @Override
+  protected void done() {
+    final List<ODataCallback<? super T>> toNotify;
+    synchronized (callbacks) {
+      completed = true;
+      toNotify = new ArrayList<ODataCallback<? super T>>(callbacks);
+      callbacks.clear();
+    }
+    for (ODataCallback<? super T> callback : toNotify) {
+      notify(callback);
+    }
+  }
+
+  private void notify(final ODataCallback<? super T> callback) {
+    T result;
+    try {
+      result = get();
+    } catch (ExecutionException e) {
+      notifyFailure(callback, e.getCause());
+      return;
+    } catch (CancellationException e) {
+      notifyFailure(callback, e);
+      return;
+    } catch (InterruptedException e) {
+      // cannot happen: the future is already completed
+      Thread.currentThread().interrupt();
+      notifyFailure(callback, e);
+      return;
+    }
+
+    try {
+      callback.onSuccess(result);
+    } catch (RuntimeException e) {
+      LOG.error("Error notifying callback", e);
+    }
+  }
+
+  private void notifyFailure(final ODataCallback<? super T> callback, final Throwable cause) {
+    try {
+      callback.onFailure(cause);
+    } catch (RuntimeException e) {
+      LOG.error("Error notifying callback", e);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.util.EntityUtils;
 import org.apache.olingo.client.api.CommonODataClient;
 import org.apache.olingo.client.api.communication.header.HeaderName;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
@@ -280,6 +281,11 @@ public abstract class AbstractODataResponse implements ODataResponse {
    */
   @Override
   public void close() {
+    // pooled connections are reused, so drain what is left of the body;
+    // otherwise the factory shuts the connection down without reading it
+    if (res != null && odataClient.getConfiguration().isConnectionPooling()) {
+      EntityUtils.consumeQuietly(res.getEntity());
+    }
     odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
 
     if (batchInfo != null) {
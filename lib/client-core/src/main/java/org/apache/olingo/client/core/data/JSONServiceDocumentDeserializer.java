@@ -18,10 +18,8 @@
  */
 package org.apache.olingo.client.core.data;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.data.ServiceDocument;
@@ -30,6 +28,7 @@ import org.apache.olingo.commons.api.data.ResWrap;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.core.serialization.JsonDeserializer;
+import org.apache.olingo.commons.core.serialization.JsonFactoryRegistry;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -93,7 +92,7 @@ public class JSONServiceDocumentDeserializer extends JsonDeserializer {
 
   public ResWrap<ServiceDocument> toServiceDocument(final InputStream input) throws ODataDeserializerException {
     try {
-      JsonParser parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      JsonParser parser = JsonFactoryRegistry.createParser(input);
       return doDeserialize(parser);
     } catch (final IOException e) {
       throw new ODataDeserializerException(e);
@@ -44,9 +44,9 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
 
   private final List<? extends Schema> xmlSchemas;
 
-  private Map<String, EdmProperty> properties;
+  private volatile Map<String, EdmProperty> properties;
 
-  private Map<String, EdmNavigationProperty> navigationProperties;
+  private volatile Map<String, EdmNavigationProperty> navigationProperties;
 
   public EdmStructuredTypeHelperImpl(final Edm edm, final FullQualifiedName structuredTypeName,
           final List<? extends Schema> xmlSchemas, final ComplexType complexType) {
@@ -60,10 +60,12 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
   @Override
   public Map<String, EdmProperty> getProperties() {
     if (properties == null) {
-      properties = new LinkedHashMap<String, EdmProperty>();
+      // built locally and published only once complete, so that concurrent readers never see a partial map
+      final Map<String, EdmProperty> properties = new LinkedHashMap<String, EdmProperty>();
       for (CommonProperty property : complexType.getProperties()) {
         properties.put(property.getName(), new EdmPropertyImpl(edm, structuredTypeName, property));
       }
+      this.properties = properties;
     }
     return properties;
   }
@@ -71,7 +73,8 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
   @Override
   public Map<String, EdmNavigationProperty> getNavigationProperties() {
     if (navigationProperties == null) {
-      navigationProperties = new LinkedHashMap<String, EdmNavigationProperty>();
+      final Map<String, EdmNavigationProperty> navigationProperties =
+          new LinkedHashMap<String, EdmNavigationProperty>();
       for (CommonNavigationProperty navigationProperty : complexType.getNavigationProperties()) {
         if (navigationProperty instanceof org.apache.olingo.client.api.edm.xml.v4.NavigationProperty) {
           navigationProperties.put(navigationProperty.getName(), new EdmNavigationPropertyImpl(
@@ -83,6 +86,7 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
                   (org.apache.olingo.client.api.edm.xml.v3.NavigationProperty) navigationProperty));
         }
       }
+      this.navigationProperties = navigationProperties;
     }
     return navigationProperties;
   }
@@ -49,11 +49,13 @@ public class EdmNavigationPropertyProxy extends AbstractEdmNavigationProperty {
 
   private final boolean isNullable;
 
-  private EdmNavigationProperty partner;
+  private final String partnerRole;
+
+  private volatile EdmNavigationProperty partner;
 
   private final ReferentialConstraint constraint;
 
-  private List<EdmReferentialConstraint> referentialConstraints;
+  private volatile List<EdmReferentialConstraint> referentialConstraints;
 
   public EdmNavigationPropertyProxy(final Edm edm, final List<? extends Schema> xmlSchemas,
           final NavigationProperty navigationProperty) {
@@ -94,15 +96,7 @@ public class EdmNavigationPropertyProxy extends AbstractEdmNavigationProperty {
     isCollection = "*".equals(thisEnd.getMultiplicity());
     isNullable = thisEnd.getMultiplicity().charAt(0) == '0';
     constraint = association.getReferentialConstraint();
-
-    final EdmEntityType partnerEntity = edm.getEntityType(new FullQualifiedName(thisEnd.getType()));
-    for (String navPropName : partnerEntity.getNavigationPropertyNames()) {
-      final EdmNavigationPropertyProxy navProp =
-              (EdmNavigationPropertyProxy) partnerEntity.getNavigationProperty(navPropName);
-      if (partnerEnd.getRole().equals(navProp.getXMLNavigationProperty().getToRole())) {
-        partner = navProp;
-      }
-    }
+    partnerRole = partnerEnd.getRole();
   }
 
   protected NavigationProperty getXMLNavigationProperty() {
@@ -122,7 +116,22 @@ public class EdmNavigationPropertyProxy extends AbstractEdmNavigationProperty {
 
   @Override
   public EdmNavigationProperty getPartner() {
-    return partner == null ? this : partner;
+    // resolved on first use: doing it while the declaring type loads its navigation properties would recurse
+    // into the partner type, which may itself be loading
+    EdmNavigationProperty result = partner;
+    if (result == null) {
+      result = this;
+      final EdmEntityType partnerEntity = edm.getEntityType(typeFQN);
+      for (String navPropName : partnerEntity.getNavigationPropertyNames()) {
+        final EdmNavigationPropertyProxy navProp =
+                (EdmNavigationPropertyProxy) partnerEntity.getNavigationProperty(navPropName);
+        if (partnerRole.equals(navProp.getXMLNavigationProperty().getToRole())) {
+          result = navProp;
+        }
+      }
+      partner = result;
+    }
+    return result;
   }
 
   @Override
@@ -155,7 +164,7 @@ public class EdmNavigationPropertyProxy extends AbstractEdmNavigationProperty {
   @Override
   public List<EdmReferentialConstraint> getReferentialConstraints() {
     if (referentialConstraints == null) {
-      referentialConstraints = new ArrayList<EdmReferentialConstraint>();
+      final List<EdmReferentialConstraint> referentialConstraints = new ArrayList<EdmReferentialConstraint>();
       if (constraint != null) {
         for (int i = 0; i < constraint.getPrincipal().getPropertyRefs().size(); i++) {
           final ReferentialConstraintImpl referentialConstraint = new ReferentialConstraintImpl();
@@ -164,6 +173,7 @@ public class EdmNavigationPropertyProxy extends AbstractEdmNavigationProperty {
           referentialConstraints.add(new EdmReferentialConstraintImpl(edm, referentialConstraint));
         }
       }
+      this.referentialConstraints = referentialConstraints;
     }
     return referentialConstraints;
   }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.olingo.client.api.http.HttpMethod;
+
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation returning HttpClients which share a single, bounded pool of persistent connections.
+ * <br/>
+ * Connections are kept alive as long as the server allows (capped by the configured keep-alive time) and are
+ * returned to the pool when the response has been consumed; connections idle for longer than the keep-alive time
+ * are evicted by a background daemon thread. Call {@link #shutdown()} to release all pooled connections.
+ */
+public class PoolingHttpClientFactory extends AbstractHttpClientFactory {
+
+  public static final int DEFAULT_MAX_TOTAL = 200;
+
+  public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+  private final PoolingClientConnectionManager connectionManager;
+
+  private final long keepAliveMillis;
+
+  private final ScheduledExecutorService evictor;
+
+  public PoolingHttpClientFactory() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_KEEP_ALIVE_MILLIS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxTotal maximum number of pooled connections.
+   * @param maxPerRoute maximum number of pooled connections for a single route (i.e. target host).
+   * @param keepAliveMillis maximum time, in milliseconds, a connection is kept alive while idle.
+   */
+  public PoolingHttpClientFactory(final int maxTotal, final int maxPerRoute, final long keepAliveMillis) {
+    if (maxTotal <= 0 || maxPerRoute <= 0 || keepAliveMillis <= 0) {
+      throw new IllegalArgumentException("Pool sizes and keep-alive time must be positive");
+    }
+
+    this.keepAliveMillis = keepAliveMillis;
+    connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(Math.min(maxPerRoute, maxTotal));
+
+    evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "olingo-connection-evictor");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    evictor.scheduleWithFixedDelay(new Runnable() {
+
+      @Override
+      public void run() {
+        evictIdleConnections();
+      }
+    }, keepAliveMillis, keepAliveMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public DefaultHttpClient create(final HttpMethod method, final URI uri) {
+    final DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+    client.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
+    client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+
+      @Override
+      public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final long duration = super.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+      }
+    });
+    return client;
+  }
+
+  /**
+   * Does not shut the shared connection pool down: the connection used by the given client is given back to the
+   * pool once its response has been consumed.
+   *
+   * @param httpClient HttpClient instance.
+   */
+  @Override
+  public void close(final HttpClient httpClient) {
+    // connections are owned by the shared pool
+  }
+
+  /**
+   * Closes expired connections and connections idle for longer than the keep-alive time.
+   */
+  public void evictIdleConnections() {
+    connectionManager.closeExpiredConnections();
+    connectionManager.closeIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Gets statistics (leased, pending, available and maximum number of connections) about the whole pool.
+   *
+   * @return pool statistics.
+   */
+  public PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * Gets statistics (leased, pending, available and maximum number of connections) about the given route.
+   *
+   * @param route route.
+   * @return route statistics.
+   */
+  public PoolStats getStats(final HttpRoute route) {
+    return connectionManager.getStats(route);
+  }
+
+  /**
+   * Stops idle connection eviction and closes all pooled connections; clients created afterwards are unusable.
+   */
+  public void shutdown() {
+    evictor.shutdownNow();
+    connectionManager.shutdown();
+  }
+}
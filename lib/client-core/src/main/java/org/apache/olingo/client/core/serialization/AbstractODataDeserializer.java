@@ -37,6 +37,7 @@ import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.format.ODataFormat;
 import org.apache.olingo.commons.api.serialization.ODataDeserializer;
 import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.serialization.ODataEntitySetReader;
 import org.apache.olingo.commons.core.serialization.AtomDeserializer;
 import org.apache.olingo.commons.core.serialization.JsonDeserializer;
 
@@ -63,6 +64,10 @@ public abstract class AbstractODataDeserializer {
     return deserializer.toEntitySet(input);
   }
 
+  public ODataEntitySetReader toEntitySetReader(final InputStream input) throws ODataDeserializerException {
+    return deserializer.toEntitySetReader(input);
+  }
+
   public ResWrap<Entity> toEntity(final InputStream input) throws ODataDeserializerException {
     return deserializer.toEntity(input);
   }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.http.HttpMethod;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.format.ODataFormat;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class AbstractODataBasicRequestTest {
+
+  /**
+   * Request whose execution blocks until released, regardless of interruption.
+   */
+  private static class BlockingRequest extends AbstractODataBasicRequest<ODataResponse> {
+
+    private final CountDownLatch executing = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ODataResponse response = mock(ODataResponse.class);
+
+    BlockingRequest() {
+      super(ODataClientFactory.getV4(), HttpMethod.GET, URI.create("http://host/service/People"));
+    }
+
+    @Override
+    public ODataFormat getDefaultFormat() {
+      return ODataFormat.JSON;
+    }
+
+    @Override
+    protected InputStream getPayload() {
+      return null;
+    }
+
+    @Override
+    public ODataResponse execute() {
+      executing.countDown();
+      boolean released = false;
+      while (!released) {
+        try {
+          released = release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          // keeps blocking, like a response which has already been received
+        }
+      }
+      return response;
+    }
+  }
+
+  @Test
+  public void responseReturnedAfterCancelIsClosed() throws Exception {
+    final BlockingRequest request = new BlockingRequest();
+    final Future<ODataResponse> future = request.asyncExecute();
+    assertTrue(request.executing.await(10, TimeUnit.SECONDS));
+
+    assertTrue(future.cancel(false));
+    request.release.countDown();
+
+    verify(request.response, timeout(10000)).close();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import org.apache.olingo.client.api.communication.request.ODataCallback;
+import org.apache.olingo.client.api.communication.request.ODataFuture;
+import org.apache.olingo.client.api.communication.request.ODataTransformer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ODataFutureImplTest {
+
+  private static class RecordingCallback implements ODataCallback<Object> {
+
+    private final List<Object> events = new ArrayList<Object>();
+
+    @Override
+    public void onSuccess(final Object result) {
+      events.add(result);
+    }
+
+    @Override
+    public void onFailure(final Throwable cause) {
+      events.add(cause);
+    }
+  }
+
+  private static ODataFutureImpl<Integer> future(final Callable<Integer> callable) {
+    return new ODataFutureImpl<Integer>(callable);
+  }
+
+  @Test
+  public void callbacksBeforeAndAfterCompletion() throws Exception {
+    final ODataFutureImpl<Integer> future = future(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 42;
+      }
+    });
+    final RecordingCallback before = new RecordingCallback();
+    future.addCallback(before);
+    assertTrue(before.events.isEmpty());
+
+    future.run();
+    assertEquals(1, before.events.size());
+    assertEquals(42, before.events.get(0));
+
+    final RecordingCallback after = new RecordingCallback();
+    future.addCallback(after);
+    assertEquals(1, after.events.size());
+    assertEquals(42, after.events.get(0));
+  }
+
+  @Test
+  public void failure() throws Exception {
+    final IllegalStateException exception = new IllegalStateException();
+    final ODataFutureImpl<Integer> future = future(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        throw exception;
+      }
+    });
+    final RecordingCallback callback = new RecordingCallback();
+    future.addCallback(callback);
+    future.run();
+    assertEquals(1, callback.events.size());
+    assertTrue(callback.events.get(0) == exception);
+  }
+
+  @Test
+  public void then() throws Exception {
+    final ODataFutureImpl<Integer> future = future(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 20;
+      }
+    });
+    final ODataFuture<String> derived = future.then(new ODataTransformer<Integer, String>() {
+      @Override
+      public String apply(final Integer result) {
+        return "#" + (result + 1);
+      }
+    });
+    assertTrue(!derived.isDone());
+
+    future.run();
+    assertEquals("#21", derived.get());
+  }
+
+  @Test
+  public void thenWithFailingTransformer() throws Exception {
+    final ODataFutureImpl<Integer> future = future(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 1;
+      }
+    });
+    final ODataFuture<Integer> derived = future.then(new ODataTransformer<Integer, Integer>() {
+      @Override
+      public Integer apply(final Integer result) throws Exception {
+        throw new IllegalArgumentException("transformer");
+      }
+    });
+    future.run();
+    try {
+      derived.get();
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertEquals("transformer", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void cancellationPropagates() throws Exception {
+    final ODataFutureImpl<Integer> future = future(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 1;
+      }
+    });
+    final RecordingCallback callback = new RecordingCallback();
+    future.addCallback(callback);
+    final ODataFuture<Integer> derived = future.then(new ODataTransformer<Integer, Integer>() {
+      @Override
+      public Integer apply(final Integer result) {
+        return result;
+      }
+    });
+
+    assertTrue(derived.cancel(true));
+    assertTrue(future.isCancelled());
+    assertEquals(1, callback.events.size());
+    assertTrue(callback.events.get(0) instanceof CancellationException);
+
+    // a cancelled task is never executed
+    future.run();
+    assertTrue(derived.isCancelled());
+  }
+}
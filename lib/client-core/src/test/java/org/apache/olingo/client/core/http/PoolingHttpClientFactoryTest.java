@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import org.apache.olingo.client.api.communication.response.ODataRawResponse;
+import org.apache.olingo.client.api.http.HttpMethod;
+import org.apache.olingo.client.api.v4.ODataClient;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PoolingHttpClientFactoryTest {
+
+  private HttpServer server;
+
+  private String serviceRoot;
+
+  private ODataClient client;
+
+  private PoolingHttpClientFactory factory;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/ok", new Responder(200, "{\"value\":[]}"));
+    server.createContext("/missing", new Responder(404, "{\"error\":{\"code\":null,\"message\":\"Not found\"}}"));
+    server.start();
+    serviceRoot = "http://localhost:" + server.getAddress().getPort();
+
+    client = ODataClientFactory.getV4();
+    client.getConfiguration().setConnectionPooling(true);
+    factory = (PoolingHttpClientFactory) client.getConfiguration().getHttpClientFactory();
+  }
+
+  @After
+  public void tearDown() {
+    client.getConfiguration().setConnectionPooling(false);
+    server.stop(0);
+  }
+
+  @Test
+  public void connectionReturnsToPoolOnClose() {
+    final ODataRawResponse response =
+        client.getRetrieveRequestFactory().getRawRequest(URI.create(serviceRoot + "/ok")).execute();
+    assertEquals(200, response.getStatusCode());
+    assertEquals(1, factory.getTotalStats().getLeased());
+
+    response.close();
+    assertEquals(0, factory.getTotalStats().getLeased());
+    assertEquals(1, factory.getTotalStats().getAvailable());
+
+    // the pooled connection is reused by the next request
+    client.getRetrieveRequestFactory().getRawRequest(URI.create(serviceRoot + "/ok")).execute().close();
+    assertEquals(0, factory.getTotalStats().getLeased());
+    assertEquals(1, factory.getTotalStats().getAvailable());
+  }
+
+  @Test
+  public void connectionReturnsToPoolOnErrorResponse() {
+    try {
+      client.getRetrieveRequestFactory().getRawRequest(URI.create(serviceRoot + "/missing")).execute();
+      fail("Expected an exception for the error response");
+    } catch (final ODataClientErrorException e) {
+      assertEquals(404, e.getStatusLine().getStatusCode());
+    }
+    assertEquals(0, factory.getTotalStats().getLeased());
+    assertEquals(1, factory.getTotalStats().getAvailable());
+  }
+
+  @Test
+  public void disablingPoolingShutsPoolDown() throws IOException {
+    client.getRetrieveRequestFactory().getRawRequest(URI.create(serviceRoot + "/ok")).execute().close();
+    assertEquals(1, factory.getTotalStats().getAvailable());
+
+    client.getConfiguration().setConnectionPooling(false);
+    assertFalse(client.getConfiguration().isConnectionPooling());
+    assertNotSame(factory, client.getConfiguration().getHttpClientFactory());
+    assertEquals(0, factory.getTotalStats().getAvailable());
+    try {
+      factory.create(HttpMethod.GET, URI.create(serviceRoot + "/ok")).execute(new HttpGet(serviceRoot + "/ok"));
+      fail("Expected the pool to be shut down");
+    } catch (final IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("shut down"));
+    }
+  }
+
+  @Test
+  public void replacingFactoryShutsPoolDown() throws IOException {
+    client.getRetrieveRequestFactory().getRawRequest(URI.create(serviceRoot + "/ok")).execute().close();
+    assertEquals(1, factory.getTotalStats().getAvailable());
+
+    client.getConfiguration().setHttpClientFactory(new DefaultHttpClientFactory());
+    assertFalse(client.getConfiguration().isConnectionPooling());
+    assertEquals(0, factory.getTotalStats().getAvailable());
+  }
+
+  private static class Responder implements HttpHandler {
+
+    private final int status;
+
+    private final byte[] body;
+
+    Responder(final int status, final String body) {
+      this.status = status;
+      this.body = body.getBytes();
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      final OutputStream output = exchange.getResponseBody();
+      output.write(body);
+      output.close();
+    }
+  }
+}
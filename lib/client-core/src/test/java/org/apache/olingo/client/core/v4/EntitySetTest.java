@@ -18,23 +18,51 @@
  */
 package org.apache.olingo.client.core.v4;
 
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.communication.request.retrieve.v4.RetrieveRequestFactory;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.domain.ODataEntitySetIterator;
+import org.apache.olingo.client.api.domain.ODataEntitySetPagingIterator;
+import org.apache.olingo.client.api.domain.ODataEntitySetPartitionFetcher;
+import org.apache.olingo.client.api.uri.v4.URIBuilder;
 import org.apache.olingo.client.api.v4.ODataClient;
 import org.apache.olingo.client.core.AbstractTest;
+import org.apache.olingo.client.core.ConfigurationImpl;
 import org.apache.olingo.commons.api.data.EntitySet;
 import org.apache.olingo.commons.api.data.ResWrap;
 import org.apache.olingo.commons.api.domain.v4.ODataEntity;
 import org.apache.olingo.commons.api.domain.v4.ODataEntitySet;
+import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.format.ODataFormat;
 import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class EntitySetTest extends AbstractTest {
 
@@ -92,4 +120,233 @@ public class EntitySetTest extends AbstractTest {
   public void jsonRef() throws Exception {
     ref(ODataFormat.JSON);
   }
+
+  private void iterate(final ODataFormat format) throws ODataDeserializerException {
+    final ODataEntitySet entitySet = getClient().getBinder().getODataEntitySet(getClient().getDeserializer(format)
+            .toEntitySet(getClass().getResourceAsStream("Customers." + getSuffix(format))));
+
+    final ODataEntitySetIterator<ODataEntitySet, ODataEntity> iterator =
+            new ODataEntitySetIterator<ODataEntitySet, ODataEntity>(
+                    getClient(), getClass().getResourceAsStream("Customers." + getSuffix(format)), format);
+    final Iterator<ODataEntity> expected = entitySet.getEntities().iterator();
+    while (iterator.hasNext()) {
+      assertEquals(expected.next(), iterator.next());
+    }
+    assertFalse(expected.hasNext());
+    assertNull(iterator.getNext());
+  }
+
+  @Test
+  public void atomIterator() throws Exception {
+    iterate(ODataFormat.ATOM);
+  }
+
+  @Test
+  public void jsonIterator() throws Exception {
+    iterate(ODataFormat.JSON);
+  }
+
+  @Test
+  public void jsonIteratorWithBracesInStrings() throws Exception {
+    final String json = "{\"@odata.context\":\"http://host/service/$metadata#Customers\","
+            + "\"value\":[{\"PersonID\":1,\"FirstName\":\"{Bob}}\"},{\"PersonID\":2,\"FirstName\":\"[\"}],"
+            + "\"@odata.nextLink\":\"http://host/service/Customers?$skiptoken=2\"}";
+    final ODataEntitySetIterator<ODataEntitySet, ODataEntity> iterator =
+            new ODataEntitySetIterator<ODataEntitySet, ODataEntity>(
+                    getClient(), new ByteArrayInputStream(json.getBytes("UTF-8")), ODataFormat.JSON);
+
+    assertEquals("{Bob}}", iterator.next().getProperty("FirstName").getPrimitiveValue().toString());
+    assertEquals("[", iterator.next().getProperty("FirstName").getPrimitiveValue().toString());
+    assertFalse(iterator.hasNext());
+    assertEquals(URI.create("http://host/service/Customers?$skiptoken=2"), iterator.getNext());
+  }
+
+  @SuppressWarnings("unchecked")
+  private ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> pageRequest(final URI uri, final String json)
+          throws Exception {
+
+    final ODataRetrieveResponse<ODataEntitySetIterator<ODataEntitySet, ODataEntity>> response =
+            mock(ODataRetrieveResponse.class);
+    when(response.getBody()).thenReturn(new ODataEntitySetIterator<ODataEntitySet, ODataEntity>(
+            getClient(), new ByteArrayInputStream(json.getBytes("UTF-8")), ODataFormat.JSON));
+
+    final ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> request =
+            mock(ODataEntitySetIteratorRequest.class);
+    when(request.getURI()).thenReturn(uri);
+    when(request.execute()).thenReturn(response);
+    return request;
+  }
+
+  @Test
+  public void pagingIterator() throws Exception {
+    final URI uri = URI.create("http://host/service/Customers");
+    final ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> first = pageRequest(uri,
+            "{\"value\":[{\"PersonID\":1},{\"PersonID\":2}],\"@odata.nextLink\":\"Customers?$skiptoken=2\"}");
+    when(first.getHeaderNames()).thenReturn(Collections.singletonList("Prefer"));
+    when(first.getHeader("Prefer")).thenReturn("odata.maxpagesize=2");
+    final URI nextURI = URI.create("http://host/service/Customers?$skiptoken=2");
+    final ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> second = pageRequest(nextURI,
+            "{\"value\":[{\"PersonID\":3}]}");
+
+    final RetrieveRequestFactory factory = mock(RetrieveRequestFactory.class);
+    when(factory.<ODataEntitySet, ODataEntity> getEntitySetIteratorRequest(nextURI)).thenReturn(second);
+    final ODataClient client = mock(ODataClient.class);
+    when(client.getServiceVersion()).thenReturn(ODataServiceVersion.V40);
+    when(client.getConfiguration()).thenReturn(new ConfigurationImpl());
+    when(client.getRetrieveRequestFactory()).thenReturn(factory);
+
+    final ODataEntitySetPagingIterator<ODataEntitySet, ODataEntity> iterator =
+            new ODataEntitySetPagingIterator<ODataEntitySet, ODataEntity>(client, first, 1, 2);
+    for (int id = 1; id <= 3; id++) {
+      assertEquals(id, iterator.next().getProperty("PersonID").getPrimitiveValue().toValue());
+    }
+    assertFalse(iterator.hasNext());
+
+    verify(first).setPrefer("odata.maxpagesize=2");
+    verify(second).addCustomHeader("Prefer", "odata.maxpagesize=2");
+  }
+
+  @Test(timeout = 10000)
+  public void pagingIteratorHandsOverErrors() throws Exception {
+    final ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> request =
+            pageRequest(URI.create("http://host/service/Customers"), "{\"value\":[]}");
+    when(request.execute()).thenThrow(new OutOfMemoryError("simulated"));
+    final ODataClient client = mock(ODataClient.class);
+    when(client.getServiceVersion()).thenReturn(ODataServiceVersion.V40);
+    when(client.getConfiguration()).thenReturn(new ConfigurationImpl());
+
+    final ODataEntitySetPagingIterator<ODataEntitySet, ODataEntity> iterator =
+            new ODataEntitySetPagingIterator<ODataEntitySet, ODataEntity>(client, request, 1, 0);
+    try {
+      iterator.hasNext();
+      fail("Expected the error of the background fetch");
+    } catch (final OutOfMemoryError e) {
+      assertEquals("simulated", e.getMessage());
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void truncatedBody() throws Exception {
+    final ODataEntitySetIterator<ODataEntitySet, ODataEntity> iterator =
+            new ODataEntitySetIterator<ODataEntitySet, ODataEntity>(getClient(),
+                    new ByteArrayInputStream("{\"value\":[{\"PersonID\":1},".getBytes("UTF-8")), ODataFormat.JSON);
+    assertEquals(1, iterator.next().getProperty("PersonID").getPrimitiveValue().toValue());
+    try {
+      iterator.hasNext();
+      fail("Expected an exception for the truncated body");
+    } catch (final IllegalStateException e) {
+      assertTrue(e.getCause() instanceof ODataDeserializerException);
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  private List<Object> fetchPartitions(final boolean ordered, final boolean truncated) throws Exception {
+    final Pattern lowerBound = Pattern.compile("PersonID ge (\\d+)");
+    final AtomicBoolean failed = new AtomicBoolean(false);
+
+    final RetrieveRequestFactory factory = mock(RetrieveRequestFactory.class);
+    when(factory.<ODataEntitySet, ODataEntity> getEntitySetIteratorRequest(any(URI.class))).thenAnswer(
+            new Answer<ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity>>() {
+              @Override
+              public ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> answer(
+                      final InvocationOnMock invocation) throws Exception {
+
+                final URI uri = (URI) invocation.getArguments()[0];
+                final Matcher matcher = lowerBound.matcher(URLDecoder.decode(uri.getRawQuery(), "UTF-8"));
+                assertTrue(matcher.find());
+                final int id = Integer.parseInt(matcher.group(1));
+                final String json = "{\"value\":[{\"PersonID\":" + id + "},{\"PersonID\":" + (id + 1) + "}]}";
+                final boolean fail = id == 3 && failed.compareAndSet(false, true);
+                final ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> request = pageRequest(uri,
+                        fail && truncated ? json.substring(0, json.indexOf("},") + 2) : json);
+                if (fail && !truncated) {
+                  when(request.execute()).thenThrow(new IllegalStateException("temporary failure"));
+                }
+                return request;
+              }
+            });
+    final ODataClient client = mock(ODataClient.class);
+    when(client.getConfiguration()).thenReturn(new ConfigurationImpl());
+    when(client.getRetrieveRequestFactory()).thenReturn(factory);
+    when(client.getFilterFactory()).thenReturn(getClient().getFilterFactory());
+    when(client.newURIBuilder("http://host/service")).thenAnswer(new Answer<URIBuilder>() {
+      @Override
+      public URIBuilder answer(final InvocationOnMock invocation) {
+        return getClient().newURIBuilder("http://host/service");
+      }
+    });
+
+    final ODataEntitySetPartitionFetcher<ODataEntitySet, ODataEntity> fetcher =
+            new ODataEntitySetPartitionFetcher<ODataEntitySet, ODataEntity>(
+                    client, "http://host/service", "People", 2, 1);
+    final List<Object> ids = new ArrayList<Object>();
+    final Iterator<ODataEntity> iterator = fetcher.fetchByKeyRange("PersonID", 1, 7, 3, ordered);
+    while (iterator.hasNext()) {
+      ids.add(iterator.next().getProperty("PersonID").getPrimitiveValue().toValue());
+    }
+    assertTrue(failed.get());
+    return ids;
+  }
+
+  @Test
+  public void partitionFetcher() throws Exception {
+    assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5, 6), fetchPartitions(true, false));
+
+    final List<Object> unordered = fetchPartitions(false, false);
+    assertEquals(6, unordered.size());
+    assertTrue(unordered.containsAll(Arrays.<Object> asList(1, 2, 3, 4, 5, 6)));
+  }
+
+  @Test
+  public void partitionFetcherRetriesTruncatedBody() throws Exception {
+    assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5, 6), fetchPartitions(true, true));
+  }
+
+  private List<String> fetchKeyRanges(final long from, final long to, final int partitions) throws Exception {
+    final Pattern bounds = Pattern.compile("PersonID ge (-?\\d+)\\) and \\(PersonID lt (-?\\d+)");
+    final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+
+    final RetrieveRequestFactory factory = mock(RetrieveRequestFactory.class);
+    when(factory.<ODataEntitySet, ODataEntity> getEntitySetIteratorRequest(any(URI.class))).thenAnswer(
+            new Answer<ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity>>() {
+              @Override
+              public ODataEntitySetIteratorRequest<ODataEntitySet, ODataEntity> answer(
+                      final InvocationOnMock invocation) throws Exception {
+
+                final URI uri = (URI) invocation.getArguments()[0];
+                final Matcher matcher = bounds.matcher(URLDecoder.decode(uri.getRawQuery(), "UTF-8"));
+                assertTrue(matcher.find());
+                ranges.add(matcher.group(1) + ".." + matcher.group(2));
+                return pageRequest(uri, "{\"value\":[]}");
+              }
+            });
+    final ODataClient client = mock(ODataClient.class);
+    when(client.getConfiguration()).thenReturn(new ConfigurationImpl());
+    when(client.getRetrieveRequestFactory()).thenReturn(factory);
+    when(client.getFilterFactory()).thenReturn(getClient().getFilterFactory());
+    when(client.newURIBuilder("http://host/service")).thenAnswer(new Answer<URIBuilder>() {
+      @Override
+      public URIBuilder answer(final InvocationOnMock invocation) {
+        return getClient().newURIBuilder("http://host/service");
+      }
+    });
+
+    final Iterator<ODataEntity> iterator = new ODataEntitySetPartitionFetcher<ODataEntitySet, ODataEntity>(
+            client, "http://host/service", "People", 1, 0).fetchByKeyRange("PersonID", from, to, partitions, true);
+    assertFalse(iterator.hasNext());
+    return ranges;
+  }
+
+  @Test
+  public void partitionFetcherFullKeyRange() throws Exception {
+    assertEquals(Arrays.asList(
+            Long.MIN_VALUE + ".." + -(1L << 62),
+            -(1L << 62) + "..0",
+            "0.." + (1L << 62),
+            (1L << 62) + ".." + Long.MAX_VALUE),
+            fetchKeyRanges(Long.MIN_VALUE, Long.MAX_VALUE, 4));
+    assertEquals(Arrays.asList("0.." + (1L << 62), (1L << 62) + ".." + Long.MAX_VALUE),
+            fetchKeyRanges(0, Long.MAX_VALUE, 2));
+  }
 }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
+
+/**
+ * Entity collection whose entities are pulled one after the other, e.g., from a database cursor,
+ * instead of being held in a list like the entities of an {@link EntitySet}.
+ * <p>
+ * The count and the next link may be known only after all entities have been read; consumers therefore
+ * ask for them again after the iteration has finished. The iterator can be consumed only once.
+ * <p>
+ * Consumers close the iterator when they are done with it, also if they fail, so that resources
+ * held by the data source, e.g., a database cursor, can be released.
+ */
+public abstract class EntityIterator implements Iterator<Entity>, Iterable<Entity>, Closeable {
+
+  @Override
+  public abstract boolean hasNext();
+
+  @Override
+  public abstract Entity next();
+
+  /**
+   * Not supported.
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Entities cannot be removed from an entity iterator.");
+  }
+
+  /**
+   * Returns this iterator; the entities can be iterated only once.
+   */
+  @Override
+  public Iterator<Entity> iterator() {
+    return this;
+  }
+
+  /**
+   * Gets the number of entities if it was requested.
+   * @return number of entities or <code>null</code> if it is not known (yet)
+   */
+  public Integer getCount() {
+    return null;
+  }
+
+  /**
+   * Gets the next link if there are more entities than returned by this iterator.
+   * @return next link or <code>null</code> if there is none or if it is not known (yet)
+   */
+  public URI getNext() {
+    return null;
+  }
+
+  /**
+   * Releases the resources held by this iterator; does nothing by default.
+   * @throws IOException if the resources cannot be released
+   */
+  @Override
+  public void close() throws IOException {}
+}
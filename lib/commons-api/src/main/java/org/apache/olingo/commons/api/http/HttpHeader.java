@@ -162,4 +162,14 @@ public interface HttpHeader {
    */
   public static final String ODATA_MAX_VERSION = "OData-MaxVersion";
 
+  /**
+   * See {@link <a href="http://tools.ietf.org/html/rfc7240#section-2">RFC 7240</a>}.
+   */
+  public static final String PREFER = "Prefer";
+
+  /**
+   * See {@link <a href="http://tools.ietf.org/html/rfc7240#section-3">RFC 7240</a>}.
+   */
+  public static final String PREFERENCE_APPLIED = "Preference-Applied";
+
 }
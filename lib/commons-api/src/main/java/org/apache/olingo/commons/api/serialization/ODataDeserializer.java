@@ -39,6 +39,14 @@ public interface ODataDeserializer {
    */
   ResWrap<EntitySet> toEntitySet(InputStream input) throws ODataDeserializerException;
 
+  /**
+   * Gets a reader de-serializing the entities of an entity set from the given InputStream one at a time.
+   * 
+   * @param input stream to be de-serialized; it is closed when closing the reader.
+   * @return {@link ODataEntitySetReader} instance.
+   */
+  ODataEntitySetReader toEntitySetReader(InputStream input) throws ODataDeserializerException;
+
   /**
    * Gets an entity object from the given InputStream.
    * 
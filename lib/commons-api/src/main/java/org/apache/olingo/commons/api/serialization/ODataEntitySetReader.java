@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.serialization;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.data.ResWrap;
+
+import java.io.Closeable;
+
+/**
+ * Incremental reader of an entity set: entities are de-serialized one at a time while reading the underlying stream,
+ * without holding the whole entity set in memory.
+ */
+public interface ODataEntitySetReader extends Closeable {
+
+  /**
+   * Reads the next entity.
+   *
+   * @return next entity, wrapped with context URL and metadata ETag of the entity set; null if no more entities are
+   * available.
+   */
+  ResWrap<Entity> next() throws ODataDeserializerException;
+
+  /**
+   * Gets the entity set information (count, next and delta link, annotations) but not its entities.
+   * <br/>
+   * Information found after the entities in the stream is only available once {@link #next()} returned null.
+   *
+   * @return {@link EntitySet} instance without entities.
+   */
+  ResWrap<EntitySet> getEntitySet();
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.data;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.EntitySet;
+
+/**
+ * Entity iterator over the entities of a list, with count and next link known in advance.
+ */
+public class EntityIteratorImpl extends EntityIterator {
+
+  private final Iterator<Entity> entities;
+  private final Integer count;
+  private final URI next;
+
+  public EntityIteratorImpl(final List<Entity> entities, final Integer count, final URI next) {
+    this.entities = entities.iterator();
+    this.count = count;
+    this.next = next;
+  }
+
+  public EntityIteratorImpl(final EntitySet entitySet) {
+    this(entitySet.getEntities(), entitySet.getCount(), entitySet.getNext());
+  }
+
+  @Override
+  public boolean hasNext() {
+    return entities.hasNext();
+  }
+
+  @Override
+  public Entity next() {
+    return entities.next();
+  }
+
+  @Override
+  public Integer getCount() {
+    return count;
+  }
+
+  @Override
+  public URI getNext() {
+    return next;
+  }
+}
@@ -38,47 +38,64 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Base implementation of the {@link Edm} interface which caches all created metadata objects.
+ * <p>
+ * The caches can be read concurrently without locking. Objects which are not cached yet are created
+ * while holding a lock, so that concurrent first accesses result in one single creation.
+ */
 public abstract class AbstractEdm implements Edm {
 
-  protected Map<String, EdmSchema> schemas;
+  /** Cache key used instead of <code>null</code>, e.g., for the default entity container */
+  private static final FullQualifiedName NULL_KEY = new FullQualifiedName(null, null);
+
+  /** Lock held while metadata objects are created and cached */
+  private final Object cacheLock = new Object();
 
-  protected List<EdmSchema> schemaList;
+  protected volatile Map<String, EdmSchema> schemas;
+
+  protected volatile List<EdmSchema> schemaList;
 
   private final Map<FullQualifiedName, EdmEntityContainer> entityContainers =
-      new HashMap<FullQualifiedName, EdmEntityContainer>();
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityContainer>();
 
-  private final Map<FullQualifiedName, EdmEnumType> enumTypes = new HashMap<FullQualifiedName, EdmEnumType>();
+  private final Map<FullQualifiedName, EdmEnumType> enumTypes = new ConcurrentHashMap<FullQualifiedName, EdmEnumType>();
 
   private final Map<FullQualifiedName, EdmTypeDefinition> typeDefinitions =
-      new HashMap<FullQualifiedName, EdmTypeDefinition>();
+      new ConcurrentHashMap<FullQualifiedName, EdmTypeDefinition>();
 
-  private final Map<FullQualifiedName, EdmEntityType> entityTypes = new HashMap<FullQualifiedName, EdmEntityType>();
+  private final Map<FullQualifiedName, EdmEntityType> entityTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
 
-  private final Map<FullQualifiedName, EdmComplexType> complexTypes = new HashMap<FullQualifiedName, EdmComplexType>();
+  private final Map<FullQualifiedName, EdmComplexType> complexTypes =
+      new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
 
-  private final Map<FullQualifiedName, EdmAction> unboundActions = new HashMap<FullQualifiedName, EdmAction>();
+  private final Map<FullQualifiedName, EdmAction> unboundActions =
+      new ConcurrentHashMap<FullQualifiedName, EdmAction>();
 
   private final Map<FullQualifiedName, List<EdmFunction>> unboundFunctionsByName =
-      new HashMap<FullQualifiedName, List<EdmFunction>>();
+      new ConcurrentHashMap<FullQualifiedName, List<EdmFunction>>();
 
-  private final Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey = new HashMap<FunctionMapKey, EdmFunction>();
+  private final Map<FunctionMapKey, EdmFunction> unboundFunctionsByKey =
+      new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<ActionMapKey, EdmAction> boundActions = new HashMap<ActionMapKey, EdmAction>();
+  private final Map<ActionMapKey, EdmAction> boundActions = new ConcurrentHashMap<ActionMapKey, EdmAction>();
 
-  private final Map<FunctionMapKey, EdmFunction> boundFunctions = new HashMap<FunctionMapKey, EdmFunction>();
+  private final Map<FunctionMapKey, EdmFunction> boundFunctions = new ConcurrentHashMap<FunctionMapKey, EdmFunction>();
 
-  private final Map<FullQualifiedName, EdmTerm> terms = new HashMap<FullQualifiedName, EdmTerm>();
+  private final Map<FullQualifiedName, EdmTerm> terms = new ConcurrentHashMap<FullQualifiedName, EdmTerm>();
 
   private final Map<FullQualifiedName, EdmAnnotations> annotationGroups =
-      new HashMap<FullQualifiedName, EdmAnnotations>();
+      new ConcurrentHashMap<FullQualifiedName, EdmAnnotations>();
 
   private final Map<FullQualifiedName, List<EdmAnnotation>> annotations =
-      new HashMap<FullQualifiedName, List<EdmAnnotation>>();
+      new ConcurrentHashMap<FullQualifiedName, List<EdmAnnotation>>();
 
-  private EdmServiceMetadata serviceMetadata;
+  private volatile EdmServiceMetadata serviceMetadata;
 
-  private Map<String, String> aliasToNamespaceInfo;
+  private volatile Map<String, String> aliasToNamespaceInfo;
 
   @Override
   public List<EdmSchema> getSchemas() {
@@ -92,10 +109,13 @@ public abstract class AbstractEdm implements Edm {
 
     EdmSchema schema = schemas.get(namespace);
     if (schema == null) {
-      if (aliasToNamespaceInfo == null) {
-        aliasToNamespaceInfo = createAliasToNamespaceInfo();
+      synchronized (cacheLock) {
+        schema = schemas.get(namespace);
+        if (schema == null) {
+          final String aliasNamespace = getAliasToNamespaceInfo().get(namespace);
+          schema = aliasNamespace == null ? null : schemas.get(aliasNamespace);
+        }
       }
-      schema = schemas.get(aliasToNamespaceInfo.get(namespace));
     }
 
     return schema;
@@ -103,103 +123,122 @@ public abstract class AbstractEdm implements Edm {
 
   private void initSchemas() {
     if (schemas == null) {
-      schemas = createSchemas();
-      if (schemas != null) {
-        schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(schemas.values()));
-        aliasToNamespaceInfo = new HashMap<String, String>();
-        for (EdmSchema schema : schemas.values()) {
-          final String namespace = schema.getNamespace();
-          schemas.put(namespace, schema);
-
-          if (schema.getAlias() != null) {
-            aliasToNamespaceInfo.put(schema.getAlias(), namespace);
-          }
+      synchronized (cacheLock) {
+        if (schemas == null) {
+          loadSchemas();
+        }
+      }
+    }
+  }
 
-          final List<EdmEnumType> localEnumTypes = schema.getEnumTypes();
-          if (localEnumTypes != null) {
-            for (EdmEnumType enumType : localEnumTypes) {
-              enumTypes.put(new FullQualifiedName(namespace, enumType.getName()), enumType);
-            }
+  private void loadSchemas() {
+    final Map<String, EdmSchema> localSchemas = createSchemas();
+    if (localSchemas != null) {
+      schemaList = Collections.unmodifiableList(new ArrayList<EdmSchema>(localSchemas.values()));
+      final Map<String, String> localAliasToNamespaceInfo = new HashMap<String, String>();
+      final Map<FullQualifiedName, List<EdmFunction>> localUnboundFunctionsByName =
+          new HashMap<FullQualifiedName, List<EdmFunction>>();
+      for (EdmSchema schema : new ArrayList<EdmSchema>(localSchemas.values())) {
+        final String namespace = schema.getNamespace();
+        localSchemas.put(namespace, schema);
+
+        if (schema.getAlias() != null) {
+          localAliasToNamespaceInfo.put(schema.getAlias(), namespace);
+        }
+
+        final List<EdmEnumType> localEnumTypes = schema.getEnumTypes();
+        if (localEnumTypes != null) {
+          for (EdmEnumType enumType : localEnumTypes) {
+            enumTypes.put(new FullQualifiedName(namespace, enumType.getName()), enumType);
           }
+        }
 
-          final List<EdmTypeDefinition> localTypeDefinitions = schema.getTypeDefinitions();
-          if (localTypeDefinitions != null) {
-            for (EdmTypeDefinition typeDef : localTypeDefinitions) {
-              typeDefinitions.put(new FullQualifiedName(namespace, typeDef.getName()), typeDef);
-            }
+        final List<EdmTypeDefinition> localTypeDefinitions = schema.getTypeDefinitions();
+        if (localTypeDefinitions != null) {
+          for (EdmTypeDefinition typeDef : localTypeDefinitions) {
+            typeDefinitions.put(new FullQualifiedName(namespace, typeDef.getName()), typeDef);
           }
+        }
 
-          final List<EdmComplexType> localComplexTypes = schema.getComplexTypes();
-          if (localComplexTypes != null) {
-            for (EdmComplexType complexType : localComplexTypes) {
-              complexTypes.put(new FullQualifiedName(namespace, complexType.getName()), complexType);
-            }
+        final List<EdmComplexType> localComplexTypes = schema.getComplexTypes();
+        if (localComplexTypes != null) {
+          for (EdmComplexType complexType : localComplexTypes) {
+            complexTypes.put(new FullQualifiedName(namespace, complexType.getName()), complexType);
           }
+        }
 
-          List<EdmEntityType> localEntityTypes = schema.getEntityTypes();
-          if (localEntityTypes != null) {
-            for (EdmEntityType entityType : localEntityTypes) {
-              entityTypes.put(new FullQualifiedName(namespace, entityType.getName()), entityType);
-            }
+        List<EdmEntityType> localEntityTypes = schema.getEntityTypes();
+        if (localEntityTypes != null) {
+          for (EdmEntityType entityType : localEntityTypes) {
+            entityTypes.put(new FullQualifiedName(namespace, entityType.getName()), entityType);
           }
+        }
 
-          final List<EdmAction> localActions = schema.getActions();
-          if (localActions != null) {
-            for (EdmAction action : localActions) {
-              final FullQualifiedName name = new FullQualifiedName(namespace, action.getName());
-              if (action.isBound()) {
-                final ActionMapKey key = new ActionMapKey(name,
-                    action.getBindingParameterTypeFqn(), action.isBindingParameterTypeCollection());
-                boundActions.put(key, action);
-              } else {
-                unboundActions.put(name, action);
-              }
+        final List<EdmAction> localActions = schema.getActions();
+        if (localActions != null) {
+          for (EdmAction action : localActions) {
+            final FullQualifiedName name = new FullQualifiedName(namespace, action.getName());
+            if (action.isBound()) {
+              final ActionMapKey key = new ActionMapKey(name,
+                  action.getBindingParameterTypeFqn(), action.isBindingParameterTypeCollection());
+              boundActions.put(key, action);
+            } else {
+              unboundActions.put(name, action);
             }
           }
+        }
 
-          final List<EdmFunction> localFunctions = schema.getFunctions();
-          if (localFunctions != null) {
-            for (EdmFunction function : localFunctions) {
-              final FullQualifiedName name = new FullQualifiedName(namespace, function.getName());
-              final FunctionMapKey key = new FunctionMapKey(name,
-                  function.getBindingParameterTypeFqn(), function.isBindingParameterTypeCollection(),
-                  function.getParameterNames());
-
-              if (function.isBound()) {
-                boundFunctions.put(key, function);
-              } else {
-                if (!unboundFunctionsByName.containsKey(name)) {
-                  unboundFunctionsByName.put(name, new ArrayList<EdmFunction>());
-                }
-                unboundFunctionsByName.get(name).add(function);
-
-                unboundFunctionsByKey.put(key, function);
+        final List<EdmFunction> localFunctions = schema.getFunctions();
+        if (localFunctions != null) {
+          for (EdmFunction function : localFunctions) {
+            final FullQualifiedName name = new FullQualifiedName(namespace, function.getName());
+            final FunctionMapKey key = new FunctionMapKey(name,
+                function.getBindingParameterTypeFqn(), function.isBindingParameterTypeCollection(),
+                function.getParameterNames());
+
+            if (function.isBound()) {
+              boundFunctions.put(key, function);
+            } else {
+              if (!localUnboundFunctionsByName.containsKey(name)) {
+                localUnboundFunctionsByName.put(name, new ArrayList<EdmFunction>());
               }
+              localUnboundFunctionsByName.get(name).add(function);
+
+              unboundFunctionsByKey.put(key, function);
             }
           }
+        }
 
-          final EdmEntityContainer entityContainer = schema.getEntityContainer();
-          if (entityContainer != null) {
-            entityContainers.put(new FullQualifiedName(namespace, entityContainer.getName()), entityContainer);
-            if (!entityContainers.containsKey(null)) {
-              entityContainers.put(null, entityContainer);
-            }
+        final EdmEntityContainer entityContainer = schema.getEntityContainer();
+        if (entityContainer != null) {
+          entityContainers.put(new FullQualifiedName(namespace, entityContainer.getName()), entityContainer);
+          if (!entityContainers.containsKey(NULL_KEY)) {
+            entityContainers.put(NULL_KEY, entityContainer);
           }
         }
       }
+      unboundFunctionsByName.putAll(localUnboundFunctionsByName);
+      aliasToNamespaceInfo = localAliasToNamespaceInfo;
+      schemas = localSchemas;
     }
   }
 
   @Override
   public EdmEntityContainer getEntityContainer(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityContainer container = entityContainers.get(fqn);
+    EdmEntityContainer container = entityContainers.get(cacheKey(fqn));
     if (container == null) {
-      container = createEntityContainer(fqn);
-      if (container != null) {
-        entityContainers.put(fqn, container);
-        if (fqn == null) {
-          entityContainers.put(new FullQualifiedName(container.getNamespace(), container.getName()), container);
+      synchronized (cacheLock) {
+        container = entityContainers.get(cacheKey(fqn));
+        if (container == null) {
+          container = createEntityContainer(fqn);
+          if (container != null) {
+            entityContainers.put(cacheKey(fqn), container);
+            if (fqn == null) {
+              entityContainers.put(new FullQualifiedName(container.getNamespace(), container.getName()),
+                  container);
+            }
+          }
         }
       }
     }
@@ -209,11 +248,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEnumType getEnumType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEnumType enumType = enumTypes.get(fqn);
+    EdmEnumType enumType = enumTypes.get(cacheKey(fqn));
     if (enumType == null) {
-      enumType = createEnumType(fqn);
-      if (enumType != null) {
-        enumTypes.put(fqn, enumType);
+      synchronized (cacheLock) {
+        enumType = enumTypes.get(cacheKey(fqn));
+        if (enumType == null) {
+          enumType = createEnumType(fqn);
+          if (enumType != null) {
+            enumTypes.put(cacheKey(fqn), enumType);
+          }
+        }
       }
     }
     return enumType;
@@ -222,11 +266,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTypeDefinition getTypeDefinition(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmTypeDefinition typeDefinition = typeDefinitions.get(fqn);
+    EdmTypeDefinition typeDefinition = typeDefinitions.get(cacheKey(fqn));
     if (typeDefinition == null) {
-      typeDefinition = createTypeDefinition(fqn);
-      if (typeDefinition != null) {
-        typeDefinitions.put(fqn, typeDefinition);
+      synchronized (cacheLock) {
+        typeDefinition = typeDefinitions.get(cacheKey(fqn));
+        if (typeDefinition == null) {
+          typeDefinition = createTypeDefinition(fqn);
+          if (typeDefinition != null) {
+            typeDefinitions.put(cacheKey(fqn), typeDefinition);
+          }
+        }
       }
     }
     return typeDefinition;
@@ -235,11 +284,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmEntityType getEntityType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmEntityType entityType = entityTypes.get(fqn);
+    EdmEntityType entityType = entityTypes.get(cacheKey(fqn));
     if (entityType == null) {
-      entityType = createEntityType(fqn);
-      if (entityType != null) {
-        entityTypes.put(fqn, entityType);
+      synchronized (cacheLock) {
+        entityType = entityTypes.get(cacheKey(fqn));
+        if (entityType == null) {
+          entityType = createEntityType(fqn);
+          if (entityType != null) {
+            entityTypes.put(cacheKey(fqn), entityType);
+          }
+        }
       }
     }
     return entityType;
@@ -248,11 +302,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmComplexType getComplexType(final FullQualifiedName namespaceOrAliasFQN) {
     final FullQualifiedName fqn = resolvePossibleAlias(namespaceOrAliasFQN);
-    EdmComplexType complexType = complexTypes.get(fqn);
+    EdmComplexType complexType = complexTypes.get(cacheKey(fqn));
     if (complexType == null) {
-      complexType = createComplexType(fqn);
-      if (complexType != null) {
-        complexTypes.put(fqn, complexType);
+      synchronized (cacheLock) {
+        complexType = complexTypes.get(cacheKey(fqn));
+        if (complexType == null) {
+          complexType = createComplexType(fqn);
+          if (complexType != null) {
+            complexTypes.put(cacheKey(fqn), complexType);
+          }
+        }
       }
     }
     return complexType;
@@ -260,11 +319,16 @@ public abstract class AbstractEdm implements Edm {
 
   @Override
   public EdmAction getUnboundAction(final FullQualifiedName actionName) {
-    EdmAction action = unboundActions.get(actionName);
+    EdmAction action = unboundActions.get(cacheKey(actionName));
     if (action == null) {
-      action = createUnboundAction(resolvePossibleAlias(actionName));
-      if (action != null) {
-        unboundActions.put(actionName, action);
+      synchronized (cacheLock) {
+        action = unboundActions.get(cacheKey(actionName));
+        if (action == null) {
+          action = createUnboundAction(resolvePossibleAlias(actionName));
+          if (action != null) {
+            unboundActions.put(cacheKey(actionName), action);
+          }
+        }
       }
     }
 
@@ -280,9 +344,14 @@ public abstract class AbstractEdm implements Edm {
     final ActionMapKey key = new ActionMapKey(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
     EdmAction action = boundActions.get(key);
     if (action == null) {
-      action = createBoundAction(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
-      if (action != null) {
-        boundActions.put(key, action);
+      synchronized (cacheLock) {
+        action = boundActions.get(key);
+        if (action == null) {
+          action = createBoundAction(actionFqn, bindingParameterTypeFqn, isBindingParameterCollection);
+          if (action != null) {
+            boundActions.put(key, action);
+          }
+        }
       }
     }
 
@@ -293,19 +362,24 @@ public abstract class AbstractEdm implements Edm {
   public List<EdmFunction> getUnboundFunctions(final FullQualifiedName functionName) {
     final FullQualifiedName functionFqn = resolvePossibleAlias(functionName);
 
-    List<EdmFunction> functions = unboundFunctionsByName.get(functionFqn);
+    List<EdmFunction> functions = unboundFunctionsByName.get(cacheKey(functionFqn));
     if (functions == null) {
-      functions = createUnboundFunctions(functionFqn);
-      if (functions != null) {
-        unboundFunctionsByName.put(functionFqn, functions);
-
-        for (EdmFunction unbound : functions) {
-          final FunctionMapKey key = new FunctionMapKey(
-              new FullQualifiedName(unbound.getNamespace(), unbound.getName()),
-              unbound.getBindingParameterTypeFqn(),
-              unbound.isBindingParameterTypeCollection(),
-              unbound.getParameterNames());
-          unboundFunctionsByKey.put(key, unbound);
+      synchronized (cacheLock) {
+        functions = unboundFunctionsByName.get(cacheKey(functionFqn));
+        if (functions == null) {
+          functions = createUnboundFunctions(functionFqn);
+          if (functions != null) {
+            unboundFunctionsByName.put(cacheKey(functionFqn), functions);
+
+            for (EdmFunction unbound : functions) {
+              final FunctionMapKey key = new FunctionMapKey(
+                  new FullQualifiedName(unbound.getNamespace(), unbound.getName()),
+                  unbound.getBindingParameterTypeFqn(),
+                  unbound.isBindingParameterTypeCollection(),
+                  unbound.getParameterNames());
+              unboundFunctionsByKey.put(key, unbound);
+            }
+          }
         }
       }
     }
@@ -320,9 +394,14 @@ public abstract class AbstractEdm implements Edm {
     final FunctionMapKey key = new FunctionMapKey(functionFqn, null, null, parameterNames);
     EdmFunction function = unboundFunctionsByKey.get(key);
     if (function == null) {
-      function = createUnboundFunction(functionFqn, parameterNames);
-      if (function != null) {
-        unboundFunctionsByKey.put(key, function);
+      synchronized (cacheLock) {
+        function = unboundFunctionsByKey.get(key);
+        if (function == null) {
+          function = createUnboundFunction(functionFqn, parameterNames);
+          if (function != null) {
+            unboundFunctionsByKey.put(key, function);
+          }
+        }
       }
     }
 
@@ -340,10 +419,15 @@ public abstract class AbstractEdm implements Edm {
         new FunctionMapKey(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection, parameterNames);
     EdmFunction function = boundFunctions.get(key);
     if (function == null) {
-      function = createBoundFunction(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection,
-          parameterNames);
-      if (function != null) {
-        boundFunctions.put(key, function);
+      synchronized (cacheLock) {
+        function = boundFunctions.get(key);
+        if (function == null) {
+          function = createBoundFunction(functionFqn, bindingParameterTypeFqn, isBindingParameterCollection,
+              parameterNames);
+          if (function != null) {
+            boundFunctions.put(key, function);
+          }
+        }
       }
     }
 
@@ -353,11 +437,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmTerm getTerm(final FullQualifiedName termName) {
     final FullQualifiedName fqn = resolvePossibleAlias(termName);
-    EdmTerm term = terms.get(fqn);
+    EdmTerm term = terms.get(cacheKey(fqn));
     if (term == null) {
-      term = createTerm(fqn);
-      if (term != null) {
-        terms.put(fqn, term);
+      synchronized (cacheLock) {
+        term = terms.get(cacheKey(fqn));
+        if (term == null) {
+          term = createTerm(fqn);
+          if (term != null) {
+            terms.put(cacheKey(fqn), term);
+          }
+        }
       }
     }
     return term;
@@ -365,11 +454,16 @@ public abstract class AbstractEdm implements Edm {
 
   @Override
   public EdmAnnotations getAnnotationGroup(final FullQualifiedName targetName) {
-    EdmAnnotations _annotations = annotationGroups.get(targetName);
+    EdmAnnotations _annotations = annotationGroups.get(cacheKey(targetName));
     if (_annotations == null) {
-      _annotations = createAnnotationGroup(targetName);
-      if (_annotations != null) {
-        annotationGroups.put(targetName, _annotations);
+      synchronized (cacheLock) {
+        _annotations = annotationGroups.get(cacheKey(targetName));
+        if (_annotations == null) {
+          _annotations = createAnnotationGroup(targetName);
+          if (_annotations != null) {
+            annotationGroups.put(cacheKey(targetName), _annotations);
+          }
+        }
       }
     }
     return _annotations;
@@ -378,11 +472,16 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public List<EdmAnnotation> getAnnotations(final FullQualifiedName annotatableName) {
     final FullQualifiedName fqn = resolvePossibleAlias(annotatableName);
-    List<EdmAnnotation> _annotations = annotations.get(fqn);
+    List<EdmAnnotation> _annotations = annotations.get(cacheKey(fqn));
     if (_annotations == null) {
-      _annotations = createAnnotations(fqn);
-      if (_annotations != null) {
-        annotations.put(fqn, _annotations);
+      synchronized (cacheLock) {
+        _annotations = annotations.get(cacheKey(fqn));
+        if (_annotations == null) {
+          _annotations = createAnnotations(fqn);
+          if (_annotations != null) {
+            annotations.put(cacheKey(fqn), _annotations);
+          }
+        }
       }
     }
     return _annotations;
@@ -405,18 +504,35 @@ public abstract class AbstractEdm implements Edm {
   @Override
   public EdmServiceMetadata getServiceMetadata() {
     if (serviceMetadata == null) {
-      serviceMetadata = createServiceMetadata();
+      synchronized (cacheLock) {
+        if (serviceMetadata == null) {
+          serviceMetadata = createServiceMetadata();
+        }
+      }
     }
     return serviceMetadata;
   }
 
-  private FullQualifiedName resolvePossibleAlias(final FullQualifiedName namespaceOrAliasFQN) {
+  private Map<String, String> getAliasToNamespaceInfo() {
     if (aliasToNamespaceInfo == null) {
-      aliasToNamespaceInfo = createAliasToNamespaceInfo();
+      synchronized (cacheLock) {
+        if (aliasToNamespaceInfo == null) {
+          aliasToNamespaceInfo = createAliasToNamespaceInfo();
+        }
+      }
     }
+    return aliasToNamespaceInfo;
+  }
+
+  private static FullQualifiedName cacheKey(final FullQualifiedName fqn) {
+    return fqn == null ? NULL_KEY : fqn;
+  }
+
+  private FullQualifiedName resolvePossibleAlias(final FullQualifiedName namespaceOrAliasFQN) {
+    final Map<String, String> aliasInfo = getAliasToNamespaceInfo();
     FullQualifiedName finalFQN = null;
     if (namespaceOrAliasFQN != null) {
-      final String namespace = aliasToNamespaceInfo.get(namespaceOrAliasFQN.getNamespace());
+      final String namespace = aliasInfo.get(namespaceOrAliasFQN.getNamespace());
       // If not contained in info it must be a namespace
       if (namespace == null) {
         finalFQN = namespaceOrAliasFQN;
@@ -27,31 +27,38 @@ import org.apache.olingo.commons.api.edm.EdmSingleton;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements EdmEntityContainer {
 
   protected final FullQualifiedName entityContainerName;
 
-  protected final Map<String, EdmSingleton> singletons = new HashMap<String, EdmSingleton>();
+  /**
+   * Guards the creation of cache entries, so that concurrent first accesses call the provider only once;
+   * cached lookups do not lock. Subclasses are called with this lock held when creating or loading members.
+   */
+  protected final Object cacheLock = new Object();
 
-  private boolean allSingletonsLoaded = false;
+  protected final Map<String, EdmSingleton> singletons = new ConcurrentHashMap<String, EdmSingleton>();
 
-  protected final Map<String, EdmEntitySet> entitySets = new HashMap<String, EdmEntitySet>();
+  private volatile boolean allSingletonsLoaded = false;
 
-  private boolean allEntitySetsLoaded = false;
+  protected final Map<String, EdmEntitySet> entitySets = new ConcurrentHashMap<String, EdmEntitySet>();
 
-  protected final Map<String, EdmActionImport> actionImports = new HashMap<String, EdmActionImport>();
+  private volatile boolean allEntitySetsLoaded = false;
+
+  protected final Map<String, EdmActionImport> actionImports = new ConcurrentHashMap<String, EdmActionImport>();
 
   private final FullQualifiedName parentContainerName;
 
-  private boolean allActionImportsLoaded = false;
+  private volatile boolean allActionImportsLoaded = false;
 
-  protected final Map<String, EdmFunctionImport> functionImports = new HashMap<String, EdmFunctionImport>();
+  protected final Map<String, EdmFunctionImport> functionImports =
+      new ConcurrentHashMap<String, EdmFunctionImport>();
 
-  private boolean allFunctionImportsLoaded = false;
+  private volatile boolean allFunctionImportsLoaded = false;
 
   public AbstractEdmEntityContainer(final Edm edm, final FullQualifiedName entityContainerName,
       final FullQualifiedName parentContainerName) {
@@ -79,11 +86,20 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
 
   @Override
   public EdmSingleton getSingleton(final String singletonName) {
+    if (singletonName == null) {
+      // the concurrent maps take no null keys, so such a lookup goes to the provider every time
+      return createSingleton(null);
+    }
     EdmSingleton singleton = singletons.get(singletonName);
     if (singleton == null) {
-      singleton = createSingleton(singletonName);
-      if (singleton != null) {
-        singletons.put(singletonName, singleton);
+      synchronized (cacheLock) {
+        singleton = singletons.get(singletonName);
+        if (singleton == null) {
+          singleton = createSingleton(singletonName);
+          if (singleton != null) {
+            singletons.put(singletonName, singleton);
+          }
+        }
       }
     }
     return singleton;
@@ -93,11 +109,19 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
 
   @Override
   public EdmEntitySet getEntitySet(final String entitySetName) {
+    if (entitySetName == null) {
+      return createEntitySet(null);
+    }
     EdmEntitySet entitySet = entitySets.get(entitySetName);
     if (entitySet == null) {
-      entitySet = createEntitySet(entitySetName);
-      if (entitySet != null) {
-        entitySets.put(entitySetName, entitySet);
+      synchronized (cacheLock) {
+        entitySet = entitySets.get(entitySetName);
+        if (entitySet == null) {
+          entitySet = createEntitySet(entitySetName);
+          if (entitySet != null) {
+            entitySets.put(entitySetName, entitySet);
+          }
+        }
       }
     }
     return entitySet;
@@ -107,11 +131,19 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
 
   @Override
   public EdmActionImport getActionImport(final String actionImportName) {
+    if (actionImportName == null) {
+      return createActionImport(null);
+    }
     EdmActionImport actionImport = actionImports.get(actionImportName);
     if (actionImport == null) {
-      actionImport = createActionImport(actionImportName);
-      if (actionImport != null) {
-        actionImports.put(actionImportName, actionImport);
+      synchronized (cacheLock) {
+        actionImport = actionImports.get(actionImportName);
+        if (actionImport == null) {
+          actionImport = createActionImport(actionImportName);
+          if (actionImport != null) {
+            actionImports.put(actionImportName, actionImport);
+          }
+        }
       }
     }
     return actionImport;
@@ -121,11 +153,19 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
 
   @Override
   public EdmFunctionImport getFunctionImport(final String functionImportName) {
+    if (functionImportName == null) {
+      return createFunctionImport(null);
+    }
     EdmFunctionImport functionImport = functionImports.get(functionImportName);
     if (functionImport == null) {
-      functionImport = createFunctionImport(functionImportName);
-      if (functionImport != null) {
-        functionImports.put(functionImportName, functionImport);
+      synchronized (cacheLock) {
+        functionImport = functionImports.get(functionImportName);
+        if (functionImport == null) {
+          functionImport = createFunctionImport(functionImportName);
+          if (functionImport != null) {
+            functionImports.put(functionImportName, functionImport);
+          }
+        }
       }
     }
     return functionImport;
@@ -134,8 +174,12 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
   @Override
   public List<EdmEntitySet> getEntitySets() {
     if (!allEntitySetsLoaded) {
-      loadAllEntitySets();
-      allEntitySetsLoaded = true;
+      synchronized (cacheLock) {
+        if (!allEntitySetsLoaded) {
+          loadAllEntitySets();
+          allEntitySetsLoaded = true;
+        }
+      }
     }
     return new ArrayList<EdmEntitySet>(entitySets.values());
   }
@@ -145,8 +189,12 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
   @Override
   public List<EdmFunctionImport> getFunctionImports() {
     if (!allFunctionImportsLoaded) {
-      loadAllFunctionImports();
-      allFunctionImportsLoaded = true;
+      synchronized (cacheLock) {
+        if (!allFunctionImportsLoaded) {
+          loadAllFunctionImports();
+          allFunctionImportsLoaded = true;
+        }
+      }
     }
     return new ArrayList<EdmFunctionImport>(functionImports.values());
   }
@@ -156,8 +204,12 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
   @Override
   public List<EdmSingleton> getSingletons() {
     if (!allSingletonsLoaded) {
-      loadAllSingletons();
-      allSingletonsLoaded = true;
+      synchronized (cacheLock) {
+        if (!allSingletonsLoaded) {
+          loadAllSingletons();
+          allSingletonsLoaded = true;
+        }
+      }
     }
     return new ArrayList<EdmSingleton>(singletons.values());
   }
@@ -167,8 +219,12 @@ public abstract class AbstractEdmEntityContainer extends EdmNamedImpl implements
   @Override
   public List<EdmActionImport> getActionImports() {
     if (!allActionImportsLoaded) {
-      loadAllActionImports();
-      allActionImportsLoaded = true;
+      synchronized (cacheLock) {
+        if (!allActionImportsLoaded) {
+          loadAllActionImports();
+          allActionImportsLoaded = true;
+        }
+      }
     }
     return new ArrayList<EdmActionImport>(actionImports.values());
   }
@@ -35,13 +35,13 @@ public abstract class AbstractEdmEntityType extends AbstractEdmStructuredType im
 
   private final boolean hasStream;
 
-  protected EdmEntityType entityBaseType;
+  protected volatile EdmEntityType entityBaseType;
 
   private final List<String> keyPredicateNames = new ArrayList<String>();
 
   private final Map<String, EdmKeyPropertyRef> keyPropertyRefs = new LinkedHashMap<String, EdmKeyPropertyRef>();
 
-  private List<EdmKeyPropertyRef> keyPropertyRefsList;
+  private volatile List<EdmKeyPropertyRef> keyPropertyRefsList;
 
   protected AbstractEdmEntityType(final Edm edm, final FullQualifiedName typeName,
       final FullQualifiedName baseTypeName,
@@ -93,13 +93,15 @@ public abstract class AbstractEdmEntityType extends AbstractEdmStructuredType im
   @Override
   public List<EdmKeyPropertyRef> getKeyPropertyRefs() {
     checkBaseType();
-    if (keyPropertyRefsList == null) {
-      keyPropertyRefsList = new ArrayList<EdmKeyPropertyRef>(keyPropertyRefs.values());
+    List<EdmKeyPropertyRef> refs = keyPropertyRefsList;
+    if (refs == null) {
+      refs = new ArrayList<EdmKeyPropertyRef>(keyPropertyRefs.values());
+      keyPropertyRefsList = refs;
     }
-    if (keyPropertyRefsList.isEmpty() && entityBaseType != null) {
+    if (refs.isEmpty() && entityBaseType != null) {
       return entityBaseType.getKeyPropertyRefs();
     }
-    return keyPropertyRefsList;
+    return refs;
   }
 
   @Override
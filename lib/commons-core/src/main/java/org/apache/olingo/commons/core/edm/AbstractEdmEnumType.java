@@ -41,9 +41,9 @@ public abstract class AbstractEdmEnumType extends EdmTypeImpl implements EdmEnum
 
   private final String uriSuffix;
 
-  private List<String> memberNames;
+  private volatile List<String> memberNames;
 
-  private Map<String, EdmMember> members;
+  private volatile Map<String, EdmMember> members;
 
   public AbstractEdmEnumType(final Edm edm, final FullQualifiedName fqn, final boolean isFlags) {
     super(edm, fqn, EdmTypeKind.ENUM);
@@ -58,10 +58,11 @@ public abstract class AbstractEdmEnumType extends EdmTypeImpl implements EdmEnum
   @Override
   public EdmMember getMember(final String name) {
     if (members == null) {
-      members = new LinkedHashMap<String, EdmMember>();
+      final Map<String, EdmMember> members = new LinkedHashMap<String, EdmMember>();
       for (final EdmMember member : getMembers()) {
         members.put(member.getName(), member);
       }
+      this.members = members;
     }
     return members.get(name);
   }
@@ -69,10 +70,11 @@ public abstract class AbstractEdmEnumType extends EdmTypeImpl implements EdmEnum
   @Override
   public List<String> getMemberNames() {
     if (memberNames == null) {
-      memberNames = new ArrayList<String>();
+      final List<String> memberNames = new ArrayList<String>();
       for (final EdmMember member : getMembers()) {
         memberNames.add(member.getName());
       }
+      this.memberNames = memberNames;
     }
     return memberNames;
   }
@@ -43,7 +43,7 @@ public abstract class AbstractEdmOperation extends EdmTypeImpl implements EdmOpe
 
   private EdmReturnType returnType;
 
-  private List<String> parameterNames;
+  private volatile List<String> parameterNames;
 
   protected AbstractEdmOperation(
       final Edm edm,
@@ -79,10 +79,11 @@ public abstract class AbstractEdmOperation extends EdmTypeImpl implements EdmOpe
   @Override
   public List<String> getParameterNames() {
     if (parameterNames == null) {
-      parameterNames = new ArrayList<String>(parameters.size());
+      final List<String> parameterNames = new ArrayList<String>(parameters.size());
       for (String parameterName : parameters.keySet()) {
         parameterNames.add(parameterName);
       }
+      this.parameterNames = parameterNames;
     }
     return parameterNames;
   }
@@ -40,25 +40,25 @@ public abstract class AbstractEdmSchema implements EdmSchema {
 
   private final String alias;
 
-  private List<EdmEnumType> enumTypes;
+  private volatile List<EdmEnumType> enumTypes;
 
-  private List<EdmEntityType> entityTypes;
+  private volatile List<EdmEntityType> entityTypes;
 
-  private List<EdmComplexType> complexTypes;
+  private volatile List<EdmComplexType> complexTypes;
 
-  private List<EdmAction> actions;
+  private volatile List<EdmAction> actions;
 
-  private List<EdmFunction> functions;
+  private volatile List<EdmFunction> functions;
 
-  private List<EdmTypeDefinition> typeDefinitions;
+  private volatile List<EdmTypeDefinition> typeDefinitions;
 
-  private List<EdmTerm> terms;
+  private volatile List<EdmTerm> terms;
 
-  private List<EdmAnnotations> annotationGroups;
+  private volatile List<EdmAnnotations> annotationGroups;
 
-  private List<EdmAnnotation> annotations;
+  private volatile List<EdmAnnotation> annotations;
 
-  private EdmEntityContainer entityContainer;
+  private volatile EdmEntityContainer entityContainer;
 
   public AbstractEdmSchema(final String namespace, final String alias) {
     this.namespace = namespace;
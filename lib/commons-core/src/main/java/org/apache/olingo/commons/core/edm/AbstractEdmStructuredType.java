@@ -34,13 +34,13 @@ import java.util.Map;
 
 public abstract class AbstractEdmStructuredType extends EdmTypeImpl implements EdmStructuredType {
 
-  protected EdmStructuredType baseType;
+  protected volatile EdmStructuredType baseType;
 
   protected FullQualifiedName baseTypeName;
 
-  private List<String> propertyNames;
+  private volatile List<String> propertyNames;
 
-  private List<String> navigationPropertyNames;
+  private volatile List<String> navigationPropertyNames;
 
   public AbstractEdmStructuredType(
       final Edm edm,
@@ -63,12 +63,13 @@ public abstract class AbstractEdmStructuredType extends EdmTypeImpl implements E
   @Override
   public List<String> getPropertyNames() {
     if (propertyNames == null) {
-      propertyNames = new ArrayList<String>();
+      final List<String> propertyNames = new ArrayList<String>();
       checkBaseType();
       if (baseType != null) {
         propertyNames.addAll(baseType.getPropertyNames());
       }
       propertyNames.addAll(getProperties().keySet());
+      this.propertyNames = propertyNames;
     }
     return propertyNames;
   }
@@ -76,12 +77,13 @@ public abstract class AbstractEdmStructuredType extends EdmTypeImpl implements E
   @Override
   public List<String> getNavigationPropertyNames() {
     if (navigationPropertyNames == null) {
-      navigationPropertyNames = new ArrayList<String>();
+      final List<String> navigationPropertyNames = new ArrayList<String>();
       checkBaseType();
       if (baseType != null) {
         navigationPropertyNames.addAll(baseType.getNavigationPropertyNames());
       }
       navigationPropertyNames.addAll(getNavigationProperties().keySet());
+      this.navigationPropertyNames = navigationPropertyNames;
     }
     return navigationPropertyNames;
   }
@@ -36,4 +36,11 @@ public abstract class EdmNamedImpl implements EdmNamed {
   public String getName() {
     return name;
   }
+
+  /**
+   * @return the entity data model this element belongs to
+   */
+  public Edm getEdm() {
+    return edm;
+  }
 }
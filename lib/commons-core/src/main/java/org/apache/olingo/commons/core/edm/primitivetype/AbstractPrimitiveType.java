@@ -18,14 +18,18 @@
  */
 package org.apache.olingo.commons.core.edm.primitivetype;
 
+import java.io.IOException;
+
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Abstract implementation of the EDM primitive-type interface.
  */
-abstract class AbstractPrimitiveType implements EdmPrimitiveType {
+abstract class AbstractPrimitiveType implements EdmPrimitiveType, JsonPrimitiveValueWriter {
 
   protected String uriPrefix = "";
 
@@ -90,6 +94,34 @@ abstract class AbstractPrimitiveType implements EdmPrimitiveType {
       Boolean isNullable, Integer maxLength, Integer precision, Integer scale,
       Boolean isUnicode) throws EdmPrimitiveTypeException;
 
+  @Override
+  public void writeJsonValue(final Object value,
+      final Boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final Boolean isUnicode, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    final String literal = valueToString(value, isNullable, maxLength, precision, scale, isUnicode);
+    if (literal == null) {
+      json.writeNull();
+    } else {
+      writeJsonLiteral(literal, json);
+    }
+  }
+
+  /**
+   * Writes the literal representation of a value as JSON value; the default is a JSON string.
+   */
+  protected void writeJsonLiteral(final String literal, final JsonGenerator json) throws IOException {
+    json.writeString(literal);
+  }
+
+  /**
+   * Determines whether the value is of one of the Java types for integral numbers
+   * which can be written as <code>long</code>.
+   */
+  protected static boolean isIntegral(final Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
   @Override
   public String toUriLiteral(final String literal) {
     return literal == null
@@ -18,8 +18,12 @@
  */
 package org.apache.olingo.commons.core.edm.primitivetype;
 
+import java.io.IOException;
+
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Implementation of the EDM primitive type Boolean.
  */
@@ -78,4 +82,21 @@ public final class EdmBoolean extends SingletonPrimitiveType {
           "EdmPrimitiveTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass())");
     }
   }
+
+  @Override
+  public void writeJsonValue(final Object value,
+      final Boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final Boolean isUnicode, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (value instanceof Boolean) {
+      json.writeBoolean((Boolean) value);
+    } else {
+      super.writeJsonValue(value, isNullable, maxLength, precision, scale, isUnicode, json);
+    }
+  }
+
+  @Override
+  protected void writeJsonLiteral(final String literal, final JsonGenerator json) throws IOException {
+    json.writeBoolean(Boolean.parseBoolean(literal));
+  }
 }
@@ -21,8 +21,11 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
+import java.io.IOException;
 import java.math.BigInteger;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Implementation of the EDM primitive type Byte.
  */
@@ -98,4 +101,22 @@ public final class EdmByte extends SingletonPrimitiveType {
           "EdmPrimitiveTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass())");
     }
   }
+
+  @Override
+  public void writeJsonValue(final Object value,
+      final Boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final Boolean isUnicode, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (isIntegral(value)
+        && ((Number) value).longValue() >= 0 && ((Number) value).longValue() <= 255) {
+      json.writeNumber(((Number) value).longValue());
+    } else {
+      super.writeJsonValue(value, isNullable, maxLength, precision, scale, isUnicode, json);
+    }
+  }
+
+  @Override
+  protected void writeJsonLiteral(final String literal, final JsonGenerator json) throws IOException {
+    json.writeNumber(literal);
+  }
 }
@@ -21,11 +21,14 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Implementation of the EDM primitive type Decimal.
  */
@@ -198,4 +201,21 @@ public final class EdmDecimal extends SingletonPrimitiveType {
 
     return result;
   }
+
+  @Override
+  public void writeJsonValue(final Object value,
+      final Boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final Boolean isUnicode, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (precision == null && isIntegral(value)) {
+      json.writeNumber(((Number) value).longValue());
+    } else {
+      super.writeJsonValue(value, isNullable, maxLength, precision, scale, isUnicode, json);
+    }
+  }
+
+  @Override
+  protected void writeJsonLiteral(final String literal, final JsonGenerator json) throws IOException {
+    json.writeNumber(literal);
+  }
 }
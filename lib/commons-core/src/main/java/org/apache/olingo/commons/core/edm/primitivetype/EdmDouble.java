@@ -21,9 +21,12 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Implementation of the EDM primitive type Double.
  */
@@ -143,4 +146,23 @@ public final class EdmDouble extends SingletonPrimitiveType {
           "EdmPrimitiveTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass())");
     }
   }
+
+  @Override
+  public void writeJsonValue(final Object value,
+      final Boolean isNullable, final Integer maxLength, final Integer precision,
+      final Integer scale, final Boolean isUnicode, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (value instanceof Double && !((Double) value).isInfinite() && !((Double) value).isNaN()) {
+      json.writeNumber((Double) value);
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      json.writeNumber(((Number) value).intValue());
+    } else {
+      super.writeJsonValue(value, isNullable, maxLength, precision, scale, isUnicode, json);
+    }
+  }
+
+  @Override
+  protected void writeJsonLiteral(final String literal, final JsonGenerator json) throws IOException {
+    json.writeNumber(literal);
+  }
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.edm.primitivetype;
+
+import java.io.IOException;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Primitive type which writes its values directly into a JSON generator.
+ * <p>
+ * Values of the native Java types, e.g., <code>Integer</code> for Edm.Int32, are written without an
+ * intermediate string; all other values are converted as by
+ * {@link org.apache.olingo.commons.api.edm.EdmPrimitiveType#valueToString(Object, Boolean, Integer, Integer,
+ * Integer, Boolean) valueToString} and written as JSON number, boolean, or string.
+ */
+public interface JsonPrimitiveValueWriter {
+
+  /**
+   * Writes the given value with the given facets as JSON value.
+   * @param value the value; if it is <code>null</code>, JSON null is written
+   * @param json the JSON generator
+   * @throws EdmPrimitiveTypeException if the value is not valid for the type or the facets
+   * @throws IOException if the value could not be written
+   */
+  void writeJsonValue(Object value, Boolean isNullable, Integer maxLength, Integer precision, Integer scale,
+      Boolean isUnicode, JsonGenerator json) throws EdmPrimitiveTypeException, IOException;
+}
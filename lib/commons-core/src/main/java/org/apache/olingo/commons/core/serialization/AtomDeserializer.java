@@ -44,6 +44,7 @@ import org.apache.olingo.commons.api.edm.geo.Geospatial;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.serialization.ODataDeserializer;
 import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.serialization.ODataEntitySetReader;
 import org.apache.olingo.commons.core.data.AbstractODataObject;
 import org.apache.olingo.commons.core.data.AnnotationImpl;
 import org.apache.olingo.commons.core.data.DeletedEntityImpl;
@@ -64,6 +65,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.text.ParseException;
@@ -775,19 +777,24 @@ public class AtomDeserializer extends AbstractAtomDealer implements ODataDeseria
     }
   }
 
-  private EntitySet entitySet(final XMLEventReader reader, final StartElement start)
-      throws XMLStreamException, EdmPrimitiveTypeException {
-    if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
-      return null;
-    }
+  private EntitySetImpl newEntitySet(final StartElement start) {
     final EntitySetImpl entitySet = new EntitySetImpl();
     final Attribute xmlBase = start.getAttributeByName(Constants.QNAME_ATTR_XML_BASE);
     if (xmlBase != null) {
       entitySet.setBaseURI(xmlBase.getValue());
     }
+    return entitySet;
+  }
 
-    boolean foundEndFeed = false;
-    while (reader.hasNext() && !foundEndFeed) {
+  /**
+   * Reads feed elements into the given entity set up to the next entry, or up to the end of the feed.
+   *
+   * @return next entry, or null at the end of the feed.
+   */
+  private Entity nextEntity(final XMLEventReader reader, final StartElement start, final EntitySetImpl entitySet)
+      throws XMLStreamException, EdmPrimitiveTypeException {
+
+    while (reader.hasNext()) {
       final XMLEvent event = reader.nextEvent();
       if (event.isStartElement()) {
         if (countQName.equals(event.asStartElement().getName())) {
@@ -817,19 +824,34 @@ public class AtomDeserializer extends AbstractAtomDealer implements ODataDeseria
             }
           }
         } else if (Constants.QNAME_ATOM_ELEM_ENTRY.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entity(reader, event.asStartElement()));
+          return entity(reader, event.asStartElement());
         } else if (entryRefQName.equals(event.asStartElement().getName())) {
-          entitySet.getEntities().add(entityRef(event.asStartElement()));
+          return entityRef(event.asStartElement());
         } else if (annotationQName.equals(event.asStartElement().getName())) {
           entitySet.getAnnotations().add(annotation(reader, event.asStartElement()));
         }
       }
 
       if (event.isEndElement() && start.getName().equals(event.asEndElement().getName())) {
-        foundEndFeed = true;
+        return null;
       }
     }
 
+    return null;
+  }
+
+  private EntitySet entitySet(final XMLEventReader reader, final StartElement start)
+      throws XMLStreamException, EdmPrimitiveTypeException {
+    if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+      return null;
+    }
+    final EntitySetImpl entitySet = newEntitySet(start);
+
+    Entity entity;
+    while ((entity = nextEntity(reader, start, entitySet)) != null) {
+      entitySet.getEntities().add(entity);
+    }
+
     return entitySet;
   }
 
@@ -846,6 +868,65 @@ public class AtomDeserializer extends AbstractAtomDealer implements ODataDeseria
     }
   }
 
+  @Override
+  public ODataEntitySetReader toEntitySetReader(final InputStream input) throws ODataDeserializerException {
+    try {
+      final XMLEventReader reader = getReader(input);
+      final StartElement start = skipBeforeFirstStartElement(reader);
+      if (!Constants.QNAME_ATOM_ELEM_FEED.equals(start.getName())) {
+        throw new ODataDeserializerException("No entity set found!");
+      }
+      final EntitySetImpl entitySet = newEntitySet(start);
+      final ResWrap<EntitySet> container = getContainer(start, (EntitySet) entitySet);
+
+      return new ODataEntitySetReader() {
+
+        private boolean finished = false;
+
+        @Override
+        public ResWrap<Entity> next() throws ODataDeserializerException {
+          if (finished) {
+            return null;
+          }
+          try {
+            final Entity entity = nextEntity(reader, start, entitySet);
+            if (entity == null) {
+              finished = true;
+              return null;
+            }
+            // xml:base of the feed applies to its entries
+            if (entity.getBaseURI() == null && entitySet.getBaseURI() != null) {
+              ((EntityImpl) entity).setBaseURI(entitySet.getBaseURI().toASCIIString());
+            }
+            return new ResWrap<Entity>(container.getContextURL(), container.getMetadataETag(), entity);
+          } catch (XMLStreamException e) {
+            throw new ODataDeserializerException(e);
+          } catch (final EdmPrimitiveTypeException e) {
+            throw new ODataDeserializerException(e);
+          }
+        }
+
+        @Override
+        public ResWrap<EntitySet> getEntitySet() {
+          return container;
+        }
+
+        @Override
+        public void close() throws IOException {
+          try {
+            reader.close();
+          } catch (XMLStreamException e) {
+            throw new IOException(e);
+          } finally {
+            input.close();
+          }
+        }
+      };
+    } catch (XMLStreamException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
   private ODataError error(final XMLEventReader reader, final StartElement start) throws XMLStreamException {
     final ODataError error = new ODataError();
 
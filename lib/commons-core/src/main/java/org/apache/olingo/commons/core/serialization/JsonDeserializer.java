@@ -18,11 +18,9 @@
  */
 package org.apache.olingo.commons.core.serialization;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
@@ -47,6 +45,7 @@ import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.edm.geo.Geospatial;
 import org.apache.olingo.commons.api.serialization.ODataDeserializer;
 import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.serialization.ODataEntitySetReader;
 import org.apache.olingo.commons.core.data.AnnotationImpl;
 import org.apache.olingo.commons.core.data.EntitySetImpl;
 import org.apache.olingo.commons.core.data.LinkImpl;
@@ -444,17 +443,26 @@ public class JsonDeserializer implements ODataDeserializer {
   @Override
   public ResWrap<EntitySet> toEntitySet(final InputStream input) throws ODataDeserializerException {
     try {
-      parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      parser = JsonFactoryRegistry.createParser(input);
       return new JsonEntitySetDeserializer(version, serverMode).doDeserialize(parser);
     } catch (final IOException e) {
       throw new ODataDeserializerException(e);
     }
   }
 
+  @Override
+  public ODataEntitySetReader toEntitySetReader(final InputStream input) throws ODataDeserializerException {
+    try {
+      return new JsonEntitySetReader(version, serverMode, JsonFactoryRegistry.createParser(input));
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
   @Override
   public ResWrap<Entity> toEntity(final InputStream input) throws ODataDeserializerException {
     try {
-      parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      parser = JsonFactoryRegistry.createParser(input);
       return new JsonEntityDeserializer(version, serverMode).doDeserialize(parser);
     } catch (final IOException e) {
       throw new ODataDeserializerException(e);
@@ -464,7 +472,7 @@ public class JsonDeserializer implements ODataDeserializer {
   @Override
   public ResWrap<Property> toProperty(final InputStream input) throws ODataDeserializerException {
     try {
-      parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      parser = JsonFactoryRegistry.createParser(input);
       return new JsonPropertyDeserializer(version, serverMode).doDeserialize(parser);
     } catch (final IOException e) {
       throw new ODataDeserializerException(e);
@@ -474,7 +482,7 @@ public class JsonDeserializer implements ODataDeserializer {
   @Override
   public ODataError toError(final InputStream input) throws ODataDeserializerException {
     try {
-      parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      parser = JsonFactoryRegistry.createParser(input);
       return new JsonODataErrorDeserializer(version, serverMode).doDeserialize(parser);
     } catch (final IOException e) {
       throw new ODataDeserializerException(e);
@@ -19,6 +19,7 @@
 package org.apache.olingo.commons.core.serialization;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
@@ -48,9 +49,10 @@ public class JsonEntitySetDeserializer extends JsonDeserializer {
   }
 
   protected ResWrap<EntitySet> doDeserialize(final JsonParser parser) throws IOException {
+    return doDeserialize((ObjectNode) parser.getCodec().readTree(parser), parser.getCodec());
+  }
 
-    final ObjectNode tree = (ObjectNode) parser.getCodec().readTree(parser);
-
+  protected ResWrap<EntitySet> doDeserialize(final ObjectNode tree, final ObjectCodec codec) throws IOException {
     if (!tree.has(Constants.VALUE)) {
       return null;
     }
@@ -96,7 +98,7 @@ public class JsonEntitySetDeserializer extends JsonDeserializer {
       final JsonEntityDeserializer entityDeserializer = new JsonEntityDeserializer(version, serverMode);
       for (JsonNode jsonNode : tree.get(Constants.VALUE)) {
         entitySet.getEntities().add(
-            entityDeserializer.doDeserialize(jsonNode.traverse(parser.getCodec())).getPayload());
+            entityDeserializer.doDeserialize(jsonNode.traverse(codec)).getPayload());
       }
       tree.remove(Constants.VALUE);
     }
@@ -109,7 +111,7 @@ public class JsonEntitySetDeserializer extends JsonDeserializer {
         annotation.setTerm(field.getKey().substring(1));
 
         try {
-          value(annotation, field.getValue(), parser.getCodec());
+          value(annotation, field.getValue(), codec);
         } catch (final EdmPrimitiveTypeException e) {
           throw new IOException(e);
         }
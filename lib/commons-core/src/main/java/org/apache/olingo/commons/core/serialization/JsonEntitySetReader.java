@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.data.ResWrap;
+import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
+import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.serialization.ODataEntitySetReader;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Reads the entities of a JSON entity set one at a time from a single token stream.
+ * <br/>
+ * Members of the entity set object other than <tt>value</tt> are kept as a tree (they are small), while each item of
+ * the <tt>value</tt> array is read into a tree and de-serialized only when requested.
+ */
+public class JsonEntitySetReader implements ODataEntitySetReader {
+
+  private final JsonParser parser;
+
+  private final JsonEntityDeserializer entityDeserializer;
+
+  private final JsonEntitySetDeserializer entitySetDeserializer;
+
+  private final ObjectNode tree = JsonNodeFactory.instance.objectNode();
+
+  private URI contextURL;
+
+  private String metadataETag;
+
+  private boolean inValue = false;
+
+  private boolean finished = false;
+
+  public JsonEntitySetReader(final ODataServiceVersion version, final boolean serverMode, final JsonParser parser)
+      throws IOException {
+
+    this.parser = parser;
+    entityDeserializer = new JsonEntityDeserializer(version, serverMode);
+    entitySetDeserializer = new JsonEntitySetDeserializer(version, serverMode);
+
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Expected JSON object at " + parser.getCurrentLocation());
+    }
+    readMembers();
+  }
+
+  /**
+   * Reads members of the entity set object into the tree until the start of the value array or the end of the object.
+   */
+  private void readMembers() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      token = parser.nextToken();
+      if (Constants.VALUE.equals(name) && token == JsonToken.START_ARRAY) {
+        tree.putArray(Constants.VALUE);
+        inValue = true;
+        contextURL = textURI(tree, Constants.JSON_CONTEXT, Constants.JSON_METADATA);
+        metadataETag = tree.hasNonNull(Constants.JSON_METADATA_ETAG)
+            ? tree.get(Constants.JSON_METADATA_ETAG).textValue()
+            : null;
+        return;
+      }
+      tree.set(name, (JsonNode) parser.readValueAsTree());
+    }
+    if (token != JsonToken.END_OBJECT) {
+      throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+    }
+    finished = true;
+  }
+
+  private static URI textURI(final ObjectNode tree, final String... names) {
+    for (String name : names) {
+      if (tree.hasNonNull(name)) {
+        return URI.create(tree.get(name).textValue());
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public ResWrap<Entity> next() throws ODataDeserializerException {
+    try {
+      while (!finished) {
+        if (inValue) {
+          final JsonToken token = parser.nextToken();
+          if (token == JsonToken.START_OBJECT) {
+            return new ResWrap<Entity>(contextURL, metadataETag,
+                entityDeserializer.doDeserialize(parser).getPayload());
+          } else if (token == JsonToken.END_ARRAY) {
+            inValue = false;
+          } else {
+            throw new IOException("Unexpected " + token + " at " + parser.getCurrentLocation());
+          }
+        } else {
+          readMembers();
+        }
+      }
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+    return null;
+  }
+
+  @Override
+  public ResWrap<EntitySet> getEntitySet() {
+    try {
+      final ObjectNode members = tree.deepCopy();
+      if (!members.has(Constants.VALUE)) {
+        members.putArray(Constants.VALUE);
+      }
+      return entitySetDeserializer.doDeserialize(members, parser.getCodec());
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+}
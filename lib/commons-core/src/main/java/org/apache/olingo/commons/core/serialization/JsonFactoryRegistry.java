@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Registry of the Jackson factories shared by all JSON serializers and deserializers.
+ * <p>
+ * Jackson factories and object mappers are thread-safe once configured and keep symbol tables for the
+ * canonicalization of field names which are meant to be shared, so they are created once instead of per document;
+ * the generators and parsers of a factory recycle their buffers per thread.
+ * Generators are created by a plain {@link JsonFactory} without codec; parsers are created by the factory
+ * of the shared {@link ObjectMapper} because the deserializers read the JSON into trees.
+ * Applications may replace the factory or the object mapper, e.g., to configure other features;
+ * a replaced instance must not be reconfigured after it has been set.
+ */
+public final class JsonFactoryRegistry {
+
+  private static volatile JsonFactory generatorFactory = initFactory(new JsonFactory());
+  private static volatile ObjectMapper objectMapper = initMapper(new ObjectMapper());
+
+  private JsonFactoryRegistry() {
+    // static registry
+  }
+
+  public static JsonFactory getGeneratorFactory() {
+    return generatorFactory;
+  }
+
+  public static void setGeneratorFactory(final JsonFactory factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("JSON factory must not be null.");
+    }
+    generatorFactory = factory;
+  }
+
+  public static ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  public static void setObjectMapper(final ObjectMapper mapper) {
+    if (mapper == null) {
+      throw new IllegalArgumentException("Object mapper must not be null.");
+    }
+    objectMapper = mapper;
+  }
+
+  /** Gets the factory used for parsers; it has the shared object mapper as codec. */
+  public static JsonFactory getParserFactory() {
+    return objectMapper.getFactory();
+  }
+
+  public static JsonGenerator createGenerator(final OutputStream output) throws IOException {
+    return generatorFactory.createGenerator(output);
+  }
+
+  public static JsonGenerator createGenerator(final Writer writer) throws IOException {
+    return generatorFactory.createGenerator(writer);
+  }
+
+  public static JsonParser createParser(final InputStream input) throws IOException {
+    return getParserFactory().createParser(input);
+  }
+
+  private static JsonFactory initFactory(final JsonFactory factory) {
+    return factory.enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+        .enable(JsonFactory.Feature.INTERN_FIELD_NAMES);
+  }
+
+  private static ObjectMapper initMapper(final ObjectMapper mapper) {
+    initFactory(mapper.getFactory());
+    return mapper;
+  }
+}
@@ -18,7 +18,6 @@
  */
 package org.apache.olingo.commons.core.serialization;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -81,7 +80,7 @@ public class JsonSerializer implements ODataSerializer {
   @Override
   public <T> void write(final Writer writer, final T obj) throws ODataSerializerException {
     try {
-      final JsonGenerator json = new JsonFactory().createGenerator(writer);
+      final JsonGenerator json = JsonFactoryRegistry.createGenerator(writer);
       if (obj instanceof EntitySet) {
         new JsonEntitySetSerializer(version, serverMode).doSerialize((EntitySet) obj, json);
       } else if (obj instanceof Entity) {
@@ -104,7 +103,7 @@ public class JsonSerializer implements ODataSerializer {
   public <T> void write(final Writer writer, final ResWrap<T> container) throws ODataSerializerException {
     final T obj = container == null ? null : container.getPayload();
     try {
-      final JsonGenerator json = new JsonFactory().createGenerator(writer);
+      final JsonGenerator json = JsonFactoryRegistry.createGenerator(writer);
       if (obj instanceof EntitySet) {
         new JsonEntitySetSerializer(version, serverMode).doContainerSerialize((ResWrap<EntitySet>) container, json);
       } else if (obj instanceof Entity) {
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.edm.primitivetype;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class JsonPrimitiveValueWriterTest {
+
+  private String write(final EdmPrimitiveTypeKind kind, final Object value, final Integer precision,
+      final Integer scale) throws Exception {
+    StringWriter writer = new StringWriter();
+    JsonGenerator json = new JsonFactory().createGenerator(writer);
+    json.writeStartArray();
+    ((JsonPrimitiveValueWriter) EdmPrimitiveTypeFactory.getInstance(kind))
+        .writeJsonValue(value, null, null, precision, scale, null, json);
+    json.writeEndArray();
+    json.close();
+    final String result = writer.toString();
+    return result.substring(1, result.length() - 1);
+  }
+
+  private String write(final EdmPrimitiveTypeKind kind, final Object value) throws Exception {
+    return write(kind, value, null, null);
+  }
+
+  @Test
+  public void nativeValues() throws Exception {
+    assertEquals("true", write(EdmPrimitiveTypeKind.Boolean, true));
+    assertEquals("255", write(EdmPrimitiveTypeKind.Byte, (short) 255));
+    assertEquals("-128", write(EdmPrimitiveTypeKind.SByte, Byte.MIN_VALUE));
+    assertEquals("32767", write(EdmPrimitiveTypeKind.Int16, Short.MAX_VALUE));
+    assertEquals("-2147483648", write(EdmPrimitiveTypeKind.Int32, Integer.MIN_VALUE));
+    assertEquals("9223372036854775807", write(EdmPrimitiveTypeKind.Int64, Long.MAX_VALUE));
+    assertEquals("-1.79E308", write(EdmPrimitiveTypeKind.Double, -1.79E308));
+    assertEquals("1.5", write(EdmPrimitiveTypeKind.Single, 1.5F));
+    assertEquals("12", write(EdmPrimitiveTypeKind.Decimal, 12L));
+  }
+
+  @Test
+  public void convertedValues() throws Exception {
+    assertEquals("1.25", write(EdmPrimitiveTypeKind.Decimal, new BigDecimal("1.25"), null, 2));
+    assertEquals("INF", write(EdmPrimitiveTypeKind.Double, Double.POSITIVE_INFINITY));
+    assertEquals("\"abc\"", write(EdmPrimitiveTypeKind.String, "abc"));
+    assertEquals("null", write(EdmPrimitiveTypeKind.Int32, null));
+  }
+
+  @Test
+  public void sameAsValueToString() throws Exception {
+    final Object[] values = { 0, (byte) 8, (short) 16, 32, 255L };
+    for (final EdmPrimitiveTypeKind kind : new EdmPrimitiveTypeKind[] {
+        EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.Int16, EdmPrimitiveTypeKind.Int32,
+        EdmPrimitiveTypeKind.Int64, EdmPrimitiveTypeKind.Double, EdmPrimitiveTypeKind.Decimal }) {
+      for (final Object value : values) {
+        assertEquals(EdmPrimitiveTypeFactory.getInstance(kind).valueToString(value, null, null, null, null, null),
+            write(kind, value));
+      }
+    }
+  }
+
+  @Test
+  public void illegalValues() throws Exception {
+    expectError(EdmPrimitiveTypeKind.Byte, 256);
+    expectError(EdmPrimitiveTypeKind.SByte, 128L);
+    expectError(EdmPrimitiveTypeKind.Int16, 40000);
+    expectError(EdmPrimitiveTypeKind.Int32, Long.MAX_VALUE);
+    expectError(EdmPrimitiveTypeKind.Boolean, "true");
+    expectError(EdmPrimitiveTypeKind.Single, 1E300);
+  }
+
+  private void expectError(final EdmPrimitiveTypeKind kind, final Object value) throws Exception {
+    try {
+      write(kind, value);
+      fail("Expected exception not thrown");
+    } catch (final EdmPrimitiveTypeException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.core.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
+import org.apache.olingo.commons.api.serialization.ODataDeserializerException;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonFactoryRegistryTest {
+
+  private static final String ENTITY = "{/* comment */\"Name\":\"\u00e4\"}";
+
+  private JsonFactory generatorFactory;
+  private ObjectMapper objectMapper;
+
+  @Before
+  public void saveRegistry() {
+    generatorFactory = JsonFactoryRegistry.getGeneratorFactory();
+    objectMapper = JsonFactoryRegistry.getObjectMapper();
+  }
+
+  @After
+  public void restoreRegistry() {
+    JsonFactoryRegistry.setGeneratorFactory(generatorFactory);
+    JsonFactoryRegistry.setObjectMapper(objectMapper);
+  }
+
+  @Test
+  public void registeredMapperIsUsedByDeserializer() throws Exception {
+    try {
+      read(ENTITY);
+      fail("Expected comments to be rejected by default.");
+    } catch (final ODataDeserializerException e) {
+      // expected
+    }
+
+    final ObjectMapper mapper = new ObjectMapper();
+    mapper.getFactory().enable(JsonParser.Feature.ALLOW_COMMENTS);
+    JsonFactoryRegistry.setObjectMapper(mapper);
+    assertSame(mapper.getFactory(), JsonFactoryRegistry.getParserFactory());
+    assertEquals("\u00e4", read(ENTITY).getProperty("Name").getValue());
+  }
+
+  @Test
+  public void registeredFactoryIsUsedBySerializer() throws Exception {
+    final Entity entity = read("{\"Name\":\"\u00e4\"}");
+    assertThat(write(entity), CoreMatchers.containsString("\"Name\":\"\u00e4\""));
+
+    JsonFactoryRegistry.setGeneratorFactory(new JsonFactory().enable(JsonGenerator.Feature.ESCAPE_NON_ASCII));
+    assertThat(write(entity), CoreMatchers.containsString("\"Name\":\"\\u00E4\""));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullFactory() {
+    JsonFactoryRegistry.setGeneratorFactory(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullMapper() {
+    JsonFactoryRegistry.setObjectMapper(null);
+  }
+
+  private static Entity read(final String json) throws Exception {
+    final InputStream input = new ByteArrayInputStream(json.getBytes("UTF-8"));
+    return new JsonDeserializer(ODataServiceVersion.V40, false).toEntity(input).getPayload();
+  }
+
+  private static String write(final Entity entity) throws Exception {
+    final StringWriter writer = new StringWriter();
+    new JsonSerializer(ODataServiceVersion.V40, false).write(writer, entity);
+    return writer.toString();
+  }
+}
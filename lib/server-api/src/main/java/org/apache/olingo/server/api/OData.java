@@ -18,12 +18,26 @@
  */
 package org.apache.olingo.server.api;
 
+import java.util.Comparator;
+import java.util.List;
+
 import org.apache.olingo.commons.api.ODataRuntimeException;
+import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ODataFormat;
 import org.apache.olingo.server.api.edm.provider.EdmProvider;
+import org.apache.olingo.server.api.processor.NavigationLoader;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.Pager;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SqlQuery;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
 
 /**
  * Root object for serving factory tasks and support loosely coupling of implementation (core) from the api.
@@ -70,4 +84,93 @@ public abstract class OData {
    */
   public abstract Edm createEdm(EdmProvider edmProvider);
 
+  /**
+   * Prepares a metadata object created by {@link #createEdm(EdmProvider)} for serving requests:
+   * parses typical URIs once, so that the first requests are not slowed down.
+   * Meant to be called once at startup, before the metadata object is shared.
+   * Same as {@link #warmUp(Edm, boolean)} without materializing the metadata object.
+   * @param edm - metadata object
+   */
+  public abstract void warmUp(Edm edm);
+
+  /**
+   * Prepares a metadata object created by {@link #createEdm(EdmProvider)} for serving requests:
+   * parses typical URIs once and, if requested, loads all its elements from the provider.
+   * Materializing freezes the metadata object: afterwards elements not found in its caches are treated
+   * as unknown, so the provider is no longer asked for them; use it only if the provider does not change.
+   * @param edm - metadata object
+   * @param materialize - whether to load all elements from the provider and freeze the metadata object
+   */
+  public abstract void warmUp(Edm edm, boolean materialize);
+
+  /**
+   * Compiles the expression of a $filter option into a predicate which can be evaluated against entities,
+   * e.g., by processors filtering entity collections held in memory.
+   * @param filterOption - the $filter system query option
+   * @throws ODataApplicationException if the expression uses unsupported features or is not a valid boolean expression
+   */
+  public abstract EntityPredicate createFilterPredicate(FilterOption filterOption) throws ODataApplicationException;
+
+  /**
+   * Compiles the expressions of an $orderby option into a comparator for entities.
+   * @param orderByOption - the $orderby system query option
+   * @throws ODataApplicationException if an expression uses unsupported features
+   */
+  public abstract Comparator<Entity> createOrderByComparator(OrderByOption orderByOption)
+      throws ODataApplicationException;
+
+  /**
+   * Resolves the properties selected by a $select option, e.g., for processors to read only those.
+   * @param selectOption - the $select system query option, or <code>null</code>
+   * @return the paths of the selected properties, with path segments separated by slashes,
+   * or <code>null</code> if all properties are selected
+   */
+  public abstract List<String> getSelectedProperties(SelectOption selectOption);
+
+  /**
+   * Expands the navigation properties requested by an $expand option, including nested expansions,
+   * by setting the related entities as inline content of the entities' navigation links.
+   * The loader is called once per expanded navigation property and expansion level
+   * with all source entities of that level.
+   * The links are set on copies, so neither the given entities nor those returned by the loader are modified
+   * and processors may keep serving them to other requests.
+   * @param entityType - the type of the entities
+   * @param entities - the entities to expand; the list must be modifiable, as its entities are replaced
+   * by their expanded copies
+   * @param expandOption - the $expand system query option
+   * @param loader - the loader reading the related entities
+   * @throws ODataApplicationException if the loader fails or an option uses unsupported features
+   */
+  public abstract void expand(EdmEntityType entityType, List<Entity> entities, ExpandOption expandOption,
+      NavigationLoader loader) throws ODataApplicationException;
+
+  /**
+   * Translates the system query options of a request to an entity collection into SQL statements
+   * reading the collection from a table with one column per primitive property.
+   * The column of a property is the internal name of its mapping or, if it has none, its name;
+   * the columns of properties nested in complex properties are named by the path joined with underscores.
+   * @param table - the name of the table (or view) holding the entities
+   * @param entityType - the type of the entities
+   * @param uriInfo - the resource information providing the system query options
+   * @throws ODataApplicationException if an option uses features that cannot be translated
+   */
+  public abstract SqlQuery createSqlQuery(String table, EdmEntityType entityType, UriInfoResource uriInfo)
+      throws ODataApplicationException;
+
+  /**
+   * Creates the pager for server-driven paging of a request to an entity collection.
+   * The page size is taken from the preference <code>odata.maxpagesize</code> of the request's
+   * <code>Prefer</code> header, limited to the given maximum; a $skiptoken of the request is verified
+   * and decoded into the cursor of the requested page.
+   * @param entityType - the type of the entities
+   * @param uriInfo - the resource information providing the system query options
+   * @param request - the request, providing the <code>Prefer</code> header and the URI for next links
+   * @param maxPageSize - the maximum number of entities per page
+   * @param signingKey - the secret key signing the $skiptoken values; a token is only accepted by services
+   * using the same key
+   * @throws ODataApplicationException if the $skiptoken is invalid or an $orderby expression uses unsupported features
+   */
+  public abstract Pager createPager(EdmEntityType entityType, UriInfoResource uriInfo, ODataRequest request,
+      int maxPageSize, byte[] signingKey) throws ODataApplicationException;
+
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.io.OutputStream;
+
+import org.apache.olingo.server.api.serializer.ODataSerializerException;
+
+/**
+ * Response content which is written directly into the output stream of the response
+ * instead of being provided as input stream, e.g., by a serializer while the data is read.
+ */
+public interface ODataContent {
+
+  /**
+   * Writes the content into the given output stream. The output stream is flushed but not closed.
+   * @param output the output stream
+   * @throws ODataSerializerException if the content could not be written completely
+   */
+  void write(OutputStream output) throws ODataSerializerException;
+}
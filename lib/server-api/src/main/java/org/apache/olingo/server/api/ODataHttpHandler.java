@@ -20,6 +20,8 @@ package org.apache.olingo.server.api;
 
 import org.apache.olingo.server.api.processor.Processor;
 
+import java.util.concurrent.Executor;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -48,4 +50,15 @@ public interface ODataHttpHandler {
    */
   void setSplit(int split);
 
+  /**
+   * Sets the executor on which the GET requests of a $batch request are executed concurrently.
+   * With an executor, each registered processor instance is called from several threads at the same time,
+   * so the processors must be thread-safe: they must not keep request state in fields, and the data access
+   * they use must support concurrent calls. The metadata object created by
+   * {@link OData#createEdm(org.apache.olingo.server.api.edm.provider.EdmProvider)} is safe for concurrent use.
+   * Default is no executor, i.e., all requests of a batch request are executed one after the other.
+   * @param executor
+   */
+  void setBatchExecutor(Executor executor);
+
 }
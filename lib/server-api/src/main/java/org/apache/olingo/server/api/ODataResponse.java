@@ -33,6 +33,7 @@ public class ODataResponse {
   private int statusCode = HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
   private Map<String, String> headers = new HashMap<String, String>();
   private InputStream content;
+  private ODataContent odataContent;
 
   public void setStatusCode(final int statusCode) {
     this.statusCode = statusCode;
@@ -46,6 +47,15 @@ public class ODataResponse {
     this.content = content;
   }
 
+  /**
+   * Sets content which is written directly into the output stream of the response.
+   * It is used instead of the content set with {@link #setContent(InputStream)}.
+   * @param odataContent the content
+   */
+  public void setODataContent(final ODataContent odataContent) {
+    this.odataContent = odataContent;
+  }
+
   public int getStatusCode() {
     return statusCode;
   }
@@ -58,4 +68,8 @@ public class ODataResponse {
     return content;
   }
 
+  public ODataContent getODataContent() {
+    return odataContent;
+  }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, completely rendered document which can be served repeatedly,
+ * together with its strong entity tag and, created on first use, its gzip-compressed form.
+ */
+final class CachedDocument {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final byte[] content;
+  private final String eTag;
+  private volatile byte[] gzippedContent;
+
+  private CachedDocument(final byte[] content) {
+    this.content = content;
+    eTag = createETag(content);
+  }
+
+  static CachedDocument create(final InputStream input) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    try {
+      int count;
+      while ((count = input.read(buffer)) != -1) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      input.close();
+    }
+    return new CachedDocument(output.toByteArray());
+  }
+
+  byte[] getContent() {
+    return content;
+  }
+
+  /** Returns the strong entity tag of the uncompressed content. */
+  String getETag() {
+    return eTag;
+  }
+
+  /** Returns the strong entity tag of the compressed content which differs from the uncompressed one. */
+  String getGzipETag() {
+    return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+  }
+
+  byte[] getGzippedContent() throws IOException {
+    byte[] result = gzippedContent;
+    if (result == null) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 32);
+      final GZIPOutputStream gzip = new GZIPOutputStream(output);
+      gzip.write(content);
+      gzip.close();
+      result = output.toByteArray();
+      gzippedContent = result;
+    }
+    return result;
+  }
+
+  private static String createETag(final byte[] content) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+      final char[] result = new char[digest.length * 2 + 2];
+      result[0] = '"';
+      for (int i = 0; i < digest.length; i++) {
+        result[2 * i + 1] = HEX[(digest[i] >> 4) & 0x0F];
+        result[2 * i + 2] = HEX[digest[i] & 0x0F];
+      }
+      result[result.length - 1] = '"';
+      return new String(result);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
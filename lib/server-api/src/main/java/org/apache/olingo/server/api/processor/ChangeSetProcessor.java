@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.processor;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Processor interface for making the change sets of batch requests atomic.
+ * The requests of a change set are processed in order on one thread, after {@link #beginChangeSet()};
+ * the change set ends with {@link #commitChangeSet()} if all requests succeeded,
+ * and with {@link #rollbackChangeSet()} otherwise.
+ */
+public interface ChangeSetProcessor extends Processor {
+
+  /**
+   * Starts the unit of work, e.g., a transaction, for the requests of a change set.
+   * @throws ODataApplicationException if the unit of work cannot be started; the change set fails
+   */
+  void beginChangeSet() throws ODataApplicationException;
+
+  /**
+   * Makes the changes of the change set's requests permanent.
+   * @throws ODataApplicationException if the changes cannot be committed; the change set fails
+   */
+  void commitChangeSet() throws ODataApplicationException;
+
+  /**
+   * Discards the changes of the change set's requests after one of them has failed.
+   */
+  void rollbackChangeSet();
+}
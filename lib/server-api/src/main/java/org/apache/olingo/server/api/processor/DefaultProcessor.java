@@ -19,7 +19,12 @@
 package org.apache.olingo.server.api.processor;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -37,11 +42,33 @@ import org.apache.olingo.server.api.uri.UriInfo;
 /**
  * Processor implementation for handling of metadata and service document. This implementation is registerd in the
  * ODataHandler by default. The default can be replaced by re-registering an custom implementation.
+ * <p>
+ * Metadata and service documents are rendered only once per {@link Edm} and format and then served from memory,
+ * with a strong entity tag; requests with a matching <code>If-None-Match</code> header get status 304.
+ * Optionally the documents are sent gzip-compressed to clients accepting that.
  */
 public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProcessor, ExceptionProcessor {
 
+  /**
+   * Maximum number of documents cached per Edm; service documents depend on the base URI of the request,
+   * so the least recently used documents are evicted once the limit is reached.
+   */
+  private static final int MAX_DOCUMENTS = 32;
+  private static final Map<Edm, Map<String, CachedDocument>> DOCUMENTS =
+      new WeakHashMap<Edm, Map<String, CachedDocument>>();
+
   private OData odata;
   private Edm edm;
+  private boolean compressDocuments;
+
+  /**
+   * Sets whether metadata and service documents are sent gzip-compressed to clients accepting that.
+   * The default is <code>false</code>.
+   */
+  public DefaultProcessor setCompressDocuments(final boolean compressDocuments) {
+    this.compressDocuments = compressDocuments;
+    return this;
+  }
 
   @Override
   public void init(final OData odata, final Edm edm) {
@@ -53,12 +80,18 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
   public void readServiceDocument(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) {
     try {
-      ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
-      response.setContent(serializer.serviceDocument(edm, request.getRawBaseUri()));
-      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
-      response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
+      final String key = "service:" + requestedContentType.toContentTypeString() + ":" + request.getRawBaseUri();
+      CachedDocument document = getDocument(key);
+      if (document == null) {
+        ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
+        document = putDocument(key,
+            CachedDocument.create(serializer.serviceDocument(edm, request.getRawBaseUri())));
+      }
+      writeDocument(request, response, document, requestedContentType);
     } catch (final ODataSerializerException e) {
       response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    } catch (final IOException e) {
+      response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
     }
   }
 
@@ -66,13 +99,112 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
   public void readMetadata(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) {
     try {
-      ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
-      response.setContent(serializer.metadataDocument(edm));
-      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
-      response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
+      final String key = "metadata:" + requestedContentType.toContentTypeString();
+      CachedDocument document = getDocument(key);
+      if (document == null) {
+        ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
+        document = putDocument(key, CachedDocument.create(serializer.metadataDocument(edm)));
+      }
+      writeDocument(request, response, document, requestedContentType);
     } catch (final ODataSerializerException e) {
       response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    } catch (final IOException e) {
+      response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    }
+  }
+
+  private CachedDocument getDocument(final String key) {
+    synchronized (DOCUMENTS) {
+      final Map<String, CachedDocument> documents = DOCUMENTS.get(edm);
+      return documents == null ? null : documents.get(key);
+    }
+  }
+
+  private CachedDocument putDocument(final String key, final CachedDocument document) {
+    synchronized (DOCUMENTS) {
+      Map<String, CachedDocument> documents = DOCUMENTS.get(edm);
+      if (documents == null) {
+        documents = new LinkedHashMap<String, CachedDocument>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(final Map.Entry<String, CachedDocument> eldest) {
+            return size() > MAX_DOCUMENTS;
+          }
+        };
+        DOCUMENTS.put(edm, documents);
+      }
+      final CachedDocument existing = documents.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      documents.put(key, document);
+    }
+    return document;
+  }
+
+  private void writeDocument(final ODataRequest request, final ODataResponse response,
+      final CachedDocument document, final ContentType requestedContentType) throws IOException {
+    final boolean gzip = compressDocuments && acceptsGzip(request.getHeaders(HttpHeader.ACCEPT_ENCODING));
+    final String eTag = gzip ? document.getGzipETag() : document.getETag();
+    response.setHeader(HttpHeader.ETAG, eTag);
+    if (compressDocuments) {
+      response.setHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+    }
+    if (matches(request.getHeaders(HttpHeader.IF_NONE_MATCH), eTag)) {
+      response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
+      return;
+    }
+    final byte[] content = gzip ? document.getGzippedContent() : document.getContent();
+    if (gzip) {
+      response.setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    }
+    response.setContent(new ByteArrayInputStream(content));
+    response.setHeader(HttpHeader.CONTENT_LENGTH, String.valueOf(content.length));
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
+  }
+
+  private static boolean matches(final List<String> ifNoneMatch, final String eTag) {
+    if (ifNoneMatch != null) {
+      for (final String value : ifNoneMatch) {
+        for (String tag : value.split(",")) {
+          tag = tag.trim();
+          if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+          }
+          if ("*".equals(tag) || eTag.equals(tag)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean acceptsGzip(final List<String> acceptEncoding) {
+    if (acceptEncoding != null) {
+      for (final String value : acceptEncoding) {
+        for (final String coding : value.split(",")) {
+          final String[] parts = coding.split(";");
+          if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+            return parts.length < 2 || !isZeroQuality(parts[1].trim());
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isZeroQuality(final String parameter) {
+    if (parameter.startsWith("q=")) {
+      try {
+        return Double.parseDouble(parameter.substring(2)) <= 0;
+      } catch (final NumberFormatException e) {
+        return true;
+      }
     }
+    return false;
   }
 
   @Override
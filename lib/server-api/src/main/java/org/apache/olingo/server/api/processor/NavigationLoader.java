@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.processor;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+
+/**
+ * Callback of processors reading the targets of a navigation property for many source entities at once,
+ * so that expanding a navigation property costs one backend access regardless of the number of sources.
+ * @see org.apache.olingo.server.api.OData#expand(org.apache.olingo.commons.api.edm.EdmEntityType, List,
+ * org.apache.olingo.server.api.uri.queryoption.ExpandOption, NavigationLoader)
+ */
+public interface NavigationLoader {
+
+  /**
+   * Reads the entities related to the source entities via the navigation property.
+   * The nested $filter, $orderby, $skip, and $top options of the expand item are applied to the result
+   * per source entity afterwards, so implementations may ignore them or use the $filter option to read less.
+   * @param navigationProperty - the navigation property
+   * @param sources - the source entities
+   * @param expandItem - the expand item with the nested options
+   * @return the related entities of each source entity, in the order of the source entities;
+   * a <code>null</code> element stands for no related entities
+   * @throws ODataApplicationException
+   */
+  List<List<Entity>> loadNavigation(EdmNavigationProperty navigationProperty, List<Entity> sources,
+      ExpandItem expandItem) throws ODataApplicationException;
+}
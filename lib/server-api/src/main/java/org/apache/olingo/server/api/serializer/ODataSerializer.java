@@ -22,10 +22,14 @@ import java.io.InputStream;
 
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.EntitySet;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 
 public interface ODataSerializer {
 
@@ -41,6 +45,67 @@ public interface ODataSerializer {
   InputStream entitySet(EdmEntitySet edmEntitySet, EntitySet entitySet, ContextURL contextURL)
       throws ODataSerializerException;
 
+  /**
+   * Writes an entity with only the properties selected by the given $select option
+   * and with the related entities expanded by the given $expand option written inline.
+   * The related entities are taken from the inline content of the entity's navigation links,
+   * see {@link org.apache.olingo.server.api.OData#expand(org.apache.olingo.commons.api.edm.EdmEntityType,
+   * java.util.List, ExpandOption, org.apache.olingo.server.api.processor.NavigationLoader) OData.expand}.
+   * @param edmEntitySet the entity set
+   * @param entity the entity
+   * @param contextURL the context URL; its select list should be the one built by
+   * {@link #buildContextURLSelectList(ExpandOption, SelectOption)}
+   * @param expand the $expand option, or <code>null</code> to write no related entities
+   * @param select the $select option, or <code>null</code> to write all properties
+   * @throws ODataSerializerException
+   */
+  InputStream entity(EdmEntitySet edmEntitySet, Entity entity, ContextURL contextURL, ExpandOption expand,
+      SelectOption select) throws ODataSerializerException;
+
+  /**
+   * Writes an entity set with only the properties selected by the given $select option
+   * and the related entities expanded by the given $expand option.
+   * @see #entity(EdmEntitySet, Entity, ContextURL, ExpandOption, SelectOption)
+   */
+  InputStream entitySet(EdmEntitySet edmEntitySet, EntitySet entitySet, ContextURL contextURL, ExpandOption expand,
+      SelectOption select) throws ODataSerializerException;
+
+  /**
+   * Creates content which writes the entities pulled from the given entity iterator directly into the
+   * response output stream. A count or next link which is known only after the iteration is written
+   * after the entities.
+   * @param edmEntitySet the entity set
+   * @param entities the entity iterator; it is consumed and closed when the content is written
+   * @param contextURL the context URL
+   * @return content to be set as {@link org.apache.olingo.server.api.ODataResponse#setODataContent(ODataContent)
+   * OData content} of the response
+   * @throws ODataSerializerException
+   */
+  ODataContent entitySetStreamed(EdmEntitySet edmEntitySet, EntityIterator entities, ContextURL contextURL)
+      throws ODataSerializerException;
+
+  /**
+   * Creates content which writes the entities pulled from the given entity iterator
+   * with only the properties selected by the given $select option and the related entities expanded
+   * by the given $expand option.
+   * @see #entitySetStreamed(EdmEntitySet, EntityIterator, ContextURL)
+   * @see #entity(EdmEntitySet, Entity, ContextURL, ExpandOption, SelectOption)
+   */
+  ODataContent entitySetStreamed(EdmEntitySet edmEntitySet, EntityIterator entities, ContextURL contextURL,
+      ExpandOption expand, SelectOption select) throws ODataSerializerException;
+
+  /**
+   * Builds the select list of the context URL for the properties selected by a $select option;
+   * expanded navigation properties with nested $select or $expand options are added with their own select lists
+   * in parentheses.
+   * @param expand the $expand option, or <code>null</code>
+   * @param select the $select option, or <code>null</code>
+   * @return the select list, or <code>null</code> if all properties are selected and no expansion
+   * restricts the properties of related entities
+   * @throws ODataSerializerException
+   */
+  String buildContextURLSelectList(ExpandOption expand, SelectOption select) throws ODataSerializerException;
+
   /**
    * Writes an ODataError into an InputStream.
    * @param error the main error
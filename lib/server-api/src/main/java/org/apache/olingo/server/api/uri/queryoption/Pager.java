@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.uri.queryoption;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Server-driven paging of an entity collection.
+ * The page size is the service's maximum page size or, if smaller, the one requested with the preference
+ * <code>odata.maxpagesize</code>. Next links carry an opaque, signed $skiptoken holding a keyset cursor,
+ * i.e., the values of the $orderby expressions and of the key properties of the last entity of the previous page,
+ * so a data source can seek to the start of a page instead of skipping all entities before it.
+ * $skip is applied to the first page only, and $top limits the number of entities across all pages.
+ * @see org.apache.olingo.server.api.OData#createPager(org.apache.olingo.commons.api.edm.EdmEntityType,
+ * org.apache.olingo.server.api.uri.UriInfoResource, org.apache.olingo.server.api.ODataRequest, int, byte[])
+ */
+public interface Pager {
+
+  /**
+   * @return the maximum number of entities of the requested page
+   */
+  int getPageSize();
+
+  /**
+   * @return the number of entities to skip before the requested page
+   */
+  int getSkip();
+
+  /**
+   * Gets the cursor decoded from the $skiptoken: the values of the $orderby expressions
+   * followed by the values of the key properties, in the order of the key definition,
+   * of the last entity before the requested page.
+   * @return the cursor values, or <code>null</code> for the first page
+   */
+  List<Object> getCursor();
+
+  /**
+   * Gets the order the entities must be in to be paged: the order of the $orderby option
+   * with ties broken by the key properties in ascending order.
+   * @return the comparator
+   */
+  Comparator<Entity> getComparator();
+
+  /**
+   * Creates the requested page from an iterator over all entities of the collection.
+   * @param entities - the entities, in the order of {@link #getComparator()}; entities up to the cursor are skipped
+   * @return the page, with a next link if further entities follow
+   * @throws ODataApplicationException if the next link cannot be created
+   */
+  EntitySet getPage(Iterator<Entity> entities) throws ODataApplicationException;
+
+  /**
+   * Gets the link to the page following the requested one,
+   * e.g., for data sources reading the page on their own.
+   * @param lastEntity - the last entity of the requested page
+   * @return the next link, or <code>null</code> if $top has been exhausted
+   * @throws ODataApplicationException if the values of the entity cannot be encoded
+   */
+  URI getNextLink(Entity lastEntity) throws ODataApplicationException;
+
+  /**
+   * @return the value for the header <code>Preference-Applied</code>,
+   * or <code>null</code> if no page size has been requested or the requested one exceeds the maximum
+   */
+  String getPreferenceApplied();
+}
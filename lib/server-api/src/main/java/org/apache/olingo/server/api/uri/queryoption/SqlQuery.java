@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.uri.queryoption;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+
+/**
+ * Parameterized SQL statements reading an entity collection from a relational table,
+ * with the system query options $filter, $orderby, $top, $skip, $count, and $select pushed down.
+ * Parameters are meant to be bound in the given order to the question-mark placeholders of
+ * a {@link java.sql.PreparedStatement}.
+ * @see org.apache.olingo.server.api.OData#createSqlQuery(String, EdmEntityType, UriInfoResource)
+ */
+public interface SqlQuery {
+
+  /**
+   * @return the SELECT statement for the requested entities
+   */
+  String getStatement();
+
+  /**
+   * @return the values of the statement's parameters
+   */
+  List<Object> getParameters();
+
+  /**
+   * Gets the paths of the selected properties in the order of the statement's result columns;
+   * paths to properties nested in complex properties have their segments separated by slashes.
+   * @return the property paths
+   */
+  List<String> getSelectedProperties();
+
+  /**
+   * @return the statement counting the entities matching the $filter option,
+   * or <code>null</code> if no count has been requested
+   */
+  String getCountStatement();
+
+  /**
+   * @return the values of the count statement's parameters,
+   * or <code>null</code> if no count has been requested
+   */
+  List<Object> getCountParameters();
+}
@@ -21,6 +21,7 @@ package org.apache.olingo.server.core;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
@@ -46,7 +47,9 @@ import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceNavigation;
 import org.apache.olingo.server.api.uri.UriResourcePartTyped;
+import org.apache.olingo.server.core.batch.BatchHandler;
 import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.validator.UriValidationException;
 import org.apache.olingo.server.core.uri.validator.UriValidator;
@@ -57,10 +60,14 @@ public class ODataHandler {
   private final Edm edm;
   private final Map<Class<? extends Processor>, Processor> processors =
       new HashMap<Class<? extends Processor>, Processor>();
+  private final UriInfoCache uriInfoCache;
+  private Executor batchExecutor;
 
   public ODataHandler(final OData server, final Edm edm) {
     odata = server;
     this.edm = edm;
+    // Parsed URIs are only worth caching for as long as the Edm lives, so the cache is attached to the Edm.
+    uriInfoCache = UriInfoCache.forEdm(edm);
 
     register(new DefaultProcessor());
     register(new DefaultRedirectProcessor());
@@ -102,10 +109,9 @@ public class ODataHandler {
       ODataApplicationException {
     validateODataVersion(request, response);
 
-    Parser parser = new Parser();
     String odUri =
         request.getRawODataPath() + (request.getRawQueryPath() == null ? "" : "?" + request.getRawQueryPath());
-    UriInfo uriInfo = parser.parseUri(odUri, edm);
+    UriInfo uriInfo = uriInfoCache.parseUri(odUri, new Parser().setFastPath(true));
 
     UriValidator validator = new UriValidator();
     validator.validate(uriInfo, request.getMethod());
@@ -136,6 +142,9 @@ public class ODataHandler {
     case resource:
       handleResourceDispatching(request, response, uriInfo);
       break;
+    case batch:
+      new BatchHandler(this, batchExecutor).process(request, response);
+      break;
     default:
       response.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
       throw new ODataTranslatedException("not implemented",
@@ -259,6 +268,28 @@ public class ODataHandler {
     return p;
   }
 
+  /**
+   * Gets the registered processor of the given type.
+   * @return the processor, or <code>null</code> if none has been registered
+   */
+  public <T extends Processor> T getProcessor(final Class<T> cls) {
+    return cls.cast(processors.get(cls));
+  }
+
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
+  /**
+   * Sets the executor for the concurrent execution of the GET requests of batch requests;
+   * the registered processors are then called from several threads at the same time and must be thread-safe.
+   * Without executor, all requests are executed one after the other.
+   * @see org.apache.olingo.server.api.ODataHttpHandler#setBatchExecutor(Executor)
+   */
+  public void setBatchExecutor(final Executor batchExecutor) {
+    this.batchExecutor = batchExecutor;
+  }
+
   public void register(final Processor processor) {
     processor.init(odata, edm);
 
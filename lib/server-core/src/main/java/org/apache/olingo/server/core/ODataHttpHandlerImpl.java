@@ -24,12 +24,14 @@ import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataTranslatedException;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,10 +45,14 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(ODataHttpHandlerImpl.class);
+  private static final int COPY_BUFFER_SIZE = 8192;
+  /** Copy buffer per thread, for response content which is not held in a stream buffer */
+  private static final ThreadLocal<byte[]> COPY_BUFFER = new ThreadLocal<byte[]>();
 
   private ODataHandler handler;
   private int split = 0;
@@ -75,6 +81,11 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
+  @Override
+  public void setBatchExecutor(final Executor executor) {
+    handler.setBatchExecutor(executor);
+  }
+
   private ODataResponse handleException(Exception e) {
     ODataResponse resp = new ODataResponse();
     if (e instanceof ODataTranslatedException) {
@@ -97,31 +108,58 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
       response.setHeader(entry.getKey(), entry.getValue());
     }
 
+    ODataContent content = odResponse.getODataContent();
+    if (content != null) {
+      try {
+        content.write(response.getOutputStream());
+      } catch (IOException e) {
+        LOG.error(e.getMessage(), e);
+        throw new ODataRuntimeException(e);
+      } catch (ODataSerializerException e) {
+        LOG.error(e.getMessage(), e);
+        throw new ODataRuntimeException(e);
+      }
+      return;
+    }
+
     InputStream input = odResponse.getContent();
     if (input != null) {
-      OutputStream output;
       try {
-        output = response.getOutputStream();
-        byte[] buffer = new byte[1024];
-        int n = 0;
-        while (-1 != (n = input.read(buffer))) {
-          output.write(buffer, 0, n);
+        final CircleStreamBuffer buffer = CircleStreamBuffer.getStreamBuffer(input);
+        if (buffer == null) {
+          copy(input, response.getOutputStream());
+        } else {
+          final long size = buffer.size();
+          if (size >= 0 && size <= Integer.MAX_VALUE && !response.containsHeader(HttpHeader.CONTENT_LENGTH)) {
+            response.setContentLength((int) size);
+          }
+          buffer.writeTo(response.getOutputStream());
         }
       } catch (IOException e) {
         LOG.error(e.getMessage(), e);
         throw new ODataRuntimeException(e);
       } finally {
-        if (input != null) {
-          try {
-            input.close();
-          } catch (IOException e) {
-            throw new ODataRuntimeException(e);
-          }
+        try {
+          input.close();
+        } catch (IOException e) {
+          throw new ODataRuntimeException(e);
         }
       }
     }
   }
 
+  private static void copy(final InputStream input, final OutputStream output) throws IOException {
+    byte[] buffer = COPY_BUFFER.get();
+    if (buffer == null) {
+      buffer = new byte[COPY_BUFFER_SIZE];
+      COPY_BUFFER.set(buffer);
+    }
+    int n = 0;
+    while (-1 != (n = input.read(buffer))) {
+      output.write(buffer, 0, n);
+    }
+  }
+
   private ODataRequest createODataRequest(final HttpServletRequest httpRequest, final int split)
       throws ODataTranslatedException {
     try {
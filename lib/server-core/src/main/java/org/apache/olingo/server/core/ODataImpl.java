@@ -18,19 +18,46 @@
  */
 package org.apache.olingo.server.core;
 
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ODataFormat;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.edm.provider.EdmProvider;
+import org.apache.olingo.server.api.processor.NavigationLoader;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.Pager;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SqlQuery;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
 import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
 import org.apache.olingo.server.core.serializer.ODataXmlSerializerImpl;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
+import org.apache.olingo.server.core.serializer.utils.SelectedProperties;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
+import org.apache.olingo.server.core.uri.queryoption.evaluator.FilterPredicateCache;
+import org.apache.olingo.server.core.uri.queryoption.evaluator.KeysetPager;
+import org.apache.olingo.server.core.uri.queryoption.evaluator.NavigationExpander;
+import org.apache.olingo.server.core.uri.queryoption.evaluator.OrderByCompiler;
+import org.apache.olingo.server.core.uri.queryoption.evaluator.SqlTranslator;
 
 public class ODataImpl extends OData {
 
+  /** Predicates compiled from $filter expressions, shared by all requests using this instance */
+  private final FilterPredicateCache filterPredicates = new FilterPredicateCache();
+
   @Override
   public ODataSerializer createSerializer(final ODataFormat format) throws ODataSerializerException {
     ODataSerializer serializer;
@@ -61,4 +88,54 @@ public class ODataImpl extends OData {
     return new EdmProviderImpl(edmProvider);
   }
 
+  @Override
+  public void warmUp(final Edm edm) {
+    warmUp(edm, false);
+  }
+
+  @Override
+  public void warmUp(final Edm edm, final boolean materialize) {
+    if (materialize && edm instanceof EdmProviderImpl) {
+      ((EdmProviderImpl) edm).materialize();
+    }
+    final Parser parser = new Parser();
+    parser.setReusableParserPool(UriInfoCache.forEdm(edm).getParserPool());
+    parser.warmUp(edm);
+  }
+
+  @Override
+  public EntityPredicate createFilterPredicate(final FilterOption filterOption) throws ODataApplicationException {
+    return filterPredicates.compile(filterOption.getExpression());
+  }
+
+  @Override
+  public Comparator<Entity> createOrderByComparator(final OrderByOption orderByOption)
+      throws ODataApplicationException {
+    return OrderByCompiler.compile(orderByOption.getOrders());
+  }
+
+  @Override
+  public List<String> getSelectedProperties(final SelectOption selectOption) {
+    final SelectedProperties selectedProperties = SelectedProperties.create(selectOption);
+    return selectedProperties == null ? null : selectedProperties.getPaths();
+  }
+
+  @Override
+  public void expand(final EdmEntityType entityType, final List<Entity> entities, final ExpandOption expandOption,
+      final NavigationLoader loader) throws ODataApplicationException {
+    NavigationExpander.expand(entityType, entities, expandOption, loader);
+  }
+
+  @Override
+  public SqlQuery createSqlQuery(final String table, final EdmEntityType entityType, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    return SqlTranslator.translate(table, entityType, uriInfo);
+  }
+
+  @Override
+  public Pager createPager(final EdmEntityType entityType, final UriInfoResource uriInfo, final ODataRequest request,
+      final int maxPageSize, final byte[] signingKey) throws ODataApplicationException {
+    return KeysetPager.create(entityType, uriInfo, request, maxPageSize, signingKey);
+  }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batch;
+
+import org.apache.olingo.server.api.ODataTranslatedException;
+
+public class BatchException extends ODataTranslatedException {
+  private static final long serialVersionUID = 3861423718294827302L;
+
+  public static enum MessageKeys implements MessageKey {
+    /** no parameters */
+    INVALID_METHOD,
+    /** parameter: content type */
+    INVALID_CONTENT_TYPE,
+    /** parameter: content type */
+    INVALID_PART_CONTENT_TYPE,
+    /** parameter: boundary */
+    MISSING_CLOSE_DELIMITER,
+    /** parameter: request line */
+    INVALID_REQUEST_LINE,
+    /** parameter: URI */
+    INVALID_URI
+  }
+
+  public BatchException(String developmentMessage, MessageKey messageKey, String... parameters) {
+    super(developmentMessage, messageKey, parameters);
+  }
+
+  public BatchException(String developmentMessage, Throwable cause, MessageKey messageKey,
+      String... parameters) {
+    super(developmentMessage, cause, messageKey, parameters);
+  }
+}
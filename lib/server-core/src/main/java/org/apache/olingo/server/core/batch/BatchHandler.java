@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataTranslatedException;
+import org.apache.olingo.server.api.processor.ChangeSetProcessor;
+import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.core.ODataExceptionHandler;
+import org.apache.olingo.server.core.ODataHandler;
+
+/**
+ * Handles $batch requests: the parts of the multipart/mixed request body are read one after the other
+ * and their requests are dispatched through the {@link ODataHandler}.
+ * GET requests outside of change sets do not depend on each other, so consecutive ones are executed
+ * concurrently on the executor, if there is one; the processors must be thread-safe then.
+ * All other requests and the change sets are barriers:
+ * they are executed on the writing thread after all preceding requests have completed.
+ * The request parts are read when the batch request is processed, so that a malformed batch request body
+ * is rejected as a whole; they are executed while the response content is written.
+ * The parts of the multipart response are written in the order of the request parts,
+ * each one as soon as it is complete; a part whose execution fails is written as 500 response.
+ */
+public class BatchHandler {
+
+  private static final String CRLF = "\r\n";
+
+  private final ODataHandler handler;
+  private final Executor executor;
+
+  /**
+   * @param handler the handler for the requests of the batch parts
+   * @param executor the executor for GET requests, or <code>null</code> to execute them on the calling thread
+   */
+  public BatchHandler(final ODataHandler handler, final Executor executor) {
+    this.handler = handler;
+    this.executor = executor;
+  }
+
+  public void process(final ODataRequest request, final ODataResponse response) throws ODataTranslatedException {
+    if (request.getMethod() != HttpMethod.POST) {
+      response.setStatusCode(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode());
+      throw new BatchException("Invalid method for a batch request: " + request.getMethod(),
+          BatchException.MessageKeys.INVALID_METHOD);
+    }
+    final List<BatchRequestPart> parts = new ArrayList<BatchRequestPart>();
+    try {
+      final BatchParser parser = new BatchParser(request.getBody(),
+          BatchParser.getBoundary(request.getHeader(HttpHeader.CONTENT_TYPE)), request);
+      BatchRequestPart part;
+      while ((part = parser.next()) != null) {
+        parts.add(part);
+      }
+    } catch (final BatchException e) {
+      response.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
+      throw e;
+    } catch (final IOException e) {
+      throw new ODataSerializerException("An I/O exception occurred.", e,
+          ODataSerializerException.MessageKeys.IO_EXCEPTION);
+    }
+
+    final String boundary = "batch_" + UUID.randomUUID();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE,
+        ContentType.create(ContentType.MULTIPART_MIXED, "boundary=" + boundary).toContentTypeString());
+    response.setODataContent(new ODataContent() {
+      @Override
+      public void write(final OutputStream output) throws ODataSerializerException {
+        try {
+          List<Future<byte[]>> running = new ArrayList<Future<byte[]>>();
+          for (final BatchRequestPart part : parts) {
+            final FutureTask<byte[]> task = new FutureTask<byte[]>(new PartTask(part));
+            if (!part.isChangeSet() && part.getRequests().get(0).getMethod() == HttpMethod.GET) {
+              running.add(task);
+              execute(task);
+            } else {
+              writeParts(output, boundary, running);
+              running.clear();
+              task.run();
+              writeParts(output, boundary, Collections.<Future<byte[]>> singletonList(task));
+            }
+          }
+          writeParts(output, boundary, running);
+          output.write(toBytes("--" + boundary + "--" + CRLF));
+          output.flush();
+        } catch (final IOException e) {
+          throw new ODataSerializerException("An I/O exception occurred.", e,
+              ODataSerializerException.MessageKeys.IO_EXCEPTION);
+        }
+      }
+    });
+  }
+
+  /** Writes the response parts of the given tasks in order, each one as soon as its task has completed. */
+  private static void writeParts(final OutputStream output, final String boundary,
+      final List<Future<byte[]>> tasks) throws IOException {
+    for (final Future<byte[]> task : tasks) {
+      output.write(toBytes("--" + boundary + CRLF));
+      output.write(await(task));
+      output.write(toBytes(CRLF));
+      output.flush();
+    }
+  }
+
+  private void execute(final FutureTask<byte[]> task) {
+    if (executor == null) {
+      task.run();
+    } else {
+      try {
+        executor.execute(task);
+      } catch (final RejectedExecutionException e) {
+        task.run();
+      }
+    }
+  }
+
+  /** Waits for the response part of a task; if the task has failed, the part is an empty 500 response. */
+  private static byte[] await(final Future<byte[]> result) throws IOException {
+    try {
+      return result.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException e) {
+      // The failure is reported in the response part.
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    writeResponse(output, response, null);
+    return output.toByteArray();
+  }
+
+  /** Executes the requests of a batch part and returns the response part without the delimiter. */
+  private class PartTask implements Callable<byte[]> {
+    private final BatchRequestPart part;
+
+    private PartTask(final BatchRequestPart part) {
+      this.part = part;
+    }
+
+    @Override
+    public byte[] call() throws IOException {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      if (part.isChangeSet()) {
+        processChangeSet(output);
+      } else {
+        writeResponse(output, process(part.getRequests().get(0)), part.getContentIds().get(0));
+      }
+      return output.toByteArray();
+    }
+
+    /**
+     * Processes the requests of the change set in order; if one of them fails, the change set's
+     * response is the response of the failed request, otherwise a multipart response with all responses.
+     */
+    private void processChangeSet(final OutputStream output) throws IOException {
+      final ChangeSetProcessor processor = handler.getProcessor(ChangeSetProcessor.class);
+      try {
+        if (processor != null) {
+          processor.beginChangeSet();
+        }
+        List<ODataResponse> responses = new ArrayList<ODataResponse>();
+        Map<String, String> locations = new HashMap<String, String>();
+        for (int i = 0; i < part.getRequests().size(); i++) {
+          final ODataRequest request = part.getRequests().get(i);
+          resolveReference(request, locations);
+          final ODataResponse response = process(request);
+          if (response.getStatusCode() >= HttpStatusCode.BAD_REQUEST.getStatusCode()) {
+            if (processor != null) {
+              processor.rollbackChangeSet();
+            }
+            writeResponse(output, response, null);
+            return;
+          }
+          final String contentId = part.getContentIds().get(i);
+          if (contentId != null && response.getHeaders().get(HttpHeader.LOCATION) != null) {
+            locations.put(contentId, response.getHeaders().get(HttpHeader.LOCATION));
+          }
+          responses.add(response);
+        }
+        if (processor != null) {
+          processor.commitChangeSet();
+        }
+        final String boundary = "changeset_" + UUID.randomUUID();
+        output.write(toBytes(HttpHeader.CONTENT_TYPE + ": "
+            + ContentType.create(ContentType.MULTIPART_MIXED, "boundary=" + boundary).toContentTypeString()
+            + CRLF + CRLF));
+        for (int i = 0; i < responses.size(); i++) {
+          output.write(toBytes("--" + boundary + CRLF));
+          writeResponse(output, responses.get(i), part.getContentIds().get(i));
+          output.write(toBytes(CRLF));
+        }
+        output.write(toBytes("--" + boundary + "--"));
+      } catch (final ODataApplicationException e) {
+        ODataResponse response = new ODataResponse();
+        response.setStatusCode(e.getStatusCode());
+        writeResponse(output, response, null);
+      }
+    }
+  }
+
+  /** Replaces a leading Content-ID reference of a change-set request by the location of the referenced entity. */
+  private static void resolveReference(final ODataRequest request, final Map<String, String> locations) {
+    final String path = request.getRawODataPath();
+    if (path.startsWith("/$")) {
+      final int end = path.indexOf('/', 2) < 0 ? path.length() : path.indexOf('/', 2);
+      final String location = locations.get(path.substring(2, end));
+      if (location != null) {
+        try {
+          BatchParser.setUri(request, location + path.substring(end)
+              + (request.getRawQueryPath() == null ? "" : '?' + request.getRawQueryPath()));
+        } catch (final BatchException e) {
+          // The reference is left unresolved; the handler reports the invalid URI.
+        }
+      }
+    }
+  }
+
+  private ODataResponse process(final ODataRequest request) {
+    try {
+      return handler.process(request);
+    } catch (final RuntimeException e) {
+      ODataResponse response = new ODataResponse();
+      new ODataExceptionHandler().handle(response, e);
+      return response;
+    }
+  }
+
+  /** Writes a response as MIME part with content type application/http. */
+  private static void writeResponse(final OutputStream output, final ODataResponse response, final String contentId)
+      throws IOException {
+    byte[] body;
+    int statusCode = response.getStatusCode();
+    try {
+      body = getBody(response);
+    } catch (final ODataSerializerException e) {
+      body = new byte[0];
+      statusCode = HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+    }
+    StringBuilder head = new StringBuilder();
+    head.append(HttpHeader.CONTENT_TYPE).append(": ").append(BatchParser.APPLICATION_HTTP).append(CRLF)
+        .append("Content-Transfer-Encoding: binary").append(CRLF);
+    if (contentId != null) {
+      head.append(BatchParser.CONTENT_ID).append(": ").append(contentId).append(CRLF);
+    }
+    final HttpStatusCode status = HttpStatusCode.fromStatusCode(statusCode);
+    head.append(CRLF)
+        .append("HTTP/1.1 ").append(statusCode).append(' ').append(status == null ? "" : status.getInfo())
+        .append(CRLF);
+    for (final Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+      head.append(header.getKey()).append(": ").append(header.getValue()).append(CRLF);
+    }
+    if (!response.getHeaders().containsKey(HttpHeader.CONTENT_LENGTH)) {
+      head.append(HttpHeader.CONTENT_LENGTH).append(": ").append(body.length).append(CRLF);
+    }
+    head.append(CRLF);
+    output.write(toBytes(head.toString()));
+    output.write(body);
+  }
+
+  private static byte[] getBody(final ODataResponse response) throws IOException, ODataSerializerException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    if (response.getODataContent() != null) {
+      response.getODataContent().write(body);
+    } else if (response.getContent() != null) {
+      final InputStream content = response.getContent();
+      try {
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = content.read(buffer)) != -1) {
+          body.write(buffer, 0, count);
+        }
+      } finally {
+        content.close();
+      }
+    }
+    return body.toByteArray();
+  }
+
+  private static byte[] toBytes(final String text) throws IOException {
+    return text.getBytes(BatchParser.CHARSET);
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batch;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.olingo.commons.api.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataRequest;
+
+/**
+ * Reads the parts of a multipart/mixed batch request body one after the other,
+ * so that the body is never held in memory as a whole.
+ * The requests of the parts get the base URI of the batch request.
+ */
+final class BatchParser {
+
+  static final String APPLICATION_HTTP = "application/http";
+  static final String CONTENT_ID = "Content-ID";
+  static final String CHARSET = "ISO-8859-1";
+
+  private final InputStream input;
+  private final String boundary;
+  private final ODataRequest batchRequest;
+  private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+  private boolean started;
+  private boolean finished;
+
+  /**
+   * @param input the multipart body
+   * @param boundary the boundary of the body's parts
+   * @param batchRequest the batch request, providing the base URI
+   */
+  BatchParser(final InputStream input, final String boundary, final ODataRequest batchRequest) {
+    this.input = input instanceof BufferedInputStream || input instanceof ByteArrayInputStream ?
+        input : new BufferedInputStream(input);
+    this.boundary = boundary;
+    this.batchRequest = batchRequest;
+  }
+
+  /**
+   * Gets the boundary of a multipart/mixed content type.
+   * @throws BatchException if the content type is no multipart/mixed type with a boundary
+   */
+  static String getBoundary(final String contentType) throws BatchException {
+    final ContentType type = contentType == null ? null : ContentType.parse(contentType);
+    String boundary = type == null || !type.isCompatible(ContentType.MULTIPART_MIXED) ?
+        null : type.getParameters().get("boundary");
+    if (boundary != null && boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+      boundary = boundary.substring(1, boundary.length() - 1);
+    }
+    if (boundary == null || boundary.isEmpty()) {
+      throw new BatchException("Invalid content type for a batch request: " + contentType,
+          BatchException.MessageKeys.INVALID_CONTENT_TYPE, String.valueOf(contentType));
+    }
+    return boundary;
+  }
+
+  /**
+   * Reads the next part.
+   * @return the part, or <code>null</code> if all parts have been read
+   * @throws BatchException if the body is not well-formed
+   * @throws IOException if the body cannot be read
+   */
+  BatchRequestPart next() throws BatchException, IOException {
+    byte[] line;
+    if (!started) {
+      started = true;
+      // The preamble before the first delimiter is ignored.
+      do {
+        line = readLine();
+      } while (line != null && !isDelimiter(line));
+      checkClosed(line);
+    }
+    if (finished) {
+      return null;
+    }
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    int lineEndLength = 0;
+    while ((line = readLine()) != null && !isDelimiter(line)) {
+      content.write(line);
+      lineEndLength = line.length - trimLineEnd(line, 0, line.length);
+    }
+    checkClosed(line);
+    // The line end before a delimiter belongs to the delimiter.
+    final byte[] bytes = content.toByteArray();
+    return parsePart(Arrays.copyOf(bytes, bytes.length - lineEndLength));
+  }
+
+  private void checkClosed(final byte[] delimiter) throws BatchException {
+    if (delimiter == null) {
+      throw new BatchException("Missing close delimiter for boundary " + boundary,
+          BatchException.MessageKeys.MISSING_CLOSE_DELIMITER, boundary);
+    }
+    finished = isCloseDelimiter(delimiter);
+  }
+
+  private BatchRequestPart parsePart(final byte[] bytes) throws BatchException, IOException {
+    Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    final int contentStart = readHeaders(bytes, 0, headers);
+    final String contentType = getFirst(headers, HttpHeader.CONTENT_TYPE);
+    final ContentType type = contentType == null ? null : ContentType.parse(contentType);
+    if (type != null && type.isCompatible(ContentType.create(APPLICATION_HTTP))) {
+      return new BatchRequestPart(false,
+          Collections.singletonList(parseRequest(bytes, contentStart)),
+          Collections.singletonList(getFirst(headers, CONTENT_ID)));
+    } else if (type != null && type.isCompatible(ContentType.MULTIPART_MIXED)) {
+      BatchParser changeSetParser = new BatchParser(
+          new ByteArrayInputStream(bytes, contentStart, bytes.length - contentStart),
+          getBoundary(contentType), batchRequest);
+      List<ODataRequest> requests = new ArrayList<ODataRequest>();
+      List<String> contentIds = new ArrayList<String>();
+      BatchRequestPart part;
+      while ((part = changeSetParser.nextRequest()) != null) {
+        requests.add(part.getRequests().get(0));
+        contentIds.add(part.getContentIds().get(0));
+      }
+      return new BatchRequestPart(true, requests, contentIds);
+    } else {
+      throw new BatchException("Invalid content type for a batch part: " + contentType,
+          BatchException.MessageKeys.INVALID_PART_CONTENT_TYPE, String.valueOf(contentType));
+    }
+  }
+
+  /** Reads the next part of a change set, which must not be a change set itself. */
+  private BatchRequestPart nextRequest() throws BatchException, IOException {
+    final BatchRequestPart part = next();
+    if (part != null && part.isChangeSet()) {
+      throw new BatchException("Nested change sets are not allowed.",
+          BatchException.MessageKeys.INVALID_PART_CONTENT_TYPE, ContentType.MULTIPART_MIXED.toContentTypeString());
+    }
+    return part;
+  }
+
+  private ODataRequest parseRequest(final byte[] bytes, final int start) throws BatchException {
+    final int lineEnd = nextLine(bytes, start);
+    final String requestLine = toString(bytes, start, trimLineEnd(bytes, start, lineEnd));
+    final String[] tokens = requestLine.split(" ");
+    ODataRequest request = new ODataRequest();
+    try {
+      if (tokens.length != 3 || !tokens[2].startsWith("HTTP/")) {
+        throw new IllegalArgumentException();
+      }
+      request.setMethod(HttpMethod.valueOf(tokens[0]));
+    } catch (final IllegalArgumentException e) {
+      throw new BatchException("Invalid request line: " + requestLine,
+          BatchException.MessageKeys.INVALID_REQUEST_LINE, requestLine);
+    }
+    request.setRawBaseUri(batchRequest.getRawBaseUri());
+    request.setRawServiceResolutionUri(batchRequest.getRawServiceResolutionUri());
+    setUri(request, tokens[1]);
+
+    Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    final int bodyStart = readHeaders(bytes, lineEnd, headers);
+    for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+      request.addHeader(header.getKey(), header.getValue());
+    }
+    request.setBody(new ByteArrayInputStream(bytes, bodyStart, bytes.length - bodyStart));
+    return request;
+  }
+
+  /**
+   * Sets the URI of a request of a batch part; the URI may be absolute, an absolute path,
+   * or relative to the service root.
+   * The base URI of the request must have been set before.
+   * @throws BatchException if the URI does not address the service
+   */
+  static void setUri(final ODataRequest request, final String uri) throws BatchException {
+    String baseUri = request.getRawBaseUri() == null ? "" : request.getRawBaseUri();
+    if (baseUri.endsWith("/")) {
+      baseUri = baseUri.substring(0, baseUri.length() - 1);
+    }
+    String path;
+    if (uri.startsWith(baseUri + '/') && !baseUri.isEmpty()) {
+      path = uri.substring(baseUri.length());
+    } else if (uri.startsWith("/")) {
+      final String basePath = baseUri.isEmpty() ? "" : URI.create(baseUri).getRawPath();
+      if (!uri.startsWith(basePath + '/')) {
+        throw invalidUri(uri);
+      }
+      path = uri.substring(basePath.length());
+    } else if (uri.indexOf("://") >= 0) {
+      throw invalidUri(uri);
+    } else {
+      path = '/' + uri;
+    }
+    final int queryStart = path.indexOf('?');
+    request.setRawODataPath(queryStart < 0 ? path : path.substring(0, queryStart));
+    request.setRawQueryPath(queryStart < 0 ? null : path.substring(queryStart + 1));
+    request.setRawRequestUri(baseUri + path);
+  }
+
+  private static BatchException invalidUri(final String uri) {
+    return new BatchException("Invalid URI in batch part: " + uri, BatchException.MessageKeys.INVALID_URI, uri);
+  }
+
+  /** Reads header lines up to the next empty line and returns the position after it. */
+  private static int readHeaders(final byte[] bytes, final int start, final Map<String, List<String>> headers) {
+    int position = start;
+    while (position < bytes.length) {
+      final int lineEnd = nextLine(bytes, position);
+      final String line = toString(bytes, position, trimLineEnd(bytes, position, lineEnd));
+      position = lineEnd;
+      if (line.isEmpty()) {
+        break;
+      }
+      final int separator = line.indexOf(':');
+      if (separator > 0) {
+        final String name = line.substring(0, separator).trim();
+        List<String> values = headers.get(name);
+        if (values == null) {
+          values = new ArrayList<String>();
+          headers.put(name, values);
+        }
+        values.add(line.substring(separator + 1).trim());
+      }
+    }
+    return position;
+  }
+
+  private static String getFirst(final Map<String, List<String>> headers, final String name) {
+    final List<String> values = headers.get(name);
+    return values == null ? null : values.get(0);
+  }
+
+  private byte[] readLine() throws IOException {
+    lineBuffer.reset();
+    int b;
+    while ((b = input.read()) != -1) {
+      lineBuffer.write(b);
+      if (b == '\n') {
+        break;
+      }
+    }
+    return lineBuffer.size() == 0 ? null : lineBuffer.toByteArray();
+  }
+
+  private boolean isDelimiter(final byte[] line) {
+    if (line.length < boundary.length() + 2 || line[0] != '-' || line[1] != '-') {
+      return false;
+    }
+    final String text = toString(line, 0, line.length).trim();
+    return text.equals("--" + boundary) || text.equals("--" + boundary + "--");
+  }
+
+  private boolean isCloseDelimiter(final byte[] line) {
+    return toString(line, 0, line.length).trim().equals("--" + boundary + "--");
+  }
+
+  /** Returns the position after the line starting at the given position. */
+  private static int nextLine(final byte[] bytes, final int start) {
+    for (int i = start; i < bytes.length; i++) {
+      if (bytes[i] == '\n') {
+        return i + 1;
+      }
+    }
+    return bytes.length;
+  }
+
+  /** Returns the end of the line without its line break. */
+  private static int trimLineEnd(final byte[] bytes, final int start, final int end) {
+    int trimmed = end;
+    if (trimmed > start && bytes[trimmed - 1] == '\n') {
+      trimmed--;
+    }
+    if (trimmed > start && bytes[trimmed - 1] == '\r') {
+      trimmed--;
+    }
+    return trimmed;
+  }
+
+  private static String toString(final byte[] bytes, final int start, final int end) {
+    try {
+      return new String(bytes, start, end - start, CHARSET);
+    } catch (final UnsupportedEncodingException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+}
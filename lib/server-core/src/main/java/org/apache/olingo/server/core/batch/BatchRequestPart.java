@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batch;
+
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataRequest;
+
+/**
+ * Part of a batch request: either a single request or a change set with its requests.
+ */
+final class BatchRequestPart {
+
+  private final boolean changeSet;
+  private final List<ODataRequest> requests;
+  private final List<String> contentIds;
+
+  BatchRequestPart(final boolean changeSet, final List<ODataRequest> requests, final List<String> contentIds) {
+    this.changeSet = changeSet;
+    this.requests = requests;
+    this.contentIds = contentIds;
+  }
+
+  boolean isChangeSet() {
+    return changeSet;
+  }
+
+  List<ODataRequest> getRequests() {
+    return requests;
+  }
+
+  /** Gets the values of the Content-ID headers of the requests, with <code>null</code> for missing ones. */
+  List<String> getContentIds() {
+    return contentIds;
+  }
+}
@@ -33,7 +33,7 @@ import java.util.List;
 public abstract class EdmBindingTargetImpl extends AbstractEdmBindingTarget {
 
   private final BindingTarget target;
-  private List<EdmNavigationPropertyBinding> navigationPropertyBindings;
+  private volatile List<EdmNavigationPropertyBinding> navigationPropertyBindings;
 
   public EdmBindingTargetImpl(final Edm edm, final EdmEntityContainer container, final BindingTarget target) {
     super(edm, container, target.getName(), target.getType());
@@ -44,7 +44,8 @@ public abstract class EdmBindingTargetImpl extends AbstractEdmBindingTarget {
   public List<EdmNavigationPropertyBinding> getNavigationPropertyBindings() {
     if (navigationPropertyBindings == null) {
       List<NavigationPropertyBinding> providerBindings = target.getNavigationPropertyBindings();
-      navigationPropertyBindings = new ArrayList<EdmNavigationPropertyBinding>();
+      final List<EdmNavigationPropertyBinding> navigationPropertyBindings =
+          new ArrayList<EdmNavigationPropertyBinding>();
       if (providerBindings != null) {
         for (NavigationPropertyBinding binding : providerBindings) {
           Target providerTarget = binding.getTarget();
@@ -56,6 +57,7 @@ public abstract class EdmBindingTargetImpl extends AbstractEdmBindingTarget {
           navigationPropertyBindings.add(new EdmNavigationPropertyBindingImpl(binding.getPath(), targetString));
         }
       }
+      this.navigationPropertyBindings = navigationPropertyBindings;
     }
     return navigationPropertyBindings;
   }
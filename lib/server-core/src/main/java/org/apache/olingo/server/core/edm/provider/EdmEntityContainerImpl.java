@@ -43,7 +43,7 @@ public class EdmEntityContainerImpl extends AbstractEdmEntityContainer {
 
   private final EdmProvider provider;
 
-  private EntityContainer container;
+  private volatile EntityContainer container;
 
   public EdmEntityContainerImpl(final Edm edm, final EdmProvider provider,
       final EntityContainerInfo entityContainerInfo) {
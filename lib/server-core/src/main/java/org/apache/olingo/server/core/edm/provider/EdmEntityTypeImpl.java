@@ -41,7 +41,9 @@ public class EdmEntityTypeImpl extends AbstractEdmEntityType {
 
   private EntityType entityType;
 
-  private boolean baseTypeChecked = false;
+  private final Object baseTypeLock = new Object();
+
+  private volatile boolean baseTypeChecked = false;
 
   public static EdmEntityTypeImpl getInstance(final Edm edm, final FullQualifiedName name,
       final EntityType entityType) {
@@ -69,24 +71,29 @@ public class EdmEntityTypeImpl extends AbstractEdmEntityType {
   @Override
   protected void checkBaseType() {
     if (!baseTypeChecked) {
-      if (baseTypeName != null) {
-        baseType = buildBaseType(baseTypeName);
-      }
-      if (baseType == null) {
-        entityBaseType = null;
-
-        final List<PropertyRef> key = entityType.getKey();
-        if (key != null) {
-          final List<EdmKeyPropertyRef> edmKey = new ArrayList<EdmKeyPropertyRef>();
-          for (PropertyRef ref : key) {
-            edmKey.add(new EdmKeyPropertyRefImpl(this, ref));
+      // the key references are registered exactly once, also when the first accesses are concurrent
+      synchronized (baseTypeLock) {
+        if (!baseTypeChecked) {
+          if (baseTypeName != null) {
+            baseType = buildBaseType(baseTypeName);
+          }
+          if (baseType == null) {
+            entityBaseType = null;
+
+            final List<PropertyRef> key = entityType.getKey();
+            if (key != null) {
+              final List<EdmKeyPropertyRef> edmKey = new ArrayList<EdmKeyPropertyRef>();
+              for (PropertyRef ref : key) {
+                edmKey.add(new EdmKeyPropertyRefImpl(this, ref));
+              }
+              setEdmKeyPropertyRef(edmKey);
+            }
+          } else {
+            entityBaseType = (EdmEntityType) baseType;
           }
-          setEdmKeyPropertyRef(edmKey);
+          baseTypeChecked = true;
         }
-      } else {
-        entityBaseType = (EdmEntityType) baseType;
       }
-      baseTypeChecked = true;
     }
   }
 
@@ -37,7 +37,7 @@ public class EdmEnumTypeImpl extends AbstractEdmEnumType {
 
   private final EnumType enumType;
 
-  private List<EdmMember> members;
+  private volatile List<EdmMember> members;
 
   public EdmEnumTypeImpl(final Edm edm, final FullQualifiedName enumName, final EnumType enumType) {
     super(edm, enumName, enumType.isFlags());
@@ -61,10 +61,11 @@ public class EdmEnumTypeImpl extends AbstractEdmEnumType {
   @Override
   protected List<? extends EdmMember> getMembers() {
     if (members == null) {
-      members = new ArrayList<EdmMember>(enumType.getMembers().size());
+      final List<EdmMember> members = new ArrayList<EdmMember>(enumType.getMembers().size());
       for (EnumMember member : enumType.getMembers()) {
         members.add(new EdmMemberImpl(edm, getFullQualifiedName(), member.getName(), member.getValue()));
       }
+      this.members = members;
     }
     return members;
   }
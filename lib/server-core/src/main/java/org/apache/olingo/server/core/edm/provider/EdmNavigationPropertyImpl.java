@@ -36,7 +36,7 @@ public class EdmNavigationPropertyImpl extends AbstractEdmNavigationProperty {
 
   private final NavigationProperty navigationProperty;
 
-  private List<EdmReferentialConstraint> referentialConstraints;
+  private volatile List<EdmReferentialConstraint> referentialConstraints;
 
   public EdmNavigationPropertyImpl(
       final Edm edm, final FullQualifiedName structuredTypeName, final NavigationProperty navigationProperty) {
@@ -89,13 +89,14 @@ public class EdmNavigationPropertyImpl extends AbstractEdmNavigationProperty {
   public List<EdmReferentialConstraint> getReferentialConstraints() {
     if (referentialConstraints == null) {
       final List<ReferentialConstraint> providerConstraints = navigationProperty.getReferentialConstraints();
-      referentialConstraints = new ArrayList<EdmReferentialConstraint>();
+      final List<EdmReferentialConstraint> referentialConstraints = new ArrayList<EdmReferentialConstraint>();
       if (providerConstraints != null) {
         for (ReferentialConstraint constraint : providerConstraints) {
           referentialConstraints.add(
               new EdmReferentialConstraintImpl(constraint.getProperty(), constraint.getReferencedProperty()));
         }
       }
+      this.referentialConstraints = referentialConstraints;
     }
     return referentialConstraints;
   }
@@ -20,16 +20,25 @@ package org.apache.olingo.server.core.edm.provider;
 
 import org.apache.olingo.commons.api.ODataException;
 import org.apache.olingo.commons.api.edm.EdmAction;
+import org.apache.olingo.commons.api.edm.EdmActionImport;
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
 import org.apache.olingo.commons.api.edm.EdmAnnotations;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmException;
 import org.apache.olingo.commons.api.edm.EdmFunction;
+import org.apache.olingo.commons.api.edm.EdmFunctionImport;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmNavigationPropertyBinding;
+import org.apache.olingo.commons.api.edm.EdmOperation;
 import org.apache.olingo.commons.api.edm.EdmSchema;
 import org.apache.olingo.commons.api.edm.EdmServiceMetadata;
+import org.apache.olingo.commons.api.edm.EdmSingleton;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmTerm;
 import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -52,6 +61,8 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class EdmProviderImpl extends AbstractEdm {
 
@@ -60,12 +71,149 @@ public class EdmProviderImpl extends AbstractEdm {
   private final Map<FullQualifiedName, List<Action>> actionsMap = new HashMap<FullQualifiedName, List<Action>>();
 
   private final Map<FullQualifiedName, List<Function>> functionsMap = new HashMap<FullQualifiedName, List<Function>>();
+  /** Set once all types have been materialized; lookups of unknown types then no longer reach the provider. */
+  private volatile boolean typesMaterialized;
+
+  /** Caches of other components with entries only valid for this Edm, keyed by their class */
+  private final ConcurrentMap<Class<?>, Object> caches = new ConcurrentHashMap<Class<?>, Object>();
 
   public EdmProviderImpl(final EdmProvider provider) {
     this.provider = provider;
 
   }
 
+  /**
+   * Gets the cache of the given class attached to this Edm.
+   * @param cacheClass class of the cache
+   * @return the cache or <code>null</code> if none has been attached yet
+   */
+  public <T> T getCache(final Class<T> cacheClass) {
+    return cacheClass.cast(caches.get(cacheClass));
+  }
+
+  /**
+   * Attaches a cache to this Edm, so that it lives as long as this Edm and is shared by all its users,
+   * unless a cache of the same class is already attached.
+   * @param cacheClass class of the cache
+   * @param cache the new cache
+   * @return the attached cache; the given one if no other has been attached before
+   */
+  public <T> T attachCache(final Class<T> cacheClass, final T cache) {
+    final Object attached = caches.putIfAbsent(cacheClass, cache);
+    return attached == null ? cache : cacheClass.cast(attached);
+  }
+
+  /**
+   * Materializes the complete entity data model described by {@link EdmProvider#getSchemas()}:
+   * all types with their properties, keys, and base types, all operations with their parameters and
+   * return types, and all entity containers with their members.
+   * All of them are cached, so that later metadata access is served from the caches without
+   * calling the provider; types not found in the caches are treated as unknown.
+   * This is meant to be called once at startup, before the Edm is shared.
+   * @return this Edm
+   * @throws EdmException if the provider fails
+   */
+  public EdmProviderImpl materialize() {
+    final List<EdmSchema> schemaList = getSchemas();
+    if (schemaList.isEmpty()) {
+      return this;
+    }
+    for (final EdmSchema schema : schemaList) {
+      final String namespace = schema.getNamespace();
+      for (final EdmEnumType enumType : nullSafe(schema.getEnumTypes())) {
+        getEnumType(new FullQualifiedName(namespace, enumType.getName())).getMemberNames();
+      }
+      for (final EdmTypeDefinition typeDefinition : nullSafe(schema.getTypeDefinitions())) {
+        getTypeDefinition(new FullQualifiedName(namespace, typeDefinition.getName()));
+        typeDefinition.getUnderlyingType();
+      }
+      for (final EdmComplexType complexType : nullSafe(schema.getComplexTypes())) {
+        materializeStructuredType(getComplexType(new FullQualifiedName(namespace, complexType.getName())));
+      }
+      for (final EdmEntityType entityType : nullSafe(schema.getEntityTypes())) {
+        final EdmEntityType cachedType = getEntityType(new FullQualifiedName(namespace, entityType.getName()));
+        materializeStructuredType(cachedType);
+        for (final EdmKeyPropertyRef keyRef : nullSafe(cachedType.getKeyPropertyRefs())) {
+          keyRef.getProperty();
+        }
+      }
+      for (final EdmAction action : nullSafe(schema.getActions())) {
+        final FullQualifiedName name = new FullQualifiedName(namespace, action.getName());
+        materializeOperation(action.isBound() ?
+            getBoundAction(name, action.getBindingParameterTypeFqn(), action.isBindingParameterTypeCollection()) :
+            getUnboundAction(name));
+      }
+      for (final EdmFunction function : nullSafe(schema.getFunctions())) {
+        final FullQualifiedName name = new FullQualifiedName(namespace, function.getName());
+        if (function.isBound()) {
+          materializeOperation(getBoundFunction(name, function.getBindingParameterTypeFqn(),
+              function.isBindingParameterTypeCollection(), function.getParameterNames()));
+        } else {
+          getUnboundFunctions(name);
+          materializeOperation(getUnboundFunction(name, function.getParameterNames()));
+        }
+      }
+      if (schema.getEntityContainer() != null) {
+        materializeEntityContainer(getEntityContainer(schema.getEntityContainer().getFullQualifiedName()));
+      }
+    }
+    getEntityContainer(null);
+    getServiceMetadata();
+    typesMaterialized = true;
+    return this;
+  }
+
+  private void materializeStructuredType(final EdmStructuredType type) {
+    if (type == null) {
+      return;
+    }
+    type.getBaseType();
+    for (final String propertyName : nullSafe(type.getPropertyNames())) {
+      type.getProperty(propertyName).getType();
+    }
+  }
+
+  private void materializeOperation(final EdmOperation operation) {
+    if (operation == null) {
+      return;
+    }
+    for (final String parameterName : nullSafe(operation.getParameterNames())) {
+      operation.getParameter(parameterName).getType();
+    }
+    if (operation.getReturnType() != null) {
+      operation.getReturnType().getType();
+    }
+  }
+
+  private void materializeEntityContainer(final EdmEntityContainer container) {
+    if (container == null) {
+      return;
+    }
+    for (final EdmEntitySet entitySet : nullSafe(container.getEntitySets())) {
+      materializeBindingTarget(container.getEntitySet(entitySet.getName()));
+    }
+    for (final EdmSingleton singleton : nullSafe(container.getSingletons())) {
+      materializeBindingTarget(container.getSingleton(singleton.getName()));
+    }
+    for (final EdmActionImport actionImport : nullSafe(container.getActionImports())) {
+      container.getActionImport(actionImport.getName()).getUnboundAction();
+    }
+    for (final EdmFunctionImport functionImport : nullSafe(container.getFunctionImports())) {
+      container.getFunctionImport(functionImport.getName()).getUnboundFunctions();
+    }
+  }
+
+  private void materializeBindingTarget(final EdmBindingTarget bindingTarget) {
+    bindingTarget.getEntityType();
+    for (final EdmNavigationPropertyBinding binding : nullSafe(bindingTarget.getNavigationPropertyBindings())) {
+      bindingTarget.getRelatedBindingTarget(binding.getPath());
+    }
+  }
+
+  private static <T> List<T> nullSafe(final List<T> list) {
+    return list == null ? Collections.<T> emptyList() : list;
+  }
+
   @Override
   public EdmEntityContainer createEntityContainer(final FullQualifiedName containerName) {
     try {
@@ -81,6 +229,9 @@ public class EdmProviderImpl extends AbstractEdm {
 
   @Override
   public EdmEnumType createEnumType(final FullQualifiedName enumName) {
+    if (typesMaterialized) {
+      return null;
+    }
     try {
       EnumType enumType = provider.getEnumType(enumName);
       if (enumType != null) {
@@ -94,6 +245,9 @@ public class EdmProviderImpl extends AbstractEdm {
 
   @Override
   public EdmTypeDefinition createTypeDefinition(final FullQualifiedName typeDefinitionName) {
+    if (typesMaterialized) {
+      return null;
+    }
     try {
       TypeDefinition typeDefinition = provider.getTypeDefinition(typeDefinitionName);
       if (typeDefinition != null) {
@@ -107,6 +261,9 @@ public class EdmProviderImpl extends AbstractEdm {
 
   @Override
   public EdmEntityType createEntityType(final FullQualifiedName entityTypeName) {
+    if (typesMaterialized) {
+      return null;
+    }
     try {
       EntityType entityType = provider.getEntityType(entityTypeName);
       if (entityType != null) {
@@ -120,6 +277,9 @@ public class EdmProviderImpl extends AbstractEdm {
 
   @Override
   public EdmComplexType createComplexType(final FullQualifiedName complexTypeName) {
+    if (typesMaterialized) {
+      return null;
+    }
     try {
       final ComplexType complexType = provider.getComplexType(complexTypeName);
       if (complexType != null) {
@@ -323,7 +483,8 @@ public class EdmProviderImpl extends AbstractEdm {
   protected Map<String, EdmSchema> createSchemas() {
     try {
       final Map<String, EdmSchema> _schemas = new LinkedHashMap<String, EdmSchema>();
-      for (Schema schema : provider.getSchemas()) {
+      final List<Schema> providerSchemas = provider.getSchemas();
+      for (Schema schema : providerSchemas == null ? Collections.<Schema> emptyList() : providerSchemas) {
         _schemas.put(schema.getNamespace(), new EdmSchemaImpl(this, provider, schema));
       }
       return _schemas;
@@ -38,9 +38,9 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
 
   private final StructuredType structuredType;
 
-  private Map<String, EdmProperty> properties;
+  private volatile Map<String, EdmProperty> properties;
 
-  private Map<String, EdmNavigationProperty> navigationProperties;
+  private volatile Map<String, EdmNavigationProperty> navigationProperties;
 
   public EdmStructuredTypeHelperImpl(
       final Edm edm, final FullQualifiedName structuredTypeName, final StructuredType structuredType) {
@@ -53,12 +53,14 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
   @Override
   public Map<String, EdmProperty> getProperties() {
     if (properties == null) {
-      properties = new LinkedHashMap<String, EdmProperty>();
+      // built locally and published only once complete, so that concurrent readers never see a partial map
+      final Map<String, EdmProperty> properties = new LinkedHashMap<String, EdmProperty>();
       if (structuredType.getProperties() != null) {
         for (Property property : structuredType.getProperties()) {
           properties.put(property.getName(), new EdmPropertyImpl(edm, structuredTypeName, property));
         }
       }
+      this.properties = properties;
     }
     return properties;
   }
@@ -66,13 +68,15 @@ public class EdmStructuredTypeHelperImpl implements EdmStructuredTypeHelper {
   @Override
   public Map<String, EdmNavigationProperty> getNavigationProperties() {
     if (navigationProperties == null) {
-      navigationProperties = new LinkedHashMap<String, EdmNavigationProperty>();
+      final Map<String, EdmNavigationProperty> navigationProperties =
+          new LinkedHashMap<String, EdmNavigationProperty>();
       if (structuredType.getNavigationProperties() != null) {
         for (NavigationProperty navigationProperty : structuredType.getNavigationProperties()) {
           navigationProperties.put(navigationProperty.getName(),
               new EdmNavigationPropertyImpl(edm, structuredTypeName, navigationProperty));
         }
       }
+      this.navigationProperties = navigationProperties;
     }
     return navigationProperties;
   }
@@ -26,12 +26,16 @@ import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.EntitySet;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.xml.MetadataDocumentXmlSerializer;
 import org.slf4j.Logger;
@@ -92,6 +96,43 @@ public class ODataXmlSerializerImpl implements ODataSerializer {
         ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
   }
 
+  @Override
+  public ODataContent entitySetStreamed(final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ContextURL contextURL) throws ODataSerializerException {
+    throw new ODataSerializerException("Entityset serialization not implemented for XML format",
+        ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
+  @Override
+  public InputStream entity(final EdmEntitySet edmEntitySet, final Entity entity, final ContextURL contextURL,
+      final ExpandOption expand, final SelectOption select) throws ODataSerializerException {
+    throw new ODataSerializerException("Entity serialization not implemented for XML format",
+        ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
+  @Override
+  public InputStream entitySet(final EdmEntitySet edmEntitySet, final EntitySet entitySet,
+      final ContextURL contextURL, final ExpandOption expand, final SelectOption select)
+      throws ODataSerializerException {
+    throw new ODataSerializerException("Entityset serialization not implemented for XML format",
+        ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
+  @Override
+  public ODataContent entitySetStreamed(final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ContextURL contextURL, final ExpandOption expand, final SelectOption select)
+      throws ODataSerializerException {
+    throw new ODataSerializerException("Entityset serialization not implemented for XML format",
+        ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
+  @Override
+  public String buildContextURLSelectList(final ExpandOption expand, final SelectOption select)
+      throws ODataSerializerException {
+    throw new ODataSerializerException("Context URL not implemented for XML format",
+        ODataSerializerException.MessageKeys.NOT_IMPLEMENTED);
+  }
+
   @Override
   public InputStream error(ODataServerError error) throws ODataSerializerException {
     throw new ODataSerializerException("error serialization not implemented for XML format",
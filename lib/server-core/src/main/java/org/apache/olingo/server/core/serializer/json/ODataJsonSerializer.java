@@ -20,33 +20,44 @@ package org.apache.olingo.server.core.serializer.json;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.LinkedComplexValue;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.Edm;
-import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.format.ODataFormat;
-import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.commons.core.data.EntityIteratorImpl;
+import org.apache.olingo.commons.core.serialization.JsonFactoryRegistry;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.serializer.json.StructuredTypePlan.PropertyPlan;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.apache.olingo.server.core.serializer.utils.ExpandNode;
+import org.apache.olingo.server.core.serializer.utils.SelectedProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 
@@ -56,8 +67,24 @@ public class ODataJsonSerializer implements ODataSerializer {
 
   private final ODataFormat format;
 
+  /** Writer plans of the structured types serialized so far; <code>null</code> to use the plans of their Edm */
+  private final StructuredTypePlanCache plans;
+
+  /**
+   * Creates a serializer using the writer plans held by the Edm of the serialized types.
+   * @param format JSON format
+   */
   public ODataJsonSerializer(final ODataFormat format) {
+    this(format, null);
+  }
+
+  /**
+   * @param format JSON format
+   * @param plans writer plans of structured types, or <code>null</code> to use the plans held by their Edm
+   */
+  public ODataJsonSerializer(final ODataFormat format, final StructuredTypePlanCache plans) {
     this.format = format;
+    this.plans = plans;
   }
 
   @Override
@@ -68,7 +95,7 @@ public class ODataJsonSerializer implements ODataSerializer {
     // TODO: move stream initialization into separate method
     try {
       buffer = new CircleStreamBuffer();
-      gen = new JsonFactory().createGenerator(buffer.getOutputStream())
+      gen = JsonFactoryRegistry.createGenerator(buffer.getOutputStream())
           .setPrettyPrinter(new DefaultPrettyPrinter());
 
       new ServiceDocumentJsonSerializer(edm, serviceRoot).writeServiceDocument(gen);
@@ -107,7 +134,7 @@ public class ODataJsonSerializer implements ODataSerializer {
   public InputStream error(final ODataServerError error) throws ODataSerializerException {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(buffer.getOutputStream());
+      JsonGenerator json = JsonFactoryRegistry.createGenerator(buffer.getOutputStream());
       new ODataErrorSerializer().writeErrorDocument(json, error);
       json.close();
     } catch (final IOException e) {
@@ -120,30 +147,19 @@ public class ODataJsonSerializer implements ODataSerializer {
   @Override
   public InputStream entitySet(final EdmEntitySet edmEntitySet, final EntitySet entitySet,
       final ContextURL contextURL) throws ODataSerializerException {
+    return entitySet(edmEntitySet, entitySet, contextURL, null, null);
+  }
+
+  @Override
+  public InputStream entitySet(final EdmEntitySet edmEntitySet, final EntitySet entitySet,
+      final ContextURL contextURL, final ExpandOption expand, final SelectOption select)
+      throws ODataSerializerException {
+    checkContextURL(contextURL);
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(buffer.getOutputStream());
-      json.writeStartObject();
-      if (format != ODataFormat.JSON_NO_METADATA) {
-        if (contextURL == null) {
-          throw new ODataSerializerException("ContextURL null!",
-              ODataSerializerException.MessageKeys.NO_CONTEXT_URL);
-        } else {
-          json.writeStringField(Constants.JSON_CONTEXT, ContextURLBuilder.create(contextURL).toASCIIString());
-        }
-      }
-      if (entitySet.getCount() != null) {
-        json.writeNumberField(Constants.JSON_COUNT, entitySet.getCount());
-      }
-      json.writeFieldName(Constants.VALUE);
-      json.writeStartArray();
-      for (Entity entity : entitySet.getEntities()) {
-        writeEntity(edmEntitySet, entity, null, json);
-      }
-      json.writeEndArray();
-      if (entitySet.getNext() != null) {
-        json.writeStringField(Constants.JSON_NEXT_LINK, entitySet.getNext().toASCIIString());
-      }
+      JsonGenerator json = JsonFactoryRegistry.createGenerator(buffer.getOutputStream());
+      writeEntitySet(edmEntitySet, new EntityIteratorImpl(entitySet), contextURL,
+          SelectedProperties.create(select), ExpandNode.create(edmEntitySet.getEntityType(), expand), json);
       json.close();
     } catch (final IOException e) {
       throw new ODataSerializerException("An I/O exception occurred.", e,
@@ -153,16 +169,90 @@ public class ODataJsonSerializer implements ODataSerializer {
   }
 
   @Override
-  public InputStream entity(final EdmEntitySet edmEntitySet, final Entity entity, final ContextURL contextURL)
+  public ODataContent entitySetStreamed(final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ContextURL contextURL) throws ODataSerializerException {
+    return entitySetStreamed(edmEntitySet, entities, contextURL, null, null);
+  }
+
+  @Override
+  public ODataContent entitySetStreamed(final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ContextURL contextURL, final ExpandOption expand, final SelectOption select)
       throws ODataSerializerException {
+    checkContextURL(contextURL);
+    final SelectedProperties selectedProperties = SelectedProperties.create(select);
+    final List<ExpandNode> expandNodes = ExpandNode.create(edmEntitySet.getEntityType(), expand);
+    return new ODataContent() {
+      @Override
+      public void write(final OutputStream output) throws ODataSerializerException {
+        try {
+          try {
+            JsonGenerator json = JsonFactoryRegistry.createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeEntitySet(edmEntitySet, entities, contextURL, selectedProperties, expandNodes, json);
+            json.close();
+          } finally {
+            entities.close();
+          }
+        } catch (final IOException e) {
+          throw new ODataSerializerException("An I/O exception occurred.", e,
+              ODataSerializerException.MessageKeys.IO_EXCEPTION);
+        }
+      }
+    };
+  }
+
+  private void checkContextURL(final ContextURL contextURL) throws ODataSerializerException {
     if (format != ODataFormat.JSON_NO_METADATA && contextURL == null) {
       throw new ODataSerializerException("ContextURL null!",
           ODataSerializerException.MessageKeys.NO_CONTEXT_URL);
     }
+  }
+
+  /**
+   * Writes the entities as they are pulled from the iterator. The count is written in front of the entities
+   * if the iterator knows it in advance, otherwise behind them; the next link is always written behind them.
+   */
+  protected void writeEntitySet(final EdmEntitySet edmEntitySet, final EntityIterator entities,
+      final ContextURL contextURL, final SelectedProperties selectedProperties, final List<ExpandNode> expandNodes,
+      final JsonGenerator json) throws IOException, ODataSerializerException {
+    json.writeStartObject();
+    if (format != ODataFormat.JSON_NO_METADATA) {
+      json.writeStringField(Constants.JSON_CONTEXT, ContextURLBuilder.create(contextURL).toASCIIString());
+    }
+    final Integer count = entities.getCount();
+    if (count != null) {
+      json.writeNumberField(Constants.JSON_COUNT, count);
+    }
+    json.writeFieldName(Constants.VALUE);
+    json.writeStartArray();
+    while (entities.hasNext()) {
+      writeEntity(edmEntitySet.getEntityType(), entities.next(), null, selectedProperties, expandNodes, json);
+    }
+    json.writeEndArray();
+    if (count == null && entities.getCount() != null) {
+      json.writeNumberField(Constants.JSON_COUNT, entities.getCount());
+    }
+    if (entities.getNext() != null) {
+      json.writeStringField(Constants.JSON_NEXT_LINK, entities.getNext().toASCIIString());
+    }
+    json.writeEndObject();
+  }
+
+  @Override
+  public InputStream entity(final EdmEntitySet edmEntitySet, final Entity entity, final ContextURL contextURL)
+      throws ODataSerializerException {
+    return entity(edmEntitySet, entity, contextURL, null, null);
+  }
+
+  @Override
+  public InputStream entity(final EdmEntitySet edmEntitySet, final Entity entity, final ContextURL contextURL,
+      final ExpandOption expand, final SelectOption select) throws ODataSerializerException {
+    checkContextURL(contextURL);
     CircleStreamBuffer buffer = new CircleStreamBuffer();
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(buffer.getOutputStream());
-      writeEntity(edmEntitySet, entity, contextURL, json);
+      JsonGenerator json = JsonFactoryRegistry.createGenerator(buffer.getOutputStream());
+      writeEntity(edmEntitySet.getEntityType(), entity, contextURL, SelectedProperties.create(select),
+          ExpandNode.create(edmEntitySet.getEntityType(), expand), json);
       json.close();
     } catch (final IOException e) {
       throw new ODataSerializerException("An I/O exception occurred.", e,
@@ -171,9 +261,41 @@ public class ODataJsonSerializer implements ODataSerializer {
     return buffer.getInputStream();
   }
 
-  protected void writeEntity(final EdmEntitySet entitySet, final Entity entity, final ContextURL contextURL,
-      final JsonGenerator json) throws IOException, ODataSerializerException {
-    final EdmEntityType entityType = entitySet.getEntityType();
+  @Override
+  public String buildContextURLSelectList(final ExpandOption expand, final SelectOption select)
+      throws ODataSerializerException {
+    final String selectList = buildSelectList(expand, select);
+    return selectList.length() == 0 ? null : selectList;
+  }
+
+  private String buildSelectList(final ExpandOption expand, final SelectOption select) {
+    final SelectedProperties selectedProperties = SelectedProperties.create(select);
+    StringBuilder result = new StringBuilder(selectedProperties == null ? "" : selectedProperties.getSelectList());
+    if (expand != null && expand.getExpandItems() != null) {
+      for (final ExpandItem item : expand.getExpandItems()) {
+        final String nested = item.isStar() ? "" : buildSelectList(item.getExpandOption(), item.getSelectOption());
+        if (nested.length() > 0) {
+          for (final UriResource part : item.getResourcePath().getUriResourceParts()) {
+            if (part instanceof UriResourceNavigation) {
+              result.append(result.length() == 0 ? "" : ",")
+                  .append(((UriResourceNavigation) part).getProperty().getName())
+                  .append('(').append(nested).append(')');
+            }
+          }
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes an entity; only the selected properties are written if a selection is given,
+   * and the inline content of the navigation links of the expanded navigation properties is written
+   * after the properties.
+   */
+  protected void writeEntity(final EdmEntityType entityType, final Entity entity, final ContextURL contextURL,
+      final SelectedProperties selectedProperties, final List<ExpandNode> expandNodes, final JsonGenerator json)
+      throws IOException, ODataSerializerException {
     json.writeStartObject();
     if (format != ODataFormat.JSON_NO_METADATA) {
       if (contextURL != null) {
@@ -191,129 +313,169 @@ public class ODataJsonSerializer implements ODataSerializer {
         }
       }
     }
-    for (final String propertyName : entityType.getPropertyNames()) {
-      final EdmProperty edmProperty = (EdmProperty) entityType.getProperty(propertyName);
-      final Property property = entity.getProperty(propertyName);
-      writeProperty(edmProperty, property, json);
+    writeProperties(getPlan(entityType), entity.getProperties(), selectedProperties, json);
+    for (final ExpandNode node : expandNodes) {
+      writeExpanded(node, entity.getNavigationLink(node.getNavigationProperty().getName()), json);
     }
     json.writeEndObject();
   }
 
-  protected void writeProperty(final EdmProperty edmProperty, final Property property, final JsonGenerator json)
+  private void writeExpanded(final ExpandNode node, final Link link, final JsonGenerator json)
+      throws IOException, ODataSerializerException {
+    final EdmNavigationProperty navigationProperty = node.getNavigationProperty();
+    if (link == null) {
+      return;
+    }
+    if (navigationProperty.isCollection()) {
+      final EntitySet entitySet = link.getInlineEntitySet();
+      if (entitySet != null && entitySet.getCount() != null && format != ODataFormat.JSON_NO_METADATA) {
+        json.writeNumberField(navigationProperty.getName() + Constants.JSON_COUNT, entitySet.getCount());
+      }
+      json.writeFieldName(navigationProperty.getName());
+      json.writeStartArray();
+      if (entitySet != null) {
+        for (final Entity entity : entitySet.getEntities()) {
+          writeEntity(navigationProperty.getType(), entity, null, node.getSelectedProperties(), node.getChildren(),
+              json);
+        }
+      }
+      json.writeEndArray();
+    } else {
+      json.writeFieldName(navigationProperty.getName());
+      if (link.getInlineEntity() == null) {
+        json.writeNull();
+      } else {
+        writeEntity(navigationProperty.getType(), link.getInlineEntity(), null, node.getSelectedProperties(),
+            node.getChildren(), json);
+      }
+    }
+  }
+
+  private StructuredTypePlan getPlan(final EdmStructuredType type) {
+    return (plans == null ? StructuredTypePlanCache.forType(type) : plans).get(type);
+  }
+
+  private void writeProperties(final StructuredTypePlan plan, final List<Property> properties,
+      final SelectedProperties selectedProperties, final JsonGenerator json)
+      throws IOException, ODataSerializerException {
+    final PropertyPlan[] propertyPlans = plan.getProperties();
+    for (int index = 0; index < propertyPlans.length; index++) {
+      if (selectedProperties == null) {
+        writeProperty(propertyPlans[index], plan.findProperty(index, properties), null, json);
+      } else if (selectedProperties.isSelected(propertyPlans[index].name)) {
+        writeProperty(propertyPlans[index], plan.findProperty(index, properties),
+            selectedProperties.getNested(propertyPlans[index].name), json);
+      }
+    }
+  }
+
+  private void writeProperty(final PropertyPlan propertyPlan, final Property property,
+      final SelectedProperties selectedProperties, final JsonGenerator json)
       throws IOException, ODataSerializerException {
-    json.writeFieldName(edmProperty.getName());
+    final EdmProperty edmProperty = propertyPlan.edmProperty;
+    json.writeFieldName(propertyPlan.fieldName);
     if (property == null || property.isNull()) {
       if (edmProperty.isNullable() == Boolean.FALSE) {
         throw new ODataSerializerException("Non-nullable property not present!",
-            ODataSerializerException.MessageKeys.MISSING_PROPERTY, edmProperty.getName());
+            ODataSerializerException.MessageKeys.MISSING_PROPERTY, propertyPlan.name);
       } else {
         json.writeNull();
       }
     } else {
       try {
         if (edmProperty.isCollection()) {
-          writeCollection(edmProperty, property, json);
+          writeCollection(propertyPlan, property, selectedProperties, json);
         } else if (edmProperty.isPrimitive()) {
-          writePrimitive(edmProperty, property, json);
+          writePrimitive(propertyPlan, property, json);
         } else if (property.isLinkedComplex()) {
-          writeComplexValue(edmProperty, property.asLinkedComplex().getValue(), json);
+          writeComplexValue(propertyPlan, property.asLinkedComplex().getValue(), selectedProperties, json);
         } else if (property.isComplex()) {
-          writeComplexValue(edmProperty, property.asComplex(), json);
+          writeComplexValue(propertyPlan, property.asComplex(), selectedProperties, json);
         } else {
           throw new ODataSerializerException("Property type not yet supported!",
-              ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, edmProperty.getName());
+              ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, propertyPlan.name);
         }
       } catch (final EdmPrimitiveTypeException e) {
         throw new ODataSerializerException("Wrong value for property!", e,
             ODataSerializerException.MessageKeys.WRONG_PROPERTY_VALUE,
-            edmProperty.getName(), property.getValue().toString());
+            propertyPlan.name, property.getValue().toString());
       }
     }
   }
 
-  private void writeCollection(EdmProperty edmProperty, Property property, JsonGenerator json)
+  private void writeCollection(final PropertyPlan propertyPlan, final Property property,
+      final SelectedProperties selectedProperties, final JsonGenerator json)
       throws IOException, EdmPrimitiveTypeException, ODataSerializerException {
     json.writeStartArray();
     for (Object value : property.asCollection()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
-        writePrimitiveValue(edmProperty, value, json);
+        writePrimitiveValue(propertyPlan, value, json);
         break;
       case COLLECTION_GEOSPATIAL:
         throw new ODataSerializerException("Property type not yet supported!",
-            ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, edmProperty.getName());
+            ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, propertyPlan.name);
       case COLLECTION_ENUM:
         json.writeString(value.toString());
         break;
       case COLLECTION_LINKED_COMPLEX:
-        writeComplexValue(edmProperty, ((LinkedComplexValue) value).getValue(), json);
+        writeComplexValue(propertyPlan, ((LinkedComplexValue) value).getValue(), selectedProperties, json);
         break;
       case COLLECTION_COMPLEX:
-        writeComplexValue(edmProperty, property.asComplex(), json);
+        writeComplexValue(propertyPlan, property.asComplex(), selectedProperties, json);
         break;
       default:
         throw new ODataSerializerException("Property type not yet supported!",
-            ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, edmProperty.getName());
+            ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, propertyPlan.name);
       }
     }
     json.writeEndArray();
   }
 
-  private void writePrimitive(EdmProperty edmProperty, Property property, JsonGenerator json)
+  private void writePrimitive(final PropertyPlan propertyPlan, final Property property, final JsonGenerator json)
       throws EdmPrimitiveTypeException, IOException, ODataSerializerException {
     if (property.isPrimitive()) {
-      writePrimitiveValue(edmProperty, property.asPrimitive(), json);
+      writePrimitiveValue(propertyPlan, property.asPrimitive(), json);
     } else if (property.isGeospatial()) {
       throw new ODataSerializerException("Property type not yet supported!",
-          ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, edmProperty.getName());
+          ODataSerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, propertyPlan.name);
     } else if (property.isEnum()) {
-      writePrimitiveValue(edmProperty, property.asEnum(), json);
+      writePrimitiveValue(propertyPlan, property.asEnum(), json);
     } else {
       throw new ODataSerializerException("Inconsistent property type!",
-          ODataSerializerException.MessageKeys.INCONSISTENT_PROPERTY_TYPE, edmProperty.getName());
+          ODataSerializerException.MessageKeys.INCONSISTENT_PROPERTY_TYPE, propertyPlan.name);
     }
   }
 
-  protected void writePrimitiveValue(final EdmProperty edmProperty, final Object primitiveValue,
-      final JsonGenerator json)
-      throws EdmPrimitiveTypeException, IOException {
-    final EdmPrimitiveType type = (EdmPrimitiveType) edmProperty.getType();
-    final String value = type.valueToString(primitiveValue,
+  private void writePrimitiveValue(final PropertyPlan propertyPlan, final Object primitiveValue,
+      final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    final EdmProperty edmProperty = propertyPlan.edmProperty;
+    if (propertyPlan.valueWriter != null) {
+      propertyPlan.valueWriter.writeJsonValue(primitiveValue,
+          edmProperty.isNullable(), edmProperty.getMaxLength(),
+          edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), json);
+      return;
+    }
+    final String value = propertyPlan.primitiveType.valueToString(primitiveValue,
         edmProperty.isNullable(), edmProperty.getMaxLength(),
         edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode());
-    if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean)) {
+    switch (propertyPlan.valueKind) {
+    case BOOLEAN:
       json.writeBoolean(Boolean.parseBoolean(value));
-    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Byte)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int16)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.SByte)
-        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Single)) {
+      break;
+    case NUMBER:
       json.writeNumber(value);
-    } else {
+      break;
+    default:
       json.writeString(value);
     }
   }
 
-  private void writeComplexValue(final EdmProperty edmProperty, final List<Property> properties,
-      JsonGenerator json) throws IOException, EdmPrimitiveTypeException, ODataSerializerException {
-    final EdmComplexType type = (EdmComplexType) edmProperty.getType();
+  private void writeComplexValue(final PropertyPlan propertyPlan, final List<Property> properties,
+      final SelectedProperties selectedProperties, final JsonGenerator json)
+      throws IOException, ODataSerializerException {
     json.writeStartObject();
-    for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
-      writeProperty((EdmProperty) type.getProperty(propertyName), property, json);
-    }
+    writeProperties(getPlan(propertyPlan.complexType), properties, selectedProperties, json);
     json.writeEndObject();
   }
-
-  private Property findProperty(final String propertyName, final List<Property> properties) {
-    for (final Property property : properties) {
-      if (propertyName.equals(property.getName())) {
-        return property;
-      }
-    }
-    return null;
-  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.commons.core.edm.primitivetype.JsonPrimitiveValueWriter;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Precompiled plan for writing instances of one structured type in JSON.
+ * <p>
+ * The properties of the type are resolved once, in the order of the type, together with their
+ * pre-encoded field names and the writers of their primitive values, so that writing
+ * an instance needs neither look-ups in the type nor re-encoding of field names.
+ */
+class StructuredTypePlan {
+
+  /** JSON representation of a primitive value */
+  enum ValueKind {
+    BOOLEAN, NUMBER, STRING
+  }
+
+  /** Resolved property of the structured type */
+  static class PropertyPlan {
+    final EdmProperty edmProperty;
+    final String name;
+    final SerializableString fieldName;
+    final EdmPrimitiveType primitiveType;
+    final ValueKind valueKind;
+    final JsonPrimitiveValueWriter valueWriter;
+    final EdmComplexType complexType;
+
+    PropertyPlan(final EdmProperty edmProperty) {
+      this.edmProperty = edmProperty;
+      name = edmProperty.getName();
+      fieldName = new SerializedString(name);
+      if (edmProperty.isPrimitive()) {
+        primitiveType = (EdmPrimitiveType) edmProperty.getType();
+        valueKind = getValueKind(primitiveType);
+        valueWriter = primitiveType instanceof JsonPrimitiveValueWriter ?
+            (JsonPrimitiveValueWriter) primitiveType : null;
+        complexType = null;
+      } else {
+        primitiveType = null;
+        valueKind = ValueKind.STRING;
+        valueWriter = null;
+        complexType = edmProperty.getType() instanceof EdmComplexType ?
+            (EdmComplexType) edmProperty.getType() : null;
+      }
+    }
+  }
+
+  private final PropertyPlan[] properties;
+
+  StructuredTypePlan(final EdmStructuredType type) {
+    final List<String> propertyNames = type.getPropertyNames();
+    properties = new PropertyPlan[propertyNames.size()];
+    int index = 0;
+    for (final String propertyName : propertyNames) {
+      properties[index++] = new PropertyPlan((EdmProperty) type.getProperty(propertyName));
+    }
+  }
+
+  PropertyPlan[] getProperties() {
+    return properties;
+  }
+
+  /**
+   * Finds the value of the property at the given position of this plan in the given list of properties.
+   * The values are usually in the order of the type, so the value at the same position is tried first.
+   * @return the property or <code>null</code> if the list does not contain it
+   */
+  Property findProperty(final int index, final List<Property> values) {
+    final String name = properties[index].name;
+    if (index < values.size()) {
+      final Property property = values.get(index);
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    for (final Property property : values) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  static ValueKind getValueKind(final EdmPrimitiveType type) {
+    if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean)) {
+      return ValueKind.BOOLEAN;
+    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Byte)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int16)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.SByte)
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Single)) {
+      return ValueKind.NUMBER;
+    } else {
+      return ValueKind.STRING;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.core.edm.EdmNamedImpl;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+
+/**
+ * Writer plans of structured types, shared by all JSON serializers writing types of one Edm.
+ * <p>
+ * Plans are keyed by type, and an Edm keeps returning the same type objects, so each plan is compiled once
+ * per Edm. A plan references its type and through it the Edm, so weak keys would not let an Edm go; instead,
+ * the cache is attached to the Edm created by {@link org.apache.olingo.server.api.OData#createEdm}
+ * and lives as long as it does, whichever OData instance created the serializers.
+ * Types of other Edm implementations share one cache which is cleared when it holds more plans than the limit,
+ * e.g., because Edms are created per request.
+ */
+public class StructuredTypePlanCache {
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  private static final StructuredTypePlanCache SHARED = new StructuredTypePlanCache();
+
+  private final int maxSize;
+  private final Map<EdmStructuredType, StructuredTypePlan> plans =
+      new ConcurrentHashMap<EdmStructuredType, StructuredTypePlan>();
+
+  public StructuredTypePlanCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize maximum number of cached plans
+   */
+  public StructuredTypePlanCache(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Maximum cache size must not be negative: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /** Gets the cache for the Edm of the given type; it is created at the first use. */
+  static StructuredTypePlanCache forType(final EdmStructuredType type) {
+    final Edm edm = type instanceof EdmNamedImpl ? ((EdmNamedImpl) type).getEdm() : null;
+    if (edm instanceof EdmProviderImpl) {
+      final EdmProviderImpl edmProviderImpl = (EdmProviderImpl) edm;
+      final StructuredTypePlanCache cache = edmProviderImpl.getCache(StructuredTypePlanCache.class);
+      return cache == null ?
+          edmProviderImpl.attachCache(StructuredTypePlanCache.class, new StructuredTypePlanCache()) :
+          cache;
+    }
+    return SHARED;
+  }
+
+  /** Gets the writer plan for the given type; it is compiled at the first use. */
+  StructuredTypePlan get(final EdmStructuredType type) {
+    StructuredTypePlan plan = plans.get(type);
+    if (plan == null) {
+      // Compiling a plan twice in concurrent first uses is harmless; both plans are equal.
+      plan = new StructuredTypePlan(type);
+      if (plans.size() >= maxSize) {
+        plans.clear();
+      }
+      plans.put(type, plan);
+    }
+    return plan;
+  }
+
+  public int size() {
+    return plans.size();
+  }
+
+  public void clear() {
+    plans.clear();
+  }
+}
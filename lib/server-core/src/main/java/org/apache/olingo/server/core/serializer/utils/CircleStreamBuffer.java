@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
@@ -37,6 +39,10 @@ public class CircleStreamBuffer {
   private static final int READ_EOF = -1;
   private static final int DEFAULT_CAPACITY = 8192;
   private static final int MAX_CAPACITY = DEFAULT_CAPACITY * 32;
+  private static final int MAX_POOLED_BUFFERS = 64;
+
+  /** Pool of released buffers with default capacity, shared by all stream buffers */
+  private static final Queue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<ByteBuffer>(MAX_POOLED_BUFFERS);
 
   private int currentAllocateCapacity = DEFAULT_CAPACITY;
 
@@ -78,6 +84,56 @@ public class CircleStreamBuffer {
     return inStream;
   }
 
+  /**
+   * Gets the number of buffered bytes if writing has finished and reading has not started yet.
+   * @return the number of bytes or -1 if it is not known
+   */
+  public long size() {
+    if (!writeClosed || !writeMode || readClosed) {
+      return -1;
+    }
+    long size = 0;
+    for (final ByteBuffer buffer : bufferQueue) {
+      size += buffer.position();
+    }
+    return size;
+  }
+
+  /**
+   * Writes all buffered data which have not been read yet into the given output stream, handing the
+   * internal buffers over to it instead of copying them chunk by chunk.
+   * If the output stream is a {@link WritableByteChannel}, the buffers are written into the channel.
+   * @param output the output stream
+   * @return the number of written bytes
+   * @throws IOException
+   */
+  public long writeTo(final OutputStream output) throws IOException {
+    long count = 0;
+    ByteBuffer readBuffer = getReadBuffer();
+    while (readBuffer != null) {
+      count += readBuffer.remaining();
+      if (output instanceof WritableByteChannel) {
+        while (readBuffer.hasRemaining()) {
+          ((WritableByteChannel) output).write(readBuffer);
+        }
+      } else {
+        output.write(readBuffer.array(), readBuffer.arrayOffset() + readBuffer.position(), readBuffer.remaining());
+        readBuffer.position(readBuffer.limit());
+      }
+      readBuffer = getReadBuffer();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the stream buffer the given input stream reads from.
+   * @param input an input stream
+   * @return the stream buffer or <code>null</code> if the input stream is not the input stream of a stream buffer
+   */
+  public static CircleStreamBuffer getStreamBuffer(final InputStream input) {
+    return input instanceof InternalInputStream ? ((InternalInputStream) input).inBuffer : null;
+  }
+
   /**
    * Get {@link OutputStream} for write data.
    * 
@@ -107,12 +163,15 @@ public class CircleStreamBuffer {
    */
   public void closeRead() {
     readClosed = true;
-    // clear references to byte buffers
+    // clear references to byte buffers; they can be reused if nothing can be written into them anymore
     ByteBuffer buffer = bufferQueue.poll();
     while (buffer != null) {
-      buffer.clear();
+      releaseBuffer(buffer);
       buffer = bufferQueue.poll();
     }
+    if (writeClosed) {
+      currentWriteBuffer = null;
+    }
   }
 
   /**
@@ -123,6 +182,24 @@ public class CircleStreamBuffer {
     closeRead();
   }
 
+  /**
+   * Returns a buffer which is not used anymore into the pool, if it has the default capacity
+   * and if it cannot be written into again.
+   */
+  private void releaseBuffer(final ByteBuffer buffer) {
+    if (writeClosed && buffer.capacity() == DEFAULT_CAPACITY) {
+      buffer.clear();
+      BUFFER_POOL.offer(buffer);
+    }
+  }
+
+  private int available() throws IOException {
+    if (readClosed) {
+      throw new IOException("Tried to read from closed stream.");
+    }
+    return remaining();
+  }
+
   private int remaining() throws IOException {
     if (writeMode) {
       return currentWriteBuffer.remaining();
@@ -154,7 +231,7 @@ public class CircleStreamBuffer {
     } else {
       tmp = bufferQueue.peek();
       if (tmp != null && !tmp.hasRemaining()) {
-        tmp = bufferQueue.poll();
+        releaseBuffer(bufferQueue.poll());
         next = true;
       }
     }
@@ -258,6 +335,12 @@ public class CircleStreamBuffer {
     }
     // update current
     currentAllocateCapacity = allocateCapacity;
+    if (allocateCapacity == DEFAULT_CAPACITY) {
+      final ByteBuffer pooled = BUFFER_POOL.poll();
+      if (pooled != null) {
+        return pooled;
+      }
+    }
     return ByteBuffer.allocate(allocateCapacity);
   }
 
@@ -280,7 +363,7 @@ public class CircleStreamBuffer {
 
     @Override
     public int available() throws IOException {
-      return inBuffer.remaining();
+      return inBuffer.available();
     }
 
     @Override
@@ -41,6 +41,9 @@ public final class ContextURLBuilder {
       }
       result.append('/').append(Encoder.encode(contextURL.getDerivedEntity()));
     }
+    if (contextURL.getSelectList() != null) {
+      result.append('(').append(contextURL.getSelectList()).append(')');
+    }
     if (contextURL.isReference()) {
       if (contextURL.getEntitySetOrSingletonOrType() != null) {
         throw new IllegalArgumentException("ContextURL: $ref with Entity Set");
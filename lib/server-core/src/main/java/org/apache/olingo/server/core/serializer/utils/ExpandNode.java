@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+
+/**
+ * Navigation property expanded by an $expand option, resolved together with the expansions nested in it.
+ * An item with $levels is resolved into a chain of nodes, one per level;
+ * <code>$levels=max</code> is limited to {@link #MAX_LEVELS} levels.
+ */
+public final class ExpandNode {
+
+  public static final int MAX_LEVELS = 10;
+
+  private final EdmNavigationProperty navigationProperty;
+  private final ExpandItem item;
+  private final SelectedProperties selectedProperties;
+  private final List<ExpandNode> children;
+
+  private ExpandNode(final EdmNavigationProperty navigationProperty, final ExpandItem item, final int levels) {
+    this.navigationProperty = navigationProperty;
+    this.item = item;
+    selectedProperties = item == null ? null : SelectedProperties.create(item.getSelectOption());
+    final EdmEntityType targetType = navigationProperty.getType();
+    List<ExpandNode> nodes = new ArrayList<ExpandNode>();
+    if (item != null) {
+      addNodes(nodes, targetType, item.getExpandOption());
+    }
+    if (levels > 1 && targetType.getNavigationProperty(navigationProperty.getName()) != null) {
+      nodes.add(new ExpandNode(targetType.getNavigationProperty(navigationProperty.getName()), item, levels - 1));
+    }
+    children = Collections.unmodifiableList(nodes);
+  }
+
+  /**
+   * Resolves an $expand option.
+   * @param type the type of the entities the option applies to
+   * @param expandOption the $expand option or <code>null</code>
+   * @return the expanded navigation properties; empty if nothing is expanded
+   */
+  public static List<ExpandNode> create(final EdmStructuredType type, final ExpandOption expandOption) {
+    List<ExpandNode> nodes = new ArrayList<ExpandNode>();
+    addNodes(nodes, type, expandOption);
+    return nodes;
+  }
+
+  private static void addNodes(final List<ExpandNode> nodes, final EdmStructuredType type,
+      final ExpandOption expandOption) {
+    if (expandOption == null || expandOption.getExpandItems() == null) {
+      return;
+    }
+    for (final ExpandItem item : expandOption.getExpandItems()) {
+      final int levels = item.getLevelsOption() == null ? 1 :
+          item.getLevelsOption().isMax() ? MAX_LEVELS : Math.min(item.getLevelsOption().getValue(), MAX_LEVELS);
+      if (item.isStar()) {
+        for (final String name : type.getNavigationPropertyNames()) {
+          nodes.add(new ExpandNode(type.getNavigationProperty(name), item, levels));
+        }
+      } else if (item.getResourcePath() != null) {
+        final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+        for (final UriResource part : parts) {
+          if (part instanceof UriResourceNavigation) {
+            nodes.add(new ExpandNode(((UriResourceNavigation) part).getProperty(), item, levels));
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  public EdmNavigationProperty getNavigationProperty() {
+    return navigationProperty;
+  }
+
+  /** Gets the expand item with the options for the expanded entities. */
+  public ExpandItem getExpandItem() {
+    return item;
+  }
+
+  /**
+   * @return the properties selected for the expanded entities or <code>null</code> if all are selected
+   */
+  public SelectedProperties getSelectedProperties() {
+    return selectedProperties;
+  }
+
+  /** Gets the navigation properties expanded in turn for the expanded entities. */
+  public List<ExpandNode> getChildren() {
+    return children;
+  }
+}
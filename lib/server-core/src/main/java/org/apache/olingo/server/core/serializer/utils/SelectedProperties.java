@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * Properties of a structured type selected by a $select option, resolved into a tree:
+ * each selected property either is selected as a whole or has its own selection of nested properties.
+ * Selected operations are not part of the tree.
+ */
+public final class SelectedProperties {
+
+  /** Nested selections per selected property name; <code>null</code> selects the whole property. */
+  private final Map<String, SelectedProperties> selected = new LinkedHashMap<String, SelectedProperties>();
+
+  private SelectedProperties() {}
+
+  /**
+   * Resolves a $select option.
+   * @param selectOption the $select option or <code>null</code>
+   * @return the selection or <code>null</code> if all properties are selected
+   */
+  public static SelectedProperties create(final SelectOption selectOption) {
+    if (selectOption == null || selectOption.getSelectItems() == null || selectOption.getSelectItems().isEmpty()) {
+      return null;
+    }
+    SelectedProperties result = new SelectedProperties();
+    for (final SelectItem item : selectOption.getSelectItems()) {
+      if (item.isStar()) {
+        return null;
+      } else if (!item.isAllOperationsInSchema() && item.getResourcePath() != null
+          && !item.getResourcePath().getUriResourceParts().isEmpty()) {
+        result.add(item.getResourcePath().getUriResourceParts(), 0);
+      }
+    }
+    return result;
+  }
+
+  private void add(final List<UriResource> path, final int index) {
+    final UriResource part = path.get(index);
+    final String name = part instanceof UriResourceProperty ? ((UriResourceProperty) part).getProperty().getName() :
+        part instanceof UriResourceNavigation ? ((UriResourceNavigation) part).getProperty().getName() :
+            part.toString();
+    if (index == path.size() - 1) {
+      selected.put(name, null);
+    } else if (!selected.containsKey(name) || selected.get(name) != null) {
+      SelectedProperties nested = selected.get(name);
+      if (nested == null) {
+        nested = new SelectedProperties();
+        selected.put(name, nested);
+      }
+      nested.add(path, index + 1);
+    }
+  }
+
+  public boolean isSelected(final String propertyName) {
+    return selected.containsKey(propertyName);
+  }
+
+  /**
+   * @param propertyName the name of a selected property
+   * @return the selection of nested properties or <code>null</code> if the property is selected as a whole
+   */
+  public SelectedProperties getNested(final String propertyName) {
+    return selected.get(propertyName);
+  }
+
+  /**
+   * Gets the paths of the selected properties, in the order of the $select option;
+   * the segments of paths to nested properties are separated by slashes.
+   */
+  public List<String> getPaths() {
+    List<String> paths = new ArrayList<String>();
+    addPaths("", paths);
+    return paths;
+  }
+
+  private void addPaths(final String prefix, final List<String> paths) {
+    for (final Map.Entry<String, SelectedProperties> entry : selected.entrySet()) {
+      if (entry.getValue() == null) {
+        paths.add(prefix + entry.getKey());
+      } else {
+        entry.getValue().addPaths(prefix + entry.getKey() + '/', paths);
+      }
+    }
+  }
+
+  /** Gets the select list of the context URL, i.e., the comma-separated paths of the selected properties. */
+  public String getSelectList() {
+    final StringBuilder result = new StringBuilder();
+    for (final String path : getPaths()) {
+      if (result.length() > 0) {
+        result.append(',');
+      }
+      result.append(path);
+    }
+    return result.toString();
+  }
+}
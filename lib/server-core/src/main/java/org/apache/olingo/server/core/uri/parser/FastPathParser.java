@@ -0,0 +1,480 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePartTyped;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.apache.olingo.server.core.uri.UriParameterImpl;
+import org.apache.olingo.server.core.uri.UriResourceComplexPropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourceCountImpl;
+import org.apache.olingo.server.core.uri.UriResourceEntitySetImpl;
+import org.apache.olingo.server.core.uri.UriResourceImpl;
+import org.apache.olingo.server.core.uri.UriResourceNavigationPropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourcePrimitivePropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourceRefImpl;
+import org.apache.olingo.server.core.uri.UriResourceValueImpl;
+import org.apache.olingo.server.core.uri.UriResourceWithKeysImpl;
+import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.SelectItemImpl;
+import org.apache.olingo.server.core.uri.queryoption.SelectOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.BinaryImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.LiteralImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.MemberImpl;
+
+/**
+ * Hand-written recursive-descent parser for the most common parts of a URI: resource paths consisting of
+ * entity sets, key predicates, properties, navigation properties and a trailing <code>$count</code>,
+ * <code>$value</code>, or <code>$ref</code>; <code>$select</code> with properties and <code>*</code>; and
+ * <code>$filter</code> comparing properties and literals, combined with <code>and</code> and <code>or</code>.
+ * <p>
+ * The created objects are the same as created by the {@link UriParseTreeVisitor}. All read methods return
+ * <code>null</code> for input containing any other construct and for erroneous input; the caller has to use
+ * the ANTLR-based parser in this case, which also reports the errors.
+ */
+class FastPathParser {
+
+  /** Words the URI lexer reads as keywords and not as OData identifiers. */
+  private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(
+      "null", "true", "false", "max", "asc", "desc", "mul", "div", "mod", "has", "add", "sub", "any", "all",
+      "gt", "ge", "lt", "le", "isof", "eq", "ne", "and", "or", "not", "NaN", "INF"));
+
+  private static final String[] OPERATORS_OR = { "or" };
+  private static final String[] OPERATORS_AND = { "and" };
+  private static final String[] OPERATORS_EQUALITY = { "eq", "ne" };
+  private static final String[] OPERATORS_COMPARISON = { "gt", "ge", "lt", "le" };
+  private static final String[][] PRECEDENCE = { OPERATORS_OR, OPERATORS_AND, OPERATORS_EQUALITY,
+      OPERATORS_COMPARISON };
+
+  private final EdmEntityContainer edmEntityContainer;
+
+  FastPathParser(final Edm edm) {
+    edmEntityContainer = edm.getEntityContainer(null);
+  }
+
+  /**
+   * Reads the decoded resource path segments.
+   * @return the URI info of kind resource or <code>null</code> if the segments could not be read
+   */
+  UriInfoImpl readResourcePath(final List<String> segments) {
+    if (edmEntityContainer == null || segments.isEmpty()) {
+      return null;
+    }
+    UriInfoImpl uriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
+    for (int i = 0; i < segments.size(); i++) {
+      final String segment = segments.get(i);
+      final UriResource last = uriInfo.getLastResourcePart();
+
+      if (segment.startsWith("$")) {
+        final UriResourceImpl constSegment = i == segments.size() - 1 ? readConstSegment(segment, last) : null;
+        if (constSegment == null) {
+          return null;
+        }
+        uriInfo.addResourcePart(constSegment);
+        continue;
+      }
+
+      final int end = readIdentifier(segment, 0);
+      if (end < 0) {
+        return null;
+      }
+      final String name = segment.substring(0, end);
+      final UriResourceImpl resource;
+      if (last == null) {
+        final EdmEntitySet entitySet = edmEntityContainer.getEntitySet(name);
+        resource = entitySet == null ? null : new UriResourceEntitySetImpl().setEntitSet(entitySet);
+      } else {
+        resource = readProperty(name, ((UriResourcePartTyped) last).getType(), true);
+      }
+      if (resource == null) {
+        return null;
+      }
+
+      if (end < segment.length()) {
+        if (!(resource instanceof UriResourceWithKeysImpl) || !((UriResourcePartTyped) resource).isCollection()) {
+          return null;
+        }
+        final List<UriParameterImpl> keys =
+            readKeyPredicates(segment, end, (EdmEntityType) ((UriResourcePartTyped) resource).getType());
+        if (keys == null) {
+          return null;
+        }
+        ((UriResourceWithKeysImpl) resource).setKeyPredicates(keys);
+      }
+      uriInfo.addResourcePart(resource);
+    }
+    return uriInfo;
+  }
+
+  /**
+   * Reads the decoded value of the <code>$filter</code> system query option.
+   * @param type the type the filter expression is applied on
+   * @return the filter option or <code>null</code> if the value could not be read
+   */
+  FilterOptionImpl readFilter(final String value, final EdmType type) {
+    if (edmEntityContainer == null || !(type instanceof EdmStructuredType)) {
+      return null;
+    }
+    final ExpressionReader reader = new ExpressionReader(value, (EdmStructuredType) type);
+    final ExpressionImpl expression = reader.readExpression(0);
+    return expression == null || !reader.isAtEnd() ? null : new FilterOptionImpl().setExpression(expression);
+  }
+
+  /**
+   * Reads the decoded value of the <code>$select</code> system query option.
+   * @param type the type the select items are applied on
+   * @return the select option or <code>null</code> if the value could not be read
+   */
+  SelectOptionImpl readSelect(final String value, final EdmType type) {
+    List<SelectItemImpl> selectItems = new ArrayList<SelectItemImpl>();
+    int start = 0;
+    while (start <= value.length()) {
+      int end = value.indexOf(',', start);
+      if (end < 0) {
+        end = value.length();
+      }
+      final SelectItemImpl selectItem = readSelectItem(value.substring(start, end), type);
+      if (selectItem == null) {
+        return null;
+      }
+      selectItems.add(selectItem);
+      start = end + 1;
+    }
+    SelectOptionImpl selectOption = new SelectOptionImpl().setSelectItems(selectItems);
+    selectOption.setText(value);
+    return selectOption;
+  }
+
+  private SelectItemImpl readSelectItem(final String item, final EdmType type) {
+    if ("*".equals(item)) {
+      return new SelectItemImpl().setStar(true);
+    }
+    final UriInfoImpl path = readPropertyPath(item, type, false);
+    return path == null ? null : new SelectItemImpl().setResourcePath(path);
+  }
+
+  /**
+   * Reads a path of slash-separated properties without key predicates.
+   * @return the path or <code>null</code> if the path could not be read
+   */
+  private UriInfoImpl readPropertyPath(final String path, final EdmType type, final boolean allowNavigation) {
+    UriInfoImpl uriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
+    EdmType currentType = type;
+    int start = 0;
+    while (start <= path.length()) {
+      final int end = readIdentifier(path, start);
+      if (end < 0 || end < path.length() && path.charAt(end) != '/') {
+        return null;
+      }
+      final UriResourceImpl resource =
+          readProperty(path.substring(start, end), currentType, allowNavigation);
+      if (resource == null) {
+        return null;
+      }
+      uriInfo.addResourcePart(resource);
+      currentType = ((UriResourcePartTyped) resource).getType();
+      start = end + 1;
+    }
+    return uriInfo;
+  }
+
+  private UriResourceImpl readProperty(final String name, final EdmType type, final boolean allowNavigation) {
+    if (!(type instanceof EdmStructuredType) || KEYWORDS.contains(name)) {
+      return null;
+    }
+    final EdmElement element = ((EdmStructuredType) type).getProperty(name);
+    if (element instanceof EdmProperty) {
+      final EdmProperty property = (EdmProperty) element;
+      return property.isPrimitive() ?
+          new UriResourcePrimitivePropertyImpl().setProperty(property) :
+          new UriResourceComplexPropertyImpl().setProperty(property);
+    } else if (element instanceof EdmNavigationProperty && allowNavigation) {
+      return new UriResourceNavigationPropertyImpl().setNavigationProperty((EdmNavigationProperty) element);
+    }
+    return null;
+  }
+
+  private UriResourceImpl readConstSegment(final String segment, final UriResource last) {
+    if (!(last instanceof UriResourcePartTyped)) {
+      return null;
+    }
+    final UriResourcePartTyped typed = (UriResourcePartTyped) last;
+    if ("$count".equals(segment) && typed.isCollection()) {
+      return new UriResourceCountImpl();
+    } else if ("$value".equals(segment) && !typed.isCollection()) {
+      return new UriResourceValueImpl();
+    } else if ("$ref".equals(segment) && typed.getType() instanceof EdmEntityType) {
+      return new UriResourceRefImpl();
+    }
+    return null;
+  }
+
+  /**
+   * Reads the key predicates of the given entity type in the segment starting at the given opening parenthesis.
+   * Only integer and string values are supported; all key properties must be given.
+   */
+  private List<UriParameterImpl> readKeyPredicates(final String segment, final int start,
+      final EdmEntityType type) {
+    if (segment.charAt(start) != '(' || segment.charAt(segment.length() - 1) != ')') {
+      return null;
+    }
+    final List<String> keyNames = type.getKeyPredicateNames();
+    final int end = segment.length() - 1;
+    List<UriParameterImpl> keys = new ArrayList<UriParameterImpl>();
+
+    final int nameEnd = readIdentifier(segment, start + 1);
+    if (nameEnd < 0 || nameEnd >= end || segment.charAt(nameEnd) != '=') {
+      // single key value without name
+      final int valueEnd = readKeyValue(segment, start + 1);
+      if (valueEnd != end || keyNames.size() != 1) {
+        return null;
+      }
+      keys.add(createKeyPredicate(keyNames.get(0), segment.substring(start + 1, end)));
+      return keys;
+    }
+
+    int index = start + 1;
+    while (true) {
+      final int equalsIndex = readIdentifier(segment, index);
+      if (equalsIndex < 0 || equalsIndex >= end || segment.charAt(equalsIndex) != '=') {
+        return null;
+      }
+      final String name = segment.substring(index, equalsIndex);
+      final int valueEnd = readKeyValue(segment, equalsIndex + 1);
+      if (KEYWORDS.contains(name) || valueEnd < 0) {
+        return null;
+      }
+      keys.add(createKeyPredicate(name, segment.substring(equalsIndex + 1, valueEnd)));
+      if (valueEnd == end) {
+        break;
+      } else if (segment.charAt(valueEnd) != ',') {
+        return null;
+      }
+      index = valueEnd + 1;
+    }
+    return keys.size() == keyNames.size() ? keys : null;
+  }
+
+  private UriParameterImpl createKeyPredicate(final String name, final String text) {
+    return new UriParameterImpl().setName(name).setText(text).setExpression(new LiteralImpl().setText(text));
+  }
+
+  private int readKeyValue(final String text, final int start) {
+    final int end = start < text.length() && text.charAt(start) == '\'' ?
+        readString(text, start) :
+        readDigits(text, start);
+    return end < 0 || end == text.length() ? -1 : end;
+  }
+
+  /**
+   * Reads an OData identifier.
+   * @return the index behind the identifier or -1 if there is no identifier at the start index
+   */
+  private static int readIdentifier(final String text, final int start) {
+    int index = start;
+    if (index >= text.length() || !isLetter(text.charAt(index)) && text.charAt(index) != '_') {
+      return -1;
+    }
+    index++;
+    while (index < text.length()
+        && (isLetter(text.charAt(index)) || isDigit(text.charAt(index)) || text.charAt(index) == '_')) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Reads a string literal including its enclosing quotes.
+   * @return the index behind the closing quote or -1 if there is no string literal at the start index
+   */
+  private static int readString(final String text, final int start) {
+    int index = start + 1;
+    while (index < text.length()) {
+      if (text.charAt(index) == '\'') {
+        if (index + 1 < text.length() && text.charAt(index + 1) == '\'') {
+          index += 2;
+        } else {
+          return index + 1;
+        }
+      } else {
+        index++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads an unsigned integer literal.
+   * @return the index behind the last digit or -1 if there is no digit at the start index
+   */
+  private static int readDigits(final String text, final int start) {
+    int index = start;
+    while (index < text.length() && isDigit(text.charAt(index))) {
+      index++;
+    }
+    return index == start ? -1 : index;
+  }
+
+  private static boolean isLetter(final char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Reads an expression consisting of binary operators with operands that are either literals or paths of
+   * properties, following the operator precedence of the URI grammar.
+   */
+  private class ExpressionReader {
+    private final String text;
+    private final EdmStructuredType type;
+    private int index = 0;
+
+    ExpressionReader(final String text, final EdmStructuredType type) {
+      this.text = text;
+      this.type = type;
+    }
+
+    boolean isAtEnd() {
+      return index == text.length();
+    }
+
+    ExpressionImpl readExpression(final int level) {
+      ExpressionImpl left = level < PRECEDENCE.length - 1 ? readExpression(level + 1) : readOperand();
+      while (left != null) {
+        final BinaryOperatorKind operator = readOperator(PRECEDENCE[level]);
+        if (operator == null) {
+          return left;
+        }
+        final ExpressionImpl right = level < PRECEDENCE.length - 1 ? readExpression(level + 1) : readOperand();
+        if (right == null) {
+          return null;
+        }
+        BinaryImpl binary = new BinaryImpl();
+        binary.setOperator(operator);
+        binary.setLeftOperand(left);
+        binary.setRightOperand(right);
+        left = binary;
+      }
+      return null;
+    }
+
+    /** Reads one of the given operators surrounded by whitespace; returns <code>null</code> if there is none. */
+    private BinaryOperatorKind readOperator(final String[] operators) {
+      int position = skipSpaces(index);
+      if (position == index) {
+        return null;
+      }
+      for (final String operator : operators) {
+        if (text.startsWith(operator, position)) {
+          final int end = skipSpaces(position + operator.length());
+          if (end > position + operator.length() && end < text.length()) {
+            index = end;
+            return BinaryOperatorKind.get(operator);
+          }
+        }
+      }
+      return null;
+    }
+
+    private int skipSpaces(final int start) {
+      int position = start;
+      while (position < text.length() && text.charAt(position) == ' ') {
+        position++;
+      }
+      return position;
+    }
+
+    private ExpressionImpl readOperand() {
+      if (index >= text.length()) {
+        return null;
+      }
+      final char first = text.charAt(index);
+      final int end = first == '\'' ? readString(text, index) :
+          isDigit(first) ? readDigits(text, index) :
+              readPathEnd();
+      if (end < 0 || end < text.length() && text.charAt(end) != ' ') {
+        return null;
+      }
+      final String operand = text.substring(index, end);
+      index = end;
+
+      if (first == '\'' || isDigit(first)) {
+        return new LiteralImpl().setText(operand);
+      } else if (operand.equalsIgnoreCase("true") || operand.equalsIgnoreCase("false")) {
+        return new LiteralImpl().setText(operand.toLowerCase())
+            .setType(EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean));
+      } else if (operand.equals("null")) {
+        return new LiteralImpl().setText("null");
+      } else {
+        return readMember(operand);
+      }
+    }
+
+    /** Returns the index behind a path of identifiers separated by slashes or -1. */
+    private int readPathEnd() {
+      int end = readIdentifier(text, index);
+      while (end >= 0 && end < text.length() && text.charAt(end) == '/') {
+        end = readIdentifier(text, end + 1);
+      }
+      return end;
+    }
+
+    private MemberImpl readMember(final String path) {
+      final int firstEnd = path.indexOf('/');
+      final String first = firstEnd < 0 ? path : path.substring(0, firstEnd);
+      // The URI parser resolves the first segment of a member expression with the entity container first.
+      if (edmEntityContainer.getEntitySet(first) != null
+          || edmEntityContainer.getSingleton(first) != null
+          || edmEntityContainer.getActionImport(first) != null
+          || edmEntityContainer.getFunctionImport(first) != null) {
+        return null;
+      }
+      final UriInfoImpl resourcePath = readPropertyPath(path, type, false);
+      if (resourcePath == null) {
+        return null;
+      }
+      MemberImpl member = new MemberImpl();
+      member.setResourcePath(resourcePath);
+      return member;
+    }
+  }
+}
@@ -27,6 +27,14 @@ import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmSingleton;
+import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoKind;
 import org.apache.olingo.server.api.uri.UriResource;
@@ -58,9 +66,68 @@ import org.apache.olingo.server.core.uri.queryoption.TopOptionImpl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Parser {
+
+  /**
+   * Pool of lexers and parsers. Creating them is expensive, so they are reused: a parser borrows one from its pool
+   * for each call of {@link Parser#parseUri(String, Edm)} and returns it afterwards. Their prediction caches are
+   * shared between all threads anyway. A pool is kept per {@link UriInfoCache}, i.e., per Edm, so that nothing
+   * outlives the Edm.
+   */
+  public static class ReusableParserPool {
+    private static final int MAX_IDLE = 32;
+
+    private final Queue<ReusableParser> idle = new ConcurrentLinkedQueue<ReusableParser>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    ReusableParser acquire() {
+      final ReusableParser reusableParser = idle.poll();
+      if (reusableParser == null) {
+        return new ReusableParser();
+      }
+      idleCount.decrementAndGet();
+      return reusableParser;
+    }
+
+    void release(final ReusableParser reusableParser) {
+      if (idleCount.incrementAndGet() <= MAX_IDLE) {
+        idle.offer(reusableParser);
+      } else {
+        idleCount.decrementAndGet();
+      }
+    }
+
+    /** @return the number of idle lexers and parsers */
+    public int size() {
+      return idleCount.get();
+    }
+  }
+
+  static class ReusableParser {
+    final UriLexer lexer = new UriLexer(new ANTLRInputStream(""));
+    final UriParserParser parser = new UriParserParser(new CommonTokenStream(lexer));
+
+    /**
+     * Resets lexer and parser to read the given input from the beginning in the default lexer mode.
+     * The token stream is cheap to create and cannot be reset completely, so it is created anew.
+     */
+    UriParserParser reset(final String input) {
+      lexer.setInputStream(new ANTLRInputStream(input));
+      parser.setTokenStream(new CommonTokenStream(lexer));
+      return parser;
+    }
+  }
+
+  private ReusableParserPool pool;
+  /** Lexer and parser used for all rules of the URI currently parsed */
+  private ReusableParser reusableParser;
+
   int logLevel = 0;
+  private boolean fastPath = false;
 
   private enum ParserEntryRules {
     All, Batch, CrossJoin, Entity, ExpandItems, FilterExpression, Metadata, PathSegment, Orderby, Select
@@ -71,13 +138,49 @@ public class Parser {
     return this;
   }
 
+  /**
+   * Switches the hand-written parser for common resource paths and for simple <code>$select</code> and
+   * <code>$filter</code> options on or off. Parts of the URI the hand-written parser does not handle are
+   * always parsed with the grammar-based parser.
+   */
+  public Parser setFastPath(final boolean fastPath) {
+    this.fastPath = fastPath;
+    return this;
+  }
+
+  public boolean isFastPath() {
+    return fastPath;
+  }
+
+  /**
+   * Lets this parser borrow its lexer and parser from the given pool instead of creating them for each URI.
+   * @param pool the pool, or <code>null</code>
+   */
+  public Parser setReusableParserPool(final ReusableParserPool pool) {
+    this.pool = pool;
+    return this;
+  }
+
   public UriInfo parseUri(final String input, final Edm edm) throws UriParserException {
+    reusableParser = pool == null ? new ReusableParser() : pool.acquire();
+    try {
+      return parse(input, edm);
+    } finally {
+      if (pool != null) {
+        pool.release(reusableParser);
+      }
+      reusableParser = null;
+    }
+  }
+
+  private UriInfo parse(final String input, final Edm edm) throws UriParserException {
 
     boolean readQueryParameter = false;
     boolean readFragment = false;
 
     UriContext context = new UriContext();
     UriParseTreeVisitor uriParseTreeVisitor = new UriParseTreeVisitor(edm, context);
+    FastPathParser fastPathParser = fastPath ? new FastPathParser(edm) : null;
 
     try {
       RawUri uri = UriDecoder.decodeUri(input, 0); // -> 0 segments are before the service url
@@ -128,18 +231,24 @@ public class Parser {
         uriParseTreeVisitor.visitCrossjoinEOF(ctxResourcePathEOF);
         readQueryParameter = true;
       } else {
-        List<PathSegmentEOFContext> ctxPathSegments = new ArrayList<PathSegmentEOFContext>();
-        for (String pathSegment : uri.pathSegmentListDecoded) {
-          PathSegmentEOFContext ctxPathSegment =
-              (PathSegmentEOFContext) parseRule(pathSegment, ParserEntryRules.PathSegment);
-          ctxPathSegments.add(ctxPathSegment);
-        }
+        UriInfoImpl fastUriInfo =
+            fastPathParser == null ? null : fastPathParser.readResourcePath(uri.pathSegmentListDecoded);
+        if (fastUriInfo != null) {
+          context.contextUriInfo = fastUriInfo;
+        } else {
+          List<PathSegmentEOFContext> ctxPathSegments = new ArrayList<PathSegmentEOFContext>();
+          for (String pathSegment : uri.pathSegmentListDecoded) {
+            PathSegmentEOFContext ctxPathSegment =
+                (PathSegmentEOFContext) parseRule(pathSegment, ParserEntryRules.PathSegment);
+            ctxPathSegments.add(ctxPathSegment);
+          }
 
-        context.contextUriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
+          context.contextUriInfo = new UriInfoImpl().setKind(UriInfoKind.resource);
 
-        for (PathSegmentEOFContext ctxPathSegment : ctxPathSegments) {
-          // add checks for batcvh entity metadata, all crossjsoin
-          uriParseTreeVisitor.visitPathSegmentEOF(ctxPathSegment);
+          for (PathSegmentEOFContext ctxPathSegment : ctxPathSegments) {
+            // add checks for batcvh entity metadata, all crossjsoin
+            uriParseTreeVisitor.visitPathSegmentEOF(ctxPathSegment);
+          }
         }
 
         UriResource lastSegment = context.contextUriInfo.getLastResourcePart();
@@ -166,11 +275,14 @@ public class Parser {
             customOption.setText(option.value);
             context.contextUriInfo.addCustomQueryOption(customOption);
           } else if (option.name.equals("$filter")) {
-            FilterExpressionEOFContext ctxFilterExpression =
-                (FilterExpressionEOFContext) parseRule(option.value, ParserEntryRules.FilterExpression);
+            FilterOptionImpl filterOption = fastPathParser == null || context.contextTypes.isEmpty() ? null :
+                fastPathParser.readFilter(option.value, context.contextTypes.peek().type);
+            if (filterOption == null) {
+              FilterExpressionEOFContext ctxFilterExpression =
+                  (FilterExpressionEOFContext) parseRule(option.value, ParserEntryRules.FilterExpression);
 
-            FilterOptionImpl filterOption =
-                (FilterOptionImpl) uriParseTreeVisitor.visitFilterExpressionEOF(ctxFilterExpression);
+              filterOption = (FilterOptionImpl) uriParseTreeVisitor.visitFilterExpressionEOF(ctxFilterExpression);
+            }
 
             context.contextUriInfo.setSystemQueryOption(filterOption);
 
@@ -207,11 +319,14 @@ public class Parser {
           } else if (option.name.equals("$search")) {
             throw new RuntimeException("System query option '$search' not implemented!");
           } else if (option.name.equals("$select")) {
-            SelectEOFContext ctxSelectEOF =
-                (SelectEOFContext) parseRule(option.value, ParserEntryRules.Select);
+            SelectOptionImpl expandOption = fastPathParser == null || context.contextTypes.isEmpty() ? null :
+                fastPathParser.readSelect(option.value, context.contextTypes.peek().type);
+            if (expandOption == null) {
+              SelectEOFContext ctxSelectEOF =
+                  (SelectEOFContext) parseRule(option.value, ParserEntryRules.Select);
 
-            SelectOptionImpl expandOption =
-                (SelectOptionImpl) uriParseTreeVisitor.visitSelectEOF(ctxSelectEOF);
+              expandOption = (SelectOptionImpl) uriParseTreeVisitor.visitSelectEOF(ctxSelectEOF);
+            }
 
             context.contextUriInfo.setSystemQueryOption(expandOption);
           } else if (option.name.equals("$skip")) {
@@ -272,6 +387,142 @@ public class Parser {
     return null;
   }
 
+  /**
+   * Parses URIs for all entity sets and singletons of the given EDM with the grammar-based parser.
+   * The prediction caches of the grammar are shared by all parsers, so calling this method once at startup
+   * avoids slow first requests. The URIs contain key predicates, properties, navigation properties,
+   * and common system query options; URIs which cannot be parsed are ignored.
+   * @param edm the entity data model
+   * @return the number of URIs parsed successfully
+   */
+  public int warmUp(final Edm edm) {
+    final EdmEntityContainer container = edm.getEntityContainer(null);
+    if (container == null) {
+      return 0;
+    }
+    List<String> uris = new ArrayList<String>();
+    uris.add("");
+    uris.add("$metadata");
+    uris.add("$batch");
+    for (EdmEntitySet entitySet : container.getEntitySets()) {
+      final EdmEntityType type = entitySet.getEntityType();
+      final String name = entitySet.getName();
+      final String keys = getWarmUpKeyPredicates(type);
+      uris.add(name);
+      uris.add(name + "/$count");
+      uris.add(name + getWarmUpQueryOptions(type));
+      if (keys != null) {
+        uris.add(name + keys);
+        addWarmUpPropertyPaths(uris, name + keys, type);
+      }
+    }
+    for (EdmSingleton singleton : container.getSingletons()) {
+      uris.add(singleton.getName());
+      addWarmUpPropertyPaths(uris, singleton.getName(), singleton.getEntityType());
+    }
+
+    final boolean isFastPath = fastPath;
+    fastPath = false;
+    int count = 0;
+    try {
+      for (final String uri : uris) {
+        try {
+          if (parseUri(uri, edm) != null) {
+            count++;
+          }
+        } catch (final UriParserException e) {
+          // Not all generated URIs are valid for all models; this is irrelevant for warming up.
+        } catch (final RuntimeException e) {
+          // Same as above.
+        }
+      }
+    } finally {
+      fastPath = isFastPath;
+    }
+    return count;
+  }
+
+  private void addWarmUpPropertyPaths(final List<String> uris, final String path, final EdmEntityType type) {
+    for (String propertyName : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(propertyName);
+      if (property.isPrimitive() && !property.isCollection()) {
+        uris.add(path + "/" + propertyName);
+        uris.add(path + "/" + propertyName + "/$value");
+        break;
+      }
+    }
+    for (String navigationName : type.getNavigationPropertyNames()) {
+      final EdmNavigationProperty navigationProperty = type.getNavigationProperty(navigationName);
+      uris.add(path + "/" + navigationName);
+      if (navigationProperty.isCollection()) {
+        uris.add(path + "/" + navigationName + "/$count");
+        final String keys = getWarmUpKeyPredicates(navigationProperty.getType());
+        if (keys != null) {
+          uris.add(path + "/" + navigationName + keys);
+        }
+      }
+    }
+  }
+
+  private String getWarmUpQueryOptions(final EdmEntityType type) {
+    String propertyName = null;
+    String literal = null;
+    for (String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      literal = property.isPrimitive() && !property.isCollection() ? getWarmUpLiteral(property.getType()) : null;
+      if (literal != null) {
+        propertyName = name;
+        break;
+      }
+    }
+    if (propertyName == null) {
+      return "?$top=1";
+    }
+    String options = "?$filter=" + propertyName + " eq " + literal + " and " + propertyName + " ne null"
+        + "&$select=" + propertyName + "&$orderby=" + propertyName + " desc&$top=1&$skip=1&$count=true";
+    if (!type.getNavigationPropertyNames().isEmpty()) {
+      options += "&$expand=" + type.getNavigationPropertyNames().get(0);
+    }
+    return options;
+  }
+
+  private String getWarmUpKeyPredicates(final EdmEntityType type) {
+    final List<String> keyNames = type.getKeyPredicateNames();
+    String keys = "";
+    for (String keyName : keyNames) {
+      final EdmProperty property = type.getStructuralProperty(keyName);
+      final String literal = property == null ? null : getWarmUpLiteral(property.getType());
+      if (literal == null) {
+        return null;
+      }
+      keys += (keys.length() == 0 ? "" : ",") + (keyNames.size() == 1 ? "" : keyName + "=") + literal;
+    }
+    return "(" + keys + ")";
+  }
+
+  private String getWarmUpLiteral(final EdmType type) {
+    if (!EdmPrimitiveType.EDM_NAMESPACE.equals(type.getNamespace())) {
+      return null;
+    }
+    final String name = type.getName();
+    if (name.equals("String")) {
+      return "'A'";
+    } else if (name.equals("Boolean")) {
+      return "true";
+    } else if (name.equals("Byte") || name.equals("SByte") || name.startsWith("Int")) {
+      return "1";
+    } else if (name.equals("Decimal") || name.equals("Double") || name.equals("Single")) {
+      return "1.5";
+    } else if (name.equals("Date")) {
+      return "2014-01-01";
+    } else if (name.equals("DateTimeOffset")) {
+      return "2014-01-01T00:00:00Z";
+    } else if (name.equals("Guid")) {
+      return "01234567-89ab-cdef-0123-456789abcdef";
+    }
+    return null;
+  }
+
   private ParserRuleContext parseRule(final String input, final ParserEntryRules entryPoint)
       throws UriParserSyntaxException {
     UriParserParser parser = null;
@@ -290,8 +541,8 @@ public class Parser {
         showTokens(input, lexer.getAllTokens());
       }
 
-      lexer = new UriLexer(new ANTLRInputStream(input));
-      parser = new UriParserParser(new CommonTokenStream(lexer));
+      parser = reusableParser.reset(input);
+      lexer = reusableParser.lexer;
 
       // Set error strategy
       addStage1ErrorStategy(parser);
@@ -347,8 +598,8 @@ public class Parser {
       try {
 
         // create parser
-        lexer = new UriLexer(new ANTLRInputStream(input));
-        parser = new UriParserParser(new CommonTokenStream(lexer));
+        parser = reusableParser.reset(input);
+        lexer = reusableParser.lexer;
 
         // Set error strategy
         addStage2ErrorStategy(parser);
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+
+/**
+ * Bounded cache of parsed URIs for one {@link Edm}.
+ * <p>
+ * The cache is keyed by the OData path including the query string, i.e. the same input that is handed to
+ * {@link Parser#parseUri(String, Edm)}. Parsed {@link UriInfo} objects are never modified after parsing and may
+ * therefore be shared between requests. If the cache is full the least recently used entry is evicted.
+ * Inputs which cannot be parsed are not cached. The cache also keeps the pool of lexers and parsers used in case
+ * of a cache miss.
+ * <p>
+ * To be of use across requests the cache must live as long as its Edm; for the server's Edm implementation
+ * it is therefore attached to the Edm at the first use and shared by all handlers created for it,
+ * see {@link #forEdm(Edm)}.
+ */
+public class UriInfoCache {
+
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  private final Edm edm;
+  private final int maxSize;
+  private final Map<String, UriInfo> entries;
+  private final UriTemplateCache templateCache;
+  private final Parser.ReusableParserPool parserPool = new Parser.ReusableParserPool();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  public UriInfoCache(final Edm edm) {
+    this(edm, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param edm the entity data model all cached URIs have been parsed against
+   * @param maxSize maximum number of cached URIs; a value of zero disables caching
+   */
+  public UriInfoCache(final Edm edm, final int maxSize) {
+    this(edm, maxSize, null);
+  }
+
+  /**
+   * @param edm the entity data model all cached URIs have been parsed against
+   * @param maxSize maximum number of cached URIs; a value of zero disables caching
+   * @param templateCache cache of URI templates used for URIs not found in this cache; may be <code>null</code>
+   */
+  public UriInfoCache(final Edm edm, final int maxSize, final UriTemplateCache templateCache) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Maximum cache size must not be negative: " + maxSize);
+    }
+    this.edm = edm;
+    this.maxSize = maxSize;
+    this.templateCache = templateCache;
+    entries = new LinkedHashMap<String, UriInfo>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, UriInfo> eldest) {
+        if (size() > UriInfoCache.this.maxSize) {
+          evictionCount.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets the cache of URIs parsed against the given Edm, with a template cache.
+   * For Edms created by {@link org.apache.olingo.server.api.OData#createEdm} the cache is created at the first use
+   * and attached to the Edm; for other Edm implementations a new cache is returned.
+   * @param edm the entity data model
+   * @return the cache
+   */
+  public static UriInfoCache forEdm(final Edm edm) {
+    if (edm instanceof EdmProviderImpl) {
+      final EdmProviderImpl edmProviderImpl = (EdmProviderImpl) edm;
+      final UriInfoCache cache = edmProviderImpl.getCache(UriInfoCache.class);
+      return cache == null ?
+          edmProviderImpl.attachCache(UriInfoCache.class,
+              new UriInfoCache(edm, DEFAULT_MAX_SIZE, new UriTemplateCache(edm))) :
+          cache;
+    }
+    return new UriInfoCache(edm, DEFAULT_MAX_SIZE, new UriTemplateCache(edm));
+  }
+
+  /**
+   * Returns the cached result for the given input or parses the input and caches the result.
+   * The input is parsed with help of the template cache if there is one, otherwise with the given parser.
+   * @param input OData path and query string
+   * @param parser parser used in case of a cache miss; it borrows its lexer and parser from this cache's pool
+   * @return the parsed URI
+   * @throws UriParserException if the input cannot be parsed
+   */
+  public UriInfo parseUri(final String input, final Parser parser) throws UriParserException {
+    UriInfo uriInfo = get(input);
+    if (uriInfo == null) {
+      parser.setReusableParserPool(parserPool);
+      uriInfo = templateCache == null ? parser.parseUri(input, edm) : templateCache.parseUri(input, parser);
+      if (uriInfo != null) {
+        put(input, uriInfo);
+      }
+    }
+    return uriInfo;
+  }
+
+  /**
+   * @param input OData path and query string
+   * @return the cached URI or <code>null</code> if the input has not been parsed before
+   */
+  public UriInfo get(final String input) {
+    UriInfo uriInfo;
+    synchronized (entries) {
+      uriInfo = entries.get(input);
+    }
+    if (uriInfo == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return uriInfo;
+  }
+
+  public void put(final String input, final UriInfo uriInfo) {
+    if (maxSize > 0) {
+      synchronized (entries) {
+        entries.put(input, uriInfo);
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public Edm getEdm() {
+    return edm;
+  }
+
+  public UriTemplateCache getTemplateCache() {
+    return templateCache;
+  }
+
+  public Parser.ReusableParserPool getParserPool() {
+    return parserPool;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+}
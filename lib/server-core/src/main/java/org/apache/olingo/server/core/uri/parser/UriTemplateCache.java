@@ -0,0 +1,564 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.core.Decoder;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.queryoption.CustomQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.apache.olingo.server.core.uri.UriParameterImpl;
+import org.apache.olingo.server.core.uri.UriResourceEntitySetImpl;
+import org.apache.olingo.server.core.uri.UriResourceFunctionImpl;
+import org.apache.olingo.server.core.uri.UriResourceImpl;
+import org.apache.olingo.server.core.uri.UriResourceNavigationPropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourceWithKeysImpl;
+import org.apache.olingo.server.core.uri.queryoption.CustomQueryOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.SystemQueryOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.BinaryImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.LiteralImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.MethodImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.UnaryImpl;
+
+/**
+ * Cache of parsed URI templates for one {@link Edm}.
+ * <p>
+ * URIs which only differ in integer or string literals used in key predicates, function parameters or the
+ * <code>$filter</code> system query option share the same shape. For each shape the URI is parsed only once
+ * with placeholder literals; for all further URIs of that shape the actual literal values are bound into a copy
+ * of the cached {@link UriInfo}. Shapes whose literals end up in parts of the URI which cannot be bound
+ * (e.g. inside lambda expressions) are remembered and always parsed completely.
+ */
+public class UriTemplateCache {
+
+  public static final int DEFAULT_MAX_SIZE = 500;
+
+  private static final char SLOT_MARKER = '\u0000';
+  private static final char INT_SLOT = 'i';
+  private static final char STRING_SLOT = 's';
+  private static final String FILTER = "$filter=";
+
+  private final Edm edm;
+  private final int maxSize;
+  private final Map<String, Template> templates;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public UriTemplateCache(final Edm edm) {
+    this(edm, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param edm the entity data model all templates are parsed against
+   * @param maxSize maximum number of cached templates
+   */
+  public UriTemplateCache(final Edm edm, final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Maximum cache size must not be negative: " + maxSize);
+    }
+    this.edm = edm;
+    this.maxSize = maxSize;
+    templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Template> eldest) {
+        return size() > UriTemplateCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Parses the input by binding its literal values into a cached template of the same shape.
+   * If there is no usable template the input is parsed with the given parser.
+   * @param input OData path and query string
+   * @param parser parser used to parse templates and inputs without usable template
+   * @return the parsed URI
+   * @throws UriParserException if the input cannot be parsed
+   */
+  public UriInfo parseUri(final String input, final Parser parser) throws UriParserException {
+    final Shape shape = maxSize == 0 ? null : Shape.of(input);
+    if (shape == null) {
+      return parser.parseUri(input, edm);
+    }
+
+    Template template;
+    synchronized (templates) {
+      template = templates.get(shape.key);
+    }
+    if (template == null) {
+      missCount.incrementAndGet();
+      template = createTemplate(shape, parser);
+      synchronized (templates) {
+        templates.put(shape.key, template);
+      }
+    } else {
+      hitCount.incrementAndGet();
+    }
+
+    final UriInfo uriInfo = template.bind(shape.values);
+    return uriInfo == null ? parser.parseUri(input, edm) : uriInfo;
+  }
+
+  private Template createTemplate(final Shape shape, final Parser parser) {
+    UriInfo uriInfo;
+    try {
+      uriInfo = parser.parseUri(shape.getTemplateInput(), edm);
+    } catch (final UriParserException e) {
+      uriInfo = null;
+    } catch (final RuntimeException e) {
+      uriInfo = null;
+    }
+    if (uriInfo instanceof UriInfoImpl) {
+      final Template template = new Template((UriInfoImpl) uriInfo, shape.getPlaceholders());
+      // Check once that all literals can be bound; otherwise the shape is always parsed completely.
+      if (template.bind(shape.values) != null) {
+        return template;
+      }
+    }
+    return new Template(null, null);
+  }
+
+  public void clear() {
+    synchronized (templates) {
+      templates.clear();
+    }
+  }
+
+  public Edm getEdm() {
+    return edm;
+  }
+
+  public int size() {
+    synchronized (templates) {
+      return templates.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Shape of an URI: the URI with all bindable literals replaced by typed slot markers,
+   * together with the decoded literal values.
+   */
+  static class Shape {
+    final String key;
+    final List<Character> kinds = new ArrayList<Character>();
+    final List<String> values = new ArrayList<String>();
+
+    private Shape(final String input) {
+      final StringBuilder builder = new StringBuilder(input.length());
+      final int queryStart = indexOf(input, '?', 0, input.length());
+      final int fragmentStart = indexOf(input, '#', 0, input.length());
+      final int pathEnd = queryStart < fragmentStart ? queryStart : fragmentStart;
+      boolean valid = scan(input, 0, pathEnd, true, builder);
+
+      if (valid && queryStart < fragmentStart) {
+        builder.append('?');
+        int start = queryStart + 1;
+        while (valid && start <= fragmentStart) {
+          final int end = indexOf(input, '&', start, fragmentStart);
+          if (input.startsWith(FILTER, start)) {
+            builder.append(FILTER);
+            valid = scan(input, start + FILTER.length(), end, false, builder);
+          } else {
+            builder.append(input, start, end);
+          }
+          if (end < fragmentStart) {
+            builder.append('&');
+          }
+          start = end + 1;
+        }
+      }
+      builder.append(input, fragmentStart, input.length());
+
+      key = valid && !values.isEmpty() ? builder.toString() : null;
+    }
+
+    /**
+     * @return the shape of the input or <code>null</code> if the input contains no bindable literals
+     */
+    static Shape of(final String input) {
+      if (input == null || input.indexOf(SLOT_MARKER) >= 0) {
+        return null;
+      }
+      final Shape shape = new Shape(input);
+      return shape.key == null ? null : shape;
+    }
+
+    private boolean scan(final String input, final int start, final int end, final boolean isPath,
+        final StringBuilder builder) {
+      int position = start;
+      boolean afterDelimiter = true;
+      while (position < end) {
+        final char c = input.charAt(position);
+        final int length = c == '%' ? 3 : 1;
+        int tokenEnd = -1;
+        char kind = 0;
+        if (afterDelimiter && c >= '0' && c <= '9') {
+          tokenEnd = position + 1;
+          while (tokenEnd < end && input.charAt(tokenEnd) >= '0' && input.charAt(tokenEnd) <= '9') {
+            tokenEnd++;
+          }
+          kind = INT_SLOT;
+        } else if (afterDelimiter && isQuote(input, position, end)) {
+          tokenEnd = endOfString(input, position, end, isPath);
+          if (tokenEnd < 0) {
+            return false;
+          }
+          kind = STRING_SLOT;
+        }
+
+        if (tokenEnd > 0 && isEndDelimiter(input, tokenEnd, end)) {
+          final String value;
+          try {
+            value = Decoder.decode(input.substring(position, tokenEnd));
+          } catch (final IllegalArgumentException e) {
+            return false;
+          }
+          builder.append(SLOT_MARKER).append(kind);
+          kinds.add(kind);
+          values.add(value);
+          position = tokenEnd;
+          afterDelimiter = false;
+        } else if (position + length <= end) {
+          afterDelimiter = isDelimiter(input.substring(position, position + length));
+          builder.append(input, position, position + length);
+          position += length;
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static int endOfString(final String input, final int start, final int end, final boolean isPath) {
+      int position = start + quoteLength(input, start);
+      while (position < end) {
+        final char c = input.charAt(position);
+        if (isPath && c == '/') {
+          return -1;
+        } else if (isQuote(input, position, end)) {
+          position += quoteLength(input, position);
+          if (isQuote(input, position, end)) {
+            // escaped quote
+            position += quoteLength(input, position);
+          } else {
+            return position;
+          }
+        } else {
+          position++;
+        }
+      }
+      return -1;
+    }
+
+    private static boolean isQuote(final String input, final int position, final int end) {
+      return position < end
+          && (input.charAt(position) == '\''
+          || position + 3 <= end && input.regionMatches(true, position, "%27", 0, 3));
+    }
+
+    private static int quoteLength(final String input, final int position) {
+      return input.charAt(position) == '\'' ? 1 : 3;
+    }
+
+    private static boolean isDelimiter(final String token) {
+      return token.length() == 1 ? "(,= ".indexOf(token.charAt(0)) >= 0
+          : "%28".equalsIgnoreCase(token) || "%2C".equalsIgnoreCase(token)
+              || "%3D".equalsIgnoreCase(token) || "%20".equals(token);
+    }
+
+    private static boolean isEndDelimiter(final String input, final int position, final int end) {
+      if (position == end) {
+        return true;
+      }
+      final char c = input.charAt(position);
+      return c == ')' || c == ',' || c == ' '
+          || position + 3 <= end && (input.regionMatches(true, position, "%29", 0, 3)
+              || input.regionMatches(true, position, "%2C", 0, 3)
+              || input.regionMatches(position, "%20", 0, 3));
+    }
+
+    private static int indexOf(final String input, final char c, final int start, final int end) {
+      final int index = input.indexOf(c, start);
+      return index < 0 || index > end ? end : index;
+    }
+
+    /**
+     * @return the shape with every slot replaced by a placeholder literal unique within this shape
+     */
+    String getTemplateInput() {
+      final StringBuilder builder = new StringBuilder(key.length() + 16 * kinds.size());
+      int slot = 0;
+      for (int i = 0; i < key.length(); i++) {
+        final char c = key.charAt(i);
+        if (c == SLOT_MARKER) {
+          builder.append(getPlaceholder(slot++, key.charAt(++i)));
+        } else {
+          builder.append(c);
+        }
+      }
+      return builder.toString();
+    }
+
+    Map<String, Integer> getPlaceholders() {
+      final Map<String, Integer> placeholders = new HashMap<String, Integer>();
+      for (int slot = 0; slot < kinds.size(); slot++) {
+        placeholders.put(getPlaceholder(slot, kinds.get(slot)), slot);
+      }
+      return placeholders;
+    }
+
+    private static String getPlaceholder(final int slot, final char kind) {
+      return kind == INT_SLOT ? String.valueOf(1000000 + slot) : "'olingo_slot_" + slot + "'";
+    }
+  }
+
+  /** A parsed URI containing placeholder literals. */
+  static class Template {
+    private final UriInfoImpl uriInfo;
+    private final Map<String, Integer> placeholders;
+
+    Template(final UriInfoImpl uriInfo, final Map<String, Integer> placeholders) {
+      this.uriInfo = uriInfo;
+      this.placeholders = placeholders;
+    }
+
+    /**
+     * @return a copy of the template with the given values bound, or <code>null</code> if not all values could
+     * be bound
+     */
+    UriInfo bind(final List<String> values) {
+      if (uriInfo == null) {
+        return null;
+      }
+      final Binder binder = new Binder(placeholders, values);
+      final UriInfoImpl copy = binder.copy(uriInfo);
+      return binder.isComplete() ? copy : null;
+    }
+  }
+
+  /**
+   * Copies those parts of a template which contain placeholder literals; all other parts are shared
+   * between the template and the copy.
+   */
+  private static class Binder {
+    private final Map<String, Integer> placeholders;
+    private final List<String> values;
+    private final boolean[] bound;
+
+    Binder(final Map<String, Integer> placeholders, final List<String> values) {
+      this.placeholders = placeholders;
+      this.values = values;
+      bound = new boolean[values.size()];
+    }
+
+    boolean isComplete() {
+      for (final boolean isBound : bound) {
+        if (!isBound) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    UriInfoImpl copy(final UriInfoImpl template) {
+      final UriInfoImpl copy = new UriInfoImpl().setKind(template.getKind());
+      copy.setEntityTypeCast(template.getEntityTypeCast());
+      copy.setFragment(template.getFragment());
+      for (final String entitySetName : template.getEntitySetNames()) {
+        copy.addEntitySetName(entitySetName);
+      }
+      for (final UriResource resource : template.getUriResourceParts()) {
+        copy.addResourcePart(copy((UriResourceImpl) resource));
+      }
+      for (final CustomQueryOption option : template.getCustomQueryOptions()) {
+        copy.addCustomQueryOption((CustomQueryOptionImpl) option);
+      }
+      for (final SystemQueryOption option : template.getSystemQueryOptions()) {
+        if (option instanceof FilterOptionImpl) {
+          final FilterOptionImpl filter = (FilterOptionImpl) option;
+          final FilterOptionImpl filterCopy = new FilterOptionImpl().setExpression(copy(filter.getExpression()));
+          filterCopy.setText(filter.getText());
+          copy.setSystemQueryOption(filterCopy);
+        } else {
+          copy.setSystemQueryOption((SystemQueryOptionImpl) option);
+        }
+      }
+      return copy;
+    }
+
+    private UriResourceImpl copy(final UriResourceImpl resource) {
+      if (!(resource instanceof UriResourceWithKeysImpl)) {
+        return resource;
+      }
+      final UriResourceWithKeysImpl withKeys = (UriResourceWithKeysImpl) resource;
+      final List<UriParameterImpl> keys = copy(withKeys.getKeyPredicates());
+      List<UriParameterImpl> parameters = null;
+      if (resource instanceof UriResourceFunctionImpl && ((UriResourceFunctionImpl) resource).isParameterListFilled()) {
+        parameters = copy(((UriResourceFunctionImpl) resource).getParameters());
+      }
+      if (keys == null && parameters == null) {
+        return resource;
+      }
+
+      UriResourceWithKeysImpl copy;
+      if (resource instanceof UriResourceEntitySetImpl) {
+        copy = new UriResourceEntitySetImpl().setEntitSet(((UriResourceEntitySetImpl) resource).getEntitySet());
+      } else if (resource instanceof UriResourceNavigationPropertyImpl) {
+        copy = new UriResourceNavigationPropertyImpl().setNavigationProperty(
+            ((UriResourceNavigationPropertyImpl) resource).getProperty());
+      } else if (resource instanceof UriResourceFunctionImpl) {
+        final UriResourceFunctionImpl function = (UriResourceFunctionImpl) resource;
+        final UriResourceFunctionImpl functionCopy = new UriResourceFunctionImpl().setFunction(function.getFunction());
+        final List<UriParameterImpl> parameterList = parameters == null ? toImpl(function.getParameters()) : parameters;
+        if (function.getFunctionImport() == null) {
+          functionCopy.setParameters(parameterList);
+        } else {
+          functionCopy.setFunctionImport(function.getFunctionImport(), parameterList);
+        }
+        copy = functionCopy;
+      } else {
+        // Unknown resource kind: leave the placeholders unbound so the input is parsed completely.
+        return resource;
+      }
+      if (keys != null) {
+        copy.setKeyPredicates(keys);
+      } else if (!withKeys.getKeyPredicates().isEmpty()) {
+        copy.setKeyPredicates(toImpl(withKeys.getKeyPredicates()));
+      }
+      copy.setCollectionTypeFilter(withKeys.getTypeFilterOnCollection());
+      copy.setEntryTypeFilter(withKeys.getTypeFilterOnEntry());
+      return copy;
+    }
+
+    /**
+     * @return a copy of the parameters if at least one of them contains a placeholder, otherwise <code>null</code>
+     */
+    private List<UriParameterImpl> copy(final List<UriParameter> parameters) {
+      List<UriParameterImpl> copies = null;
+      for (int i = 0; i < parameters.size(); i++) {
+        final UriParameterImpl parameter = (UriParameterImpl) parameters.get(i);
+        final Integer slot = parameter.getText() == null ? null : placeholders.get(parameter.getText());
+        if (slot != null) {
+          if (copies == null) {
+            copies = toImpl(parameters.subList(0, i));
+          }
+          bound[slot] = true;
+          copies.add(new UriParameterImpl()
+              .setName(parameter.getName())
+              .setAlias(parameter.getAlias())
+              .setRefencedProperty(parameter.getReferencedProperty())
+              .setText(values.get(slot))
+              .setExpression(copy((ExpressionImpl) parameter.getExpression())));
+        } else if (copies != null) {
+          copies.add(parameter);
+        }
+      }
+      return copies;
+    }
+
+    private static List<UriParameterImpl> toImpl(final List<UriParameter> parameters) {
+      final List<UriParameterImpl> list = new ArrayList<UriParameterImpl>(parameters.size());
+      for (final UriParameter parameter : parameters) {
+        list.add((UriParameterImpl) parameter);
+      }
+      return list;
+    }
+
+    private ExpressionImpl copy(final ExpressionImpl expression) {
+      if (expression instanceof LiteralImpl) {
+        final LiteralImpl literal = (LiteralImpl) expression;
+        final Integer slot = literal.getText() == null ? null : placeholders.get(literal.getText());
+        if (slot == null) {
+          return literal;
+        }
+        bound[slot] = true;
+        // The type of the placeholder has been derived from the placeholder text and must not be carried over.
+        // Like the parser, integer and string literals are left untyped; their use determines their type.
+        return new LiteralImpl().setText(values.get(slot));
+
+      } else if (expression instanceof BinaryImpl) {
+        final BinaryImpl binary = (BinaryImpl) expression;
+        final ExpressionImpl left = copy((ExpressionImpl) binary.getLeftOperand());
+        final ExpressionImpl right = copy((ExpressionImpl) binary.getRightOperand());
+        if (left == binary.getLeftOperand() && right == binary.getRightOperand()) {
+          return binary;
+        }
+        final BinaryImpl copy = new BinaryImpl();
+        copy.setOperator(binary.getOperator());
+        copy.setLeftOperand(left);
+        copy.setRightOperand(right);
+        return copy;
+
+      } else if (expression instanceof UnaryImpl) {
+        final UnaryImpl unary = (UnaryImpl) expression;
+        final ExpressionImpl operand = copy((ExpressionImpl) unary.getOperand());
+        if (operand == unary.getOperand()) {
+          return unary;
+        }
+        final UnaryImpl copy = new UnaryImpl();
+        copy.setOperator(unary.getOperator());
+        copy.setOperand(operand);
+        return copy;
+
+      } else if (expression instanceof MethodImpl) {
+        final MethodImpl method = (MethodImpl) expression;
+        final List<ExpressionImpl> parameters = new ArrayList<ExpressionImpl>();
+        boolean changed = false;
+        for (final Expression parameter : method.getParameters()) {
+          final ExpressionImpl parameterCopy = copy((ExpressionImpl) parameter);
+          changed |= parameterCopy != parameter;
+          parameters.add(parameterCopy);
+        }
+        if (!changed) {
+          return method;
+        }
+        final MethodImpl copy = new MethodImpl().setMethod(method.getMethod());
+        for (final ExpressionImpl parameter : parameters) {
+          copy.addParameter(parameter);
+        }
+        return copy;
+      }
+      // Other expressions are shared; placeholders inside them stay unbound.
+      return expression;
+    }
+  }
+}
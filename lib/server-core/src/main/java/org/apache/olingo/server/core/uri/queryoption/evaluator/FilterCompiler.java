@@ -0,0 +1,576 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.Method;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Unary;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Compiles expression trees into trees of typed nodes which can be evaluated against entities held in memory.
+ * <p>
+ * All type checks, the resolution of property paths, and the conversion of literals are done once
+ * at compile time; sub-expressions consisting only of literals are evaluated at compile time as well.
+ * Supported are property paths (also into complex properties), literals, the logical, comparison, and arithmetic
+ * operators, and the string, date and time, and arithmetic functions.
+ * Lambda expressions, navigation, aliases, enumerations, and the geo, cast, and isof functions are not supported.
+ */
+public final class FilterCompiler {
+
+  private static final Pattern INTEGER = Pattern.compile("[+-]?\\d+");
+  private static final Pattern DECIMAL = Pattern.compile("[+-]?\\d+\\.\\d+");
+  private static final Pattern DOUBLE = Pattern.compile("[+-]?\\d+(\\.\\d+)?[eE][+-]?\\d+");
+  private static final Pattern DATE = Pattern.compile("-?\\d{4,}-\\d{2}-\\d{2}");
+  private static final Pattern DATE_TIME_OFFSET = Pattern.compile("-?\\d{4,}-\\d{2}-\\d{2}T.+");
+  private static final Pattern TIME_OF_DAY = Pattern.compile("\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?");
+  private static final Pattern GUID = Pattern.compile(
+      "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+  private static final String DURATION_PREFIX = "duration'";
+  /** Precision used for parsing temporal literals, allowing fractional seconds down to picoseconds */
+  private static final int LITERAL_PRECISION = 12;
+
+  private FilterCompiler() {}
+
+  /**
+   * Compiles a boolean expression into a predicate.
+   * @param expression the expression, e.g., of a $filter option
+   * @return the predicate
+   * @throws ODataApplicationException if the expression is not a boolean expression or uses unsupported features
+   */
+  public static EntityPredicate compile(final Expression expression) throws ODataApplicationException {
+    final ValueNode root = compileNode(expression);
+    if (root.kind != ValueKind.BOOLEAN && root.kind != ValueKind.NULL) {
+      throw badRequest("The expression must be a boolean expression.");
+    }
+    return new CompiledPredicate(root);
+  }
+
+  /**
+   * Builds the key under which the predicate compiled from a boolean expression can be cached:
+   * the expression in a canonical form containing everything compilation depends on, i.e., operators, methods,
+   * literal texts, and property paths together with the kinds of their values.
+   * Expressions calling <code>now()</code> are not suitable for caching.
+   * @param expression the expression
+   * @return the key or <code>null</code> if the expression is not suitable for caching
+   */
+  static String getCacheKey(final Expression expression) {
+    final StringBuilder key = new StringBuilder();
+    try {
+      return appendCacheKey(expression, key) ? key.toString() : null;
+    } catch (final ODataApplicationException e) {
+      // Compiling the expression will report the problem.
+      return null;
+    }
+  }
+
+  private static boolean appendCacheKey(final Expression expression, final StringBuilder key)
+      throws ODataApplicationException {
+    if (expression instanceof Binary) {
+      final Binary binary = (Binary) expression;
+      key.append('(').append(binary.getOperator());
+      final boolean valid = appendCacheKey(binary.getLeftOperand(), key.append(' '))
+          && appendCacheKey(binary.getRightOperand(), key.append(' '));
+      key.append(')');
+      return valid;
+    } else if (expression instanceof Unary) {
+      final Unary unary = (Unary) expression;
+      key.append('(').append(unary.getOperator()).append(' ');
+      final boolean valid = appendCacheKey(unary.getOperand(), key);
+      key.append(')');
+      return valid;
+    } else if (expression instanceof Method) {
+      final Method method = (Method) expression;
+      if (method.getMethod() == MethodKind.NOW) {
+        // now() is folded into a constant at compile time, so the predicate must not outlive the request.
+        return false;
+      }
+      key.append('(').append(method.getMethod());
+      if (method.getParameters() != null) {
+        for (final Expression parameter : method.getParameters()) {
+          if (!appendCacheKey(parameter, key.append(' '))) {
+            return false;
+          }
+        }
+      }
+      key.append(')');
+      return true;
+    } else if (expression instanceof Member) {
+      final Member member = (Member) expression;
+      if (member.getStartTypeFilter() != null) {
+        return false;
+      }
+      final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+      for (final UriResource part : parts) {
+        if (!(part instanceof UriResourceProperty)) {
+          return false;
+        }
+        key.append('/').append(((UriResourceProperty) part).getProperty().getName());
+      }
+      key.append(':').append(getKind(((UriResourceProperty) parts.get(parts.size() - 1)).getProperty().getType()));
+      return true;
+    } else if (expression instanceof Literal) {
+      // length-prefixed, since literals may contain any character
+      final String text = ((Literal) expression).getText();
+      if (text == null) {
+        return false;
+      }
+      key.append(text.length()).append('\'').append(text);
+      return true;
+    }
+    return false;
+  }
+
+  static ValueNode compileNode(final Expression expression) throws ODataApplicationException {
+    if (expression instanceof Binary) {
+      return fold(compileBinary((Binary) expression));
+    } else if (expression instanceof Unary) {
+      return fold(compileUnary((Unary) expression));
+    } else if (expression instanceof Method) {
+      return fold(compileMethod((Method) expression));
+    } else if (expression instanceof Member) {
+      return compileMember((Member) expression);
+    } else if (expression instanceof Literal) {
+      return compileLiteral(((Literal) expression).getText());
+    } else {
+      throw notImplemented("Expressions like " + expression + " are not supported.");
+    }
+  }
+
+  private static ValueNode compileBinary(final Binary binary) throws ODataApplicationException {
+    final BinaryOperatorKind operator = binary.getOperator();
+    final ValueNode left = compileNode(binary.getLeftOperand());
+    final ValueNode right = compileNode(binary.getRightOperand());
+    switch (operator) {
+    case AND:
+      requireKind(left, operator, ValueKind.BOOLEAN);
+      requireKind(right, operator, ValueKind.BOOLEAN);
+      return new OperatorNodes.And(left, right);
+    case OR:
+      requireKind(left, operator, ValueKind.BOOLEAN);
+      requireKind(right, operator, ValueKind.BOOLEAN);
+      return new OperatorNodes.Or(left, right);
+    case EQ:
+    case NE:
+    case GT:
+    case GE:
+    case LT:
+    case LE:
+      final ValueKind comparisonKind = getCommonKind(left.kind, right.kind);
+      if (comparisonKind == null) {
+        throw incompatible(operator, left, right);
+      }
+      return compileComparison(operator, comparisonKind,
+          convert(left, comparisonKind), convert(right, comparisonKind));
+    case ADD:
+    case SUB:
+      final boolean subtract = operator == BinaryOperatorKind.SUB;
+      if ((left.kind == ValueKind.DATE_TIME_OFFSET || left.kind == ValueKind.DATE)
+          && right.kind == ValueKind.DURATION) {
+        return new OperatorNodes.DateArithmetic(subtract, left.kind, left, right);
+      } else if (subtract && (left.kind == ValueKind.DATE_TIME_OFFSET || left.kind == ValueKind.DATE)
+          && right.kind == left.kind) {
+        return new OperatorNodes.DateArithmetic(subtract, ValueKind.DURATION, left, right);
+      } else if (left.kind == ValueKind.DURATION && right.kind == ValueKind.DURATION) {
+        return new OperatorNodes.Arithmetic(operator, ValueKind.DURATION, left, right);
+      }
+      return compileArithmetic(operator, left, right);
+    case MUL:
+    case DIV:
+    case MOD:
+      return compileArithmetic(operator, left, right);
+    default:
+      throw notImplemented("The operator " + operator + " is not supported.");
+    }
+  }
+
+  private static ValueNode compileComparison(final BinaryOperatorKind operator, final ValueKind kind,
+      final ValueNode left, final ValueNode right) {
+    if (left.isConstant() && !right.isConstant()) {
+      return compileComparison(OperatorNodes.Outcome.mirror(operator), kind, right, left);
+    }
+    final Object constant = right.isConstant() && !left.isConstant() ? right.evaluate(null) : null;
+    if (constant != null) {
+      switch (kind) {
+      case INTEGER:
+        return new OperatorNodes.LongComparison(operator, left, Values.toLong(constant));
+      case DOUBLE:
+        return new OperatorNodes.DoubleComparison(operator, left, Values.toDouble(constant));
+      case STRING:
+        return new OperatorNodes.StringComparison(operator, left, (String) constant);
+      default:
+        break;
+      }
+    }
+    return new OperatorNodes.Comparison(operator, kind, left, right);
+  }
+
+  private static ValueNode compileArithmetic(final BinaryOperatorKind operator,
+      final ValueNode left, final ValueNode right) throws ODataApplicationException {
+    final ValueKind kind = getCommonKind(left.kind, right.kind);
+    if (kind == ValueKind.NULL) {
+      return new ValueNode.Constant(ValueKind.NULL, null);
+    } else if (kind == null || !kind.isNumeric()) {
+      throw incompatible(operator, left, right);
+    }
+    return new OperatorNodes.Arithmetic(operator, kind, convert(left, kind), convert(right, kind));
+  }
+
+  private static ValueNode compileUnary(final Unary unary) throws ODataApplicationException {
+    final ValueNode operand = compileNode(unary.getOperand());
+    if (unary.getOperator() == UnaryOperatorKind.NOT) {
+      requireKind(operand, unary.getOperator(), ValueKind.BOOLEAN);
+      return new OperatorNodes.Not(operand);
+    }
+    requireKind(operand, unary.getOperator(),
+        ValueKind.INTEGER, ValueKind.DECIMAL, ValueKind.DOUBLE, ValueKind.DURATION);
+    return new OperatorNodes.Negation(operand);
+  }
+
+  private static ValueNode compileMethod(final Method method) throws ODataApplicationException {
+    final MethodKind methodKind = method.getMethod();
+    final List<Expression> expressions = method.getParameters();
+    final ValueNode[] parameters = new ValueNode[expressions == null ? 0 : expressions.size()];
+    for (int i = 0; i < parameters.length; i++) {
+      parameters[i] = compileNode(expressions.get(i));
+    }
+
+    switch (methodKind) {
+    case NOW:
+      return new ValueNode.Constant(ValueKind.DATE_TIME_OFFSET, new Timestamp(System.currentTimeMillis()));
+    case MINDATETIME:
+      return new ValueNode.Constant(ValueKind.DATE_TIME_OFFSET, createDateTime(1, 1, 1, 0, 0, 0, 0));
+    case MAXDATETIME:
+      return new ValueNode.Constant(ValueKind.DATE_TIME_OFFSET,
+          createDateTime(9999, 12, 31, 23, 59, 59, 999999999));
+    default:
+      break;
+    }
+
+    if (parameters.length == 0) {
+      throw badRequest("The method " + methodKind + " needs parameters.");
+    }
+    switch (methodKind) {
+    case CONTAINS:
+    case STARTSWITH:
+    case ENDSWITH:
+      return method(methodKind, ValueKind.BOOLEAN, parameters, 2, 2, ValueKind.STRING);
+    case INDEXOF:
+      return method(methodKind, ValueKind.INTEGER, parameters, 2, 2, ValueKind.STRING);
+    case LENGTH:
+      return method(methodKind, ValueKind.INTEGER, parameters, 1, 1, ValueKind.STRING);
+    case TOLOWER:
+    case TOUPPER:
+    case TRIM:
+      return method(methodKind, ValueKind.STRING, parameters, 1, 1, ValueKind.STRING);
+    case CONCAT:
+      return method(methodKind, ValueKind.STRING, parameters, 2, 2, ValueKind.STRING);
+    case SUBSTRING:
+      checkParameterCount(methodKind, parameters, 2, 3);
+      requireKind(parameters[0], methodKind, ValueKind.STRING);
+      for (int i = 1; i < parameters.length; i++) {
+        requireKind(parameters[i], methodKind, ValueKind.INTEGER);
+      }
+      return new MethodNode(methodKind, ValueKind.STRING, parameters);
+    case YEAR:
+    case MONTH:
+    case DAY:
+      return method(methodKind, ValueKind.INTEGER, parameters, 1, 1, ValueKind.DATE, ValueKind.DATE_TIME_OFFSET);
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      return method(methodKind, ValueKind.INTEGER, parameters, 1, 1,
+          ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+    case FRACTIONALSECONDS:
+      return method(methodKind, ValueKind.DECIMAL, parameters, 1, 1,
+          ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+    case TOTALSECONDS:
+      return method(methodKind, ValueKind.DECIMAL, parameters, 1, 1, ValueKind.DURATION);
+    case TOTALOFFSETMINUTES:
+      return method(methodKind, ValueKind.INTEGER, parameters, 1, 1, ValueKind.DATE_TIME_OFFSET);
+    case DATE:
+      return method(methodKind, ValueKind.DATE, parameters, 1, 1, ValueKind.DATE_TIME_OFFSET);
+    case TIME:
+      return method(methodKind, ValueKind.TIME_OF_DAY, parameters, 1, 1, ValueKind.DATE_TIME_OFFSET);
+    case ROUND:
+    case FLOOR:
+    case CEILING:
+      checkParameterCount(methodKind, parameters, 1, 1);
+      requireKind(parameters[0], methodKind, ValueKind.INTEGER, ValueKind.DECIMAL, ValueKind.DOUBLE);
+      return new MethodNode(methodKind, parameters[0].kind, parameters);
+    default:
+      throw notImplemented("The method " + methodKind + " is not supported.");
+    }
+  }
+
+  private static ValueNode method(final MethodKind methodKind, final ValueKind resultKind,
+      final ValueNode[] parameters, final int minParameters, final int maxParameters,
+      final ValueKind... parameterKinds) throws ODataApplicationException {
+    checkParameterCount(methodKind, parameters, minParameters, maxParameters);
+    for (final ValueNode parameter : parameters) {
+      requireKind(parameter, methodKind, parameterKinds);
+    }
+    return new MethodNode(methodKind, resultKind, parameters);
+  }
+
+  private static ValueNode compileMember(final Member member) throws ODataApplicationException {
+    if (member.getStartTypeFilter() != null) {
+      throw notImplemented("Type casts are not supported.");
+    }
+    final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+    final String[] path = new String[parts.size()];
+    for (int i = 0; i < path.length; i++) {
+      final UriResource part = parts.get(i);
+      if (!(part instanceof UriResourceProperty) || ((UriResourceProperty) part).isCollection()
+          || i == path.length - 1 && !(part instanceof UriResourcePrimitiveProperty)) {
+        throw notImplemented("Only paths to single-valued primitive properties are supported.");
+      }
+      path[i] = ((UriResourceProperty) part).getProperty().getName();
+    }
+    return new ValueNode.Member(getKind(((UriResourceProperty) parts.get(path.length - 1)).getProperty().getType()),
+        path);
+  }
+
+  static ValueKind getKind(final EdmType type) throws ODataApplicationException {
+    if (type.getKind() != EdmTypeKind.PRIMITIVE && type.getKind() != EdmTypeKind.DEFINITION) {
+      throw notImplemented("Properties of type " + type.getName() + " are not supported.");
+    }
+    final EdmType primitiveType = type instanceof EdmTypeDefinition ?
+        ((EdmTypeDefinition) type).getUnderlyingType() : type;
+    switch (EdmPrimitiveTypeKind.valueOf(primitiveType.getName())) {
+    case Boolean:
+      return ValueKind.BOOLEAN;
+    case Byte:
+    case SByte:
+    case Int16:
+    case Int32:
+    case Int64:
+      return ValueKind.INTEGER;
+    case Decimal:
+      return ValueKind.DECIMAL;
+    case Single:
+    case Double:
+      return ValueKind.DOUBLE;
+    case String:
+      return ValueKind.STRING;
+    case Date:
+      return ValueKind.DATE;
+    case DateTimeOffset:
+      return ValueKind.DATE_TIME_OFFSET;
+    case TimeOfDay:
+      return ValueKind.TIME_OF_DAY;
+    case Duration:
+      return ValueKind.DURATION;
+    case Guid:
+      return ValueKind.GUID;
+    default:
+      throw notImplemented("Properties of type " + primitiveType.getName() + " are not supported.");
+    }
+  }
+
+  /** Types a literal by its syntax; the parser keeps the URI text of most literals. */
+  static ValueNode.Constant compileLiteral(final String text) throws ODataApplicationException {
+    if ("null".equals(text)) {
+      return new ValueNode.Constant(ValueKind.NULL, null);
+    } else if ("true".equals(text) || "false".equals(text)) {
+      return new ValueNode.Constant(ValueKind.BOOLEAN, Boolean.valueOf(text));
+    } else if (text.startsWith("'") && text.endsWith("'") && text.length() > 1) {
+      return new ValueNode.Constant(ValueKind.STRING, text.substring(1, text.length() - 1).replace("''", "'"));
+    } else if (text.regionMatches(true, 0, DURATION_PREFIX, 0, DURATION_PREFIX.length())) {
+      return new ValueNode.Constant(ValueKind.DURATION, parse(EdmPrimitiveTypeKind.Duration,
+          DURATION_PREFIX + text.substring(DURATION_PREFIX.length()), BigDecimal.class));
+    } else if ("NaN".equals(text)) {
+      return new ValueNode.Constant(ValueKind.DOUBLE, Double.NaN);
+    } else if ("INF".equals(text)) {
+      return new ValueNode.Constant(ValueKind.DOUBLE, Double.POSITIVE_INFINITY);
+    } else if ("-INF".equals(text)) {
+      return new ValueNode.Constant(ValueKind.DOUBLE, Double.NEGATIVE_INFINITY);
+    } else if (INTEGER.matcher(text).matches()) {
+      final BigInteger value = new BigInteger(text.startsWith("+") ? text.substring(1) : text);
+      return value.bitLength() < 64 ?
+          new ValueNode.Constant(ValueKind.INTEGER, value.longValue()) :
+          new ValueNode.Constant(ValueKind.DECIMAL, new BigDecimal(value));
+    } else if (DECIMAL.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.DECIMAL, new BigDecimal(text));
+    } else if (DOUBLE.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.DOUBLE, Double.valueOf(text));
+    } else if (GUID.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.GUID, UUID.fromString(text));
+    } else if (DATE.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.DATE,
+          complete(parse(EdmPrimitiveTypeKind.Date, text, Calendar.class)));
+    } else if (DATE_TIME_OFFSET.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.DATE_TIME_OFFSET,
+          parse(EdmPrimitiveTypeKind.DateTimeOffset, text, Timestamp.class));
+    } else if (TIME_OF_DAY.matcher(text).matches()) {
+      return new ValueNode.Constant(ValueKind.TIME_OF_DAY,
+          complete(parse(EdmPrimitiveTypeKind.TimeOfDay, text, Calendar.class)));
+    } else {
+      throw notImplemented("The literal " + text + " is not supported.");
+    }
+  }
+
+  /**
+   * Computes all fields of the calendar. Reading a field of a calendar may compute fields lazily, so completing it
+   * at compile time makes later reads by concurrent evaluations of a cached predicate free of side effects.
+   */
+  private static Calendar complete(final Calendar calendar) {
+    calendar.get(Calendar.YEAR);
+    return calendar;
+  }
+
+  private static <T> T parse(final EdmPrimitiveTypeKind kind, final String literal, final Class<T> returnType)
+      throws ODataApplicationException {
+    try {
+      final EdmPrimitiveType type = EdmPrimitiveTypeFactory.getInstance(kind);
+      return type.valueOfString(type.fromUriLiteral(literal), null, null, LITERAL_PRECISION, null, null, returnType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("The literal " + literal + " is not a valid " + kind + " value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  private static Timestamp createDateTime(final int year, final int month, final int day,
+      final int hour, final int minute, final int second, final int nanos) {
+    final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    calendar.clear();
+    calendar.set(year, month - 1, day, hour, minute, second);
+    final Timestamp timestamp = new Timestamp(calendar.getTimeInMillis());
+    timestamp.setNanos(nanos);
+    return timestamp;
+  }
+
+  /**
+   * Returns the kind two values are compared or combined as, or <code>null</code> if they are incompatible.
+   */
+  static ValueKind getCommonKind(final ValueKind left, final ValueKind right) {
+    if (left == right || right == ValueKind.NULL) {
+      return left;
+    } else if (left == ValueKind.NULL) {
+      return right;
+    } else if (left.isNumeric() && right.isNumeric()) {
+      // The numeric kinds are declared in the order of their promotion.
+      return left.ordinal() > right.ordinal() ? left : right;
+    } else {
+      return null;
+    }
+  }
+
+  /** Converts constants at compile time so that they need no conversion at evaluation time. */
+  private static ValueNode convert(final ValueNode node, final ValueKind kind) {
+    return node.isConstant() && node.kind != kind && node.kind != ValueKind.NULL ?
+        new ValueNode.Constant(kind, node.evaluate(null)) :
+        node;
+  }
+
+  /** Evaluates nodes with constant value at compile time. */
+  private static ValueNode fold(final ValueNode node) {
+    return node.isConstant() || !hasConstantValue(node) ?
+        node :
+        new ValueNode.Constant(node.kind, node.evaluate(null));
+  }
+
+  private static boolean hasConstantValue(final ValueNode node) {
+    if (node.getChildren().length == 0) {
+      return false;
+    }
+    for (final ValueNode child : node.getChildren()) {
+      if (!child.isConstant()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void checkParameterCount(final MethodKind methodKind, final ValueNode[] parameters,
+      final int min, final int max) throws ODataApplicationException {
+    if (parameters.length < min || parameters.length > max) {
+      throw badRequest("Wrong number of parameters for method " + methodKind + ".");
+    }
+  }
+
+  private static void requireKind(final ValueNode node, final Object operation, final ValueKind... kinds)
+      throws ODataApplicationException {
+    if (node.kind == ValueKind.NULL) {
+      return;
+    }
+    for (final ValueKind kind : kinds) {
+      if (node.kind == kind) {
+        return;
+      }
+    }
+    throw badRequest("An operand of kind " + node.kind + " is not allowed for " + operation + ".");
+  }
+
+  private static ODataApplicationException incompatible(final BinaryOperatorKind operator,
+      final ValueNode left, final ValueNode right) {
+    return badRequest("The operator " + operator + " is not allowed for operands of kinds "
+        + left.kind + " and " + right.kind + ".");
+  }
+
+  static ODataApplicationException badRequest(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  static ODataApplicationException notImplemented(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  private static final class CompiledPredicate implements EntityPredicate {
+    private final ValueNode root;
+
+    private CompiledPredicate(final ValueNode root) {
+      this.root = root;
+    }
+
+    @Override
+    public boolean matches(final Entity entity) {
+      return Boolean.TRUE.equals(root.evaluate(entity));
+    }
+  }
+}
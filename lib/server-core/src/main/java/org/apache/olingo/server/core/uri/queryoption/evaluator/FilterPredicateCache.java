@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+
+/**
+ * Bounded cache of predicates compiled by the {@link FilterCompiler}.
+ * <p>
+ * The cache is keyed by the canonical form of the expression, see {@link FilterCompiler#getCacheKey(Expression)},
+ * so that equal filters of different requests share one compiled predicate. Compiled predicates hold no state
+ * which changes during evaluation and may therefore be used by concurrent requests. Literals are part of the key:
+ * their kinds, the conversions, and the folding of constant sub-expressions all depend on the literal values.
+ * If the cache is full the least recently used entry is evicted.
+ */
+public class FilterPredicateCache {
+
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  private final int maxSize;
+  private final Map<String, EntityPredicate> entries;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public FilterPredicateCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize maximum number of cached predicates; a value of zero disables caching
+   */
+  public FilterPredicateCache(final int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Maximum cache size must not be negative: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    entries = new LinkedHashMap<String, EntityPredicate>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, EntityPredicate> eldest) {
+        return size() > FilterPredicateCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached predicate for the given expression or compiles the expression and caches the result.
+   * @param expression a boolean expression, e.g., of a $filter option
+   * @return the predicate
+   * @throws ODataApplicationException if the expression is not a boolean expression or uses unsupported features
+   */
+  public EntityPredicate compile(final Expression expression) throws ODataApplicationException {
+    final String key = maxSize == 0 ? null : FilterCompiler.getCacheKey(expression);
+    if (key == null) {
+      return FilterCompiler.compile(expression);
+    }
+    EntityPredicate predicate;
+    synchronized (entries) {
+      predicate = entries.get(key);
+    }
+    if (predicate == null) {
+      missCount.incrementAndGet();
+      predicate = FilterCompiler.compile(expression);
+      synchronized (entries) {
+        entries.put(key, predicate);
+      }
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return predicate;
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+}
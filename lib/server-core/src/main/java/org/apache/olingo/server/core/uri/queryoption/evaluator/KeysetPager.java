@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntitySetImpl;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.Pager;
+
+/**
+ * Pager for server-driven paging with keyset cursors.
+ * The entities are ordered by the $orderby expressions and the key properties, so this order is total
+ * and the position of a page is fully described by the values of the last entity before it.
+ * The $skiptoken of a next link holds these values and the number of entities left of $top,
+ * signed with a secret key, see {@link SkipTokenCodec}.
+ */
+public final class KeysetPager implements Pager {
+
+  private static final String MAX_PAGE_SIZE_PREFERENCE = "odata.maxpagesize";
+  private static final String SKIPTOKEN = "$skiptoken";
+
+  private final ValueNode[] nodes;
+  private final boolean[] descending;
+  private final SkipTokenCodec codec;
+  private final String requestUri;
+  private final int pageSize;
+  private final int skip;
+  private final int remaining;
+  private final Object[] cursor;
+  private final String preferenceApplied;
+
+  private KeysetPager(final ValueNode[] nodes, final boolean[] descending, final SkipTokenCodec codec,
+      final String requestUri, final int pageSize, final int skip, final int remaining, final Object[] cursor,
+      final String preferenceApplied) {
+    this.nodes = nodes;
+    this.descending = descending;
+    this.codec = codec;
+    this.requestUri = requestUri;
+    this.pageSize = pageSize;
+    this.skip = skip;
+    this.remaining = remaining;
+    this.cursor = cursor;
+    this.preferenceApplied = preferenceApplied;
+  }
+
+  /**
+   * @param entityType the type of the entities
+   * @param uriInfo the resource information providing the system query options
+   * @param request the request
+   * @param maxPageSize the maximum number of entities per page
+   * @param signingKey the secret key for the $skiptoken signature
+   * @return the pager
+   * @throws ODataApplicationException if the $skiptoken is invalid, $top or $skip is negative,
+   * or an $orderby expression uses unsupported features
+   */
+  public static KeysetPager create(final EdmEntityType entityType, final UriInfoResource uriInfo,
+      final ODataRequest request, final int maxPageSize, final byte[] signingKey) throws ODataApplicationException {
+    if (maxPageSize <= 0) {
+      throw new IllegalArgumentException("The maximum page size must be positive.");
+    }
+    final List<OrderByItem> orderByItems = uriInfo.getOrderByOption() == null ?
+        Collections.<OrderByItem> emptyList() : uriInfo.getOrderByOption().getOrders();
+    final List<EdmKeyPropertyRef> keys = entityType.getKeyPropertyRefs();
+    ValueNode[] nodes = new ValueNode[orderByItems.size() + keys.size()];
+    boolean[] descending = new boolean[nodes.length];
+    ValueKind[] kinds = new ValueKind[nodes.length];
+    for (int i = 0; i < orderByItems.size(); i++) {
+      nodes[i] = FilterCompiler.compileNode(orderByItems.get(i).getExpression());
+      if (nodes[i].kind == ValueKind.NULL) {
+        throw FilterCompiler.badRequest("The null literal is not allowed in $orderby.");
+      }
+      descending[i] = orderByItems.get(i).isDescending();
+      kinds[i] = nodes[i].kind;
+    }
+    for (int i = 0; i < keys.size(); i++) {
+      final EdmKeyPropertyRef key = keys.get(i);
+      final ValueKind kind = FilterCompiler.getKind(key.getProperty().getType());
+      nodes[orderByItems.size() + i] = new ValueNode.Member(kind, key.getKeyPropertyName().split("/"));
+      kinds[orderByItems.size() + i] = kind;
+    }
+
+    final String scope = entityType.getFullQualifiedName().getFullQualifiedNameAsString() + '\n'
+        + (uriInfo.getOrderByOption() == null ? "" : uriInfo.getOrderByOption().getText());
+    final SkipTokenCodec codec = new SkipTokenCodec(signingKey, scope, kinds);
+
+    final Integer preferredPageSize = getPreferredPageSize(request);
+    int pageSize = preferredPageSize == null ? maxPageSize : Math.min(preferredPageSize, maxPageSize);
+    final String preferenceApplied = preferredPageSize == null || preferredPageSize > maxPageSize ?
+        null : MAX_PAGE_SIZE_PREFERENCE + '=' + preferredPageSize;
+
+    int skip = 0;
+    int remaining = -1;
+    Object[] cursor = null;
+    if (uriInfo.getSkipTokenOption() == null) {
+      skip = uriInfo.getSkipOption() == null ? 0 : uriInfo.getSkipOption().getValue();
+      if (skip < 0) {
+        throw FilterCompiler.badRequest("The value of $skip must not be negative.");
+      }
+      if (uriInfo.getTopOption() != null) {
+        remaining = uriInfo.getTopOption().getValue();
+        if (remaining < 0) {
+          throw FilterCompiler.badRequest("The value of $top must not be negative.");
+        }
+      }
+    } else {
+      final SkipTokenCodec.Cursor decoded = codec.decode(uriInfo.getSkipTokenOption().getValue());
+      remaining = decoded.remaining;
+      cursor = decoded.values;
+    }
+    if (remaining >= 0) {
+      pageSize = Math.min(pageSize, remaining);
+    }
+    return new KeysetPager(nodes, descending, codec, removeSkipToken(request.getRawRequestUri()),
+        pageSize, skip, remaining, cursor, preferenceApplied);
+  }
+
+  @Override
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public int getSkip() {
+    return skip;
+  }
+
+  @Override
+  public List<Object> getCursor() {
+    return cursor == null ? null : Collections.unmodifiableList(Arrays.asList(cursor));
+  }
+
+  @Override
+  public Comparator<Entity> getComparator() {
+    return new Comparator<Entity>() {
+      @Override
+      public int compare(final Entity first, final Entity second) {
+        for (int i = 0; i < nodes.length; i++) {
+          final int result = compareValues(i, nodes[i].evaluate(first), nodes[i].evaluate(second));
+          if (result != 0) {
+            return result;
+          }
+        }
+        return 0;
+      }
+    };
+  }
+
+  @Override
+  public EntitySet getPage(final Iterator<Entity> entities) throws ODataApplicationException {
+    EntitySetImpl page = new EntitySetImpl();
+    final List<Entity> pageEntities = page.getEntities();
+    int skipped = 0;
+    while (pageSize > 0 && entities.hasNext()) {
+      final Entity entity = entities.next();
+      if (cursor != null && !isAfterCursor(entity)) {
+        continue;
+      }
+      if (skipped < skip) {
+        skipped++;
+      } else if (pageEntities.size() < pageSize) {
+        pageEntities.add(entity);
+      } else {
+        page.setNext(getNextLink(pageEntities.get(pageEntities.size() - 1)));
+        break;
+      }
+    }
+    return page;
+  }
+
+  @Override
+  public URI getNextLink(final Entity lastEntity) throws ODataApplicationException {
+    if (remaining >= 0 && remaining <= pageSize) {
+      return null;
+    }
+    Object[] values = new Object[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      values[i] = nodes[i].evaluate(lastEntity);
+    }
+    final String skipToken = codec.encode(new SkipTokenCodec.Cursor(remaining < 0 ? -1 : remaining - pageSize, values));
+    try {
+      return new URI(requestUri + (requestUri.indexOf('?') < 0 ? '?' : '&') + SKIPTOKEN + '=' + skipToken);
+    } catch (final URISyntaxException e) {
+      throw new ODataApplicationException("The next link cannot be created.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  @Override
+  public String getPreferenceApplied() {
+    return preferenceApplied;
+  }
+
+  private boolean isAfterCursor(final Entity entity) {
+    for (int i = 0; i < nodes.length; i++) {
+      final int result = compareValues(i, nodes[i].evaluate(entity), cursor[i]);
+      if (result != 0) {
+        return result > 0;
+      }
+    }
+    return false;
+  }
+
+  /** Compares the values of the node at the given position; <code>null</code> is less than all other values. */
+  private int compareValues(final int position, final Object first, final Object second) {
+    final int result = first == null ?
+        second == null ? 0 : -1 :
+        second == null ? 1 : Values.compare(nodes[position].kind, first, second);
+    return descending[position] ? -result : result;
+  }
+
+  /** Gets the page size of the preference <code>odata.maxpagesize</code>, if present and valid. */
+  private static Integer getPreferredPageSize(final ODataRequest request) {
+    final List<String> headers = request.getHeaders(HttpHeader.PREFER);
+    if (headers != null) {
+      for (final String header : headers) {
+        for (final String preference : header.split(",")) {
+          final int separator = preference.indexOf('=');
+          if (separator > 0
+              && MAX_PAGE_SIZE_PREFERENCE.equalsIgnoreCase(preference.substring(0, separator).trim())) {
+            try {
+              final int value = Integer.parseInt(preference.substring(separator + 1).trim());
+              if (value > 0) {
+                return value;
+              }
+            } catch (final NumberFormatException e) {
+              // An invalid preference is ignored.
+            }
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Removes the $skiptoken from the query of a raw request URI. */
+  private static String removeSkipToken(final String rawRequestUri) {
+    if (rawRequestUri == null) {
+      return "";
+    }
+    final int queryStart = rawRequestUri.indexOf('?');
+    if (queryStart < 0) {
+      return rawRequestUri;
+    }
+    StringBuilder result = new StringBuilder(rawRequestUri.substring(0, queryStart));
+    char separator = '?';
+    for (final String option : rawRequestUri.substring(queryStart + 1).split("&")) {
+      final String name = option.indexOf('=') < 0 ? option : option.substring(0, option.indexOf('='));
+      if (!option.isEmpty() && !SKIPTOKEN.equals(name) && !"%24skiptoken".equalsIgnoreCase(name)) {
+        result.append(separator).append(option);
+        separator = '&';
+      }
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Node for the built-in string, date and time, and arithmetic functions.
+ * Parameter kinds have been checked at compile time; a <code>null</code> parameter results in <code>null</code>.
+ */
+class MethodNode extends ValueNode {
+
+  private final MethodKind method;
+  private final ValueNode[] parameters;
+
+  MethodNode(final MethodKind method, final ValueKind kind, final ValueNode... parameters) {
+    super(kind);
+    this.method = method;
+    this.parameters = parameters;
+  }
+
+  @Override
+  ValueNode[] getChildren() {
+    return parameters;
+  }
+
+  @Override
+  Object evaluate(final Entity entity) {
+    final Object first = parameters[0].evaluate(entity);
+    if (first == null) {
+      return null;
+    }
+    switch (method) {
+    case LENGTH:
+      return Long.valueOf(((String) first).length());
+    case TOLOWER:
+      return ((String) first).toLowerCase(Locale.ROOT);
+    case TOUPPER:
+      return ((String) first).toUpperCase(Locale.ROOT);
+    case TRIM:
+      return ((String) first).trim();
+    case SUBSTRING:
+      return substring(entity, (String) first);
+    case YEAR:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.YEAR));
+    case MONTH:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.MONTH) + 1);
+    case DAY:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.DAY_OF_MONTH));
+    case HOUR:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.HOUR_OF_DAY));
+    case MINUTE:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.MINUTE));
+    case SECOND:
+      return Long.valueOf(Values.toCalendar(first).get(Calendar.SECOND));
+    case FRACTIONALSECONDS:
+      return first instanceof Timestamp ?
+          BigDecimal.valueOf(((Timestamp) first).getNanos(), 9) :
+          BigDecimal.valueOf(Values.toCalendar(first).get(Calendar.MILLISECOND), 3);
+    case TOTALSECONDS:
+      return Values.toDecimal(first);
+    case TOTALOFFSETMINUTES:
+      return Long.valueOf(first instanceof Calendar ?
+          (((Calendar) first).get(Calendar.ZONE_OFFSET) + ((Calendar) first).get(Calendar.DST_OFFSET)) / 60000 : 0);
+    case DATE:
+      final Calendar date = (Calendar) Values.toCalendar(first).clone();
+      date.set(Calendar.HOUR_OF_DAY, 0);
+      date.set(Calendar.MINUTE, 0);
+      date.set(Calendar.SECOND, 0);
+      date.set(Calendar.MILLISECOND, 0);
+      return date;
+    case TIME:
+      // Time-of-day values are only evaluated by their time fields.
+      return first;
+    case ROUND:
+    case FLOOR:
+    case CEILING:
+      return round(first);
+    default:
+      break;
+    }
+
+    final Object second = parameters[1].evaluate(entity);
+    if (second == null) {
+      return null;
+    }
+    switch (method) {
+    case CONTAINS:
+      return Boolean.valueOf(((String) first).contains((String) second));
+    case STARTSWITH:
+      return Boolean.valueOf(((String) first).startsWith((String) second));
+    case ENDSWITH:
+      return Boolean.valueOf(((String) first).endsWith((String) second));
+    case INDEXOF:
+      return Long.valueOf(((String) first).indexOf((String) second));
+    case CONCAT:
+      return ((String) first).concat((String) second);
+    default:
+      throw new IllegalStateException("Unexpected method " + method);
+    }
+  }
+
+  private String substring(final Entity entity, final String value) {
+    final Object start = parameters[1].evaluate(entity);
+    if (start == null) {
+      return null;
+    }
+    final int beginIndex = (int) Math.min(Math.max(Values.toLong(start), 0), value.length());
+    if (parameters.length < 3) {
+      return value.substring(beginIndex);
+    }
+    final Object length = parameters[2].evaluate(entity);
+    if (length == null) {
+      return null;
+    }
+    final long endIndex = beginIndex + Math.max(Values.toLong(length), 0);
+    return value.substring(beginIndex, (int) Math.min(endIndex, value.length()));
+  }
+
+  private Object round(final Object value) {
+    switch (kind) {
+    case INTEGER:
+      return value;
+    case DOUBLE:
+      final double doubleValue = Values.toDouble(value);
+      return method == MethodKind.FLOOR ? Math.floor(doubleValue) :
+          method == MethodKind.CEILING ? Math.ceil(doubleValue) :
+              Math.signum(doubleValue) * Math.floor(Math.abs(doubleValue) + 0.5);
+    default:
+      return Values.toDecimal(value).setScale(0,
+          method == MethodKind.FLOOR ? RoundingMode.FLOOR :
+              method == MethodKind.CEILING ? RoundingMode.CEILING : RoundingMode.HALF_UP);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntityImpl;
+import org.apache.olingo.commons.core.data.EntitySetImpl;
+import org.apache.olingo.commons.core.data.LinkImpl;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.processor.NavigationLoader;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
+import org.apache.olingo.server.core.serializer.utils.ExpandNode;
+
+/**
+ * Expands navigation properties by attaching the related entities as inline content of navigation links.
+ * The links are attached to copies of the entities, as processors may hand out instances that other
+ * requests use concurrently; within one expansion level, an entity related to several sources is copied once.
+ * The expansion proceeds level by level: per expanded navigation property and level, the related entities
+ * of all source entities are read with a single call of the {@link NavigationLoader}, so the number of calls
+ * depends on the $expand option only. Nested $filter, $orderby, $skip, $top, and $count options
+ * are evaluated in memory per source entity.
+ */
+public final class NavigationExpander {
+
+  private NavigationExpander() {}
+
+  /**
+   * @param entityType the type of the entities
+   * @param entities the entities to expand; they are replaced by their expanded copies
+   * @param expandOption the $expand option
+   * @param loader the loader reading related entities
+   * @throws ODataApplicationException if the loader fails, an option uses unsupported features
+   * or has a negative value, or references are requested
+   */
+  public static void expand(final EdmEntityType entityType, final List<Entity> entities,
+      final ExpandOption expandOption, final NavigationLoader loader) throws ODataApplicationException {
+    for (int index = 0; index < entities.size(); index++) {
+      entities.set(index, copy(entities.get(index)));
+    }
+    expand(entities, ExpandNode.create(entityType, expandOption), loader);
+  }
+
+  private static void expand(final List<Entity> sources, final List<ExpandNode> nodes,
+      final NavigationLoader loader) throws ODataApplicationException {
+    if (sources.isEmpty()) {
+      return;
+    }
+    for (final ExpandNode node : nodes) {
+      final EdmNavigationProperty navigationProperty = node.getNavigationProperty();
+      final ExpandItem item = node.getExpandItem();
+      if (isReference(item)) {
+        throw new ODataApplicationException("Expanding references is not supported.",
+            HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+      }
+      if (item.getSkipOption() != null && item.getSkipOption().getValue() < 0
+          || item.getTopOption() != null && item.getTopOption().getValue() < 0) {
+        throw new ODataApplicationException("The values of nested $skip and $top options must not be negative.",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      final List<List<Entity>> targets = loader.loadNavigation(navigationProperty, sources, item);
+      if (targets == null || targets.size() != sources.size()) {
+        throw new ODataApplicationException("The navigation loader returned no result per source entity.",
+            HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+      }
+      final EntityPredicate predicate = item.getFilterOption() == null ?
+          null : FilterCompiler.compile(item.getFilterOption().getExpression());
+      final Comparator<Entity> comparator = item.getOrderByOption() == null ?
+          null : OrderByCompiler.compile(item.getOrderByOption().getOrders());
+
+      Map<Entity, Entity> copies = new IdentityHashMap<Entity, Entity>();
+      for (int index = 0; index < sources.size(); index++) {
+        final List<Entity> related = select(targets.get(index), predicate, comparator, item);
+        final Integer count = item.getCountOption() != null && item.getCountOption().getValue() ?
+            related.size() : null;
+        setLink(sources.get(index), navigationProperty, copy(page(related, item), copies), count);
+      }
+      expand(new ArrayList<Entity>(copies.values()), node.getChildren(), loader);
+    }
+  }
+
+  private static List<Entity> select(final List<Entity> entities, final EntityPredicate predicate,
+      final Comparator<Entity> comparator, final ExpandItem item) {
+    if (entities == null) {
+      return Collections.emptyList();
+    }
+    List<Entity> result = new ArrayList<Entity>(entities);
+    if (predicate != null) {
+      for (Iterator<Entity> iterator = result.iterator(); iterator.hasNext();) {
+        if (!predicate.matches(iterator.next())) {
+          iterator.remove();
+        }
+      }
+    }
+    if (comparator != null) {
+      Collections.sort(result, comparator);
+    }
+    return result;
+  }
+
+  private static List<Entity> page(final List<Entity> entities, final ExpandItem item) {
+    final int skip = item.getSkipOption() == null ? 0 : Math.min(item.getSkipOption().getValue(), entities.size());
+    final int top = item.getTopOption() == null ?
+        entities.size() - skip : Math.min(item.getTopOption().getValue(), entities.size() - skip);
+    return skip == 0 && top == entities.size() ? entities : entities.subList(skip, skip + top);
+  }
+
+  private static List<Entity> copy(final List<Entity> entities, final Map<Entity, Entity> copies) {
+    List<Entity> result = new ArrayList<Entity>(entities.size());
+    for (final Entity entity : entities) {
+      Entity copy = copies.get(entity);
+      if (copy == null) {
+        copy = copy(entity);
+        copies.put(entity, copy);
+      }
+      result.add(copy);
+    }
+    return result;
+  }
+
+  /** Copies an entity with copies of its navigation links; properties and other content are shared. */
+  private static Entity copy(final Entity entity) {
+    EntityImpl copy = new EntityImpl();
+    copy.setId(entity.getId());
+    copy.setBaseURI(entity.getBaseURI() == null ? null : entity.getBaseURI().toASCIIString());
+    copy.setType(entity.getType());
+    copy.setETag(entity.getETag());
+    copy.setSelfLink(entity.getSelfLink());
+    copy.setEditLink(entity.getEditLink());
+    copy.setMediaContentSource(entity.getMediaContentSource());
+    copy.setMediaContentType(entity.getMediaContentType());
+    copy.setMediaETag(entity.getMediaETag());
+    copy.getProperties().addAll(entity.getProperties());
+    copy.getAssociationLinks().addAll(entity.getAssociationLinks());
+    copy.getMediaEditLinks().addAll(entity.getMediaEditLinks());
+    copy.getOperations().addAll(entity.getOperations());
+    copy.getAnnotations().addAll(entity.getAnnotations());
+    for (final Link link : entity.getNavigationLinks()) {
+      LinkImpl linkCopy = new LinkImpl();
+      linkCopy.setTitle(link.getTitle());
+      linkCopy.setRel(link.getRel());
+      linkCopy.setHref(link.getHref());
+      linkCopy.setType(link.getType());
+      linkCopy.setMediaETag(link.getMediaETag());
+      linkCopy.setInlineEntity(link.getInlineEntity());
+      linkCopy.setInlineEntitySet(link.getInlineEntitySet());
+      linkCopy.getAnnotations().addAll(link.getAnnotations());
+      copy.getNavigationLinks().add(linkCopy);
+    }
+    return copy;
+  }
+
+  private static void setLink(final Entity source, final EdmNavigationProperty navigationProperty,
+      final List<Entity> related, final Integer count) {
+    Link link = source.getNavigationLink(navigationProperty.getName());
+    if (link == null) {
+      link = new LinkImpl();
+      link.setTitle(navigationProperty.getName());
+      source.getNavigationLinks().add(link);
+    }
+    if (navigationProperty.isCollection()) {
+      EntitySetImpl entitySet = new EntitySetImpl();
+      entitySet.getEntities().addAll(related);
+      entitySet.setCount(count);
+      link.setInlineEntitySet(entitySet);
+    } else {
+      link.setInlineEntity(related.isEmpty() ? null : related.get(0));
+    }
+  }
+
+  private static boolean isReference(final ExpandItem item) {
+    if (item.isRef()) {
+      return true;
+    }
+    if (item.getResourcePath() != null) {
+      for (final UriResource part : item.getResourcePath().getUriResourceParts()) {
+        if (part.getKind() == UriResourceKind.ref) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
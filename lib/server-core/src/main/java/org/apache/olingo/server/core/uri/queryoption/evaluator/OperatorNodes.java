@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+
+/**
+ * Nodes for the logical, comparison, and arithmetic operators.
+ * The semantics of <code>null</code> operands follow the OData specification: comparisons with <code>null</code>
+ * are false (except for equality), arithmetic results are <code>null</code>, and the logical operators use
+ * three-valued logic.
+ */
+final class OperatorNodes {
+
+  private OperatorNodes() {}
+
+  static class And extends ValueNode {
+    private final ValueNode left;
+    private final ValueNode right;
+
+    And(final ValueNode left, final ValueNode right) {
+      super(ValueKind.BOOLEAN);
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { left, right };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      if (Boolean.FALSE.equals(leftValue)) {
+        return Boolean.FALSE;
+      }
+      final Object rightValue = right.evaluate(entity);
+      if (Boolean.FALSE.equals(rightValue)) {
+        return Boolean.FALSE;
+      }
+      return leftValue == null || rightValue == null ? null : Boolean.TRUE;
+    }
+  }
+
+  static class Or extends ValueNode {
+    private final ValueNode left;
+    private final ValueNode right;
+
+    Or(final ValueNode left, final ValueNode right) {
+      super(ValueKind.BOOLEAN);
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { left, right };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      if (Boolean.TRUE.equals(leftValue)) {
+        return Boolean.TRUE;
+      }
+      final Object rightValue = right.evaluate(entity);
+      if (Boolean.TRUE.equals(rightValue)) {
+        return Boolean.TRUE;
+      }
+      return leftValue == null || rightValue == null ? null : Boolean.FALSE;
+    }
+  }
+
+  static class Not extends ValueNode {
+    private final ValueNode operand;
+
+    Not(final ValueNode operand) {
+      super(ValueKind.BOOLEAN);
+      this.operand = operand;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { operand };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object value = operand.evaluate(entity);
+      return value == null ? null : Boolean.valueOf(!((Boolean) value).booleanValue());
+    }
+  }
+
+  /** Results of a comparison operator for the three possible orderings of its operands. */
+  static final class Outcome {
+    private final Boolean less;
+    private final Boolean equal;
+    private final Boolean greater;
+    /** Result if exactly one operand is <code>null</code> */
+    final Boolean oneNull;
+    /** Result if both operands are <code>null</code> */
+    final Boolean bothNull;
+
+    Outcome(final BinaryOperatorKind operator) {
+      less = Boolean.valueOf(operator == BinaryOperatorKind.LT || operator == BinaryOperatorKind.LE
+          || operator == BinaryOperatorKind.NE);
+      equal = Boolean.valueOf(operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.GE
+          || operator == BinaryOperatorKind.LE);
+      greater = Boolean.valueOf(operator == BinaryOperatorKind.GT || operator == BinaryOperatorKind.GE
+          || operator == BinaryOperatorKind.NE);
+      oneNull = Boolean.valueOf(operator == BinaryOperatorKind.NE);
+      bothNull = Boolean.valueOf(operator == BinaryOperatorKind.EQ);
+    }
+
+    Boolean of(final int comparison) {
+      return comparison < 0 ? less : comparison == 0 ? equal : greater;
+    }
+
+    /** Returns the operator with swapped operands, e.g., <code>GT</code> for <code>LT</code>. */
+    static BinaryOperatorKind mirror(final BinaryOperatorKind operator) {
+      switch (operator) {
+      case GT:
+        return BinaryOperatorKind.LT;
+      case GE:
+        return BinaryOperatorKind.LE;
+      case LT:
+        return BinaryOperatorKind.GT;
+      case LE:
+        return BinaryOperatorKind.GE;
+      default:
+        return operator;
+      }
+    }
+  }
+
+  static class Comparison extends ValueNode {
+    private final Outcome outcome;
+    /** The kind both operands are compared as. */
+    private final ValueKind comparisonKind;
+    private final ValueNode left;
+    private final ValueNode right;
+
+    Comparison(final BinaryOperatorKind operator, final ValueKind comparisonKind,
+        final ValueNode left, final ValueNode right) {
+      super(ValueKind.BOOLEAN);
+      outcome = new Outcome(operator);
+      this.comparisonKind = comparisonKind;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { left, right };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      final Object rightValue = right.evaluate(entity);
+      if (leftValue == null || rightValue == null) {
+        return leftValue == null && rightValue == null ? outcome.bothNull : outcome.oneNull;
+      }
+      return outcome.of(Values.compare(comparisonKind, leftValue, rightValue));
+    }
+  }
+
+  /**
+   * Comparison of an operand with a constant which is not <code>null</code>.
+   * The subclasses compare without generic type dispatch and with the constant already unboxed.
+   */
+  abstract static class ConstantComparison extends ValueNode {
+    final Outcome outcome;
+    final ValueNode operand;
+
+    ConstantComparison(final BinaryOperatorKind operator, final ValueNode operand) {
+      super(ValueKind.BOOLEAN);
+      outcome = new Outcome(operator);
+      this.operand = operand;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { operand };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object value = operand.evaluate(entity);
+      return value == null ? outcome.oneNull : outcome.of(compareToConstant(value));
+    }
+
+    abstract int compareToConstant(Object value);
+  }
+
+  static class LongComparison extends ConstantComparison {
+    private final long constant;
+
+    LongComparison(final BinaryOperatorKind operator, final ValueNode operand, final long constant) {
+      super(operator, operand);
+      this.constant = constant;
+    }
+
+    @Override
+    int compareToConstant(final Object value) {
+      final long longValue = ((Number) value).longValue();
+      return longValue < constant ? -1 : longValue == constant ? 0 : 1;
+    }
+  }
+
+  static class DoubleComparison extends ConstantComparison {
+    private final double constant;
+
+    DoubleComparison(final BinaryOperatorKind operator, final ValueNode operand, final double constant) {
+      super(operator, operand);
+      this.constant = constant;
+    }
+
+    @Override
+    int compareToConstant(final Object value) {
+      return Double.compare(((Number) value).doubleValue(), constant);
+    }
+  }
+
+  static class StringComparison extends ConstantComparison {
+    private final String constant;
+    private final boolean equality;
+
+    StringComparison(final BinaryOperatorKind operator, final ValueNode operand, final String constant) {
+      super(operator, operand);
+      this.constant = constant;
+      equality = operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE;
+    }
+
+    @Override
+    int compareToConstant(final Object value) {
+      // For (in)equality, equals() is cheaper than compareTo() and rejects strings of different length at once.
+      return equality ? constant.equals(value) ? 0 : 1 : ((String) value).compareTo(constant);
+    }
+  }
+
+  /** Arithmetic operators on numbers and durations; the node kind is the kind of the computation. */
+  static class Arithmetic extends ValueNode {
+    private final BinaryOperatorKind operator;
+    private final ValueNode left;
+    private final ValueNode right;
+
+    Arithmetic(final BinaryOperatorKind operator, final ValueKind kind, final ValueNode left, final ValueNode right) {
+      super(kind);
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { left, right };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      if (leftValue == null) {
+        return null;
+      }
+      final Object rightValue = right.evaluate(entity);
+      if (rightValue == null) {
+        return null;
+      }
+      switch (kind) {
+      case INTEGER:
+        return evaluate(Values.toLong(leftValue), Values.toLong(rightValue));
+      case DOUBLE:
+        return evaluate(Values.toDouble(leftValue), Values.toDouble(rightValue));
+      default:
+        return evaluate(Values.toDecimal(leftValue), Values.toDecimal(rightValue));
+      }
+    }
+
+    private Long evaluate(final long leftValue, final long rightValue) {
+      switch (operator) {
+      case ADD:
+        return leftValue + rightValue;
+      case SUB:
+        return leftValue - rightValue;
+      case MUL:
+        return leftValue * rightValue;
+      case DIV:
+        return rightValue == 0 ? null : Long.valueOf(leftValue / rightValue);
+      default:
+        return rightValue == 0 ? null : Long.valueOf(leftValue % rightValue);
+      }
+    }
+
+    private Double evaluate(final double leftValue, final double rightValue) {
+      switch (operator) {
+      case ADD:
+        return leftValue + rightValue;
+      case SUB:
+        return leftValue - rightValue;
+      case MUL:
+        return leftValue * rightValue;
+      case DIV:
+        return leftValue / rightValue;
+      default:
+        return leftValue % rightValue;
+      }
+    }
+
+    private BigDecimal evaluate(final BigDecimal leftValue, final BigDecimal rightValue) {
+      switch (operator) {
+      case ADD:
+        return leftValue.add(rightValue);
+      case SUB:
+        return leftValue.subtract(rightValue);
+      case MUL:
+        return leftValue.multiply(rightValue);
+      case DIV:
+        return rightValue.signum() == 0 ? null : leftValue.divide(rightValue, MathContext.DECIMAL128);
+      default:
+        return rightValue.signum() == 0 ? null : leftValue.remainder(rightValue);
+      }
+    }
+  }
+
+  /**
+   * Addition or subtraction of a duration to or from a date or date-time value,
+   * and the difference of two date or date-time values.
+   */
+  static class DateArithmetic extends ValueNode {
+    private final boolean subtract;
+    private final ValueNode left;
+    private final ValueNode right;
+
+    DateArithmetic(final boolean subtract, final ValueKind kind, final ValueNode left, final ValueNode right) {
+      super(kind);
+      this.subtract = subtract;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { left, right };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object leftValue = left.evaluate(entity);
+      if (leftValue == null) {
+        return null;
+      }
+      final Object rightValue = right.evaluate(entity);
+      if (rightValue == null) {
+        return null;
+      }
+      if (kind == ValueKind.DURATION) {
+        return BigDecimal.valueOf(Values.toMillis(leftValue) - Values.toMillis(rightValue), 3);
+      }
+      final long durationMillis = Values.toDecimal(rightValue).movePointRight(3).longValue();
+      if (kind == ValueKind.DATE) {
+        final Calendar result = (Calendar) Values.toCalendar(leftValue).clone();
+        final int days = (int) (durationMillis / Values.MILLIS_PER_DAY);
+        result.add(Calendar.DAY_OF_MONTH, subtract ? -days : days);
+        return result;
+      }
+      return new Timestamp(Values.toMillis(leftValue) + (subtract ? -durationMillis : durationMillis));
+    }
+  }
+
+  static class Negation extends ValueNode {
+    private final ValueNode operand;
+
+    Negation(final ValueNode operand) {
+      super(operand.kind);
+      this.operand = operand;
+    }
+
+    @Override
+    ValueNode[] getChildren() {
+      return new ValueNode[] { operand };
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      final Object value = operand.evaluate(entity);
+      if (value == null) {
+        return null;
+      }
+      switch (kind) {
+      case INTEGER:
+        return -Values.toLong(value);
+      case DOUBLE:
+        return -Values.toDouble(value);
+      default:
+        return Values.toDecimal(value).negate();
+      }
+    }
+  }
+}
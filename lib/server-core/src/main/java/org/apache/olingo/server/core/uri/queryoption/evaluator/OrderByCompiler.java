@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+
+/**
+ * Compiles the items of an $orderby option into a comparator for entities held in memory.
+ * The expressions are compiled like the ones of $filter, see {@link FilterCompiler}.
+ * <code>null</code> values are sorted before all other values in ascending order.
+ */
+public final class OrderByCompiler {
+
+  private OrderByCompiler() {}
+
+  /**
+   * @param orderByItems the items of the $orderby option
+   * @return the comparator
+   * @throws ODataApplicationException if an expression uses unsupported features or cannot be ordered by
+   */
+  public static Comparator<Entity> compile(final List<OrderByItem> orderByItems) throws ODataApplicationException {
+    final ValueNode[] nodes = new ValueNode[orderByItems.size()];
+    final boolean[] descending = new boolean[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = FilterCompiler.compileNode(orderByItems.get(i).getExpression());
+      descending[i] = orderByItems.get(i).isDescending();
+    }
+    return new CompiledComparator(nodes, descending);
+  }
+
+  private static final class CompiledComparator implements Comparator<Entity> {
+    private final ValueNode[] nodes;
+    private final boolean[] descending;
+
+    private CompiledComparator(final ValueNode[] nodes, final boolean[] descending) throws ODataApplicationException {
+      for (final ValueNode node : nodes) {
+        if (node.kind == ValueKind.NULL) {
+          throw new ODataApplicationException("The null literal is not allowed in $orderby.",
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+      }
+      this.nodes = nodes;
+      this.descending = descending;
+    }
+
+    @Override
+    public int compare(final Entity first, final Entity second) {
+      for (int i = 0; i < nodes.length; i++) {
+        final Object firstValue = nodes[i].evaluate(first);
+        final Object secondValue = nodes[i].evaluate(second);
+        final int result = firstValue == null ?
+            secondValue == null ? 0 : -1 :
+            secondValue == null ? 1 : Values.compare(nodes[i].kind, firstValue, secondValue);
+        if (result != 0) {
+          return descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+  }
+}
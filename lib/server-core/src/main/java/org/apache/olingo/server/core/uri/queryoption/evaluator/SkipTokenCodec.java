@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Encodes keyset cursors into opaque $skiptoken values and back.
+ * A token is the URL-safe Base64 encoding of the cursor followed by a truncated HMAC-SHA256 signature;
+ * the signature also covers a scope, so a token is only accepted for the collection and the order
+ * it has been created for.
+ */
+final class SkipTokenCodec {
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_LENGTH = 16;
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+  /** Decoded $skiptoken. */
+  static final class Cursor {
+    /** Number of entities left of $top, or -1 if there is no limit. */
+    final int remaining;
+    final Object[] values;
+
+    Cursor(final int remaining, final Object[] values) {
+      this.remaining = remaining;
+      this.values = values;
+    }
+  }
+
+  private final SecretKeySpec key;
+  private final byte[] scope;
+  private final ValueKind[] kinds;
+
+  /**
+   * @param key the secret key for the signature
+   * @param scope the scope the tokens are valid for
+   * @param kinds the kinds of the cursor values
+   */
+  SkipTokenCodec(final byte[] key, final String scope, final ValueKind[] kinds) {
+    if (key == null || key.length == 0) {
+      throw new IllegalArgumentException("A signing key is required.");
+    }
+    this.key = new SecretKeySpec(key, ALGORITHM);
+    try {
+      this.scope = scope.getBytes("UTF-8");
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+    this.kinds = kinds;
+  }
+
+  String encode(final Cursor cursor) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(bytes);
+    try {
+      data.writeInt(cursor.remaining);
+      for (int i = 0; i < kinds.length; i++) {
+        data.writeBoolean(cursor.values[i] != null);
+        if (cursor.values[i] != null) {
+          data.writeUTF(toText(kinds[i], cursor.values[i]));
+        }
+      }
+      data.flush();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+    final byte[] payload = bytes.toByteArray();
+    final byte[] signature = sign(payload);
+    byte[] token = Arrays.copyOf(payload, payload.length + SIGNATURE_LENGTH);
+    System.arraycopy(signature, 0, token, payload.length, SIGNATURE_LENGTH);
+    return Base64.encodeBase64URLSafeString(token);
+  }
+
+  /**
+   * @throws ODataApplicationException if the token has not been created by this codec's key and scope
+   */
+  Cursor decode(final String token) throws ODataApplicationException {
+    final byte[] bytes = Base64.decodeBase64(token);
+    if (bytes.length < SIGNATURE_LENGTH) {
+      throw invalid();
+    }
+    final byte[] payload = Arrays.copyOf(bytes, bytes.length - SIGNATURE_LENGTH);
+    if (!MessageDigest.isEqual(Arrays.copyOf(sign(payload), SIGNATURE_LENGTH),
+        Arrays.copyOfRange(bytes, payload.length, bytes.length))) {
+      throw invalid();
+    }
+    DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+    try {
+      final int remaining = data.readInt();
+      Object[] values = new Object[kinds.length];
+      for (int i = 0; i < kinds.length; i++) {
+        values[i] = data.readBoolean() ? fromText(kinds[i], data.readUTF()) : null;
+      }
+      if (data.available() > 0) {
+        throw invalid();
+      }
+      return new Cursor(remaining, values);
+    } catch (final IOException e) {
+      throw invalid();
+    } catch (final IllegalArgumentException e) {
+      throw invalid();
+    }
+  }
+
+  private byte[] sign(final byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      mac.update(scope);
+      return mac.doFinal(payload);
+    } catch (final GeneralSecurityException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  private static String toText(final ValueKind kind, final Object value) {
+    switch (kind) {
+    case INTEGER:
+      return Long.toString(Values.toLong(value));
+    case DOUBLE:
+      return Double.toString(Values.toDouble(value));
+    case DECIMAL:
+    case DURATION:
+      return Values.toDecimal(value).toString();
+    case DATE:
+      return Long.toString(Values.toDateKey(value));
+    case DATE_TIME_OFFSET:
+      return Values.toMillis(value) + ":" + Values.toSubMillisNanos(value);
+    case TIME_OF_DAY:
+      return Long.toString(Values.toMillisOfDay(value));
+    case STRING:
+    case BOOLEAN:
+    case GUID:
+      return value.toString();
+    default:
+      throw new IllegalArgumentException("Values of kind " + kind + " cannot be encoded.");
+    }
+  }
+
+  private static Object fromText(final ValueKind kind, final String text) {
+    switch (kind) {
+    case INTEGER:
+    case TIME_OF_DAY:
+      return Long.valueOf(text);
+    case DOUBLE:
+      return Double.valueOf(text);
+    case DECIMAL:
+    case DURATION:
+      return new BigDecimal(text);
+    case DATE:
+      final long dateKey = Long.parseLong(text);
+      Calendar calendar = Calendar.getInstance(GMT);
+      calendar.clear();
+      calendar.set((int) (dateKey / 10000), (int) (dateKey / 100 % 100) - 1, (int) (dateKey % 100));
+      return calendar;
+    case DATE_TIME_OFFSET:
+      final int separator = text.indexOf(':');
+      Timestamp timestamp = new Timestamp(Long.parseLong(text.substring(0, separator)));
+      timestamp.setNanos(timestamp.getNanos() + Integer.parseInt(text.substring(separator + 1)));
+      return timestamp;
+    case STRING:
+      return text;
+    case BOOLEAN:
+      return Boolean.valueOf(text);
+    case GUID:
+      return UUID.fromString(text);
+    default:
+      throw new IllegalArgumentException("Values of kind " + kind + " cannot be decoded.");
+    }
+  }
+
+  private static ODataApplicationException invalid() {
+    return FilterCompiler.badRequest("The $skiptoken is invalid.");
+  }
+}
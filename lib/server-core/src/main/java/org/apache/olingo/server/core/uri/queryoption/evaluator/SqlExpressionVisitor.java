@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Translates an expression into an SQL expression with parameter placeholders for all literals.
+ * Operators and methods are mapped to their SQL:2003 counterparts; where SQL's handling of <code>null</code>
+ * differs from OData's (comparisons with <code>null</code>, <code>ne</code> on nullable columns),
+ * the translation adds the necessary <code>IS NULL</code> tests, so that a negated comparison
+ * selects the same rows as the in-memory {@link FilterCompiler}.
+ */
+class SqlExpressionVisitor implements ExpressionVisitor<SqlFragment> {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  @Override
+  public SqlFragment visitBinaryOperator(final BinaryOperatorKind operator, final SqlFragment left,
+      final SqlFragment right) throws ODataApplicationException {
+    switch (operator) {
+    case AND:
+    case OR:
+      requireKind(left, operator, ValueKind.BOOLEAN);
+      requireKind(right, operator, ValueKind.BOOLEAN);
+      final String pattern = "(%s " + operator.name() + " %s)";
+      final SqlFragment combined = SqlFragment.combine(ValueKind.BOOLEAN, pattern, left, right);
+      return left.exact() == left && right.exact() == right ? combined :
+          SqlFragment.withExact(combined,
+              SqlFragment.combine(ValueKind.BOOLEAN, pattern, left.exact(), right.exact()));
+    case EQ:
+    case NE:
+    case GT:
+    case GE:
+    case LT:
+    case LE:
+      return comparison(operator, left, right);
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MOD:
+      final ValueKind kind = FilterCompiler.getCommonKind(left.kind, right.kind);
+      if (kind == null || kind != ValueKind.NULL && !kind.isNumeric()) {
+        throw FilterCompiler.notImplemented("The operator " + operator + " is not supported for operands of kinds "
+            + left.kind + " and " + right.kind + ".");
+      }
+      return SqlFragment.combine(kind, operator == BinaryOperatorKind.MOD ? "MOD(%s, %s)" :
+          "(%s " + (operator == BinaryOperatorKind.ADD ? '+' : operator == BinaryOperatorKind.SUB ? '-' :
+              operator == BinaryOperatorKind.MUL ? '*' : '/') + " %s)",
+          left, right);
+    default:
+      throw FilterCompiler.notImplemented("The operator " + operator + " is not supported.");
+    }
+  }
+
+  private SqlFragment comparison(final BinaryOperatorKind operator, final SqlFragment leftOperand,
+      final SqlFragment rightOperand) throws ODataApplicationException {
+    final SqlFragment left = leftOperand.exact();
+    final SqlFragment right = rightOperand.exact();
+    if (FilterCompiler.getCommonKind(left.kind, right.kind) == null) {
+      throw FilterCompiler.badRequest("The operator " + operator + " is not allowed for operands of kinds "
+          + left.kind + " and " + right.kind + ".");
+    }
+    if (left.kind == ValueKind.NULL || right.kind == ValueKind.NULL) {
+      if (left.kind == ValueKind.NULL && right.kind == ValueKind.NULL) {
+        return SqlFragment.combine(ValueKind.BOOLEAN, operator == BinaryOperatorKind.EQ ? "(1 = 1)" : "(1 = 0)");
+      } else if (operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE) {
+        return SqlFragment.combine(ValueKind.BOOLEAN,
+            operator == BinaryOperatorKind.EQ ? "(%s IS NULL)" : "(%s IS NOT NULL)",
+            left.kind == ValueKind.NULL ? right : left);
+      } else {
+        return SqlFragment.combine(ValueKind.BOOLEAN, "(1 = 0)");
+      }
+    }
+    final String sqlOperator = operator == BinaryOperatorKind.EQ ? "=" :
+        operator == BinaryOperatorKind.NE ? "<>" :
+            operator == BinaryOperatorKind.GT ? ">" :
+                operator == BinaryOperatorKind.GE ? ">=" :
+                    operator == BinaryOperatorKind.LT ? "<" : "<=";
+    final String comparison = "%s " + sqlOperator + " %s";
+    // Everything but a literal may be null at runtime. In OData, a comparison with null is true for ne
+    // and false otherwise, and null equals null; in SQL, it is unknown.
+    final boolean leftNullable = left.constant == null;
+    final boolean rightNullable = right.constant == null;
+    if (!leftNullable && !rightNullable) {
+      return SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + ")", left, right);
+    } else if (leftNullable != rightNullable) {
+      final SqlFragment nullable = leftNullable ? left : right;
+      return operator == BinaryOperatorKind.NE ?
+          SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + " OR %s IS NULL)", left, right, nullable) :
+          SqlFragment.withExact(SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + ")", left, right),
+              SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + " AND %s IS NOT NULL)",
+                  left, right, nullable));
+    }
+    final String defined = "(" + comparison + " AND %s IS NOT NULL AND %s IS NOT NULL)";
+    switch (operator) {
+    case EQ:
+      return SqlFragment.withExact(
+          SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + " OR (%s IS NULL AND %s IS NULL))",
+              left, right, left, right),
+          SqlFragment.combine(ValueKind.BOOLEAN, "(" + defined + " OR (%s IS NULL AND %s IS NULL))",
+              left, right, left, right, left, right));
+    case NE:
+      final String oneNull = " OR (%s IS NULL AND %s IS NOT NULL) OR (%s IS NOT NULL AND %s IS NULL))";
+      return SqlFragment.withExact(
+          SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + oneNull,
+              left, right, left, right, left, right),
+          SqlFragment.combine(ValueKind.BOOLEAN, "(" + defined + oneNull,
+              left, right, left, right, left, right, left, right));
+    default:
+      return SqlFragment.withExact(SqlFragment.combine(ValueKind.BOOLEAN, "(" + comparison + ")", left, right),
+          SqlFragment.combine(ValueKind.BOOLEAN, defined, left, right, left, right));
+    }
+  }
+
+  @Override
+  public SqlFragment visitUnaryOperator(final UnaryOperatorKind operator, final SqlFragment operand)
+      throws ODataApplicationException {
+    if (operator == UnaryOperatorKind.NOT) {
+      requireKind(operand, operator, ValueKind.BOOLEAN);
+      return SqlFragment.combine(ValueKind.BOOLEAN, "(NOT %s)", operand.exact());
+    } else {
+      requireKind(operand, operator, ValueKind.INTEGER, ValueKind.DECIMAL, ValueKind.DOUBLE, ValueKind.DURATION);
+      return SqlFragment.combine(operand.kind, "(- %s)", operand);
+    }
+  }
+
+  @Override
+  public SqlFragment visitMethodCall(final MethodKind methodCall, final List<SqlFragment> parameters)
+      throws ODataApplicationException {
+    final SqlFragment[] operands = parameters == null ?
+        new SqlFragment[0] : parameters.toArray(new SqlFragment[parameters.size()]);
+    switch (methodCall) {
+    case CONTAINS:
+    case STARTSWITH:
+    case ENDSWITH:
+      checkParameterCount(methodCall, operands, 2, 2);
+      requireKind(operands[0], methodCall, ValueKind.STRING);
+      requireKind(operands[1], methodCall, ValueKind.STRING);
+      if (!(operands[1].constant instanceof String)) {
+        throw FilterCompiler.notImplemented("The method " + methodCall + " is only supported with a literal "
+            + "as second parameter.");
+      }
+      final String escaped = escapeLike((String) operands[1].constant);
+      return SqlFragment.combine(ValueKind.BOOLEAN, "(%s LIKE %s ESCAPE '" + LIKE_ESCAPE + "')", operands[0],
+          SqlFragment.parameter(ValueKind.STRING, methodCall == MethodKind.CONTAINS ? '%' + escaped + '%' :
+              methodCall == MethodKind.STARTSWITH ? escaped + '%' : '%' + escaped));
+    case INDEXOF:
+      checkParameterCount(methodCall, operands, 2, 2);
+      requireKind(operands[0], methodCall, ValueKind.STRING);
+      requireKind(operands[1], methodCall, ValueKind.STRING);
+      return SqlFragment.combine(ValueKind.INTEGER, "(POSITION(%s IN %s) - 1)", operands[1], operands[0]);
+    case LENGTH:
+      return function(methodCall, ValueKind.INTEGER, "CHAR_LENGTH(%s)", operands, ValueKind.STRING);
+    case TOLOWER:
+      return function(methodCall, ValueKind.STRING, "LOWER(%s)", operands, ValueKind.STRING);
+    case TOUPPER:
+      return function(methodCall, ValueKind.STRING, "UPPER(%s)", operands, ValueKind.STRING);
+    case TRIM:
+      return function(methodCall, ValueKind.STRING, "TRIM(%s)", operands, ValueKind.STRING);
+    case CONCAT:
+      checkParameterCount(methodCall, operands, 2, 2);
+      requireKind(operands[0], methodCall, ValueKind.STRING);
+      requireKind(operands[1], methodCall, ValueKind.STRING);
+      return SqlFragment.combine(ValueKind.STRING, "(%s || %s)", operands[0], operands[1]);
+    case SUBSTRING:
+      checkParameterCount(methodCall, operands, 2, 3);
+      requireKind(operands[0], methodCall, ValueKind.STRING);
+      for (int i = 1; i < operands.length; i++) {
+        requireKind(operands[i], methodCall, ValueKind.INTEGER);
+      }
+      return operands.length == 2 ?
+          SqlFragment.combine(ValueKind.STRING, "SUBSTRING(%s FROM %s + 1)", operands) :
+          SqlFragment.combine(ValueKind.STRING, "SUBSTRING(%s FROM %s + 1 FOR %s)", operands);
+    case YEAR:
+    case MONTH:
+    case DAY:
+      return function(methodCall, ValueKind.INTEGER, "EXTRACT(" + methodCall.name() + " FROM %s)", operands,
+          ValueKind.DATE, ValueKind.DATE_TIME_OFFSET);
+    case HOUR:
+    case MINUTE:
+      return function(methodCall, ValueKind.INTEGER, "EXTRACT(" + methodCall.name() + " FROM %s)", operands,
+          ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+    case SECOND:
+      // EXTRACT includes the fractional seconds.
+      return function(methodCall, ValueKind.INTEGER, "FLOOR(EXTRACT(SECOND FROM %s))", operands,
+          ValueKind.DATE_TIME_OFFSET, ValueKind.TIME_OF_DAY);
+    case ROUND:
+    case FLOOR:
+    case CEILING:
+      checkParameterCount(methodCall, operands, 1, 1);
+      return function(methodCall, operands[0].kind,
+          methodCall == MethodKind.ROUND ? "ROUND(%s, 0)" : methodCall.name() + "(%s)", operands,
+          ValueKind.INTEGER, ValueKind.DECIMAL, ValueKind.DOUBLE);
+    default:
+      throw FilterCompiler.notImplemented("The method " + methodCall + " is not supported.");
+    }
+  }
+
+  private static SqlFragment function(final MethodKind methodKind, final ValueKind resultKind,
+      final String pattern, final SqlFragment[] operands, final ValueKind... operandKinds)
+      throws ODataApplicationException {
+    checkParameterCount(methodKind, operands, 1, 1);
+    requireKind(operands[0], methodKind, operandKinds);
+    return SqlFragment.combine(resultKind, pattern, operands[0]);
+  }
+
+  private static String escapeLike(final String value) {
+    final StringBuilder result = new StringBuilder(value.length() + 4);
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        result.append(LIKE_ESCAPE);
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  @Override
+  public SqlFragment visitLiteral(final String literal) throws ODataApplicationException {
+    final ValueNode.Constant constant = FilterCompiler.compileLiteral(literal);
+    return SqlFragment.parameter(constant.kind, toParameter(constant.kind, constant.value));
+  }
+
+  /** Converts a literal value into a value JDBC drivers can bind. */
+  private static Object toParameter(final ValueKind kind, final Object value) {
+    if (value instanceof Calendar) {
+      final Calendar calendar = (Calendar) value;
+      if (kind == ValueKind.DATE) {
+        return java.sql.Date.valueOf(String.format(Locale.ROOT, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+            calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH)));
+      } else if (kind == ValueKind.TIME_OF_DAY) {
+        return java.sql.Time.valueOf(String.format(Locale.ROOT, "%02d:%02d:%02d", calendar.get(Calendar.HOUR_OF_DAY),
+            calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND)));
+      }
+    } else if (value instanceof UUID) {
+      return value.toString();
+    }
+    return value;
+  }
+
+  @Override
+  public SqlFragment visitMember(final UriInfoResource member) throws ODataApplicationException {
+    final List<UriResource> parts = member.getUriResourceParts();
+    final EdmProperty[] path = new EdmProperty[parts.size()];
+    for (int i = 0; i < path.length; i++) {
+      final UriResource part = parts.get(i);
+      if (!(part instanceof UriResourceProperty) || ((UriResourceProperty) part).isCollection()
+          || i == path.length - 1 && !(part instanceof UriResourcePrimitiveProperty)) {
+        throw FilterCompiler.notImplemented("Only paths to single-valued primitive properties are supported.");
+      }
+      path[i] = ((UriResourceProperty) part).getProperty();
+    }
+    return SqlFragment.column(FilterCompiler.getKind(path[path.length - 1].getType()),
+        SqlTranslator.getColumnName(path));
+  }
+
+  @Override
+  public SqlFragment visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ODataApplicationException {
+    throw FilterCompiler.notImplemented("Lambda expressions are not supported.");
+  }
+
+  @Override
+  public SqlFragment visitAlias(final String aliasName) throws ODataApplicationException {
+    throw FilterCompiler.notImplemented("Aliases are not supported.");
+  }
+
+  @Override
+  public SqlFragment visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+    throw FilterCompiler.notImplemented("Type literals are not supported.");
+  }
+
+  @Override
+  public SqlFragment visitLambdaReference(final String variableName) throws ODataApplicationException {
+    throw FilterCompiler.notImplemented("Lambda references are not supported.");
+  }
+
+  @Override
+  public SqlFragment visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ODataApplicationException {
+    throw FilterCompiler.notImplemented("Enumeration values are not supported.");
+  }
+
+  private static void checkParameterCount(final MethodKind methodKind, final SqlFragment[] operands,
+      final int min, final int max) throws ODataApplicationException {
+    if (operands.length < min || operands.length > max) {
+      throw FilterCompiler.badRequest("Wrong number of parameters for method " + methodKind + ".");
+    }
+  }
+
+  private static void requireKind(final SqlFragment operand, final Object operation, final ValueKind... kinds)
+      throws ODataApplicationException {
+    if (operand.kind == ValueKind.NULL) {
+      return;
+    }
+    for (final ValueKind kind : kinds) {
+      if (operand.kind == kind) {
+        return;
+      }
+    }
+    throw FilterCompiler.badRequest("An operand of kind " + operand.kind + " is not allowed for " + operation + ".");
+  }
+}
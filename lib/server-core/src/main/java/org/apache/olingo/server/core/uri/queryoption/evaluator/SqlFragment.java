@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL expression translated from an expression of a system query option,
+ * together with the values of its parameters in the order of their placeholders.
+ */
+final class SqlFragment {
+
+  final ValueKind kind;
+  final String sql;
+  final List<Object> parameters;
+  /** The value if the fragment is a single parameter placeholder for a literal, otherwise <code>null</code>. */
+  final Object constant;
+  /**
+   * The equivalent condition that is unknown only where OData's result is <code>null</code>,
+   * or <code>null</code> if the fragment itself is; see {@link #exact()}.
+   */
+  private final SqlFragment exact;
+
+  private SqlFragment(final ValueKind kind, final String sql, final List<Object> parameters,
+      final Object constant, final SqlFragment exact) {
+    this.kind = kind;
+    this.sql = sql;
+    this.parameters = parameters;
+    this.constant = constant;
+    this.exact = exact;
+  }
+
+  static SqlFragment column(final ValueKind kind, final String name) {
+    return new SqlFragment(kind, name, Collections.emptyList(), null, null);
+  }
+
+  static SqlFragment parameter(final ValueKind kind, final Object value) {
+    return value == null ?
+        new SqlFragment(ValueKind.NULL, "NULL", Collections.emptyList(), null, null) :
+        new SqlFragment(kind, "?", Collections.singletonList(value), value, null);
+  }
+
+  /**
+   * Combines a condition that may be unknown where OData's result is <code>false</code>,
+   * which is sufficient in a <code>WHERE</code> clause, with its exact counterpart.
+   */
+  static SqlFragment withExact(final SqlFragment condition, final SqlFragment exact) {
+    return new SqlFragment(condition.kind, condition.sql, condition.parameters, null, exact);
+  }
+
+  /**
+   * Returns a condition that is unknown exactly where OData's result is <code>null</code>.
+   * Operands of <code>not</code> must use it, because SQL negates unknown to unknown
+   * while OData negates a <code>false</code> comparison with <code>null</code> to <code>true</code>.
+   */
+  SqlFragment exact() {
+    return exact == null ? this : exact;
+  }
+
+  /**
+   * Combines fragments into a new one; each <code>%s</code> in the pattern is replaced
+   * by the SQL of the next operand, so operand parameters keep their order.
+   */
+  static SqlFragment combine(final ValueKind kind, final String pattern, final SqlFragment... operands) {
+    final List<Object> parameters = new ArrayList<Object>();
+    final Object[] sqls = new Object[operands.length];
+    for (int i = 0; i < operands.length; i++) {
+      sqls[i] = operands[i].sql;
+      parameters.addAll(operands[i].parameters);
+    }
+    return new SqlFragment(kind, String.format(pattern, sqls), parameters, null, null);
+  }
+}
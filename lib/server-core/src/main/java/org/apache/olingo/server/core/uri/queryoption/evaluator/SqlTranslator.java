@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmMapping;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SqlQuery;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+
+/**
+ * Translates the system query options of a request to an entity collection into SQL statements,
+ * so that filtering, ordering, paging, and projection are done by the database.
+ * Expressions are translated by {@link SqlExpressionVisitor}; paging uses the SQL:2008 clauses
+ * <code>OFFSET ... ROWS</code> and <code>FETCH FIRST ... ROWS ONLY</code>.
+ * Paged results are additionally ordered by the key properties so that pages are stable.
+ */
+public final class SqlTranslator {
+
+  private SqlTranslator() {}
+
+  /**
+   * @param table the name of the table holding the entities
+   * @param entityType the type of the entities
+   * @param uriInfo the resource information providing the system query options
+   * @return the SQL statements
+   * @throws ODataApplicationException if an option uses features that cannot be translated
+   */
+  public static SqlQuery translate(final String table, final EdmEntityType entityType,
+      final UriInfoResource uriInfo) throws ODataApplicationException {
+    final List<EdmProperty[]> keys = getKeyProperties(entityType);
+    final List<EdmProperty[]> selected = getSelectedProperties(entityType, keys, uriInfo.getSelectOption());
+
+    final StringBuilder where = new StringBuilder(" FROM ").append(table);
+    final List<Object> whereParameters = new ArrayList<Object>();
+    if (uriInfo.getFilterOption() != null) {
+      final SqlFragment filter = translate(uriInfo.getFilterOption().getExpression());
+      if (filter.kind != ValueKind.BOOLEAN && filter.kind != ValueKind.NULL) {
+        throw FilterCompiler.badRequest("The expression must be a boolean expression.");
+      }
+      where.append(" WHERE ").append(filter.sql);
+      whereParameters.addAll(filter.parameters);
+    }
+
+    final StringBuilder statement = new StringBuilder("SELECT ");
+    final List<String> selectedPaths = new ArrayList<String>(selected.size());
+    for (final EdmProperty[] path : selected) {
+      if (!selectedPaths.isEmpty()) {
+        statement.append(", ");
+      }
+      statement.append(getColumnName(path));
+      selectedPaths.add(getPath(path));
+    }
+    statement.append(where);
+    final List<Object> parameters = new ArrayList<Object>(whereParameters);
+
+    final boolean paged = uriInfo.getTopOption() != null || uriInfo.getSkipOption() != null;
+    final List<String> orderBy = new ArrayList<String>();
+    if (uriInfo.getOrderByOption() != null) {
+      for (final OrderByItem item : uriInfo.getOrderByOption().getOrders()) {
+        final SqlFragment expression = translate(item.getExpression());
+        if (expression.kind == ValueKind.NULL) {
+          throw FilterCompiler.badRequest("The null literal is not allowed in $orderby.");
+        }
+        orderBy.add(item.isDescending() ? expression.sql + " DESC" : expression.sql);
+        parameters.addAll(expression.parameters);
+      }
+    }
+    if (paged) {
+      for (final EdmProperty[] key : keys) {
+        final String column = getColumnName(key);
+        if (!orderBy.contains(column) && !orderBy.contains(column + " DESC")) {
+          orderBy.add(column);
+        }
+      }
+    }
+    for (int i = 0; i < orderBy.size(); i++) {
+      statement.append(i == 0 ? " ORDER BY " : ", ").append(orderBy.get(i));
+    }
+    if (uriInfo.getSkipOption() != null) {
+      statement.append(" OFFSET ? ROWS");
+      parameters.add(uriInfo.getSkipOption().getValue());
+    }
+    if (uriInfo.getTopOption() != null) {
+      statement.append(uriInfo.getSkipOption() == null ? " FETCH FIRST ? ROWS ONLY" : " FETCH NEXT ? ROWS ONLY");
+      parameters.add(uriInfo.getTopOption().getValue());
+    }
+
+    final boolean counted = uriInfo.getCountOption() != null && uriInfo.getCountOption().getValue();
+    return new TranslatedQuery(statement.toString(), parameters, selectedPaths,
+        counted ? "SELECT COUNT(*)" + where : null, counted ? whereParameters : null);
+  }
+
+  private static SqlFragment translate(final Expression expression) throws ODataApplicationException {
+    try {
+      return expression.accept(new SqlExpressionVisitor());
+    } catch (final ExpressionVisitException e) {
+      throw FilterCompiler.badRequest(e.getMessage());
+    }
+  }
+
+  /**
+   * Gets the name of the column holding a primitive property:
+   * the internal names of the mappings of all path segments or, if not mapped, their names, joined by underscores.
+   */
+  static String getColumnName(final EdmProperty[] path) {
+    final StringBuilder name = new StringBuilder();
+    for (final EdmProperty property : path) {
+      if (name.length() > 0) {
+        name.append('_');
+      }
+      final EdmMapping mapping = property.getMapping();
+      name.append(mapping == null || mapping.getInternalName() == null ?
+          property.getName() : mapping.getInternalName());
+    }
+    return name.toString();
+  }
+
+  private static String getPath(final EdmProperty[] path) {
+    final StringBuilder result = new StringBuilder();
+    for (final EdmProperty property : path) {
+      if (result.length() > 0) {
+        result.append('/');
+      }
+      result.append(property.getName());
+    }
+    return result.toString();
+  }
+
+  private static List<EdmProperty[]> getKeyProperties(final EdmEntityType entityType) {
+    List<EdmProperty[]> keys = new ArrayList<EdmProperty[]>();
+    for (final EdmKeyPropertyRef ref : entityType.getKeyPropertyRefs()) {
+      final String[] names = (ref.getPath() == null ? ref.getKeyPropertyName() : ref.getPath()).split("/");
+      final EdmProperty[] path = new EdmProperty[names.length];
+      EdmStructuredType type = entityType;
+      for (int i = 0; i < names.length; i++) {
+        path[i] = type.getStructuralProperty(names[i]);
+        if (i < names.length - 1) {
+          type = (EdmStructuredType) path[i].getType();
+        }
+      }
+      keys.add(path);
+    }
+    return keys;
+  }
+
+  private static List<EdmProperty[]> getSelectedProperties(final EdmEntityType entityType,
+      final List<EdmProperty[]> keys, final SelectOption selectOption) throws ODataApplicationException {
+    List<EdmProperty[]> selected = new ArrayList<EdmProperty[]>();
+    if (selectOption == null || isStar(selectOption.getSelectItems())) {
+      addPrimitiveProperties(selected, new EdmProperty[0], entityType);
+      return selected;
+    }
+    selected.addAll(keys);
+    for (final SelectItem item : selectOption.getSelectItems()) {
+      if (item.isAllOperationsInSchema()) {
+        continue;
+      }
+      final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+      final EdmProperty[] path = new EdmProperty[parts.size()];
+      for (int i = 0; i < path.length; i++) {
+        if (!(parts.get(i) instanceof UriResourceProperty) || ((UriResourceProperty) parts.get(i)).isCollection()) {
+          throw FilterCompiler.notImplemented("Only single-valued structural properties can be selected.");
+        }
+        path[i] = ((UriResourceProperty) parts.get(i)).getProperty();
+      }
+      if (path[path.length - 1].isPrimitive()) {
+        addIfAbsent(selected, path);
+      } else {
+        List<EdmProperty[]> nested = new ArrayList<EdmProperty[]>();
+        addPrimitiveProperties(nested, path, (EdmStructuredType) path[path.length - 1].getType());
+        for (final EdmProperty[] nestedPath : nested) {
+          addIfAbsent(selected, nestedPath);
+        }
+      }
+    }
+    return selected;
+  }
+
+  private static boolean isStar(final List<SelectItem> items) {
+    for (final SelectItem item : items) {
+      if (item.isStar()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Adds all single-valued primitive properties of a structured type; collections have no column. */
+  private static void addPrimitiveProperties(final List<EdmProperty[]> result, final EdmProperty[] prefix,
+      final EdmStructuredType type) {
+    for (final String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      if (property == null || property.isCollection()) {
+        continue;
+      }
+      final EdmProperty[] path = Arrays.copyOf(prefix, prefix.length + 1);
+      path[prefix.length] = property;
+      if (property.isPrimitive()) {
+        result.add(path);
+      } else {
+        addPrimitiveProperties(result, path, (EdmStructuredType) property.getType());
+      }
+    }
+  }
+
+  private static void addIfAbsent(final List<EdmProperty[]> paths, final EdmProperty[] path) {
+    for (final EdmProperty[] existing : paths) {
+      if (Arrays.equals(existing, path)) {
+        return;
+      }
+    }
+    paths.add(path);
+  }
+
+  private static final class TranslatedQuery implements SqlQuery {
+    private final String statement;
+    private final List<Object> parameters;
+    private final List<String> selectedProperties;
+    private final String countStatement;
+    private final List<Object> countParameters;
+
+    private TranslatedQuery(final String statement, final List<Object> parameters,
+        final List<String> selectedProperties, final String countStatement, final List<Object> countParameters) {
+      this.statement = statement;
+      this.parameters = Collections.unmodifiableList(parameters);
+      this.selectedProperties = Collections.unmodifiableList(selectedProperties);
+      this.countStatement = countStatement;
+      this.countParameters = countParameters == null ? null : Collections.unmodifiableList(countParameters);
+    }
+
+    @Override
+    public String getStatement() {
+      return statement;
+    }
+
+    @Override
+    public List<Object> getParameters() {
+      return parameters;
+    }
+
+    @Override
+    public List<String> getSelectedProperties() {
+      return selectedProperties;
+    }
+
+    @Override
+    public String getCountStatement() {
+      return countStatement;
+    }
+
+    @Override
+    public List<Object> getCountParameters() {
+      return countParameters;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+/**
+ * Categories of values an expression node can evaluate to.
+ * Values of one category are compared and combined in the same way regardless of their Java class.
+ */
+enum ValueKind {
+  /** {@link Boolean} */
+  BOOLEAN,
+  /** Byte, SByte, Int16, Int32, and Int64; evaluated as <code>long</code> */
+  INTEGER,
+  /** Decimal; evaluated as {@link java.math.BigDecimal} */
+  DECIMAL,
+  /** Single and Double; evaluated as <code>double</code> */
+  DOUBLE,
+  STRING,
+  /** Date; {@link java.util.Calendar} or {@link java.util.Date} */
+  DATE,
+  /** DateTimeOffset; {@link java.util.Calendar}, {@link java.util.Date}, or {@link java.sql.Timestamp} */
+  DATE_TIME_OFFSET,
+  /** TimeOfDay; {@link java.util.Calendar} or {@link java.util.Date} */
+  TIME_OF_DAY,
+  /** Duration; number of seconds */
+  DURATION,
+  /** Guid; {@link java.util.UUID} */
+  GUID,
+  /** The <code>null</code> literal */
+  NULL;
+
+  boolean isNumeric() {
+    return this == INTEGER || this == DECIMAL || this == DOUBLE;
+  }
+}
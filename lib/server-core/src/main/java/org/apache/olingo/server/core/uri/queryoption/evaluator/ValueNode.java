@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+
+/**
+ * Node of a compiled expression.
+ * The kind of the node's value is known at compile time, so evaluation does not need to inspect types.
+ */
+abstract class ValueNode {
+
+  private static final ValueNode[] NO_CHILDREN = new ValueNode[0];
+
+  final ValueKind kind;
+
+  ValueNode(final ValueKind kind) {
+    this.kind = kind;
+  }
+
+  /**
+   * Evaluates this node for the given entity.
+   * Boolean nodes return {@link Boolean#TRUE}, {@link Boolean#FALSE}, or <code>null</code>.
+   * @return the value or <code>null</code>
+   */
+  abstract Object evaluate(Entity entity);
+
+  boolean isConstant() {
+    return false;
+  }
+
+  /** Returns the nodes this node's value is computed from. */
+  ValueNode[] getChildren() {
+    return NO_CHILDREN;
+  }
+
+  static class Constant extends ValueNode {
+    final Object value;
+
+    Constant(final ValueKind kind, final Object value) {
+      super(kind);
+      this.value = Values.normalize(kind, value);
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      return value;
+    }
+
+    @Override
+    boolean isConstant() {
+      return true;
+    }
+  }
+
+  /** Value of a primitive property, possibly nested in complex properties. */
+  static class Member extends ValueNode {
+    private final String[] path;
+    /**
+     * Position of the property in the property list per path segment where it was found last;
+     * this is only a hint, so concurrent unsynchronized updates are harmless.
+     */
+    private final int[] positions;
+
+    Member(final ValueKind kind, final String[] path) {
+      super(kind);
+      this.path = path;
+      positions = new int[path.length];
+    }
+
+    @Override
+    Object evaluate(final Entity entity) {
+      List<Property> properties = entity.getProperties();
+      for (int i = 0; i < path.length; i++) {
+        final Property property = find(properties, i);
+        if (property == null || property.isNull()) {
+          return null;
+        } else if (i == path.length - 1) {
+          return property.getValue();
+        } else if (property.isLinkedComplex()) {
+          properties = property.asLinkedComplex().getValue();
+        } else {
+          properties = property.asComplex();
+        }
+        if (properties == null) {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    private Property find(final List<Property> properties, final int segment) {
+      final String name = path[segment];
+      final int size = properties.size();
+      final int position = positions[segment];
+      if (position < size) {
+        final Property property = properties.get(position);
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+      for (int index = 0; index < size; index++) {
+        final Property property = properties.get(index);
+        if (name.equals(property.getName())) {
+          positions[segment] = index;
+          return property;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Conversion and comparison of property and literal values of the supported {@link ValueKind}s.
+ * Numeric values may be of any {@link Number} class, as it is common for data providers
+ * not to use the default Java class of a primitive type.
+ */
+final class Values {
+
+  static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+  private Values() {}
+
+  static long toLong(final Object value) {
+    return ((Number) value).longValue();
+  }
+
+  static double toDouble(final Object value) {
+    return ((Number) value).doubleValue();
+  }
+
+  static BigDecimal toDecimal(final Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    } else {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    }
+  }
+
+  /** Returns the calendar of a date or date-time value; values which are no calendars are interpreted as GMT. */
+  static Calendar toCalendar(final Object value) {
+    if (value instanceof Calendar) {
+      return (Calendar) value;
+    }
+    final Calendar calendar = Calendar.getInstance(GMT);
+    calendar.setTimeInMillis(value instanceof Date ? ((Date) value).getTime() : ((Number) value).longValue());
+    return calendar;
+  }
+
+  static long toMillis(final Object value) {
+    if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof Date) {
+      return ((Date) value).getTime();
+    } else {
+      return ((Number) value).longValue();
+    }
+  }
+
+  /** Returns the nanoseconds of a date-time value below the millisecond precision. */
+  static int toSubMillisNanos(final Object value) {
+    return value instanceof Timestamp ? ((Timestamp) value).getNanos() % 1000000 : 0;
+  }
+
+  /** Returns the date as <code>yyyymmdd</code> number. */
+  static long toDateKey(final Object value) {
+    final Calendar calendar = toCalendar(value);
+    return calendar.get(Calendar.YEAR) * 10000L + (calendar.get(Calendar.MONTH) + 1) * 100
+        + calendar.get(Calendar.DAY_OF_MONTH);
+  }
+
+  static long toMillisOfDay(final Object value) {
+    if (value instanceof Calendar) {
+      final Calendar calendar = (Calendar) value;
+      return ((calendar.get(Calendar.HOUR_OF_DAY) * 60L + calendar.get(Calendar.MINUTE)) * 60
+          + calendar.get(Calendar.SECOND)) * 1000 + calendar.get(Calendar.MILLISECOND);
+    }
+    final long millis = toMillis(value) % MILLIS_PER_DAY;
+    return millis < 0 ? millis + MILLIS_PER_DAY : millis;
+  }
+
+  /**
+   * Compares two non-<code>null</code> values of the given kind.
+   * @return a negative number, zero, or a positive number as the first value is less than, equal to,
+   * or greater than the second value
+   */
+  static int compare(final ValueKind kind, final Object left, final Object right) {
+    switch (kind) {
+    case INTEGER:
+      return compare(toLong(left), toLong(right));
+    case DOUBLE:
+      return Double.compare(toDouble(left), toDouble(right));
+    case DECIMAL:
+    case DURATION:
+      return toDecimal(left).compareTo(toDecimal(right));
+    case STRING:
+      return ((String) left).compareTo((String) right);
+    case BOOLEAN:
+      return ((Boolean) left).compareTo((Boolean) right);
+    case DATE:
+      return compare(toDateKey(left), toDateKey(right));
+    case DATE_TIME_OFFSET:
+      final int result = compare(toMillis(left), toMillis(right));
+      return result == 0 ? compare(toSubMillisNanos(left), toSubMillisNanos(right)) : result;
+    case TIME_OF_DAY:
+      return compare(toMillisOfDay(left), toMillisOfDay(right));
+    case GUID:
+      return ((UUID) left).compareTo((UUID) right);
+    default:
+      throw new IllegalArgumentException("Values of kind " + kind + " are not comparable.");
+    }
+  }
+
+  /** Converts a constant value into the class used for evaluation of the given kind. */
+  static Object normalize(final ValueKind kind, final Object value) {
+    if (value == null) {
+      return null;
+    }
+    switch (kind) {
+    case INTEGER:
+      return value instanceof Long ? value : Long.valueOf(toLong(value));
+    case DOUBLE:
+      return value instanceof Double ? value : Double.valueOf(toDouble(value));
+    case DECIMAL:
+    case DURATION:
+      return toDecimal(value);
+    default:
+      return value;
+    }
+  }
+
+  private static int compare(final long left, final long right) {
+    return left < right ? -1 : left == right ? 0 : 1;
+  }
+}
@@ -20,14 +20,25 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataTranslatedException;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.junit.Test;
 
 public class ODataHttpHandlerImplTest {
@@ -167,4 +178,50 @@ public class ODataHttpHandlerImplTest {
       assertEquals(rawServiceResolutionUri, odr.getRawServiceResolutionUri());
     }
   }
+
+  @Test
+  public void convertToHttpStreamBuffer() throws Exception {
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    buffer.getOutputStream().write("{\"value\":[]}".getBytes("UTF-8"));
+    buffer.getOutputStream().close();
+    ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(200);
+    odResponse.setContent(buffer.getInputStream());
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        output.write(b);
+      }
+    });
+
+    ODataHttpHandlerImpl.convertToHttp(response, odResponse);
+
+    verify(response).setStatus(200);
+    verify(response).setContentLength(12);
+    assertEquals("{\"value\":[]}", output.toString("UTF-8"));
+  }
+
+  @Test
+  public void convertToHttpOtherStream() throws Exception {
+    ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(200);
+    odResponse.setContent(new ByteArrayInputStream("content".getBytes("UTF-8")));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        output.write(b);
+      }
+    });
+
+    ODataHttpHandlerImpl.convertToHttp(response, odResponse);
+
+    verify(response, never()).setContentLength(anyInt());
+    assertEquals("content", output.toString("UTF-8"));
+  }
 }
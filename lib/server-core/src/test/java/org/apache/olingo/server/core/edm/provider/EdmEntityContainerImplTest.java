@@ -38,10 +38,13 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -273,6 +276,72 @@ public class EdmEntityContainerImplTest {
     assertNull(container.getEntitySet(null));
   }
 
+  @Test
+  public void concurrentFirstAccessLoadsOnce() throws Exception {
+    final AtomicInteger containerCalls = new AtomicInteger();
+    final AtomicInteger entitySetCalls = new AtomicInteger();
+    final EdmProvider provider = new CustomProvider() {
+      @Override
+      public EntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName)
+          throws ODataException {
+        entitySetCalls.incrementAndGet();
+        sleep();
+        return super.getEntitySet(entityContainer, entitySetName);
+      }
+
+      @Override
+      public EntityContainer getEntityContainer() throws ODataException {
+        containerCalls.incrementAndGet();
+        sleep();
+        return super.getEntityContainer();
+      }
+    };
+    final EdmEntityContainer localContainer = new EdmEntityContainerImpl(new EdmProviderImpl(provider), provider,
+        new EntityContainerInfo().setContainerName(new FullQualifiedName("space", "name")));
+
+    final int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final EdmEntitySet[] singleResults = new EdmEntitySet[threadCount];
+    final int[] listSizes = new int[threadCount];
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            singleResults[index] = localContainer.getEntitySet("entitySetName");
+            listSizes[index] = localContainer.getEntitySets().size();
+          } catch (final InterruptedException e) {
+            // results stay empty
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, entitySetCalls.get());
+    assertEquals(1, containerCalls.get());
+    assertNotNull(singleResults[0]);
+    for (int i = 0; i < threadCount; i++) {
+      assertSame(singleResults[0], singleResults[i]);
+      assertEquals(2, listSizes[i]);
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(20);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   private class CustomProvider extends EdmProvider {
     @Override
     public EntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName)
@@ -37,17 +37,23 @@ import org.apache.olingo.server.api.edm.provider.PropertyRef;
 import org.apache.olingo.server.api.edm.provider.TypeDefinition;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class EdmProviderImplTest {
@@ -228,4 +234,47 @@ public class EdmProviderImplTest {
     assertNotNull(edm.getServiceMetadata());
   }
 
+  @Test
+  public void concurrentFirstAccessCreatesOnce() throws Exception {
+    EdmProvider localProvider = mock(EdmProvider.class);
+    final EntityType entityType = new EntityType().setName(FQN.getName()).setKey(new ArrayList<PropertyRef>());
+    when(localProvider.getEntityType(FQN)).thenAnswer(new Answer<EntityType>() {
+      @Override
+      public EntityType answer(final InvocationOnMock invocation) throws Throwable {
+        Thread.sleep(20);
+        return entityType;
+      }
+    });
+    final Edm localEdm = new EdmProviderImpl(localProvider);
+
+    final int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final EdmEntityType[] results = new EdmEntityType[threadCount];
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            results[index] = localEdm.getEntityType(FQN);
+          } catch (final InterruptedException e) {
+            // results stay empty
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    verify(localProvider, times(1)).getEntityType(FQN);
+    for (EdmEntityType result : results) {
+      assertSame(results[0], result);
+    }
+    assertNotNull(results[0]);
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class CircleStreamBufferTest {
+
+  @Test
+  public void readWrite() throws Exception {
+    CircleStreamBuffer buffer = new CircleStreamBuffer(4);
+    OutputStream output = buffer.getOutputStream();
+    output.write("Hello ".getBytes("UTF-8"));
+    output.write("World!".getBytes("UTF-8"));
+    output.close();
+    assertEquals("Hello World!", IOUtils.toString(buffer.getInputStream(), "UTF-8"));
+  }
+
+  @Test
+  public void sizeAndWriteTo() throws Exception {
+    final byte[] data = new byte[20000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    buffer.getOutputStream().write(data, 0, 100);
+    assertEquals(-1, buffer.size());
+    buffer.getOutputStream().write(data, 100, data.length - 100);
+    buffer.getOutputStream().close();
+    assertEquals(data.length, buffer.size());
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    assertEquals(data.length, buffer.writeTo(result));
+    assertEquals(-1, buffer.getInputStream().read());
+    assertEquals(data.length, result.size());
+    final byte[] resultData = result.toByteArray();
+    for (int i = 0; i < data.length; i++) {
+      assertEquals(data[i], resultData[i]);
+    }
+  }
+
+  @Test
+  public void getStreamBuffer() throws Exception {
+    CircleStreamBuffer buffer = new CircleStreamBuffer();
+    assertEquals(buffer, CircleStreamBuffer.getStreamBuffer(buffer.getInputStream()));
+    assertEquals(null, CircleStreamBuffer.getStreamBuffer(IOUtils.toInputStream("")));
+  }
+
+  @Test
+  public void reuseReleasedBuffers() throws Exception {
+    for (int run = 0; run < 3; run++) {
+      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      buffer.getOutputStream().write(("content " + run).getBytes("UTF-8"));
+      buffer.getOutputStream().close();
+      InputStream input = buffer.getInputStream();
+      assertEquals("content " + run, IOUtils.toString(input, "UTF-8"));
+      input.close();
+      try {
+        input.read();
+        fail("Expected exception not thrown!");
+      } catch (final IOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void writeAfterCloseRead() throws Exception {
+    CircleStreamBuffer buffer = new CircleStreamBuffer(4);
+    OutputStream output = buffer.getOutputStream();
+    output.write("Hello".getBytes("UTF-8"));
+    InputStream input = buffer.getInputStream();
+    input.close();
+    output.write(" World!".getBytes("UTF-8"));
+    output.close();
+    try {
+      input.available();
+      fail("Expected exception not thrown!");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+}
@@ -55,6 +55,17 @@ public class ContextURLBuilderTest {
     assertEquals("http://host/service/$metadata#Customers", ContextURLBuilder.create(contextURL).toASCIIString());
   }
 
+  @Test
+  public void buildEntitySetWithSelectList() {
+    EdmEntitySet entitySet = Mockito.mock(EdmEntitySet.class);
+    Mockito.when(entitySet.getName()).thenReturn("Customers");
+    ContextURL contextURL = ContextURL.Builder.create().entitySet(entitySet)
+        .selectList("Name,Address/City").suffix(Suffix.ENTITY)
+        .build();
+    assertEquals("$metadata#Customers(Name,Address/City)/$entity",
+        ContextURLBuilder.create(contextURL).toASCIIString());
+  }
+
   @Test
   public void buildDerivedEntitySet() {
     EdmEntitySet entitySet = Mockito.mock(EdmEntitySet.class);
@@ -33,19 +33,34 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.security.SecureRandom;
 
 public class TechnicalServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(TechnicalServlet.class);
 
+  private OData odata;
+  private Edm edm;
+  private byte[] skipTokenKey;
+
+  @Override
+  public void init() throws ServletException {
+    odata = OData.newInstance();
+    // One Edm for all requests: it loads elements from the provider on first access into caches that are safe
+    // for concurrent use, and sharing it lets the default processor serve the metadata document from its cache.
+    edm = odata.createEdm(new EdmTechProvider());
+    // The technical provider never changes, so the Edm can be materialized and frozen.
+    odata.warmUp(edm, true);
+    // Skip tokens must verify in whichever request follows the next link, so the key lives as long as the servlet.
+    skipTokenKey = new byte[32];
+    new SecureRandom().nextBytes(skipTokenKey);
+  }
+
   @Override
   protected void service(final HttpServletRequest req, final HttpServletResponse resp)
           throws ServletException, IOException {
     try {
-      OData odata = OData.newInstance();
-      Edm edm = odata.createEdm(new EdmTechProvider());
-
       HttpSession session = req.getSession(true);
       DataProvider dataProvider = (DataProvider) session.getAttribute(DataProvider.class.getName());
       if (dataProvider == null) {
@@ -55,7 +70,7 @@ public class TechnicalServlet extends HttpServlet {
       }
 
       ODataHttpHandler handler = odata.createHandler(edm);
-      handler.register(new TechnicalProcessor(dataProvider));
+      handler.register(new TechnicalProcessor(dataProvider, skipTokenKey));
       handler.process(req, resp);
     } catch (Exception e) {
       LOG.error("Server Error", e);
@@ -28,29 +28,47 @@ import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.format.ODataFormat;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntityIteratorImpl;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataTranslatedException;
 import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
 import org.apache.olingo.server.api.processor.EntityProcessor;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.ODataSerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.queryoption.Pager;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class TechnicalProcessor implements EntityCollectionProcessor, EntityProcessor {
 
+  /** Maximum number of entities per page of an entity collection. */
+  private static final int MAX_PAGE_SIZE = 100;
+
   private OData odata;
   private Edm edm;
   private DataProvider dataProvider;
+  private final byte[] skipTokenKey;
 
-  public TechnicalProcessor(final DataProvider dataProvider) {
+  /**
+   * @param dataProvider the provider of the data
+   * @param skipTokenKey the secret key signing skip tokens; next links are only accepted
+   * by processors with the same key, so it must be shared by all processors of a service
+   */
+  public TechnicalProcessor(final DataProvider dataProvider, final byte[] skipTokenKey) {
     this.dataProvider = dataProvider;
+    this.skipTokenKey = skipTokenKey;
   }
 
   @Override
@@ -72,8 +90,21 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
       if (entitySet == null) {
         response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
       } else {
+        final Pager pager = odata.createPager(edmEntitySet.getEntityType(), uriInfo.asUriInfoResource(), request,
+            MAX_PAGE_SIZE, skipTokenKey);
+        List<Entity> entities = uriInfo.getFilterOption() == null ?
+            new ArrayList<Entity>(entitySet.getEntities()) :
+            filter(entitySet.getEntities(), odata.createFilterPredicate(uriInfo.getFilterOption()));
+        Collections.sort(entities, pager.getComparator());
+        final EntitySet page = pager.getPage(entities.iterator());
         ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
-        response.setContent(serializer.entitySet(edmEntitySet, entitySet, getContextUrl(edmEntitySet, false)));
+        response.setODataContent(serializer.entitySetStreamed(edmEntitySet,
+            new EntityIteratorImpl(page.getEntities(), entitySet.getCount(), page.getNext()),
+            getContextUrl(serializer, edmEntitySet, false, uriInfo.getSelectOption()),
+            null, uriInfo.getSelectOption()));
+        if (pager.getPreferenceApplied() != null) {
+          response.setHeader(HttpHeader.PREFERENCE_APPLIED, pager.getPreferenceApplied());
+        }
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
@@ -81,13 +112,17 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
       response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
     } catch (final ODataTranslatedException e) {
       response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    } catch (final ODataApplicationException e) {
+      response.setStatusCode(e.getStatusCode());
     }
   }
 
   @Override
   public void readEntity(final ODataRequest request, ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) {
-    if (!validateOptions(uriInfo.asUriInfoResource())) {
+    if (!validateOptions(uriInfo.asUriInfoResource())
+        || uriInfo.getFilterOption() != null || uriInfo.getOrderByOption() != null
+        || uriInfo.getSkipOption() != null || uriInfo.getSkipTokenOption() != null || uriInfo.getTopOption() != null) {
       response.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
       return;
     }
@@ -98,7 +133,9 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
         response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
       } else {
         ODataSerializer serializer = odata.createSerializer(ODataFormat.fromContentType(requestedContentType));
-        response.setContent(serializer.entity(edmEntitySet, entity, getContextUrl(edmEntitySet, true)));
+        response.setContent(serializer.entity(edmEntitySet, entity,
+            getContextUrl(serializer, edmEntitySet, true, uriInfo.getSelectOption()),
+            null, uriInfo.getSelectOption()));
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
@@ -112,10 +149,20 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
   private EntitySet readEntitySetInternal(final EdmEntitySet edmEntitySet, final String serviceRoot)
       throws DataProvider.DataProviderException {
     EntitySet entitySet = dataProvider.readAll(edmEntitySet);
-    // TODO: set count and next link
+    // TODO: set count
     return entitySet;
   }
 
+  private List<Entity> filter(final List<Entity> entities, final EntityPredicate predicate) {
+    List<Entity> result = new ArrayList<Entity>();
+    for (final Entity entity : entities) {
+      if (predicate.matches(entity)) {
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
   private Entity readEntityInternal(final UriInfoResource uriInfo, final EdmEntitySet entitySet)
       throws DataProvider.DataProviderException {
     final UriResourceEntitySet resourceEntitySet = (UriResourceEntitySet) uriInfo.getUriResourceParts().get(0);
@@ -126,14 +173,8 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
     return uriInfo.getCountOption() == null
         && uriInfo.getCustomQueryOptions().isEmpty()
         && uriInfo.getExpandOption() == null
-        && uriInfo.getFilterOption() == null
         && uriInfo.getIdOption() == null
-        && uriInfo.getOrderByOption() == null
-        && uriInfo.getSearchOption() == null
-        && uriInfo.getSelectOption() == null
-        && uriInfo.getSkipOption() == null
-        && uriInfo.getSkipTokenOption() == null
-        && uriInfo.getTopOption() == null;
+        && uriInfo.getSearchOption() == null;
   }
 
   private EdmEntitySet getEdmEntitySet(final UriInfoResource uriInfo) throws ODataTranslatedException {
@@ -154,7 +195,11 @@ public class TechnicalProcessor implements EntityCollectionProcessor, EntityProc
     return uriResource.getEntitySet();
   }
 
-  private ContextURL getContextUrl(final EdmEntitySet entitySet, final boolean isSingleEntity) {
-    return ContextURL.Builder.create().entitySet(entitySet).suffix(isSingleEntity ? Suffix.ENTITY : null).build();
+  private ContextURL getContextUrl(final ODataSerializer serializer,
+      final EdmEntitySet entitySet, final boolean isSingleEntity, final SelectOption select)
+      throws ODataSerializerException {
+    return ContextURL.Builder.create().entitySet(entitySet)
+        .selectList(serializer.buildContextURLSelectList(null, select))
+        .suffix(isSingleEntity ? Suffix.ENTITY : null).build();
   }
 }
@@ -19,14 +19,21 @@
 package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.ODataException;
@@ -44,9 +51,12 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.edm.provider.EdmProvider;
 import org.apache.olingo.server.api.edm.provider.EntitySet;
+import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.MetadataProcessor;
 import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
 import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.TechnicalProcessor;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -54,12 +64,15 @@ import org.junit.Test;
 
 public class ODataHandlerTest {
 
+  private static final String SERVICE_ROOT = "http://localhost/odata/";
+
   private ODataHandler handler;
+  private Edm edm;
 
   @Before
   public void before() {
     OData odata = OData.newInstance();
-    Edm edm = odata.createEdm(new EdmTechProvider());
+    edm = odata.createEdm(new EdmTechProvider());
 
     handler = new ODataHandler(odata, edm);
   }
@@ -156,6 +169,66 @@ public class ODataHandlerTest {
     assertTrue(doc.contains("<edmx:Edmx Version=\"4.0\""));
   }
 
+  @Test
+  public void testMetadataETag() throws Exception {
+    ODataRequest request = new ODataRequest();
+
+    request.setMethod(HttpMethod.GET);
+    request.setRawODataPath("$metadata");
+
+    ODataResponse response = handler.process(request);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final String eTag = response.getHeaders().get(HttpHeader.ETAG);
+    assertNotNull(eTag);
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+    final String doc = IOUtils.toString(response.getContent());
+    assertEquals(String.valueOf(doc.getBytes("UTF-8").length), response.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+
+    ODataResponse secondResponse = new ODataHandler(OData.newInstance(), edm).process(request);
+    assertEquals(eTag, secondResponse.getHeaders().get(HttpHeader.ETAG));
+    assertEquals(doc, IOUtils.toString(secondResponse.getContent()));
+
+    request.addHeader(HttpHeader.IF_NONE_MATCH, Arrays.asList("\"other\", " + eTag));
+    ODataResponse notModified = handler.process(request);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), notModified.getStatusCode());
+    assertEquals(eTag, notModified.getHeaders().get(HttpHeader.ETAG));
+    assertNull(notModified.getContent());
+  }
+
+  @Test
+  public void testServiceDocumentDependsOnBaseUri() throws Exception {
+    ODataRequest request = new ODataRequest();
+
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri("http://localhost/odata");
+    request.setRawODataPath("/");
+    ODataResponse response = handler.process(request);
+    assertTrue(IOUtils.toString(response.getContent()).contains("http://localhost/odata/$metadata"));
+
+    request.setRawBaseUri("http://otherhost/odata");
+    ODataResponse otherResponse = handler.process(request);
+    assertTrue(IOUtils.toString(otherResponse.getContent()).contains("http://otherhost/odata/$metadata"));
+    assertFalse(response.getHeaders().get(HttpHeader.ETAG).equals(otherResponse.getHeaders().get(HttpHeader.ETAG)));
+  }
+
+  @Test
+  public void testMetadataCompressed() throws Exception {
+    handler.register(new DefaultProcessor().setCompressDocuments(true));
+    ODataRequest request = new ODataRequest();
+
+    request.setMethod(HttpMethod.GET);
+    request.setRawODataPath("$metadata");
+    final String doc = IOUtils.toString(handler.process(request).getContent());
+
+    request.addHeader(HttpHeader.ACCEPT_ENCODING, Arrays.asList("deflate, gzip;q=0.8"));
+    ODataResponse response = handler.process(request);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals("gzip", response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeaders().get(HttpHeader.VARY));
+    assertTrue(response.getHeaders().get(HttpHeader.ETAG).endsWith("-gzip\""));
+    assertEquals(doc, IOUtils.toString(new GZIPInputStream(response.getContent()), "UTF-8"));
+  }
+
   @Test
   public void testMaxVersionNone() {
     ODataRequest request = new ODataRequest();
@@ -305,4 +378,68 @@ public class ODataHandlerTest {
     // TODO: Check for message in case of EdmException
     // System.out.println(IOUtils.toString(response.getContent()));
   }
+
+  @Test
+  public void parsedUrisAreSharedBetweenHandlersOfSameEdm() {
+    OData odata = OData.newInstance();
+    ODataHandler first = new ODataHandler(odata, edm);
+    ODataHandler second = new ODataHandler(odata, edm);
+    assertSame(first.getUriInfoCache(), second.getUriInfoCache());
+    assertNotNull(first.getUriInfoCache().getTemplateCache());
+
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawODataPath("ESAllPrim(32767)");
+    first.process(request);
+    final long hits = second.getUriInfoCache().getHitCount();
+
+    ODataRequest secondRequest = new ODataRequest();
+    secondRequest.setMethod(HttpMethod.GET);
+    secondRequest.setRawODataPath("ESAllPrim(32767)");
+    second.process(secondRequest);
+    assertEquals(hits + 1, second.getUriInfoCache().getHitCount());
+  }
+
+  @Test
+  public void nextLinkIsFollowedByAnotherProcessor() throws Exception {
+    final byte[] skipTokenKey = "secret".getBytes();
+    final DataProvider dataProvider = new DataProvider(edm);
+    OData odata = OData.newInstance();
+    ODataHandler first = new ODataHandler(odata, edm);
+    first.register(new TechnicalProcessor(dataProvider, skipTokenKey));
+    final String next = getNextLink(first.process(createPagedRequest("ESTwoPrim")));
+    assertNotNull(next);
+
+    // Each request gets its own handler and processor, as in the servlet.
+    ODataHandler second = new ODataHandler(odata, edm);
+    second.register(new TechnicalProcessor(dataProvider, skipTokenKey));
+    ODataResponse response = second.process(createPagedRequest(next.substring(SERVICE_ROOT.length())));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNotNull(getNextLink(response));
+
+    ODataHandler other = new ODataHandler(odata, edm);
+    other.register(new TechnicalProcessor(dataProvider, "other".getBytes()));
+    response = other.process(createPagedRequest(next.substring(SERVICE_ROOT.length())));
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), response.getStatusCode());
+  }
+
+  private ODataRequest createPagedRequest(final String path) {
+    final String[] parts = path.split("\\?", 2);
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(SERVICE_ROOT.substring(0, SERVICE_ROOT.length() - 1));
+    request.setRawODataPath(parts[0]);
+    request.setRawQueryPath(parts.length > 1 ? parts[1] : null);
+    request.setRawRequestUri(SERVICE_ROOT + path);
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList(HttpContentType.APPLICATION_JSON));
+    request.addHeader(HttpHeader.PREFER, Arrays.asList("odata.maxpagesize=1"));
+    return request;
+  }
+
+  private String getNextLink(final ODataResponse response) throws Exception {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    response.getODataContent().write(content);
+    final Matcher matcher = Pattern.compile("\"@odata\\.nextLink\":\"([^\"]*)\"").matcher(content.toString("UTF-8"));
+    return matcher.find() ? matcher.group(1) : null;
+  }
 }
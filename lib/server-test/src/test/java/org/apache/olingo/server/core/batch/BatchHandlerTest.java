@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.processor.ChangeSetProcessor;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.ODataHandler;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.processor.TechnicalProcessor;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.hamcrest.CoreMatchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BatchHandlerTest {
+
+  private static final String BASE_URI = "http://localhost/odata";
+  private static final String CRLF = "\r\n";
+
+  private ODataHandler handler;
+
+  @Before
+  public void before() {
+    final OData odata = OData.newInstance();
+    final Edm edm = odata.createEdm(new EdmTechProvider());
+    handler = new ODataHandler(odata, edm);
+    handler.register(new TechnicalProcessor(new DataProvider(edm), "secret".getBytes()));
+  }
+
+  @Test
+  public void requests() throws Exception {
+    final String body = "preamble" + CRLF
+        + "--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0)?$select=PropertyString HTTP/1.1" + CRLF
+        + "Accept: application/json;odata.metadata=none" + CRLF
+        + CRLF
+        + CRLF
+        + "--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-ID: 2" + CRLF
+        + CRLF
+        + "GET " + BASE_URI + "/ESTwoPrim?$top=1 HTTP/1.1" + CRLF
+        + "Accept: application/json;odata.metadata=none" + CRLF
+        + CRLF
+        + CRLF
+        + "--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET /odata/ESAllPrim(1) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--b--" + CRLF
+        + "epilogue";
+    final ODataResponse response = process(body, null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+    assertTrue(ContentType.create(contentType).isCompatible(ContentType.MULTIPART_MIXED));
+
+    final String boundary = BatchParser.getBoundary(contentType);
+    final String[] parts = getContent(response).split("--" + boundary);
+    assertEquals(5, parts.length);
+    assertEquals("", parts[0]);
+    assertThat(parts[1], CoreMatchers.containsString("HTTP/1.1 200 OK" + CRLF));
+    assertThat(parts[1], CoreMatchers.endsWith(CRLF + "{\"PropertyString\":\"\"}" + CRLF));
+    assertThat(parts[2], CoreMatchers.containsString("Content-ID: 2" + CRLF));
+    assertThat(parts[2], CoreMatchers.containsString("{\"value\":[{\"PropertyInt16\":-32766,"));
+    assertThat(parts[3], CoreMatchers.containsString("HTTP/1.1 404 Not Found" + CRLF));
+    assertEquals("--" + CRLF, parts[4]);
+  }
+
+  @Test
+  public void concurrentRequests() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(3);
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final Edm edm) {}
+
+      @Override
+      public void readCollection(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+          final ContentType requestedContentType) {
+        latch.countDown();
+        try {
+          // Serial execution would never get here in time.
+          response.setStatusCode(latch.await(10, TimeUnit.SECONDS) ?
+              HttpStatusCode.NO_CONTENT.getStatusCode() : HttpStatusCode.REQUEST_TIMEOUT.getStatusCode());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    final String get = "--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF;
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      final String content = getContent(process(get + get + get + "--b--", executor));
+      assertEquals(3, content.split("HTTP/1.1 204 No Content").length - 1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void changeSet() throws Exception {
+    ChangeSetProcessor processor = mock(ChangeSetProcessor.class);
+    handler.register(processor);
+    final ODataResponse response = process("--b" + CRLF
+        + "Content-Type: multipart/mixed; boundary=c" + CRLF
+        + CRLF
+        + "--c" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-ID: 1" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--c" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-ID: 2" + CRLF
+        + CRLF
+        + "GET ESTwoPrim(-365) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--c--" + CRLF
+        + "--b--", null);
+    final String content = getContent(response);
+    assertThat(content, CoreMatchers.containsString("Content-Type: multipart/mixed;boundary=changeset_"));
+    assertEquals(2, content.split("HTTP/1.1 200 OK").length - 1);
+    assertThat(content, CoreMatchers.containsString("Content-ID: 2"));
+    InOrder order = inOrder(processor);
+    order.verify(processor).beginChangeSet();
+    order.verify(processor).commitChangeSet();
+    verify(processor, never()).rollbackChangeSet();
+  }
+
+  @Test
+  public void failingChangeSet() throws Exception {
+    ChangeSetProcessor processor = mock(ChangeSetProcessor.class);
+    handler.register(processor);
+    final ODataResponse response = process("--b" + CRLF
+        + "Content-Type: multipart/mixed; boundary=\"c\"" + CRLF
+        + CRLF
+        + "--c" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "DELETE ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--c" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--c--" + CRLF
+        + "--b--", null);
+    final String content = getContent(response);
+    assertThat(content, CoreMatchers.not(CoreMatchers.containsString("multipart/mixed")));
+    assertThat(content, CoreMatchers.containsString("HTTP/1.1 501 Not Implemented"));
+    assertThat(content, CoreMatchers.not(CoreMatchers.containsString("HTTP/1.1 200 OK")));
+    InOrder order = inOrder(processor);
+    order.verify(processor).beginChangeSet();
+    order.verify(processor).rollbackChangeSet();
+    verify(processor, never()).commitChangeSet();
+  }
+
+  @Test
+  public void partsAreWrittenBeforeLaterBarriers() throws Exception {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final StringBuilder writtenBeforeChangeSet = new StringBuilder();
+    ChangeSetProcessor processor = mock(ChangeSetProcessor.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        writtenBeforeChangeSet.append(new String(output.toByteArray(), "UTF-8"));
+        return null;
+      }
+    }).when(processor).beginChangeSet();
+    handler.register(processor);
+    final ODataResponse response = process("--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--b" + CRLF
+        + "Content-Type: multipart/mixed; boundary=c" + CRLF
+        + CRLF
+        + "--c" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESTwoPrim(-365) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--c--" + CRLF
+        + "--b--", null);
+    verify(processor, never()).beginChangeSet();
+    response.getODataContent().write(output);
+    assertThat(writtenBeforeChangeSet.toString(), CoreMatchers.containsString("HTTP/1.1 200 OK"));
+    assertThat(writtenBeforeChangeSet.toString(), CoreMatchers.not(CoreMatchers.containsString("changeset_")));
+  }
+
+  @Test
+  public void failingPart() throws Exception {
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final Edm edm) {}
+
+      @Override
+      public void readCollection(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+          final ContentType requestedContentType) {
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setODataContent(new ODataContent() {
+          @Override
+          public void write(final OutputStream output) {
+            throw new IllegalStateException("failure");
+          }
+        });
+      }
+    });
+    final String content = getContent(process("--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim(0) HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--b--", null));
+    assertThat(content, CoreMatchers.containsString("HTTP/1.1 500 Internal Server Error"));
+    assertThat(content, CoreMatchers.containsString("HTTP/1.1 200 OK"));
+    assertThat(content, CoreMatchers.endsWith("--" + CRLF));
+  }
+
+  @Test
+  public void invalidContentType() throws Exception {
+    ODataRequest request = createRequest("--b--", "application/json");
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), handler.process(request).getStatusCode());
+  }
+
+  @Test
+  public void missingCloseDelimiter() throws Exception {
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), process("--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim HTTP/1.1" + CRLF, null).getStatusCode());
+  }
+
+  @Test
+  public void invalidRequestLine() throws Exception {
+    assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), process("--b" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + CRLF
+        + "GET ESAllPrim" + CRLF
+        + CRLF
+        + "--b--", null).getStatusCode());
+  }
+
+  @Test
+  public void invalidMethod() throws Exception {
+    ODataRequest request = createRequest("--b--", "multipart/mixed;boundary=b");
+    request.setMethod(HttpMethod.GET);
+    assertEquals(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode(), handler.process(request).getStatusCode());
+  }
+
+  private ODataResponse process(final String body, final ExecutorService executor) {
+    handler.setBatchExecutor(executor);
+    return handler.process(createRequest(body, "multipart/mixed;boundary=b"));
+  }
+
+  private ODataRequest createRequest(final String body, final String contentType) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.POST);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("/$batch");
+    request.setRawRequestUri(BASE_URI + "/$batch");
+    request.addHeader(HttpHeader.CONTENT_TYPE, Arrays.asList(contentType));
+    request.setBody(new ByteArrayInputStream(body.getBytes()));
+    return request;
+  }
+
+  private static String getContent(final ODataResponse response) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+    return new String(output.toByteArray(), "UTF-8");
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.edm.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmSchema;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.server.api.edm.provider.EdmProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class EdmProviderImplMaterializeTest {
+
+  @Test
+  public void materializedEdmDoesNotCallProvider() throws Exception {
+    final EdmProvider provider = spy(new EdmTechProvider());
+    final EdmProviderImpl edm = new EdmProviderImpl(provider).materialize();
+    reset(provider);
+
+    final EdmEntityContainer container = edm.getEntityContainer(null);
+    assertNotNull(container);
+    assertEquals(container, edm.getEntityContainer(container.getFullQualifiedName()));
+    for (final EdmEntitySet entitySet : container.getEntitySets()) {
+      final EdmEntityType entityType = entitySet.getEntityType();
+      assertEquals(entityType,
+          edm.getEntityType(new FullQualifiedName(entityType.getNamespace(), entityType.getName())));
+      for (final String propertyName : entityType.getPropertyNames()) {
+        assertNotNull(entityType.getProperty(propertyName).getType());
+      }
+      assertNotNull(entityType.getKeyPredicateNames());
+    }
+    for (final EdmSchema schema : edm.getSchemas()) {
+      assertNotNull(schema.getNamespace());
+    }
+    assertNotNull(edm.getServiceMetadata());
+
+    verifyZeroInteractions(provider);
+  }
+
+  @Test
+  public void materializeWithoutSchemas() throws Exception {
+    final EdmProvider provider = new EdmProvider() {};
+    assertNotNull(new EdmProviderImpl(provider).materialize());
+  }
+}
@@ -18,14 +18,23 @@
  */
 package org.apache.olingo.server.core.serializer.json;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.EntitySet;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.Edm;
@@ -33,9 +42,17 @@ import org.apache.olingo.commons.api.edm.EdmEntityContainer;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.format.ODataFormat;
+import org.apache.olingo.commons.core.data.EntityIteratorImpl;
+import org.apache.olingo.commons.core.data.EntitySetImpl;
+import org.apache.olingo.commons.core.data.LinkImpl;
+import org.apache.olingo.commons.core.serialization.JsonFactoryRegistry;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializerException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.hamcrest.CoreMatchers;
@@ -79,6 +96,23 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void registeredJsonFactoryIsUsed() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final ContextURL contextURL = ContextURL.Builder.create().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build();
+    final JsonFactory registered = JsonFactoryRegistry.getGeneratorFactory();
+    JsonFactoryRegistry.setGeneratorFactory(new JsonFactory().disable(JsonGenerator.Feature.QUOTE_FIELD_NAMES));
+    try {
+      Assert.assertThat(IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL)),
+          CoreMatchers.containsString(",PropertyInt16:32767,"));
+    } finally {
+      JsonFactoryRegistry.setGeneratorFactory(registered);
+    }
+    Assert.assertThat(IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL)),
+        CoreMatchers.containsString(",\"PropertyInt16\":32767,"));
+  }
+
   @Test
   public void entityAllPrimAllNull() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -98,6 +132,16 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void entityPropertiesInOtherOrder() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final ContextURL contextURL = ContextURL.Builder.create().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build();
+    Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final String expectedResult = IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL));
+    Collections.reverse(entity.getProperties());
+    Assert.assertEquals(expectedResult, IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL)));
+  }
+
   @Test(expected = ODataSerializerException.class)
   public void entityAllPrimKeyNull() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -148,6 +192,103 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(3, count);
   }
 
+  @Test
+  public void entitySetStreamedAllPrim() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    EntitySet entitySet = data.readAll(edmEntitySet);
+    final ContextURL contextURL = ContextURL.Builder.create().entitySet(edmEntitySet).build();
+    final String expectedResult = IOUtils.toString(serializer.entitySet(edmEntitySet, entitySet, contextURL));
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.entitySetStreamed(edmEntitySet,
+        new EntityIteratorImpl(entitySet.getEntities(), null, null), contextURL).write(output);
+    Assert.assertEquals(expectedResult, output.toString("UTF-8"));
+
+    output = new ByteArrayOutputStream();
+    serializer.entitySetStreamed(edmEntitySet,
+        new EntityIteratorImpl(entitySet.getEntities(), 3, URI.create("/next")), contextURL).write(output);
+    final String resultString = output.toString("UTF-8");
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESAllPrim\","
+        + "\"@odata.count\":3,\"value\":["));
+    Assert.assertThat(resultString, CoreMatchers.endsWith("],"
+        + "\"@odata.nextLink\":\"/next\"}"));
+  }
+
+  @Test
+  public void entitySetEntityIterator() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Iterator<Entity> source = data.readAll(edmEntitySet).getEntities().iterator();
+    EntityIterator entities = new EntityIterator() {
+      private int count = 0;
+
+      @Override
+      public boolean hasNext() {
+        return source.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        count++;
+        return source.next();
+      }
+
+      @Override
+      public Integer getCount() {
+        return hasNext() ? null : count;
+      }
+
+      @Override
+      public URI getNext() {
+        return hasNext() ? null : URI.create("/next");
+      }
+    };
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.entitySetStreamed(edmEntitySet, entities,
+        ContextURL.Builder.create().entitySet(edmEntitySet).build()).write(output);
+    final String resultString = output.toString("UTF-8");
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESAllPrim\",\"value\":["));
+    Assert.assertThat(resultString, CoreMatchers.endsWith("],"
+        + "\"@odata.count\":3,\"@odata.nextLink\":\"/next\"}"));
+  }
+
+  @Test
+  public void entityIteratorIsClosedWhenWritingFails() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    EntityIterator entities = new EntityIteratorImpl(data.readAll(edmEntitySet)) {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+    try {
+      serializer.entitySetStreamed(edmEntitySet, entities,
+          ContextURL.Builder.create().entitySet(edmEntitySet).build()).write(new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+              throw new IOException("connection reset");
+            }
+          });
+      Assert.fail("Expected exception not thrown!");
+    } catch (final ODataSerializerException e) {
+      Assert.assertEquals(ODataSerializerException.MessageKeys.IO_EXCEPTION, e.getMessageKey());
+    }
+    Assert.assertTrue(closed.get());
+  }
+
+  @Test
+  public void entitySetStreamedWithoutContextURL() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    try {
+      serializer.entitySetStreamed(edmEntitySet, new EntityIteratorImpl(data.readAll(edmEntitySet)), null);
+      Assert.fail("Expected exception not thrown!");
+    } catch (final ODataSerializerException e) {
+      Assert.assertEquals(ODataSerializerException.MessageKeys.NO_CONTEXT_URL, e.getMessageKey());
+    }
+  }
+
   @Test
   public void entityCollAllPrim() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCollAllPrim");
@@ -272,6 +413,44 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void plansAreSharedBetweenSerializers() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final StructuredTypePlanCache plans = new StructuredTypePlanCache();
+    final String first = IOUtils.toString(new ODataJsonSerializer(ODataFormat.JSON_NO_METADATA, plans)
+        .entity(edmEntitySet, entity, null));
+    Assert.assertEquals(1, plans.size());
+    final String second = IOUtils.toString(new ODataJsonSerializer(ODataFormat.JSON_NO_METADATA, plans)
+        .entity(edmEntitySet, entity, null));
+    Assert.assertEquals(1, plans.size());
+    Assert.assertEquals(first, second);
+  }
+
+  @Test
+  public void plansAreHeldByEdm() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    OData.newInstance().createSerializer(ODataFormat.JSON_NO_METADATA).entity(edmEntitySet, entity, null);
+    final StructuredTypePlanCache plans = ((EdmProviderImpl) edm).getCache(StructuredTypePlanCache.class);
+    Assert.assertNotNull(plans);
+    Assert.assertEquals(1, plans.size());
+    OData.newInstance().createSerializer(ODataFormat.JSON_NO_METADATA).entity(edmEntitySet, entity, null);
+    Assert.assertSame(plans, ((EdmProviderImpl) edm).getCache(StructuredTypePlanCache.class));
+    Assert.assertEquals(1, plans.size());
+  }
+
+  @Test
+  public void plansAreDroppedBeyondMaximumSize() throws Exception {
+    final StructuredTypePlanCache plans = new StructuredTypePlanCache(1);
+    final ODataJsonSerializer localSerializer = new ODataJsonSerializer(ODataFormat.JSON_NO_METADATA, plans);
+    for (final String name : new String[] { "ESTwoPrim", "ESAllPrim" }) {
+      final EdmEntitySet edmEntitySet = entityContainer.getEntitySet(name);
+      localSerializer.entity(edmEntitySet, data.readAll(edmEntitySet).getEntities().get(0), null);
+      Assert.assertEquals(1, plans.size());
+    }
+  }
+
   @Test
   public void entityMedia() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESMedia");
@@ -298,4 +477,84 @@ public class ODataJsonSerializerTest {
         + "{\"@odata.mediaContentType\":\"foo\",\"PropertyInt16\":4}]}";
     Assert.assertEquals(expectedResult, resultString);
   }
+
+  @Test
+  public void select() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final SelectOption select = getSelectOption("ESAllPrim", "PropertyDate,PropertyInt16");
+    final String resultString = IOUtils.toString(serializer.entity(edmEntitySet, entity,
+        ContextURL.Builder.create().entitySet(edmEntitySet)
+            .selectList(serializer.buildContextURLSelectList(null, select))
+            .suffix(Suffix.ENTITY).build(),
+        null, select));
+    final String expectedResult = "{\"@odata.context\":\"$metadata#ESAllPrim(PropertyDate,PropertyInt16)/$entity\","
+        + "\"PropertyInt16\":32767,\"PropertyDate\":\"2012-12-03\"}";
+    Assert.assertEquals(expectedResult, resultString);
+  }
+
+  @Test
+  public void selectComplex() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCompAllPrim");
+    final EntitySet entitySet = data.readAll(edmEntitySet);
+    final SelectOption select = getSelectOption("ESCompAllPrim", "PropertyComp/PropertyString");
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.entitySetStreamed(edmEntitySet, new EntityIteratorImpl(entitySet.getEntities(), null, null),
+        ContextURL.Builder.create().entitySet(edmEntitySet)
+            .selectList(serializer.buildContextURLSelectList(null, select)).build(),
+        null, select).write(output);
+    final String resultString = new String(output.toByteArray(), "UTF-8");
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESCompAllPrim(PropertyComp/PropertyString)\","
+        + "\"value\":[{\"PropertyComp\":{\"PropertyString\":\"First Resource - first\"}},"));
+    Assert.assertThat(resultString, CoreMatchers.not(CoreMatchers.containsString("PropertyInt16")));
+  }
+
+  @Test
+  public void selectAll() throws Exception {
+    Assert.assertNull(serializer.buildContextURLSelectList(null, null));
+    Assert.assertNull(serializer.buildContextURLSelectList(null, getSelectOption("ESAllPrim", "PropertyString,*")));
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final ContextURL contextURL = ContextURL.Builder.create().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build();
+    Assert.assertEquals(IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL)),
+        IOUtils.toString(serializer.entity(edmEntitySet, entity, contextURL, null, getSelectOption("ESAllPrim", "*"))));
+  }
+
+  @Test
+  public void expand() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final EntitySet targets = data.readAll(entityContainer.getEntitySet("ESTwoPrim"));
+    LinkImpl link = new LinkImpl();
+    link.setTitle("NavPropertyETTwoPrimOne");
+    link.setInlineEntity(targets.getEntities().get(0));
+    entity.getNavigationLinks().add(link);
+    EntitySetImpl inlineEntitySet = new EntitySetImpl();
+    inlineEntitySet.getEntities().add(targets.getEntities().get(1));
+    inlineEntitySet.setCount(4);
+    link = new LinkImpl();
+    link.setTitle("NavPropertyETTwoPrimMany");
+    link.setInlineEntitySet(inlineEntitySet);
+    entity.getNavigationLinks().add(link);
+
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$select=PropertyInt16"
+        + "&$expand=NavPropertyETTwoPrimOne($select=PropertyString),NavPropertyETTwoPrimMany($count=true)", edm);
+    final String resultString = IOUtils.toString(serializer.entity(edmEntitySet, entity,
+        ContextURL.Builder.create().entitySet(edmEntitySet)
+            .selectList(serializer.buildContextURLSelectList(uriInfo.getExpandOption(), uriInfo.getSelectOption()))
+            .suffix(Suffix.ENTITY).build(),
+        uriInfo.getExpandOption(), uriInfo.getSelectOption()));
+    Assert.assertEquals("{\"@odata.context\":\"$metadata#ESAllPrim(PropertyInt16,"
+        + "NavPropertyETTwoPrimOne(PropertyString))/$entity\","
+        + "\"PropertyInt16\":32767,"
+        + "\"NavPropertyETTwoPrimOne\":{\"PropertyString\":\"Test String1\"},"
+        + "\"NavPropertyETTwoPrimMany@odata.count\":4,"
+        + "\"NavPropertyETTwoPrimMany\":[{\"PropertyInt16\":-365,\"PropertyString\":\"Test String2\"}]}",
+        resultString);
+  }
+
+  private SelectOption getSelectOption(final String entitySetName, final String select) throws Exception {
+    return new Parser().parseUri(entitySetName + "?$select=" + select, edm).getSelectOption();
+  }
 }
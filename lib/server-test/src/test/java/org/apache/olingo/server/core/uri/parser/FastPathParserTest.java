@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.UriResourcePartTyped;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.UriResourceWithKeysImpl;
+import org.apache.olingo.server.core.uri.testutil.EdmTechTestProvider;
+import org.apache.olingo.server.core.uri.testutil.FilterTreeToText;
+import org.junit.Test;
+
+public class FastPathParserTest {
+
+  private final Edm edm = new EdmProviderImpl(new EdmTechTestProvider());
+
+  @Test
+  public void resourcePath() throws Exception {
+    assertSameAsParser("ESAllPrim");
+    assertSameAsParser("ESAllPrim(1)");
+    assertSameAsParser("ESAllPrim(1)/PropertyString");
+    assertSameAsParser("ESAllPrim(1)/PropertyString/$value");
+    assertSameAsParser("ESAllPrim/$count");
+    assertSameAsParser("ESAllPrim/$ref");
+    assertSameAsParser("ESCompAllPrim(1)/PropertyComp/PropertyInt16");
+    assertSameAsParser("ESTwoKeyNav(PropertyInt16=1,PropertyString='2')");
+    assertSameAsParser("ESTwoKeyNav(PropertyString='a''b',PropertyInt16=1)");
+    assertSameAsParser("ESKeyNav(1)/NavPropertyETTwoKeyNavMany(PropertyInt16=2,PropertyString='3')");
+    assertSameAsParser("ESKeyNav(1)/NavPropertyETKeyNavOne/NavPropertyETKeyNavMany/$count");
+
+    assertHandled("ESAllPrim(32767)/PropertyInt16/$value");
+    assertHandled("ESKeyNav(1)/NavPropertyETKeyNavMany(2)/$ref");
+  }
+
+  @Test
+  public void resourcePathNotHandled() throws Exception {
+    assertNotHandled("SINav");
+    assertNotHandled("ESAllPrim()");
+    assertNotHandled("ESAllPrim(-1)");
+    assertNotHandled("ESAllPrim(1)(2)");
+    assertNotHandled("ESAllPrim(PropertyInt16 = 1)");
+    assertNotHandled("ESAllPrim/com.sap.odata.test1.ETAllPrim");
+    assertNotHandled("ESTwoKeyNav(1)");
+    assertNotHandled("ESTwoKeyNav(PropertyInt16=1)");
+    assertNotHandled("ESKeyNav(1)/NavPropertyETTwoKeyNavMany(PropertyInt16=1)");
+    assertNotHandled("ESAllPrim/$count/$value");
+    assertNotHandled("ESAllPrim/$value");
+    assertNotHandled("ESAllPrim(1)/PropertyString(1)");
+    assertNotHandled("ESAllPrim(1)/Unknown");
+    assertNotHandled("ESAllPrim/");
+    assertNotHandled("ESAllPrim(1)/PropertyString/$count");
+  }
+
+  @Test
+  public void select() throws Exception {
+    assertSameAsParser("ESAllPrim?$select=*");
+    assertSameAsParser("ESAllPrim?$select=PropertyInt16,PropertyString");
+    assertSameAsParser("ESCompAllPrim?$select=PropertyComp/PropertyInt16,PropertyInt16");
+    assertSameAsParser("ESTwoPrim?$select=PropertyString,com.sap.odata.test1.*");
+  }
+
+  @Test
+  public void filter() throws Exception {
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 eq 1");
+    assertSameAsParser("ESAllPrim?$filter=1 lt PropertyInt16");
+    assertSameAsParser("ESAllPrim?$filter=PropertyString ne 'a''b c'");
+    assertSameAsParser("ESAllPrim?$filter=PropertyBoolean eq true or PropertyBoolean eq FALSE");
+    assertSameAsParser("ESAllPrim?$filter=PropertyString eq null");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 ge 1 and PropertyInt16 le 3 or PropertyInt16 gt 5");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 eq 1 or PropertyInt16 eq 2 and PropertyInt16 eq 3");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 lt 1 eq PropertyBoolean");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16  eq  1");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16%20eq%201");
+    assertSameAsParser("ESCompAllPrim?$filter=PropertyComp/PropertyInt16 eq 1");
+    assertSameAsParser("ESAllPrim(1)/NavPropertyETTwoPrimMany?$filter=PropertyInt16 eq 1");
+
+    // not handled by the fast path
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 add 1 eq 2");
+    assertSameAsParser("ESAllPrim?$filter=(PropertyInt16 eq 1)");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 eq -1");
+    assertSameAsParser("ESAllPrim?$filter=PropertyDecimal eq 1.5");
+    assertSameAsParser("ESAllPrim?$filter=PropertyDate eq 2013-09-25");
+    assertSameAsParser("ESAllPrim?$filter=contains(PropertyString,'a')");
+    assertSameAsParser("ESAllPrim?$filter=not PropertyBoolean");
+    assertSameAsParser("ESKeyNav?$filter=NavPropertyETTwoKeyNavOne/PropertyInt16 eq 1");
+  }
+
+  @Test
+  public void filterReader() throws Exception {
+    FastPathParser fastPathParser = new FastPathParser(edm);
+    final EdmType type = edm.getEntityContainer(null).getEntitySet("ESAllPrim").getEntityType();
+
+    assertNotNull(fastPathParser.readFilter("PropertyInt16 eq 1 and PropertyString eq 'x'", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eq 1 and", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eq", type));
+    assertNull(fastPathParser.readFilter(" PropertyInt16 eq 1", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eq 1 ", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eq 'a", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eq 1a", type));
+    assertNull(fastPathParser.readFilter("ESAllPrim eq 1", type));
+    assertNull(fastPathParser.readFilter("Unknown eq 1", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 EQ 1", type));
+    assertNull(fastPathParser.readFilter("PropertyInt16 eqx 1", type));
+
+    assertNotNull(fastPathParser.readSelect("PropertyInt16,PropertyString", type));
+    assertNull(fastPathParser.readSelect("PropertyInt16,", type));
+    assertNull(fastPathParser.readSelect("", type));
+    assertNull(fastPathParser.readSelect("PropertyInt16/PropertyString", type));
+  }
+
+  @Test
+  public void errors() throws Exception {
+    assertErrorAsParser("ESAllPrim(1");
+    assertErrorAsParser("Unknown");
+    assertErrorAsParser("ESAllPrim?$filter=PropertyInt16 eq");
+    assertErrorAsParser("ESAllPrim?$select=Unknown");
+    assertErrorAsParser("ESKeyNav?$select=NavPropertyETKeyNavOne,PropertyInt16");
+    assertErrorAsParser("ESAllPrim?$top=x");
+  }
+
+  private void assertHandled(final String path) {
+    assertNotNull(new FastPathParser(edm).readResourcePath(Arrays.asList(path.split("/"))));
+    try {
+      assertSameAsParser(path);
+    } catch (final Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private void assertNotHandled(final String path) {
+    assertNull(new FastPathParser(edm).readResourcePath(Arrays.asList(path.split("/", -1))));
+  }
+
+  private void assertSameAsParser(final String uri) throws Exception {
+    final String expected = dump(new Parser().parseUri(uri, edm));
+    assertEquals(uri, expected, dump(new Parser().setFastPath(true).parseUri(uri, edm)));
+  }
+
+  private void assertErrorAsParser(final String uri) {
+    final Class<?> expected = parseError(new Parser(), uri);
+    assertNotNull(expected);
+    assertEquals(expected, parseError(new Parser().setFastPath(true), uri));
+  }
+
+  private Class<?> parseError(final Parser parser, final String uri) {
+    try {
+      parser.parseUri(uri, edm);
+    } catch (final UriParserException e) {
+      return e.getClass();
+    }
+    return null;
+  }
+
+  private String dump(final UriInfo uriInfo) throws Exception {
+    StringBuilder result = new StringBuilder(uriInfo.getKind().toString());
+    dumpPath(result, uriInfo);
+    if (uriInfo.getSelectOption() != null) {
+      result.append(" select '").append(uriInfo.getSelectOption().getText()).append("'");
+      for (SelectItem item : uriInfo.getSelectOption().getSelectItems()) {
+        result.append(" [").append(item.isStar()).append(' ').append(item.isAllOperationsInSchema());
+        if (item.getResourcePath() != null) {
+          dumpPath(result, item.getResourcePath());
+        }
+        result.append(']');
+      }
+    }
+    if (uriInfo.getFilterOption() != null) {
+      result.append(" filter ").append(FilterTreeToText.Serialize(uriInfo.getFilterOption()));
+    }
+    return result.toString();
+  }
+
+  private void dumpPath(final StringBuilder result, final UriInfoResource resourcePath) throws Exception {
+    for (UriResource resource : resourcePath.getUriResourceParts()) {
+      result.append(" /").append(resource.getKind()).append(':').append(resource.toString());
+      if (resource instanceof UriResourcePartTyped) {
+        result.append(':').append(((UriResourcePartTyped) resource).isCollection());
+      }
+      if (resource instanceof UriResourceWithKeysImpl && resource.getKind() != UriResourceKind.function) {
+        for (UriParameter key : ((UriResourceWithKeysImpl) resource).getKeyPredicates()) {
+          result.append(" (").append(key.getName()).append('=').append(key.getText())
+              .append(' ').append(key.getReferencedProperty())
+              .append(' ').append(key.getExpression() == null ? null : FilterTreeToText.Serialize(key.getExpression()))
+              .append(' ').append(key.getExpression() instanceof Literal ?
+                  ((Literal) key.getExpression()).getType() : null)
+              .append(')');
+        }
+      }
+    }
+  }
+}
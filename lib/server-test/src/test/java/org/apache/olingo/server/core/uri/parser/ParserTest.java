@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.edm.provider.EdmProvider;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.testutil.EdmTechTestProvider;
+import org.apache.olingo.server.core.uri.testutil.FilterTreeToText;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.apache.olingo.server.tecsvc.provider.SchemaProvider;
+import org.junit.Test;
+
+public class ParserTest {
+
+  private final Edm edm = new EdmProviderImpl(new EdmTechTestProvider());
+
+  @Test
+  public void warmUp() throws Exception {
+    final Parser parser = new Parser().setFastPath(true);
+    final int count = parser.warmUp(edm);
+
+    assertTrue(count > 2 * edm.getEntityContainer(null).getEntitySets().size());
+    assertTrue(parser.isFastPath());
+  }
+
+  @Test
+  public void reuseAfterSyntaxError() throws Exception {
+    final Parser parser = new Parser();
+    try {
+      parser.parseUri("ESAllPrim?$filter=PropertyInt16 eq", edm);
+      fail("Expected exception not thrown.");
+    } catch (final UriParserSyntaxException e) {
+      // expected
+    }
+
+    final UriInfo uriInfo = parser.parseUri("ESAllPrim?$filter=PropertyInt16 eq 1&$orderby=PropertyString", edm);
+    assertEquals(UriInfoKind.resource, uriInfo.getKind());
+    assertEquals("<<PropertyInt16> eq <1>>", FilterTreeToText.Serialize(uriInfo.getFilterOption()));
+    assertEquals(1, uriInfo.getOrderByOption().getOrders().size());
+  }
+
+  @Test
+  public void parseTreesStayValid() throws Exception {
+    // all path segments are parsed before the first one is visited
+    final UriInfo uriInfo = new Parser().parseUri("ESKeyNav(1)/NavPropertyETTwoKeyNavMany(PropertyInt16=2,"
+        + "PropertyString='3')/NavPropertyETKeyNavOne", edm);
+    assertEquals(3, uriInfo.getUriResourceParts().size());
+    assertEquals("NavPropertyETKeyNavOne", uriInfo.getUriResourceParts().get(2).toString());
+  }
+
+  @Test
+  public void reusableParsersAreReturnedToPool() throws Exception {
+    final Parser.ReusableParserPool pool = new Parser.ReusableParserPool();
+    final Parser parser = new Parser().setReusableParserPool(pool);
+    parser.parseUri("ESAllPrim?$filter=PropertyInt16 eq 1", edm);
+    assertEquals(1, pool.size());
+
+    try {
+      parser.parseUri("ESAllPrim?$filter=PropertyInt16 eq", edm);
+      fail("Expected exception not thrown.");
+    } catch (final UriParserSyntaxException e) {
+      // expected
+    }
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void warmUpThroughOData() throws Exception {
+    final OData odata = OData.newInstance();
+    final Edm localEdm = odata.createEdm(new EdmTechProvider());
+    odata.warmUp(localEdm);
+    assertEquals(1, UriInfoCache.forEdm(localEdm).getParserPool().size());
+  }
+
+  @Test
+  public void warmUpMaterializesOnlyOnRequest() throws Exception {
+    final OData odata = OData.newInstance();
+    final FullQualifiedName unknown = new FullQualifiedName(SchemaProvider.nameSpace, "Unknown");
+
+    final EdmProvider provider = spy(new EdmTechProvider());
+    final Edm localEdm = odata.createEdm(provider);
+    odata.warmUp(localEdm);
+    reset(provider);
+    localEdm.getEntityType(unknown);
+    verify(provider).getEntityType(unknown);
+
+    final EdmProvider frozenProvider = spy(new EdmTechProvider());
+    final Edm frozenEdm = odata.createEdm(frozenProvider);
+    odata.warmUp(frozenEdm, true);
+    reset(frozenProvider);
+    frozenEdm.getEntityType(unknown);
+    verifyZeroInteractions(frozenProvider);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.testutil.EdmTechTestProvider;
+import org.junit.Test;
+
+public class UriInfoCacheTest {
+
+  private final Edm edm = new EdmProviderImpl(new EdmTechTestProvider());
+
+  @Test
+  public void hit() throws Exception {
+    UriInfoCache cache = new UriInfoCache(edm);
+
+    UriInfo first = cache.parseUri("ESAllPrim?$filter=PropertyInt16 eq 1&$top=2", new Parser());
+    UriInfo second = cache.parseUri("ESAllPrim?$filter=PropertyInt16 eq 1&$top=2", new Parser());
+
+    assertNotNull(first);
+    assertSame(first, second);
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void differentQuery() throws Exception {
+    UriInfoCache cache = new UriInfoCache(edm);
+
+    UriInfo first = cache.parseUri("ESAllPrim?$top=1", new Parser());
+    UriInfo second = cache.parseUri("ESAllPrim?$top=2", new Parser());
+
+    assertEquals(1, first.getTopOption().getValue());
+    assertEquals(2, second.getTopOption().getValue());
+    assertEquals(2, cache.size());
+    assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  public void eviction() throws Exception {
+    UriInfoCache cache = new UriInfoCache(edm, 2);
+
+    cache.parseUri("ESAllPrim", new Parser());
+    cache.parseUri("ESTwoPrim", new Parser());
+    cache.parseUri("ESAllPrim", new Parser());
+    cache.parseUri("ESAllKey", new Parser());
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNotNull(cache.get("ESAllPrim"));
+    assertNull(cache.get("ESTwoPrim"));
+  }
+
+  @Test
+  public void disabled() throws Exception {
+    UriInfoCache cache = new UriInfoCache(edm, 0);
+
+    cache.parseUri("ESAllPrim", new Parser());
+
+    assertEquals(0, cache.size());
+    assertNull(cache.get("ESAllPrim"));
+  }
+
+  @Test
+  public void errorsAreNotCached() throws Exception {
+    UriInfoCache cache = new UriInfoCache(edm);
+
+    try {
+      cache.parseUri("ESAllPrim?$top=abc", new Parser());
+      fail("Expected an UriParserException.");
+    } catch (final UriParserException e) {
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  public void attachedToEdmOnFirstUse() {
+    final EdmProviderImpl localEdm = new EdmProviderImpl(new EdmTechTestProvider());
+    assertNull(localEdm.getCache(UriInfoCache.class));
+
+    final UriInfoCache cache = UriInfoCache.forEdm(localEdm);
+    assertNotNull(cache.getTemplateCache());
+    assertSame(cache, localEdm.getCache(UriInfoCache.class));
+    assertSame(cache, UriInfoCache.forEdm(localEdm));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.testutil.EdmTechTestProvider;
+import org.apache.olingo.server.core.uri.testutil.FilterTreeToText;
+import org.junit.Test;
+
+public class UriTemplateCacheTest {
+
+  private final Edm edm = new EdmProviderImpl(new EdmTechTestProvider());
+
+  @Test
+  public void keyPredicate() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+
+    UriInfo first = cache.parseUri("ESAllPrim(1)", new Parser());
+    UriInfo second = cache.parseUri("ESAllPrim(32767)", new Parser());
+
+    assertKey(first, 0, "PropertyInt16", "1");
+    assertKey(second, 0, "PropertyInt16", "32767");
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void namedKeysAndNavigation() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+
+    cache.parseUri("ESKeyNav(1)/NavPropertyETTwoKeyNavMany(PropertyInt16=2,PropertyString='a')", new Parser());
+    UriInfo uriInfo = cache.parseUri(
+        "ESKeyNav(3)/NavPropertyETTwoKeyNavMany(PropertyInt16=4,PropertyString='it''s')", new Parser());
+
+    assertKey(uriInfo, 0, "PropertyInt16", "3");
+    List<UriParameter> keys = ((UriResourceNavigation) uriInfo.getUriResourceParts().get(1)).getKeyPredicates();
+    assertEquals(2, keys.size());
+    assertEquals("PropertyInt16", keys.get(0).getName());
+    assertEquals("4", keys.get(0).getText());
+    assertEquals("PropertyString", keys.get(1).getName());
+    assertEquals("'it''s'", keys.get(1).getText());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void filter() throws Exception {
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 eq 1 and PropertyString eq 'a'",
+        "ESAllPrim?$filter=PropertyInt16 eq 2 and PropertyString eq 'b'");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16%20eq%201",
+        "ESAllPrim?$filter=PropertyInt16%20eq%2012");
+    assertSameAsParser("ESAllPrim?$filter=contains(PropertyString,'a%20b')&$top=1",
+        "ESAllPrim?$filter=contains(PropertyString,'c%20d')&$top=1");
+    assertSameAsParser("ESAllPrim?$filter=PropertyInt16 add 1 gt 5",
+        "ESAllPrim?$filter=PropertyInt16 add 3 gt 50");
+  }
+
+  @Test
+  public void unbindableShape() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+    final String first = "ESKeyNav?$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 1)";
+    final String second = "ESKeyNav?$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyInt16 eq 2)";
+
+    cache.parseUri(first, new Parser());
+    UriInfo uriInfo = cache.parseUri(second, new Parser());
+
+    assertEquals(serializeFilter(new Parser().parseUri(second, edm)), serializeFilter(uriInfo));
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void literalsNotBound() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+
+    cache.parseUri("ESAllPrim?$top=1", new Parser());
+    cache.parseUri("ESAllPrim?$filter=PropertyDate eq 2013-09-25", new Parser());
+    cache.parseUri("ESAllPrim?$filter=PropertyInt16 eq -1", new Parser());
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void differentLiteralKinds() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+
+    cache.parseUri("ESAllPrim?$filter=PropertyString eq 1", new Parser());
+    UriInfo uriInfo = cache.parseUri("ESAllPrim?$filter=PropertyString eq '1'", new Parser());
+
+    assertEquals("<<PropertyString> eq <'1'>>", serializeFilter(uriInfo));
+    assertEquals(2, cache.size());
+  }
+
+  @Test(expected = UriParserException.class)
+  public void error() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+    cache.parseUri("ESAllPrim(1)", new Parser());
+    cache.parseUri("ESAllPrim(1", new Parser());
+  }
+
+  @Test
+  public void boundLiteralsAreTypedLikeParsedOnes() throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+    cache.parseUri("ESAllPrim?$filter=PropertyInt64 eq 1", new Parser());
+    final String input = "ESAllPrim?$filter=PropertyInt64 eq 12345678901";
+    UriInfo bound = cache.parseUri(input, new Parser());
+    assertEquals(1, cache.getHitCount());
+
+    final Literal boundLiteral = (Literal) ((Binary) bound.getFilterOption().getExpression()).getRightOperand();
+    final Literal parsedLiteral = (Literal) ((Binary) new Parser().parseUri(input, edm)
+        .getFilterOption().getExpression()).getRightOperand();
+    assertEquals("12345678901", boundLiteral.getText());
+    assertEquals(parsedLiteral.getType(), boundLiteral.getType());
+  }
+
+  private void assertSameAsParser(final String first, final String second) throws Exception {
+    UriTemplateCache cache = new UriTemplateCache(edm);
+    UriInfo firstInfo = cache.parseUri(first, new Parser());
+    UriInfo secondInfo = cache.parseUri(second, new Parser());
+
+    assertEquals(serializeFilter(new Parser().parseUri(first, edm)), serializeFilter(firstInfo));
+    assertEquals(serializeFilter(new Parser().parseUri(second, edm)), serializeFilter(secondInfo));
+    assertEquals(1, cache.getHitCount());
+    assertTrue(firstInfo.getFilterOption().getExpression() != secondInfo.getFilterOption().getExpression());
+  }
+
+  private String serializeFilter(final UriInfo uriInfo) throws Exception {
+    return FilterTreeToText.Serialize(uriInfo.getFilterOption());
+  }
+
+  private void assertKey(final UriInfo uriInfo, final int index, final String name, final String text)
+      throws Exception {
+    List<UriParameter> keys = ((UriResourceEntitySet) uriInfo.getUriResourceParts().get(index)).getKeyPredicates();
+    assertEquals(1, keys.size());
+    assertEquals(name, keys.get(0).getName());
+    assertEquals(text, keys.get(0).getText());
+    assertEquals("<" + text + ">", FilterTreeToText.Serialize(keys.get(0).getExpression()));
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntityImpl;
+import org.apache.olingo.commons.core.data.PropertyImpl;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class FilterCompilerTest {
+
+  private static final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+  private static final DataProvider data = new DataProvider(edm);
+
+  @Test
+  public void comparisonAndLogicalOperators() throws Exception {
+    assertFilter("ESAllPrim", "PropertyInt16 gt 0", 32767);
+    assertFilter("ESAllPrim", "PropertyInt16 le 0 and PropertyBoolean eq false", -32768, 0);
+    assertFilter("ESAllPrim", "PropertyInt16 eq 0 or PropertyByte eq 255", 32767, 0);
+    assertFilter("ESAllPrim", "PropertyString eq null");
+    assertFilter("ESAllPrim", "PropertyString ne null", 32767, -32768, 0);
+    assertFilter("ESAllPrim", "1 add 2 eq 3", 32767, -32768, 0);
+    assertFilter("ESAllPrim", "0 lt PropertyInt16", 32767);
+    assertFilter("ESAllPrim", "'' eq PropertyString", 0);
+    assertFilter("ESAllPrim", "PropertyString gt 'S'", -32768);
+    assertFilter("ESAllPrim", "PropertyDouble ge 0", 0);
+  }
+
+  @Test
+  public void numericTypes() throws Exception {
+    assertFilter("ESAllPrim", "PropertyDecimal eq 34", 32767);
+    assertFilter("ESAllPrim", "PropertyDecimal add 1 gt 34.5", 32767);
+    assertFilter("ESAllPrim", "PropertyDouble lt -1.0E10", 32767);
+    assertFilter("ESAllPrim", "PropertyInt16 mod 2 eq 1", 32767);
+    assertFilter("ESAllPrim", "PropertyInt64 sub 1 eq 9223372036854775806", 32767);
+    assertFilter("ESAllPrim", "round(PropertyDecimal div 3) eq 11", 32767);
+    assertFilter("ESAllPrim", "floor(PropertyDecimal div 3) eq -12", -32768);
+  }
+
+  @Test
+  public void stringFunctions() throws Exception {
+    assertFilter("ESAllPrim", "startswith(PropertyString,'First') or length(PropertyString) eq 0", 32767, 0);
+    assertFilter("ESAllPrim", "contains(tolower(PropertyString),'negative')", -32768);
+    assertFilter("ESAllPrim", "substring(PropertyString,6) eq 'Resource - positive values'", 32767);
+    assertFilter("ESAllPrim", "substring(PropertyString,0,5) eq 'First'", 32767);
+    assertFilter("ESAllPrim", "concat(PropertyString,'!') eq '!'", 0);
+    assertFilter("ESAllPrim", "indexof(PropertyString,'Resource') eq 7", -32768);
+  }
+
+  @Test
+  public void temporalTypes() throws Exception {
+    assertFilter("ESAllPrim", "year(PropertyDate) eq 2012", 32767);
+    assertFilter("ESAllPrim", "PropertyDate lt 2000-01-01", 0);
+    assertFilter("ESAllPrim", "PropertyDateTimeOffset gt 2005-12-03T00:00:00Z", 32767, -32768);
+    assertFilter("ESAllPrim", "hour(PropertyDateTimeOffset) eq 7 and minute(PropertyDateTimeOffset) eq 17", -32768);
+    assertFilter("ESAllPrim", "PropertyTimeOfDay lt 12:00:00", 32767, 0);
+    assertFilter("ESAllPrim", "PropertyDuration gt duration'PT7S'", -32768);
+    assertFilter("ESAllPrim", "PropertyGuid eq 01234567-89ab-cdef-0123-456789abcdef", 32767);
+  }
+
+  @Test
+  public void complexProperties() throws Exception {
+    assertFilter("ESCompAllPrim", "PropertyComp/PropertyInt16 eq 25", 7);
+    assertFilter("ESCompAllPrim", "fractionalseconds(PropertyComp/PropertyDateTimeOffset) gt 0.1", 32767, 0);
+  }
+
+  @Test
+  public void typeErrors() throws Exception {
+    assertError("PropertyInt16 eq 'text'", HttpStatusCode.BAD_REQUEST);
+    assertError("PropertyInt16 add 1", HttpStatusCode.BAD_REQUEST);
+    assertError("contains(PropertyInt16,'1')", HttpStatusCode.BAD_REQUEST);
+  }
+
+  @Test
+  public void createdByOData() throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$filter=PropertyInt16 lt 0", edm);
+    final EntityPredicate predicate = OData.newInstance().createFilterPredicate(uriInfo.getFilterOption());
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", predicate));
+  }
+
+  @Test
+  public void cachedPredicates() throws Exception {
+    final FilterPredicateCache cache = new FilterPredicateCache();
+    final EntityPredicate first = cache.compile(parseFilter("ESAllPrim", "PropertyInt16 lt 0"));
+    final EntityPredicate second = cache.compile(parseFilter("ESAllPrim", "PropertyInt16 lt 0"));
+    assertSame(first, second);
+    assertEquals(1, cache.getHitCount());
+
+    final EntityPredicate other = cache.compile(parseFilter("ESAllPrim", "PropertyInt16 lt 1"));
+    assertNotSame(first, other);
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", first));
+    assertEquals(Arrays.asList(-32768, 0), filter("ESAllPrim", other));
+    assertEquals(2, cache.size());
+
+    // the same path in another structure may have another type
+    assertNotSame(cache.compile(parseFilter("ESAllPrim", "PropertyString eq 'a'")),
+        cache.compile(parseFilter("ESCompAllPrim", "PropertyComp/PropertyString eq 'a'")));
+  }
+
+  @Test
+  public void nowIsNotCached() throws Exception {
+    final FilterPredicateCache cache = new FilterPredicateCache();
+    final EntityPredicate first = cache.compile(parseFilter("ESAllPrim", "PropertyDateTimeOffset lt now()"));
+    Thread.sleep(10);
+    final Entity entity = new EntityImpl();
+    entity.addProperty(new PropertyImpl(null, "PropertyDateTimeOffset", ValueType.PRIMITIVE,
+        new Timestamp(System.currentTimeMillis())));
+    Thread.sleep(10);
+    final EntityPredicate second = cache.compile(parseFilter("ESAllPrim", "PropertyDateTimeOffset lt now()"));
+
+    assertNotSame(first, second);
+    assertFalse(first.matches(entity));
+    assertTrue(second.matches(entity));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void errorsAreNotCached() throws Exception {
+    final FilterPredicateCache cache = new FilterPredicateCache();
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.compile(parseFilter("ESAllPrim", "PropertyInt16 eq 'text'"));
+        fail("Expected exception not thrown");
+      } catch (final ODataApplicationException e) {
+        assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+      }
+    }
+    assertEquals(0, cache.size());
+  }
+
+  private Expression parseFilter(final String entitySetName, final String filter) throws Exception {
+    return new Parser().parseUri(entitySetName + "?$filter=" + filter, edm).getFilterOption().getExpression();
+  }
+
+  private void assertFilter(final String entitySetName, final String filter, final Integer... expectedKeys)
+      throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri(entitySetName + "?$filter=" + filter, edm);
+    final EntityPredicate predicate = FilterCompiler.compile(uriInfo.getFilterOption().getExpression());
+    assertEquals(filter, Arrays.asList(expectedKeys), filter(entitySetName, predicate));
+  }
+
+  private void assertError(final String filter, final HttpStatusCode expectedStatus) throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$filter=" + filter, edm);
+    try {
+      FilterCompiler.compile(uriInfo.getFilterOption().getExpression());
+      fail("Expected exception not thrown for " + filter);
+    } catch (final ODataApplicationException e) {
+      assertEquals(expectedStatus.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private List<Integer> filter(final String entitySetName, final EntityPredicate predicate) throws Exception {
+    List<Integer> keys = new ArrayList<Integer>();
+    for (final Entity entity : data.readAll(edm.getEntityContainer(null).getEntitySet(entitySetName))
+        .getEntities()) {
+      if (predicate.matches(entity)) {
+        keys.add(((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+      }
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.core.data.EntityImpl;
+import org.apache.olingo.commons.core.data.PropertyImpl;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.EntityPredicate;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+
+/**
+ * Compares the evaluation of $filter expressions by compiled predicates ({@link FilterCompiler})
+ * with the evaluation by an interpreting {@link ExpressionVisitor} walking the expression tree for every entity,
+ * as processors typically implement it.
+ * <p>
+ * This is not a unit test; run it as Java application with the test class path of this module,
+ * optionally with the number of entities as argument.
+ */
+public class FilterEvaluationBenchmark {
+
+  private static final String[] FILTERS = {
+      "PropertyInt16 gt 100 and PropertyBoolean eq true",
+      "startswith(PropertyString,'Name 1') or PropertyDouble lt 0.5",
+      "PropertyInt32 mod 3 eq 0 and PropertyInt64 add 1 le 50000" };
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 10;
+
+  public static void main(final String[] args) throws Exception {
+    final int size = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+    final List<Entity> entities = createEntities(size);
+    final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+
+    for (final String filter : FILTERS) {
+      final Expression expression =
+          new Parser().parseUri("ESAllPrim?$filter=" + filter, edm).getFilterOption().getExpression();
+      final EntityPredicate compiled = FilterCompiler.compile(expression);
+      final EntityPredicate interpreted = new InterpretingPredicate(expression);
+
+      System.out.println(filter);
+      System.out.println(String.format(Locale.ROOT, "  interpreted: %8.1f ns/entity (%d matches)",
+          measure(interpreted, entities), count(interpreted, entities)));
+      System.out.println(String.format(Locale.ROOT, "  compiled:    %8.1f ns/entity (%d matches)",
+          measure(compiled, entities), count(compiled, entities)));
+    }
+  }
+
+  private static double measure(final EntityPredicate predicate, final List<Entity> entities) {
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      count(predicate, entities);
+    }
+    final long start = System.nanoTime();
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      count(predicate, entities);
+    }
+    return (double) (System.nanoTime() - start) / MEASURED_ROUNDS / entities.size();
+  }
+
+  private static int count(final EntityPredicate predicate, final List<Entity> entities) {
+    int count = 0;
+    for (final Entity entity : entities) {
+      if (predicate.matches(entity)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static List<Entity> createEntities(final int size) {
+    List<Entity> entities = new ArrayList<Entity>(size);
+    for (int i = 0; i < size; i++) {
+      Entity entity = new EntityImpl();
+      entity.addProperty(new PropertyImpl(null, "PropertyInt16", ValueType.PRIMITIVE, (short) (i % 30000)));
+      entity.addProperty(new PropertyImpl(null, "PropertyString", ValueType.PRIMITIVE, "Name " + i));
+      entity.addProperty(new PropertyImpl(null, "PropertyBoolean", ValueType.PRIMITIVE, i % 2 == 0));
+      entity.addProperty(new PropertyImpl(null, "PropertyInt32", ValueType.PRIMITIVE, i));
+      entity.addProperty(new PropertyImpl(null, "PropertyInt64", ValueType.PRIMITIVE, (long) i * 7));
+      entity.addProperty(new PropertyImpl(null, "PropertyDouble", ValueType.PRIMITIVE, (i % 100) / 100.0));
+      entities.add(entity);
+    }
+    return entities;
+  }
+
+  /** Evaluates the expression tree for every entity with boxed values and literals parsed on each visit. */
+  private static class InterpretingPredicate implements EntityPredicate, ExpressionVisitor<Object> {
+    private final Expression expression;
+    private Entity entity;
+
+    InterpretingPredicate(final Expression expression) {
+      this.expression = expression;
+    }
+
+    @Override
+    public boolean matches(final Entity entity) {
+      this.entity = entity;
+      try {
+        return Boolean.TRUE.equals(expression.accept(this));
+      } catch (final Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public Object visitBinaryOperator(final BinaryOperatorKind operator, final Object left, final Object right)
+        throws ExpressionVisitException {
+      switch (operator) {
+      case AND:
+        return (Boolean) left && (Boolean) right;
+      case OR:
+        return (Boolean) left || (Boolean) right;
+      case ADD:
+        return ((Number) left).longValue() + ((Number) right).longValue();
+      case MOD:
+        return ((Number) left).longValue() % ((Number) right).longValue();
+      default:
+        final int result = compare(left, right);
+        switch (operator) {
+        case EQ:
+          return result == 0;
+        case NE:
+          return result != 0;
+        case GT:
+          return result > 0;
+        case GE:
+          return result >= 0;
+        case LT:
+          return result < 0;
+        case LE:
+          return result <= 0;
+        default:
+          throw new ExpressionVisitException();
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(final Object left, final Object right) {
+      if (left instanceof Number && right instanceof Number) {
+        return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+      }
+      return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    @Override
+    public Object visitUnaryOperator(final UnaryOperatorKind operator, final Object operand) {
+      return operator == UnaryOperatorKind.NOT ? !(Boolean) operand : -((Number) operand).doubleValue();
+    }
+
+    @Override
+    public Object visitMethodCall(final MethodKind methodCall, final List<Object> parameters)
+        throws ExpressionVisitException {
+      switch (methodCall) {
+      case STARTSWITH:
+        return ((String) parameters.get(0)).startsWith((String) parameters.get(1));
+      case CONTAINS:
+        return ((String) parameters.get(0)).contains((String) parameters.get(1));
+      default:
+        throw new ExpressionVisitException();
+      }
+    }
+
+    @Override
+    public Object visitLiteral(final String literal) {
+      if (literal.startsWith("'")) {
+        return literal.substring(1, literal.length() - 1);
+      } else if ("true".equals(literal) || "false".equals(literal)) {
+        return Boolean.valueOf(literal);
+      } else if (literal.contains(".")) {
+        return Double.valueOf(literal);
+      } else {
+        return Long.valueOf(literal);
+      }
+    }
+
+    @Override
+    public Object visitMember(final UriInfoResource member) {
+      final String name = ((UriResourceProperty) member.getUriResourceParts().get(0)).getProperty().getName();
+      return entity.getProperty(name).getValue();
+    }
+
+    @Override
+    public Object visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+        final Expression expression) throws ExpressionVisitException {
+      throw new ExpressionVisitException();
+    }
+
+    @Override
+    public Object visitAlias(final String aliasName) throws ExpressionVisitException {
+      throw new ExpressionVisitException();
+    }
+
+    @Override
+    public Object visitTypeLiteral(final EdmType type) throws ExpressionVisitException {
+      throw new ExpressionVisitException();
+    }
+
+    @Override
+    public Object visitLambdaReference(final String variableName) throws ExpressionVisitException {
+      throw new ExpressionVisitException();
+    }
+
+    @Override
+    public Object visitEnum(final EdmEnumType type, final List<String> enumValues) throws ExpressionVisitException {
+      throw new ExpressionVisitException();
+    }
+  }
+}
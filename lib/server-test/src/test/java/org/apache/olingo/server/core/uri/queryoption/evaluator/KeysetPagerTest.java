@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.Pager;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.hamcrest.CoreMatchers;
+import org.junit.Test;
+
+public class KeysetPagerTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata/";
+  private static final byte[] KEY = "secret".getBytes();
+
+  private static final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+  private static final DataProvider data = new DataProvider(edm);
+
+  @Test
+  public void pages() throws Exception {
+    final List<List<Object>> pages = readAllPages("ESTwoPrim?$orderby=PropertyString%20desc", 2, 100);
+    assertEquals(Arrays.asList(
+        Arrays.<Object> asList("Test String4", "Test String3"),
+        Arrays.<Object> asList("Test String2", "Test String1")),
+        pages);
+  }
+
+  @Test
+  public void pagesOrderedByKey() throws Exception {
+    final List<List<Object>> pages = readAllPages("ESAllPrim", 2, 100);
+    assertEquals(Arrays.asList(
+        Arrays.<Object> asList("Second Resource - negative values", ""),
+        Arrays.<Object> asList("First Resource - positive values")),
+        pages);
+  }
+
+  @Test
+  public void allKinds() throws Exception {
+    final List<List<Object>> pages = readAllPages("ESAllPrim?$orderby=PropertyBoolean,PropertyDecimal,"
+        + "PropertyDouble,PropertyDate,PropertyDateTimeOffset,PropertyDuration,PropertyGuid,PropertyTimeOfDay,"
+        + "PropertyString", 1, 100);
+    assertEquals(3, pages.size());
+    List<Object> all = new ArrayList<Object>();
+    for (final List<Object> page : pages) {
+      assertEquals(1, page.size());
+      all.addAll(page);
+    }
+    assertEquals(3, new HashSet<Object>(all).size());
+  }
+
+  @Test
+  public void topAndSkip() throws Exception {
+    final List<List<Object>> pages = readAllPages("ESTwoPrim?$orderby=PropertyString&$skip=1&$top=2", 1, 100);
+    assertEquals(Arrays.asList(
+        Arrays.<Object> asList("Test String2"),
+        Arrays.<Object> asList("Test String3")),
+        pages);
+  }
+
+  @Test
+  public void topZero() throws Exception {
+    final List<List<Object>> pages = readAllPages("ESTwoPrim?$orderby=PropertyString&$top=0", 1, 100);
+    assertEquals(Arrays.asList(Collections.emptyList()), pages);
+  }
+
+  @Test
+  public void negativeTopAndSkip() throws Exception {
+    expectInvalid("ESTwoPrim?$top=-1");
+    expectInvalid("ESTwoPrim?$skip=-1");
+  }
+
+  @Test
+  public void maximumPageSize() throws Exception {
+    Pager pager = createPager("ESTwoPrim", 10, 3);
+    assertEquals(3, pager.getPageSize());
+    assertNull(pager.getPreferenceApplied());
+    pager = createPager("ESTwoPrim", 3, 10);
+    assertEquals(3, pager.getPageSize());
+    assertEquals("odata.maxpagesize=3", pager.getPreferenceApplied());
+    pager = createPager("ESTwoPrim", null, 10);
+    assertEquals(10, pager.getPageSize());
+    assertNull(pager.getPreferenceApplied());
+  }
+
+  @Test
+  public void cursor() throws Exception {
+    final Pager pager = createPager("ESTwoPrim?$orderby=PropertyString", 1, 100);
+    assertNull(pager.getCursor());
+    final URI next = pager.getPage(getEntities("ESTwoPrim", pager).iterator()).getNext();
+    assertEquals(Arrays.<Object> asList("Test String1", 32766L),
+        createPager(next.toString().substring(SERVICE_ROOT.length()), 1, 100).getCursor());
+  }
+
+  @Test
+  public void nextLinkKeepsOptions() throws Exception {
+    Pager pager = createPager("ESTwoPrim?$orderby=PropertyString&$format=json", 1, 100);
+    URI next = pager.getPage(getEntities("ESTwoPrim", pager).iterator()).getNext();
+    assertThat(next.toString(), CoreMatchers.startsWith(SERVICE_ROOT
+        + "ESTwoPrim?$orderby=PropertyString&$format=json&$skiptoken="));
+    pager = createPager(next.toString().substring(SERVICE_ROOT.length()), 1, 100);
+    next = pager.getPage(getEntities("ESTwoPrim", pager).iterator()).getNext();
+    assertThat(next.toString(), CoreMatchers.startsWith(SERVICE_ROOT
+        + "ESTwoPrim?$orderby=PropertyString&$format=json&$skiptoken="));
+    assertEquals(1, next.toString().split("skiptoken").length - 1);
+  }
+
+  @Test
+  public void tamperedToken() throws Exception {
+    final Pager pager = createPager("ESTwoPrim", 1, 100);
+    final String next = pager.getPage(getEntities("ESTwoPrim", pager).iterator()).getNext().toString();
+    final char last = next.charAt(next.length() - 1);
+    expectInvalid(next.substring(SERVICE_ROOT.length(), next.length() - 1) + (last == 'A' ? 'B' : 'A'));
+    expectInvalid("ESTwoPrim?$skiptoken=abc");
+  }
+
+  @Test
+  public void tokenForOtherOrder() throws Exception {
+    final Pager pager = createPager("ESTwoPrim?$orderby=PropertyString", 1, 100);
+    final String next = pager.getPage(getEntities("ESTwoPrim", pager).iterator()).getNext().toString();
+    expectInvalid(next.substring(SERVICE_ROOT.length()).replace("$orderby=PropertyString", "$orderby=PropertyInt16"));
+  }
+
+  private void expectInvalid(final String path) throws Exception {
+    try {
+      createPager(path, 1, 100);
+      fail("Expected an exception.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  /** Follows the next links and returns the property values of the pages' entities. */
+  private List<List<Object>> readAllPages(final String path, final int preferredPageSize, final int maxPageSize)
+      throws Exception {
+    List<List<Object>> pages = new ArrayList<List<Object>>();
+    String next = path;
+    while (next != null) {
+      final Pager pager = createPager(next, preferredPageSize, maxPageSize);
+      final EntitySet page = pager.getPage(getEntities(path, pager).iterator());
+      List<Object> values = new ArrayList<Object>();
+      for (final Entity entity : page.getEntities()) {
+        values.add(entity.getProperty("PropertyString").getValue());
+      }
+      pages.add(values);
+      next = page.getNext() == null ? null : page.getNext().toString().substring(SERVICE_ROOT.length());
+      if (pages.size() > 10) {
+        fail("Too many pages.");
+      }
+    }
+    return pages;
+  }
+
+  private Pager createPager(final String path, final Integer preferredPageSize, final int maxPageSize)
+      throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri(URLDecoder.decode(path, "UTF-8"), edm);
+    ODataRequest request = new ODataRequest();
+    request.setRawRequestUri(SERVICE_ROOT + path);
+    if (preferredPageSize != null) {
+      request.addHeader(HttpHeader.PREFER,
+          Arrays.asList("return=minimal, odata.maxpagesize=" + preferredPageSize));
+    }
+    return KeysetPager.create(getEntitySet(path).getEntityType(), uriInfo, request, maxPageSize, KEY);
+  }
+
+  private static EdmEntitySet getEntitySet(final String path) {
+    return edm.getEntityContainer(null).getEntitySet(path.split("\\?")[0]);
+  }
+
+  private static List<Entity> getEntities(final String path, final Pager pager) throws Exception {
+    List<Entity> entities = new ArrayList<Entity>(data.readAll(getEntitySet(path)).getEntities());
+    Collections.sort(entities, pager.getComparator());
+    return entities;
+  }
+}
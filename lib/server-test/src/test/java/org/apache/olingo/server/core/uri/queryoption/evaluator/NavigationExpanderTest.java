@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntitySet;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntityImpl;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.processor.NavigationLoader;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class NavigationExpanderTest {
+
+  private static final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+  private static final DataProvider data = new DataProvider(edm);
+
+  @Test
+  public void collectionWithNestedOptions() throws Exception {
+    final List<Entity> entities = getEntities("ESAllPrim");
+    final RecordingLoader loader = new RecordingLoader();
+    expand("ESAllPrim", entities, "NavPropertyETTwoPrimMany($filter=PropertyInt16 gt 0;"
+        + "$orderby=PropertyInt16 desc;$skip=1;$top=1;$count=true)", loader);
+
+    assertEquals(Arrays.asList("NavPropertyETTwoPrimMany:3"), loader.calls);
+    for (final Entity entity : entities) {
+      final EntitySet related = entity.getNavigationLink("NavPropertyETTwoPrimMany").getInlineEntitySet();
+      assertEquals(Integer.valueOf(2), related.getCount());
+      assertEquals(1, related.getEntities().size());
+      assertEquals(32766, related.getEntities().get(0).getProperty("PropertyInt16").getValue());
+    }
+  }
+
+  @Test
+  public void nestedExpansionLoadsOncePerLevel() throws Exception {
+    final List<Entity> entities = getEntities("ESAllPrim");
+    final RecordingLoader loader = new RecordingLoader();
+    expand("ESAllPrim", entities, "NavPropertyETTwoPrimOne($expand=NavPropertyETAllPrimOne),"
+        + "NavPropertyETTwoPrimMany", loader);
+
+    // All three sources share the same related entity, so the second level has only one source.
+    assertEquals(Arrays.asList("NavPropertyETTwoPrimOne:3", "NavPropertyETAllPrimOne:1", "NavPropertyETTwoPrimMany:3"),
+        loader.calls);
+    final Entity related = entities.get(2).getNavigationLink("NavPropertyETTwoPrimOne").getInlineEntity();
+    assertSame(related, entities.get(0).getNavigationLink("NavPropertyETTwoPrimOne").getInlineEntity());
+    assertEquals(getEntities("ESTwoPrim").get(0).getProperty("PropertyInt16"), related.getProperty("PropertyInt16"));
+    assertNotNull(related.getNavigationLink("NavPropertyETAllPrimOne").getInlineEntity());
+  }
+
+  @Test
+  public void sharedEntitiesAreNotModified() throws Exception {
+    final List<Entity> shared = getEntities("ESAllPrim");
+    final List<Entity> entities = new ArrayList<Entity>(shared);
+    expand("ESAllPrim", entities, "NavPropertyETTwoPrimOne($expand=NavPropertyETAllPrimOne)", new RecordingLoader());
+
+    for (int index = 0; index < shared.size(); index++) {
+      assertNotSame(shared.get(index), entities.get(index));
+      assertSame(shared.get(index).getProperty("PropertyInt16"), entities.get(index).getProperty("PropertyInt16"));
+      assertNotNull(entities.get(index).getNavigationLink("NavPropertyETTwoPrimOne").getInlineEntity());
+    }
+    // Neither the sources nor the loaded entities of the data provider carry inline content.
+    for (final String entitySetName : Arrays.asList("ESAllPrim", "ESTwoPrim")) {
+      for (final Entity entity : getEntities(entitySetName)) {
+        for (final Link link : entity.getNavigationLinks()) {
+          assertNull(link.getInlineEntity());
+          assertNull(link.getInlineEntitySet());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void levels() throws Exception {
+    final List<Entity> entities = Arrays.<Entity> asList(new EntityImpl(), new EntityImpl());
+    final RecordingLoader loader = new RecordingLoader();
+    expand("ESKeyNav", entities, "NavPropertyETKeyNavOne($levels=3)", loader);
+
+    assertEquals(Arrays.asList("NavPropertyETKeyNavOne:2", "NavPropertyETKeyNavOne:2", "NavPropertyETKeyNavOne:2"),
+        loader.calls);
+    Entity entity = entities.get(0);
+    for (int level = 0; level < 3; level++) {
+      entity = entity.getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity();
+    }
+    assertNotNull(entity);
+    assertNull(entity.getNavigationLink("NavPropertyETKeyNavOne"));
+  }
+
+  @Test
+  public void createdByOData() throws Exception {
+    final List<Entity> entities = getEntities("ESAllPrim");
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$expand=NavPropertyETTwoPrimOne", edm);
+    OData.newInstance().expand(getEntitySet("ESAllPrim").getEntityType(), entities, uriInfo.getExpandOption(),
+        new RecordingLoader());
+    assertNotNull(entities.get(0).getNavigationLink("NavPropertyETTwoPrimOne").getInlineEntity());
+  }
+
+  @Test
+  public void references() throws Exception {
+    try {
+      expand("ESAllPrim", getEntities("ESAllPrim"), "NavPropertyETTwoPrimOne/$ref", new RecordingLoader());
+      fail("Expected an exception.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void negativeTopAndSkip() throws Exception {
+    for (final String option : Arrays.asList("$top=-1", "$skip=-1")) {
+      try {
+        expand("ESAllPrim", getEntities("ESAllPrim"), "NavPropertyETTwoPrimMany(" + option + ")",
+            new RecordingLoader());
+        fail("Expected an exception for " + option);
+      } catch (final ODataApplicationException e) {
+        assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+      }
+    }
+  }
+
+  private void expand(final String entitySetName, final List<Entity> entities, final String expand,
+      final NavigationLoader loader) throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri(entitySetName + "?$expand=" + expand, edm);
+    NavigationExpander.expand(getEntitySet(entitySetName).getEntityType(), entities, uriInfo.getExpandOption(),
+        loader);
+  }
+
+  private static EdmEntitySet getEntitySet(final String entitySetName) {
+    return edm.getEntityContainer(null).getEntitySet(entitySetName);
+  }
+
+  private static List<Entity> getEntities(final String entitySetName) throws Exception {
+    return new ArrayList<Entity>(data.readAll(getEntitySet(entitySetName)).getEntities());
+  }
+
+  /**
+   * Relates every source to all entities of the target entity set, or to a new entity if there is no test data;
+   * records the navigation property and the number of sources of each call.
+   */
+  private static class RecordingLoader implements NavigationLoader {
+    private final List<String> calls = new ArrayList<String>();
+
+    @Override
+    public List<List<Entity>> loadNavigation(final EdmNavigationProperty navigationProperty,
+        final List<Entity> sources, final ExpandItem expandItem) throws ODataApplicationException {
+      calls.add(navigationProperty.getName() + ':' + sources.size());
+      final String typeName = navigationProperty.getType().getName();
+      List<Entity> targets = null;
+      if (typeName.endsWith("Prim")) {
+        try {
+          targets = getEntities("ES" + typeName.substring(2));
+        } catch (final Exception e) {
+          throw new ODataApplicationException(e.getMessage(), 500, null);
+        }
+      }
+      List<List<Entity>> result = new ArrayList<List<Entity>>();
+      for (int i = 0; i < sources.size(); i++) {
+        final List<Entity> related = targets == null ? Arrays.<Entity> asList(new EntityImpl()) : targets;
+        result.add(navigationProperty.isCollection() ? related : related.subList(0, 1));
+      }
+      return result;
+    }
+  }
+}
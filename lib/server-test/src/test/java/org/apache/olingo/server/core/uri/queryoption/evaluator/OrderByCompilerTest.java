@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class OrderByCompilerTest {
+
+  private static final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+  private static final DataProvider data = new DataProvider(edm);
+
+  @Test
+  public void singleProperty() throws Exception {
+    assertOrder("ESAllPrim", "PropertyInt16", -32768, 0, 32767);
+    assertOrder("ESAllPrim", "PropertyInt16 desc", 32767, 0, -32768);
+    assertOrder("ESAllPrim", "PropertyString", 0, 32767, -32768);
+    assertOrder("ESAllPrim", "PropertyDateTimeOffset", 0, -32768, 32767);
+  }
+
+  @Test
+  public void expressionsAndSeveralItems() throws Exception {
+    assertOrder("ESAllPrim", "PropertyBoolean desc,length(PropertyString)", 32767, 0, -32768);
+    assertOrder("ESCompAllPrim", "PropertyComp/PropertyInt16 mod 7", 0, 32767, 7);
+  }
+
+  @Test
+  public void createdByOData() throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$orderby=PropertyDecimal desc", edm);
+    List<Entity> entities = getEntities("ESAllPrim");
+    Collections.sort(entities, OData.newInstance().createOrderByComparator(uriInfo.getOrderByOption()));
+    assertEquals(Arrays.asList(32767, 0, -32768), getKeys(entities));
+  }
+
+  private void assertOrder(final String entitySetName, final String orderBy, final Integer... expectedKeys)
+      throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri(entitySetName + "?$orderby=" + orderBy, edm);
+    List<Entity> entities = getEntities(entitySetName);
+    Collections.sort(entities, OrderByCompiler.compile(uriInfo.getOrderByOption().getOrders()));
+    assertEquals(orderBy, Arrays.asList(expectedKeys), getKeys(entities));
+  }
+
+  private List<Entity> getEntities(final String entitySetName) throws Exception {
+    return new ArrayList<Entity>(
+        data.readAll(edm.getEntityContainer(null).getEntitySet(entitySetName)).getEntities());
+  }
+
+  private List<Integer> getKeys(final List<Entity> entities) {
+    List<Integer> keys = new ArrayList<Integer>();
+    for (final Entity entity : entities) {
+      keys.add(((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.data.EntityImpl;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.edm.provider.Mapping;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SqlQuery;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.edm.provider.EdmProviderImpl;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.ExpressionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.UnaryImpl;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SqlTranslatorTest {
+
+  private static final Edm edm = new EdmProviderImpl(new EdmTechProvider());
+
+  @Test
+  public void allProperties() throws Exception {
+    final SqlQuery query = translate("ESAllPrim", "");
+    assertTrue(query.getStatement().startsWith("SELECT PropertyInt16, PropertyString, PropertyBoolean, "));
+    assertTrue(query.getStatement().endsWith(", PropertyTimeOfDay FROM T"));
+    assertEquals(16, query.getSelectedProperties().size());
+    assertEquals(Collections.emptyList(), query.getParameters());
+    assertNull(query.getCountStatement());
+    assertNull(query.getCountParameters());
+  }
+
+  @Test
+  public void filter() throws Exception {
+    assertWhere("((PropertyInt16 > ?) AND (PropertyString LIKE ? ESCAPE '\\'))",
+        "PropertyInt16 gt 5 and startswith(PropertyString,'a_b')", 5L, "a\\_b%");
+    assertWhere("(PropertyString <> ? OR PropertyString IS NULL)", "PropertyString ne 'x'", "x");
+    assertWhere("(PropertyString IS NULL)", "PropertyString eq null");
+    assertWhere("(PropertyDecimal <= (PropertyDouble * ?))", "PropertyDecimal le PropertyDouble mul 1.5",
+        new java.math.BigDecimal("1.5"));
+    assertWhere("((POSITION(? IN LOWER(PropertyString)) - 1) = ?)", "indexof(tolower(PropertyString),'b') eq 1",
+        "b", 1L);
+    assertWhere("(EXTRACT(YEAR FROM PropertyDate) = ?)", "year(PropertyDate) eq 2012", 2012L);
+    assertWhere("(PropertyDate = ?)", "PropertyDate eq 2012-12-03", java.sql.Date.valueOf("2012-12-03"));
+  }
+
+  @Test
+  public void nullsLikeInMemory() throws Exception {
+    assertNegatedWhere("(NOT (PropertyString = ? AND PropertyString IS NOT NULL))", "PropertyString eq 'x'", "x");
+    assertNegatedWhere("(NOT (PropertyString <> ? OR PropertyString IS NULL))", "PropertyString ne 'x'", "x");
+    assertNegatedWhere("(NOT ((PropertyInt16 > ? AND PropertyInt16 IS NOT NULL) AND PropertyBoolean))",
+        "PropertyInt16 gt 1 and PropertyBoolean", 1L);
+    assertWhere("(PropertyInt16 = PropertyInt32 OR (PropertyInt16 IS NULL AND PropertyInt32 IS NULL))",
+        "PropertyInt16 eq PropertyInt32");
+    assertWhere("(PropertyInt16 <> PropertyInt32 OR (PropertyInt16 IS NULL AND PropertyInt32 IS NOT NULL)"
+        + " OR (PropertyInt16 IS NOT NULL AND PropertyInt32 IS NULL))",
+        "PropertyInt16 ne PropertyInt32");
+    assertNegatedWhere("(NOT ((PropertyInt16 <> PropertyInt32"
+        + " AND PropertyInt16 IS NOT NULL AND PropertyInt32 IS NOT NULL)"
+        + " OR (PropertyInt16 IS NULL AND PropertyInt32 IS NOT NULL)"
+        + " OR (PropertyInt16 IS NOT NULL AND PropertyInt32 IS NULL)))",
+        "PropertyInt16 ne PropertyInt32");
+    assertNegatedWhere("(NOT (PropertyInt16 < PropertyInt32"
+        + " AND PropertyInt16 IS NOT NULL AND PropertyInt32 IS NOT NULL))",
+        "PropertyInt16 lt PropertyInt32");
+    assertWhere("(1 = 0)", "null ge null");
+
+    // The rows selected above with null values are those the in-memory evaluation selects, too.
+    final Entity empty = new EntityImpl();
+    assertTrue(FilterCompiler.compile(not("PropertyString eq 'x'")).matches(empty));
+    assertFalse(FilterCompiler.compile(not("PropertyString ne 'x'")).matches(empty));
+    assertTrue(FilterCompiler.compile(parse("PropertyInt16 eq PropertyInt32")).matches(empty));
+    assertFalse(FilterCompiler.compile(parse("PropertyInt16 ne PropertyInt32")).matches(empty));
+    assertTrue(FilterCompiler.compile(not("PropertyInt16 lt PropertyInt32")).matches(empty));
+    assertFalse(FilterCompiler.compile(parse("null ge null")).matches(empty));
+  }
+
+  @Test
+  public void orderPageCountAndSelect() throws Exception {
+    final SqlQuery query = translate("ESAllPrim", "$select=PropertyString&$filter=PropertyInt32 mod 2 eq 0"
+        + "&$orderby=PropertyString desc&$top=10&$skip=20&$count=true");
+    assertEquals("SELECT PropertyInt16, PropertyString FROM T WHERE (MOD(PropertyInt32, ?) = ?)"
+        + " ORDER BY PropertyString DESC, PropertyInt16 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+        query.getStatement());
+    assertEquals(Arrays.<Object> asList(2L, 0L, 20, 10), query.getParameters());
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyString"), query.getSelectedProperties());
+    assertEquals("SELECT COUNT(*) FROM T WHERE (MOD(PropertyInt32, ?) = ?)", query.getCountStatement());
+    assertEquals(Arrays.<Object> asList(2L, 0L), query.getCountParameters());
+
+    assertTrue(translate("ESAllPrim", "$top=5").getStatement()
+        .endsWith(" FROM T ORDER BY PropertyInt16 FETCH FIRST ? ROWS ONLY"));
+  }
+
+  @Test
+  public void complexProperties() throws Exception {
+    final SqlQuery query = translate("ESCompAllPrim",
+        "$select=PropertyComp/PropertyString&$orderby=PropertyComp/PropertyInt16");
+    assertEquals("SELECT PropertyInt16, PropertyComp_PropertyString FROM T ORDER BY PropertyComp_PropertyInt16",
+        query.getStatement());
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyComp/PropertyString"), query.getSelectedProperties());
+  }
+
+  @Test
+  public void mappedColumnNames() throws Exception {
+    EdmProperty complex = mock(EdmProperty.class);
+    when(complex.getName()).thenReturn("PropertyComp");
+    EdmProperty primitive = mock(EdmProperty.class);
+    when(primitive.getName()).thenReturn("PropertyInt16");
+    when(primitive.getMapping()).thenReturn(new Mapping().setInternalName("INT16"));
+    assertEquals("PropertyComp_INT16", SqlTranslator.getColumnName(new EdmProperty[] { complex, primitive }));
+  }
+
+  @Test
+  public void createdByOData() throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$filter=PropertyBoolean&$select=PropertyInt16", edm);
+    final SqlQuery query = OData.newInstance().createSqlQuery("T",
+        edm.getEntityContainer(null).getEntitySet("ESAllPrim").getEntityType(), uriInfo);
+    assertEquals("SELECT PropertyInt16 FROM T WHERE PropertyBoolean", query.getStatement());
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    assertStatus(HttpStatusCode.NOT_IMPLEMENTED, "$filter=endswith(PropertyString,PropertyString)");
+    assertStatus(HttpStatusCode.NOT_IMPLEMENTED, "$filter=PropertyDate add duration'P1D' eq PropertyDate");
+    assertStatus(HttpStatusCode.BAD_REQUEST, "$filter=PropertyInt16 eq 'a'");
+    assertStatus(HttpStatusCode.BAD_REQUEST, "$filter=PropertyInt16 add 1");
+  }
+
+  private SqlQuery translate(final String entitySetName, final String options) throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri(entitySetName + (options.isEmpty() ? "" : "?" + options), edm);
+    return SqlTranslator.translate("T", edm.getEntityContainer(null).getEntitySet(entitySetName).getEntityType(),
+        uriInfo);
+  }
+
+  private void assertWhere(final String expectedCondition, final String filter, final Object... expectedParameters)
+      throws Exception {
+    final SqlQuery query = translate("ESAllPrim", "$select=PropertyInt16&$filter=" + filter);
+    assertEquals(filter, "SELECT PropertyInt16 FROM T WHERE " + expectedCondition, query.getStatement());
+    assertEquals(filter, Arrays.asList(expectedParameters), query.getParameters());
+  }
+
+  /** Translates the negated filter; the parser does not support <code>not</code> yet. */
+  private void assertNegatedWhere(final String expectedCondition, final String filter,
+      final Object... expectedParameters) throws Exception {
+    final UriInfo uriInfo = new Parser().parseUri("ESAllPrim?$select=PropertyInt16&$filter=" + filter, edm);
+    ((FilterOptionImpl) uriInfo.getFilterOption()).setExpression(not(filter));
+    final SqlQuery query = SqlTranslator.translate("T",
+        edm.getEntityContainer(null).getEntitySet("ESAllPrim").getEntityType(), uriInfo);
+    assertEquals(filter, "SELECT PropertyInt16 FROM T WHERE " + expectedCondition, query.getStatement());
+    assertEquals(filter, Arrays.asList(expectedParameters), query.getParameters());
+  }
+
+  private ExpressionImpl parse(final String filter) throws Exception {
+    return (ExpressionImpl) new Parser().parseUri("ESAllPrim?$filter=" + filter, edm).getFilterOption()
+        .getExpression();
+  }
+
+  private UnaryImpl not(final String filter) throws Exception {
+    final UnaryImpl not = new UnaryImpl();
+    not.setOperator(UnaryOperatorKind.NOT);
+    not.setOperand(parse(filter));
+    return not;
+  }
+
+  private void assertStatus(final HttpStatusCode expectedStatus, final String options) throws Exception {
+    try {
+      translate("ESAllPrim", options);
+      fail("Expected an exception for " + options);
+    } catch (final ODataApplicationException e) {
+      assertEquals(options, expectedStatus.getStatusCode(), e.getStatusCode());
+    }
+  }
+}